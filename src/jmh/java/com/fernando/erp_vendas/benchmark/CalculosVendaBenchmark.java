@@ -0,0 +1,60 @@
+package com.fernando.erp_vendas.benchmark;
+
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 🆕 CÁLCULOS FINANCEIROS DA VENDA sobre listas grandes (lucro líquido e ROI, como nos relatórios)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculosVendaBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    private List<Venda> vendas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        User user = DadosSinteticos.usuario();
+        Produto produto = DadosSinteticos.produto(user);
+        vendas = DadosSinteticos.vendas(linhas, produto, user);
+    }
+
+    @Benchmark
+    public double lucroLiquidoTotal() {
+        double total = 0;
+        for (Venda venda : vendas) {
+            total += venda.calcularLucroLiquido();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double roiMedio() {
+        double soma = 0;
+        for (Venda venda : vendas) {
+            soma += venda.calcularROI();
+        }
+        return soma / vendas.size();
+    }
+}
@@ -0,0 +1,76 @@
+package com.fernando.erp_vendas.benchmark;
+
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// 🆕 DADOS SINTÉTICOS DOS BENCHMARKS (sem banco): entidades em memória, com semente fixa
+// para que execuções de versões diferentes meçam exatamente os mesmos dados.
+// Escala de 1 mil a 10 milhões de linhas; acima de ~1 milhão aumente o heap do fork
+// (-Djmh.args="-jvmArgsAppend -Xmx8g ...").
+public final class DadosSinteticos {
+
+    private static final long SEMENTE = 42L;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String[] PLATAFORMAS = {"AMAZON", "MERCADO_LIVRE", "SHOPEE"};
+
+    private DadosSinteticos() {
+    }
+
+    public static User usuario() {
+        User user = new User("benchmark@erp.local", "x", "Benchmark");
+        user.setId(1L);
+        return user;
+    }
+
+    public static Produto produto(User user) {
+        Produto produto = new Produto("Produto benchmark", "BENCH-001", "B000BENCH1", null, 5, user);
+        produto.setId(1L);
+        return produto;
+    }
+
+    // Vendas com preços, frete, tarifa e custos variados (algumas com custo zero, para o ROI)
+    public static List<Venda> vendas(int quantidade, Produto produto, User user) {
+        SplittableRandom aleatorio = new SplittableRandom(SEMENTE);
+        List<Venda> vendas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            int unidades = 1 + aleatorio.nextInt(5);
+            double preco = centavos(aleatorio, 20, 500) * unidades;
+            Venda venda = new Venda("PED-" + i, PLATAFORMAS[i % PLATAFORMAS.length], unidades, produto,
+                    preco, centavos(aleatorio, 0, 30), centavos(aleatorio, 0, 25), preco * 0.12,
+                    i % 50 == 0 ? 0.0 : centavos(aleatorio, 10, 200) * unidades, centavos(aleatorio, 0, 5), user);
+            venda.setId((long) i + 1);
+            venda.setData(INICIO.plusMinutes(i));
+            vendas.add(venda);
+        }
+        return vendas;
+    }
+
+    // Lotes em ordem PEPS (data de entrada crescente), com saldo entre 1 e 50 unidades
+    public static List<EntradaEstoque> lotes(int quantidade, Produto produto, User user) {
+        SplittableRandom aleatorio = new SplittableRandom(SEMENTE);
+        List<EntradaEstoque> lotes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            int unidades = 1 + aleatorio.nextInt(50);
+            EntradaEstoque lote = new EntradaEstoque(produto, unidades,
+                    BigDecimal.valueOf(centavos(aleatorio, 5, 100) * unidades).setScale(2, RoundingMode.HALF_UP),
+                    "Fornecedor", "COMPRA-" + i, "Produto", null, user);
+            lote.setId((long) i + 1);
+            lote.setDataEntrada(INICIO.plusHours(i));
+            lotes.add(lote);
+        }
+        return lotes;
+    }
+
+    private static double centavos(SplittableRandom aleatorio, int minimo, int maximo) {
+        return (minimo * 100 + aleatorio.nextInt((maximo - minimo) * 100 + 1)) / 100.0;
+    }
+}
@@ -0,0 +1,98 @@
+package com.fernando.erp_vendas.benchmark;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 🆕 REPRESENTAÇÃO DO DINHEIRO: Double (antigo Venda) x BigDecimal (antigo custo PEPS) x centavos em long
+// Mesma conta nas três formas — lucro líquido somado de todas as vendas, como no dashboard —
+// sobre os mesmos dados sintéticos. Os campos Double/BigDecimal ficam em arrays de objetos, como ficavam
+// nas entidades (cada leitura desreferencia um objeto na heap).
+// Alocação por operação: -Djmh.args="DinheiroBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DinheiroBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int linhas;
+
+    private List<Venda> vendas;
+
+    // Campos na ordem: preço, frete cliente, envio, tarifa, custo PEPS, despesas
+    private Double[][] reais;
+    private BigDecimal[][] decimais;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        User user = DadosSinteticos.usuario();
+        Produto produto = DadosSinteticos.produto(user);
+        vendas = DadosSinteticos.vendas(linhas, produto, user);
+
+        reais = new Double[linhas][];
+        decimais = new BigDecimal[linhas][];
+        for (int i = 0; i < linhas; i++) {
+            Venda venda = vendas.get(i);
+            reais[i] = new Double[]{venda.getPrecoVenda(), venda.getFretePagoPeloCliente(), venda.getCustoEnvio(),
+                    venda.getTarifaPlataforma(), venda.getCustoProdutoVendido(), venda.getDespesasOperacionais()};
+            decimais[i] = new BigDecimal[reais[i].length];
+            for (int c = 0; c < reais[i].length; c++) {
+                decimais[i][c] = BigDecimal.valueOf(reais[i][c]);
+            }
+        }
+    }
+
+    // Antes: soma em double (acumula erro de arredondamento binário)
+    @Benchmark
+    public double lucroLiquidoDouble() {
+        double total = 0;
+        for (Double[] v : reais) {
+            double faturamento = v[0] + v[1];
+            double custoEfetivo = v[4] + v[2] + v[3];
+            total += faturamento - custoEfetivo - v[5];
+        }
+        return total;
+    }
+
+    // Antes (caminho exato): BigDecimal, um objeto novo por operação
+    @Benchmark
+    public BigDecimal lucroLiquidoBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal[] v : decimais) {
+            BigDecimal faturamento = v[0].add(v[1]);
+            BigDecimal custoEfetivo = v[4].add(v[2]).add(v[3]);
+            total = total.add(faturamento.subtract(custoEfetivo).subtract(v[5]));
+        }
+        return total;
+    }
+
+    // Agora: centavos em long direto da entidade, sem alocação
+    @Benchmark
+    public long lucroLiquidoCentavos() {
+        long total = 0;
+        for (Venda venda : vendas) {
+            total = Dinheiro.somar(total, venda.calcularLucroLiquidoCentavos());
+        }
+        return total;
+    }
+}
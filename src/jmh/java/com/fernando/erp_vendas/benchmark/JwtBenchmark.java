@@ -0,0 +1,55 @@
+package com.fernando.erp_vendas.benchmark;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.service.JwtService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 🆕 JWT: geração, parse (assinatura + expiração) e validação do token, o trabalho que
+// cada requisição autenticada faz quando o token não está no TokenCacheService
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        jwtService = new JwtService();
+        user = DadosSinteticos.usuario();
+        token = jwtService.generateToken(user.getEmail());
+    }
+
+    @Benchmark
+    public String gerarToken() {
+        return jwtService.generateToken(user.getEmail());
+    }
+
+    @Benchmark
+    public Claims extrairClaims() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Boolean validarToken() {
+        return jwtService.validateToken(token, user);
+    }
+}
@@ -0,0 +1,80 @@
+package com.fernando.erp_vendas.benchmark;
+
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import com.fernando.erp_vendas.service.EstoqueService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 🆕 PEPS EM MEMÓRIA: EstoqueService.calcularCustoVenda percorrendo N lotes em ordem PEPS
+// (a simulação de custo de /api/estoque/calcular-custo). O repositório é substituído por um stub
+// que devolve os lotes sintéticos, então só o custo da JVM é medido, sem banco.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PepsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int lotes;
+
+    private EstoqueService estoqueService;
+    private Produto produto;
+    private int unidadesEmEstoque;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        User user = DadosSinteticos.usuario();
+        produto = DadosSinteticos.produto(user);
+        List<EntradaEstoque> lotesComSaldo = DadosSinteticos.lotes(lotes, produto, user);
+        unidadesEmEstoque = lotesComSaldo.stream().mapToInt(EntradaEstoque::getSaldo).sum();
+
+        EntradaEstoqueRepository repositorio = (EntradaEstoqueRepository) Proxy.newProxyInstance(
+                EntradaEstoqueRepository.class.getClassLoader(), new Class<?>[]{EntradaEstoqueRepository.class},
+                (proxy, metodo, argumentos) -> {
+                    if (metodo.getName().equals("findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc")) {
+                        return lotesComSaldo;
+                    }
+                    throw new UnsupportedOperationException(metodo.getName());
+                });
+
+        estoqueService = new EstoqueService();
+        ReflectionTestUtils.setField(estoqueService, "entradaEstoqueRepository", repositorio);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    // Venda que consome todos os lotes (pior caso)
+    @Benchmark
+    public BigDecimal custoConsumindoTodosOsLotes() {
+        return estoqueService.calcularCustoVenda(produto, unidadesEmEstoque);
+    }
+
+    // Venda de 1 unidade (caso comum: só o lote mais antigo)
+    @Benchmark
+    public BigDecimal custoUmaUnidade() {
+        return estoqueService.calcularCustoVenda(produto, 1);
+    }
+}
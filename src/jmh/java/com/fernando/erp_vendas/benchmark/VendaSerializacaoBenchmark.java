@@ -0,0 +1,79 @@
+package com.fernando.erp_vendas.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fernando.erp_vendas.dto.VendaDTO;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 🆕 LISTAGEM DE VENDAS: montagem dos VendaDTO e serialização JSON da lista (o que GET /api/vendas faz
+// depois da consulta). O ObjectMapper é configurado como o da aplicação (application.properties).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VendaSerializacaoBenchmark {
+
+    @Param({"1000", "100000"})
+    public int linhas;
+
+    private List<Venda> vendas;
+    private List<VendaDTO> vendasDTO;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        User user = DadosSinteticos.usuario();
+        Produto produto = DadosSinteticos.produto(user);
+        vendas = DadosSinteticos.vendas(linhas, produto, user);
+        vendasDTO = construirDTOs();
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .featuresToDisable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .build();
+    }
+
+    @Benchmark
+    public List<VendaDTO> construirDTOs() {
+        List<VendaDTO> dtos = new ArrayList<>(vendas.size());
+        for (Venda venda : vendas) {
+            dtos.add(new VendaDTO(venda));
+        }
+        return dtos;
+    }
+
+    // Só a serialização (DTOs prontos), descartando os bytes
+    @Benchmark
+    public void serializarJson() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), vendasDTO);
+    }
+
+    // Montagem + serialização (o caminho completo da resposta)
+    @Benchmark
+    public void construirESerializar() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), construirDTOs());
+    }
+}
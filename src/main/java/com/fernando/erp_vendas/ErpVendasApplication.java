@@ -2,8 +2,10 @@ package com.fernando.erp_vendas;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ErpVendasApplication {
     public static void main(String[] args) {
         SpringApplication.run(ErpVendasApplication.class, args);
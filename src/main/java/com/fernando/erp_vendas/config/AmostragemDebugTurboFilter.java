@@ -0,0 +1,26 @@
+package com.fernando.erp_vendas.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+// 🆕 DEBUG AMOSTRADO: libera o log DEBUG da aplicação só nas requisições sorteadas pelo
+// CorrelacaoRequisicaoFilter (MDC amostraDebug=true), mesmo com o logger em INFO.
+// Nas demais requisições o nível configurado vale normalmente. Registrado em logback-spring.xml.
+public class AmostragemDebugTurboFilter extends TurboFilter {
+
+    private static final String PACOTE_APLICACAO = "com.fernando.erp_vendas";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == Level.DEBUG
+                && logger.getName().startsWith(PACOTE_APLICACAO)
+                && "true".equals(MDC.get(CorrelacaoRequisicaoFilter.MDC_AMOSTRA_DEBUG))) {
+            return FilterReply.ACCEPT;
+        }
+        return FilterReply.NEUTRAL;
+    }
+}
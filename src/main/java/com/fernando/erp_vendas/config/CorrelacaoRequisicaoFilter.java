@@ -0,0 +1,74 @@
+package com.fernando.erp_vendas.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+// 🆕 CORRELAÇÃO DE LOGS POR REQUISIÇÃO
+// Primeiro filtro da cadeia: coloca no MDC o id da requisição (recebido em X-Request-Id ou gerado)
+// e sorteia se a requisição terá log DEBUG da aplicação (ver AmostragemDebugTurboFilter).
+// Toda linha de log da requisição sai com req=<id>; o id volta no header da resposta.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelacaoRequisicaoFilter extends OncePerRequestFilter {
+
+    public static final String HEADER_REQUEST_ID = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_USER_ID = "userId";
+    public static final String MDC_AMOSTRA_DEBUG = "amostraDebug";
+
+    private static final Logger log = LoggerFactory.getLogger(CorrelacaoRequisicaoFilter.class);
+
+    // Id vindo do cliente só é aceito se for curto e sem caracteres que quebrem a linha de log
+    private static final Pattern REQUEST_ID_VALIDO = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Value("${app.log.amostragem-debug:0.0}")
+    private double amostragemDebug;
+
+    @Value("${app.log.requisicao-lenta-ms:1000}")
+    private long requisicaoLentaMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String requestId = request.getHeader(HEADER_REQUEST_ID);
+        if (requestId == null || !REQUEST_ID_VALIDO.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        MDC.put(MDC_REQUEST_ID, requestId);
+        if (amostragemDebug > 0 && ThreadLocalRandom.current().nextDouble() < amostragemDebug) {
+            MDC.put(MDC_AMOSTRA_DEBUG, "true");
+        }
+        response.setHeader(HEADER_REQUEST_ID, requestId);
+
+        long inicio = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long duracaoMs = (System.nanoTime() - inicio) / 1_000_000;
+            int status = response.getStatus();
+            // ✅ Só requisições lentas ou com erro do servidor aparecem em INFO
+            if (duracaoMs >= requisicaoLentaMs || status >= 500) {
+                log.info("{} {} status={} duracaoMs={}", request.getMethod(), request.getRequestURI(), status, duracaoMs);
+            } else {
+                log.debug("{} {} status={} duracaoMs={}", request.getMethod(), request.getRequestURI(), status, duracaoMs);
+            }
+            MDC.clear();
+        }
+    }
+}
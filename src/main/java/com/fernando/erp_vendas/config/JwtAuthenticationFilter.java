@@ -1,82 +1,92 @@
 package com.fernando.erp_vendas.config;
 
 import com.fernando.erp_vendas.model.User;
-import com.fernando.erp_vendas.repository.UserRepository;
-import com.fernando.erp_vendas.service.JwtService;
+import com.fernando.erp_vendas.service.TokenCacheService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserRepository userRepository) {
-        this.jwtService = jwtService;
-        this.userRepository = userRepository;
-        System.out.println("🔄 JWT FILTER - Construtor chamado! Filtro instanciado.");
+    // 🆕 Papel das rotas de administração (métricas operacionais de todos os usuários)
+    public static final String PAPEL_ADMIN = "ADMIN";
+
+    private final TokenCacheService tokenCacheService;
+    // E-mails (minúsculos) que recebem o papel ADMIN (app.admin.emails)
+    private final Set<String> administradores;
+
+    public JwtAuthenticationFilter(TokenCacheService tokenCacheService, Set<String> administradores) {
+        this.tokenCacheService = tokenCacheService;
+        this.administradores = administradores;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        System.out.println("🚀 JWT FILTER - Iniciando para: " + request.getMethod() + " " + request.getRequestURI());
-
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
-
-        System.out.println("🔐 JWT FILTER - Authorization Header: " + authHeader);
 
         // Se não tem header Authorization, continua sem autenticação
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            System.out.println("❌ JWT FILTER - No Bearer token found, continuando chain...");
+            log.debug("Requisição sem token Bearer: {} {}", request.getMethod(), request.getRequestURI());
             filterChain.doFilter(request, response);
             return;
         }
 
         jwt = authHeader.substring(7); // Remove "Bearer "
-        userEmail = jwtService.extractUsername(jwt);
-
-        System.out.println("📧 JWT FILTER - Email extraído: " + userEmail);
 
-        // Se tem email no token e não tem autenticação no contexto
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            System.out.println("👤 JWT FILTER - Buscando usuário no banco...");
-
-            // Buscar usuário no banco
-            User user = userRepository.findByEmail(userEmail).orElse(null);
-            System.out.println("👤 JWT FILTER - Usuário encontrado: " + (user != null ? user.getEmail() : "null"));
-
-            if (user != null && jwtService.validateToken(jwt, user)) {
-                System.out.println("✅ JWT FILTER - Token válido! Configurando autenticação...");
+        // Se não tem autenticação no contexto
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // 🆕 Token já verificado vem do cache (sem parse e sem consulta ao banco);
+            // caso contrário é verificado UMA vez e o usuário é buscado por email
+            User user = tokenCacheService.autenticar(jwt);
 
+            // ✅ Usuário desativado (ativo = false) não autentica
+            if (user != null && user.isEnabled()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         user,
                         null,
-                        user.getAuthorities()
+                        papeis(user)
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
 
-                System.out.println("✅ JWT FILTER - Autenticação configurada para: " + user.getEmail());
+                // 🆕 Usuário entra no contexto de log do restante da requisição
+                MDC.put(CorrelacaoRequisicaoFilter.MDC_USER_ID, String.valueOf(user.getId()));
+                log.debug("Autenticado: {} {}", request.getMethod(), request.getRequestURI());
             } else {
-                System.out.println("❌ JWT FILTER - Token inválido ou usuário não encontrado");
+                log.debug("Token sem usuário ativo: {} {}", request.getMethod(), request.getRequestURI());
             }
-        } else {
-            System.out.println("ℹ️ JWT FILTER - Já autenticado ou sem email no token");
         }
 
-        System.out.println("➡️ JWT FILTER - Continuando filter chain...");
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private Collection<? extends GrantedAuthority> papeis(User user) {
+        if (!administradores.contains(user.getEmail().toLowerCase())) {
+            return user.getAuthorities();
+        }
+        List<GrantedAuthority> papeis = new ArrayList<>(user.getAuthorities());
+        papeis.add(new SimpleGrantedAuthority("ROLE_" + PAPEL_ADMIN));
+        return papeis;
+    }
+}
@@ -0,0 +1,78 @@
+package com.fernando.erp_vendas.config;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.service.DadosUsuarioAlteradosEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 🆕 LER A PRÓPRIA ESCRITA (read-your-writes) COM RÉPLICA DE LEITURA
+// A réplica aplica as escritas do primário com algum atraso. Logo depois de um usuário gravar algo, as leituras
+// DELE vão para o primário durante "janela" (o dashboard que ele abre em seguida já mostra a venda que acabou de
+// lançar); os demais usuários continuam na réplica.
+// 1️⃣ Marcação ANTES do commit: quando o commit termina, a próxima leitura do usuário já sai pelo primário.
+// 2️⃣ userId nulo (alteração em massa): todos os usuários leem do primário durante a janela.
+// 3️⃣ Um instante por usuário; as marcações vencidas são descartadas na própria marcação, a cada LIMPEZA_A_CADA.
+public class LeituraAposEscrita {
+
+    private static final int LIMPEZA_A_CADA = 1024;
+
+    private final long janelaNanos;
+    private final Map<Long, Long> primarioAte = new ConcurrentHashMap<>();
+    private final AtomicLong todosNoPrimarioAte = new AtomicLong(System.nanoTime());
+    private final AtomicLong marcacoes = new AtomicLong();
+
+    public LeituraAposEscrita(long janelaMs) {
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMs);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDadosUsuarioAlterados(DadosUsuarioAlteradosEvent evento) {
+        if (evento.getUserId() == null) {
+            marcarTodos();
+        } else {
+            marcar(evento.getUserId());
+        }
+    }
+
+    public void marcar(Long userId) {
+        long agora = System.nanoTime();
+        primarioAte.put(userId, agora + janelaNanos);
+        if (marcacoes.incrementAndGet() % LIMPEZA_A_CADA == 0) {
+            primarioAte.values().removeIf(ate -> ate - agora <= 0);
+        }
+    }
+
+    public void marcarTodos() {
+        long ate = System.nanoTime() + janelaNanos;
+        todosNoPrimarioAte.accumulateAndGet(ate, (atual, novo) -> novo - atual > 0 ? novo : atual);
+    }
+
+    // ✅ O usuário da requisição atual (ou todos) gravou dentro da janela?
+    public boolean leituraDeveIrAoPrimario() {
+        long agora = System.nanoTime();
+        if (todosNoPrimarioAte.get() - agora > 0) {
+            return true;
+        }
+        Long userId = usuarioAtual();
+        if (userId == null) {
+            return false;
+        }
+        Long ate = primarioAte.get(userId);
+        return ate != null && ate - agora > 0;
+    }
+
+    private static Long usuarioAtual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return null;
+    }
+}
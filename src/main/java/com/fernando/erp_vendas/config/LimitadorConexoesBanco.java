@@ -0,0 +1,242 @@
+package com.fernando.erp_vendas.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 🆕 LIMITADOR DE CONCORRÊNCIA NO BANCO (semáforo justo na frente do pool de conexões)
+// Com threads virtuais a aplicação aceita milhares de requisições ao mesmo tempo, mas o banco só atende
+// "permissoes" conexões (= tamanho do pool). Quem chega além disso espera AQUI, em ordem de chegada (FIFO),
+// estacionando a thread virtual sem ocupar thread do sistema operacional.
+// 1️⃣ Espera no máximo "espera-maxima-ms"; depois disso a requisição falha em vez de ficar pendurada.
+// 2️⃣ Fila limitada ("fila-maxima"): em uma rajada grande, o excedente é recusado na hora.
+// 3️⃣ A permissão é devolvida no close() da conexão (uma única vez, mesmo com close repetido).
+// Estatísticas (em uso, na fila, espera média/máxima, recusas) saem no log a cada "intervalo-log-ms"
+// quando houve movimento; em WARN se houve recusa ou espera acima de "espera-lenta-ms" na janela
+// (um resumo por janela, não uma linha por requisição: numa rajada seriam milhares).
+public class LimitadorConexoesBanco extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(LimitadorConexoesBanco.class);
+
+    private final String nome;
+    private final Semaphore permissoes;
+    private final int totalPermissoes;
+    private final long esperaMaximaNanos;
+    private final int filaMaxima;
+    private final long esperaLentaNanos;
+    private final long intervaloLogNanos;
+
+    private final AtomicInteger naFila = new AtomicInteger();
+
+    // Totais desde a subida
+    private final AtomicLong aquisicoes = new AtomicLong();
+    private final AtomicLong recusasFilaCheia = new AtomicLong();
+    private final AtomicLong recusasTempoEsgotado = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaObservadaNanos = new AtomicLong();
+    private final AtomicInteger maiorFila = new AtomicInteger();
+
+    // Janela do log periódico (zerada a cada registro)
+    private final AtomicLong aquisicoesJanela = new AtomicLong();
+    private final AtomicLong recusasJanela = new AtomicLong();
+    private final AtomicLong esperasLentasJanela = new AtomicLong();
+    private final AtomicLong esperaTotalJanelaNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaJanelaNanos = new AtomicLong();
+    private final AtomicInteger maiorFilaJanela = new AtomicInteger();
+    private final AtomicLong ultimoLog = new AtomicLong(System.nanoTime());
+
+    // nome: pool atrás do limitador (ex.: "primario", "replica"), identifica a rota no log e nas estatísticas
+    public LimitadorConexoesBanco(String nome, DataSource alvo, int permissoes, long esperaMaximaMs, int filaMaxima,
+                                  long esperaLentaMs, long intervaloLogMs) {
+        super(alvo);
+        this.nome = nome;
+        this.totalPermissoes = Math.max(1, permissoes);
+        this.permissoes = new Semaphore(totalPermissoes, true);
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.filaMaxima = filaMaxima;
+        this.esperaLentaNanos = TimeUnit.MILLISECONDS.toNanos(esperaLentaMs);
+        this.intervaloLogNanos = TimeUnit.MILLISECONDS.toNanos(intervaloLogMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirir();
+        try {
+            return liberarAoFechar(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            liberar();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirir();
+        try {
+            return liberarAoFechar(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            liberar();
+            throw e;
+        }
+    }
+
+    private void adquirir() throws SQLException {
+        // Caminho rápido: permissão livre e ninguém esperando (tryAcquire() sem tempo ignora a fila justa)
+        if (!permissoes.hasQueuedThreads() && permissoes.tryAcquire()) {
+            registrarAquisicao(0L);
+            return;
+        }
+
+        int fila = naFila.incrementAndGet();
+        try {
+            if (filaMaxima > 0 && fila > filaMaxima) {
+                recusar(recusasFilaCheia);
+                throw new SQLTransientConnectionException(
+                        "Banco de dados sobrecarregado: " + (fila - 1) + " requisições aguardando conexão");
+            }
+            maiorFila.accumulateAndGet(fila, Math::max);
+            maiorFilaJanela.accumulateAndGet(fila, Math::max);
+
+            long inicio = System.nanoTime();
+            if (!permissoes.tryAcquire(esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+                recusar(recusasTempoEsgotado);
+                throw new SQLTransientConnectionException("Tempo esgotado aguardando conexão com o banco: "
+                        + TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos) + "ms");
+            }
+            long espera = System.nanoTime() - inicio;
+            registrarAquisicao(espera);
+            if (espera > esperaLentaNanos) {
+                esperasLentasJanela.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Espera por conexão com o banco interrompida", e);
+        } finally {
+            naFila.decrementAndGet();
+        }
+    }
+
+    private void registrarAquisicao(long esperaNanos) {
+        aquisicoes.incrementAndGet();
+        aquisicoesJanela.incrementAndGet();
+        if (esperaNanos > 0) {
+            esperaTotalNanos.addAndGet(esperaNanos);
+            esperaTotalJanelaNanos.addAndGet(esperaNanos);
+            esperaMaximaObservadaNanos.accumulateAndGet(esperaNanos, Math::max);
+            esperaMaximaJanelaNanos.accumulateAndGet(esperaNanos, Math::max);
+        }
+    }
+
+    private void recusar(AtomicLong contador) {
+        contador.incrementAndGet();
+        recusasJanela.incrementAndGet();
+        registrarSeNecessario();
+    }
+
+    private void liberar() {
+        permissoes.release();
+        registrarSeNecessario();
+    }
+
+    // ✅ Devolve a permissão quando a conexão é fechada (devolvida ao pool)
+    private Connection liberarAoFechar(Connection conexao) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, argumentos) -> {
+                    switch (metodo.getName()) {
+                        case "close" -> {
+                            try {
+                                return metodo.invoke(conexao, argumentos);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            } finally {
+                                if (liberada.compareAndSet(false, true)) {
+                                    liberar();
+                                }
+                            }
+                        }
+                        case "equals" -> {
+                            return proxy == argumentos[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "toString" -> {
+                            return "Limitada[" + conexao + "]";
+                        }
+                        default -> {
+                            try {
+                                return metodo.invoke(conexao, argumentos);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+
+    // Log periódico só quando houve movimento na janela; uma única thread registra (CAS no instante)
+    private void registrarSeNecessario() {
+        long agora = System.nanoTime();
+        long anterior = ultimoLog.get();
+        if (agora - anterior < intervaloLogNanos || !ultimoLog.compareAndSet(anterior, agora)) {
+            return;
+        }
+        long aquisicoesNaJanela = aquisicoesJanela.getAndSet(0);
+        long recusasNaJanela = recusasJanela.getAndSet(0);
+        long esperasLentas = esperasLentasJanela.getAndSet(0);
+        long esperaTotal = esperaTotalJanelaNanos.getAndSet(0);
+        long esperaMaxima = esperaMaximaJanelaNanos.getAndSet(0);
+        int maiorFilaNaJanela = maiorFilaJanela.getAndSet(0);
+        if (aquisicoesNaJanela == 0 && recusasNaJanela == 0) {
+            return;
+        }
+        Object[] argumentos = {nome, aquisicoesNaJanela, recusasNaJanela, esperasLentas,
+                aquisicoesNaJanela > 0 ? TimeUnit.NANOSECONDS.toMillis(esperaTotal / aquisicoesNaJanela) : 0,
+                TimeUnit.NANOSECONDS.toMillis(esperaMaxima), maiorFilaNaJanela,
+                totalPermissoes - permissoes.availablePermits(), totalPermissoes};
+        String mensagem = "Conexões com o banco [{}]: aquisicoes={} recusas={} esperasLentas={} esperaMediaMs={} " +
+                "esperaMaximaMs={} maiorFila={} emUso={}/{}";
+        if (recusasNaJanela > 0 || esperasLentas > 0) {
+            log.warn(mensagem, argumentos);
+        } else {
+            log.info(mensagem, argumentos);
+        }
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    // 📊 Contadores para monitoramento
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        long totalAquisicoes = aquisicoes.get();
+        estatisticas.put("nome", nome);
+        estatisticas.put("permissoes", totalPermissoes);
+        estatisticas.put("emUso", totalPermissoes - permissoes.availablePermits());
+        estatisticas.put("naFila", naFila.get());
+        estatisticas.put("maiorFila", maiorFila.get());
+        estatisticas.put("aquisicoes", totalAquisicoes);
+        estatisticas.put("recusasFilaCheia", recusasFilaCheia.get());
+        estatisticas.put("recusasTempoEsgotado", recusasTempoEsgotado.get());
+        estatisticas.put("esperaMediaMs", totalAquisicoes > 0
+                ? TimeUnit.NANOSECONDS.toMillis(esperaTotalNanos.get() / totalAquisicoes) : 0);
+        estatisticas.put("esperaMaximaMs", TimeUnit.NANOSECONDS.toMillis(esperaMaximaObservadaNanos.get()));
+        return estatisticas;
+    }
+}
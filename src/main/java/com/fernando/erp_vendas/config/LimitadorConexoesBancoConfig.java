@@ -0,0 +1,47 @@
+package com.fernando.erp_vendas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+// 🆕 Envolve cada pool de conexões (Hikari) com o LimitadorConexoesBanco.
+// Permissões = tamanho do pool por padrão: a espera acontece no semáforo justo, não dentro do pool.
+// Com réplica de leitura (RoteamentoDataSourceConfig) são dois pools, cada um com o seu limitador; o
+// roteador e o proxy na frente deles não são pools e passam direto (senão a mesma conexão seria contada duas vezes).
+@Component
+public class LimitadorConexoesBancoConfig implements BeanPostProcessor {
+
+    private final boolean ativo;
+    private final int permissoes;
+    private final long esperaMaximaMs;
+    private final int filaMaxima;
+    private final long esperaLentaMs;
+    private final long intervaloLogMs;
+
+    // permissoes = 0: usa o maximum-pool-size de cada pool
+    public LimitadorConexoesBancoConfig(@Value("${app.db.limitador.ativo:true}") boolean ativo,
+                                        @Value("${app.db.limitador.permissoes:0}") int permissoes,
+                                        @Value("${app.db.limitador.espera-maxima-ms:10000}") long esperaMaximaMs,
+                                        @Value("${app.db.limitador.fila-maxima:10000}") int filaMaxima,
+                                        @Value("${app.db.limitador.espera-lenta-ms:2000}") long esperaLentaMs,
+                                        @Value("${app.db.limitador.intervalo-log-ms:60000}") long intervaloLogMs) {
+        this.ativo = ativo;
+        this.permissoes = permissoes;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.filaMaxima = filaMaxima;
+        this.esperaLentaMs = esperaLentaMs;
+        this.intervaloLogMs = intervaloLogMs;
+    }
+
+    // Depois da inicialização: as propriedades spring.datasource.hikari.* (ou app.db.replica.hikari.*) já foram aplicadas
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (ativo && bean instanceof HikariDataSource pool) {
+            String nome = pool.getPoolName() != null ? pool.getPoolName() : beanName;
+            return new LimitadorConexoesBanco(nome, pool, permissoes > 0 ? permissoes : pool.getMaximumPoolSize(),
+                    esperaMaximaMs, filaMaxima, esperaLentaMs, intervaloLogMs);
+        }
+        return bean;
+    }
+}
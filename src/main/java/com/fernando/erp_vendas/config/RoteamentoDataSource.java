@@ -0,0 +1,47 @@
+package com.fernando.erp_vendas.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 🆕 ROTEADOR DAS LEITURAS (conexões de transações readOnly = true)
+// Só recebe as conexões somente leitura (LazyConnectionDataSourceProxy.setReadOnlyDataSource): vão para a réplica,
+// exceto as do usuário que gravou há pouco (LeituraAposEscrita), que vão para o primário.
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARIO = "primario";
+    public static final String REPLICA = "replica";
+
+    private final LeituraAposEscrita leituraAposEscrita;
+
+    private final AtomicLong leiturasReplica = new AtomicLong();
+    private final AtomicLong leiturasPrimarioAposEscrita = new AtomicLong();
+
+    public RoteamentoDataSource(DataSource primario, DataSource replica, LeituraAposEscrita leituraAposEscrita) {
+        this.leituraAposEscrita = leituraAposEscrita;
+        setTargetDataSources(Map.of(PRIMARIO, primario, REPLICA, replica));
+        setDefaultTargetDataSource(replica);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (leituraAposEscrita.leituraDeveIrAoPrimario()) {
+            leiturasPrimarioAposEscrita.incrementAndGet();
+            return PRIMARIO;
+        }
+        leiturasReplica.incrementAndGet();
+        return REPLICA;
+    }
+
+    // 📊 Conexões de leitura entregues por rota desde a subida
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("leiturasReplica", leiturasReplica.get());
+        estatisticas.put("leiturasPrimarioAposEscrita", leiturasPrimarioAposEscrita.get());
+        return estatisticas;
+    }
+}
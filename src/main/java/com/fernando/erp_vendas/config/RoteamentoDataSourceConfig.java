@@ -0,0 +1,79 @@
+package com.fernando.erp_vendas.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// 🆕 RÉPLICA DE LEITURA: escritas no primário, transações readOnly = true na réplica
+// Só entra em ação com app.db.replica.url preenchido; sem ela o Spring Boot cria o DataSource único de sempre.
+// 1️⃣ Dois pools Hikari: "primario" (spring.datasource.*) e "replica" (app.db.replica.*), cada um com o seu
+//    LimitadorConexoesBanco (LimitadorConexoesBancoConfig).
+// 2️⃣ O DataSource da aplicação é um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão no
+//    início da transação, antes de qualquer SQL, e o proxy só escolhe o pool no primeiro comando, quando já sabe
+//    se a transação é somente leitura (@Transactional(readOnly = true), inclusive a dos métodos de consulta dos
+//    repositórios). Somente leitura vai para o RoteamentoDataSource; o resto, para o primário.
+//    UserRepository fica de fora de propósito: o login logo após o cadastro precisa achar o usuário no primário.
+// 3️⃣ RoteamentoDataSource: réplica, ou primário para quem acabou de gravar (LeituraAposEscrita).
+@Configuration
+@ConditionalOnExpression("!'${app.db.replica.url:}'.isBlank()")
+public class RoteamentoDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName(RoteamentoDataSource.PRIMARIO);
+        return primario;
+    }
+
+    // Usuário e senha da réplica: os do primário, se não informados
+    @Bean
+    @ConfigurationProperties("app.db.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${app.db.replica.url}") String url,
+                                              @Value("${app.db.replica.username:}") String username,
+                                              @Value("${app.db.replica.password:}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isBlank() ? properties.determineUsername() : username)
+                .password(password.isBlank() ? properties.determinePassword() : password)
+                .build();
+        replica.setPoolName(RoteamentoDataSource.REPLICA);
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public LeituraAposEscrita leituraAposEscrita(
+            @Value("${app.db.replica.janela-leitura-apos-escrita-ms:5000}") long janelaMs) {
+        return new LeituraAposEscrita(janelaMs);
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                                     @Qualifier("replicaDataSource") DataSource replica,
+                                                     LeituraAposEscrita leituraAposEscrita) {
+        return new RoteamentoDataSource(primario, replica, leituraAposEscrita);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primarioDataSource") DataSource primario,
+                                 RoteamentoDataSource roteamentoDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy();
+        dataSource.setTargetDataSource(primario);
+        dataSource.setReadOnlyDataSource(roteamentoDataSource);
+        return dataSource;
+    }
+}
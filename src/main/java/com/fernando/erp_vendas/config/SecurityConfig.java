@@ -1,7 +1,8 @@
 package com.fernando.erp_vendas.config;
 
-import com.fernando.erp_vendas.repository.UserRepository;
-import com.fernando.erp_vendas.service.JwtService;
+import com.fernando.erp_vendas.service.TokenCacheService;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -18,23 +19,36 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
-    private final JwtService jwtService;
-    private final UserRepository userRepository;
+    // 🆕 Métricas operacionais com contadores de TODOS os usuários: só administradores (app.admin.emails)
+    private static final String[] ROTAS_ADMINISTRACAO = {
+            "/dashboard/cache/estatisticas",
+            "/api/banco/estatisticas",
+            "/api/produtos/catalogo/estatisticas",
+            "/api/vendas/idempotencia/estatisticas",
+            "/dashboard/eventos/estatisticas"
+    };
 
-    public SecurityConfig(JwtService jwtService, UserRepository userRepository) {
-        this.jwtService = jwtService;
-        this.userRepository = userRepository;
+    private final TokenCacheService tokenCacheService;
+    private final Set<String> administradores;
+
+    public SecurityConfig(TokenCacheService tokenCacheService, @Value("${app.admin.emails:}") String administradores) {
+        this.tokenCacheService = tokenCacheService;
+        this.administradores = Arrays.stream(administradores.split(","))
+                .map(String::trim).filter(email -> !email.isEmpty()).map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     // ✅ Bean do filtro JWT
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtService, userRepository);
+        return new JwtAuthenticationFilter(tokenCacheService, administradores);
     }
 
     @Bean
@@ -44,8 +58,11 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // ✅ Despacho ASYNC do fim do stream SSE (a requisição original já foi autenticada)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/migracao/**").permitAll()
+                        .requestMatchers(ROTAS_ADMINISTRACAO).hasRole(JwtAuthenticationFilter.PAPEL_ADMIN)
                         .anyRequest().authenticated()
                 )
                 // ✅ Adicionar filtro JWT
@@ -66,8 +83,9 @@ public class SecurityConfig {
                 "https://multivendas-frontend.vercel.app"
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With", "X-Auth-Token"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With", "X-Auth-Token",
+                "Idempotency-Key", "Last-Event-ID"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Disposition", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
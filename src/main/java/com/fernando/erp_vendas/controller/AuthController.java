@@ -3,6 +3,8 @@ package com.fernando.erp_vendas.controller;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.repository.UserRepository;
 import com.fernando.erp_vendas.service.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,6 +19,8 @@ import java.util.Optional;
 @CrossOrigin(origins = "http://localhost:4200")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private UserRepository userRepository;
 
@@ -30,34 +34,31 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
         try {
-            System.out.println("🔐 Tentando login para: " + loginRequest.getEmail());
-
             // Buscar usuário por email
             Optional<User> userOptional = userRepository.findByEmail(loginRequest.getEmail());
 
             if (userOptional.isEmpty()) {
-                System.out.println("❌ Usuário não encontrado: " + loginRequest.getEmail());
+                log.warn("Login recusado: usuário não encontrado: email={}", loginRequest.getEmail());
                 return ResponseEntity.status(401).body(createErrorResponse("Usuário não encontrado"));
             }
 
             User user = userOptional.get();
-            System.out.println("✅ Usuário encontrado: " + user.getEmail());
 
             // Verificar senha
             if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-                System.out.println("❌ Senha incorreta para: " + loginRequest.getEmail());
+                log.warn("Login recusado: senha incorreta: email={}", loginRequest.getEmail());
                 return ResponseEntity.status(401).body(createErrorResponse("Senha incorreta"));
             }
 
             // Verificar se usuário está ativo
             if (!user.isAtivo()) {
-                System.out.println("❌ Usuário desativado: " + loginRequest.getEmail());
+                log.warn("Login recusado: usuário desativado: email={}", loginRequest.getEmail());
                 return ResponseEntity.status(401).body(createErrorResponse("Usuário desativado"));
             }
 
             // Gerar token JWT
             String token = jwtService.generateToken(user.getEmail());
-            System.out.println("✅ Token gerado para: " + loginRequest.getEmail());
+            log.info("Login realizado: userId={}", user.getId());
 
             // Retornar resposta de sucesso
             Map<String, Object> response = new HashMap<>();
@@ -67,8 +68,7 @@ public class AuthController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.out.println("❌ Erro no login: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Erro no login", e);
             return ResponseEntity.status(500).body(createErrorResponse("Erro interno no servidor: " + e.getMessage()));
         }
     }
@@ -77,11 +77,9 @@ public class AuthController {
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody RegisterRequest registerRequest) {
         try {
-            System.out.println("📝 Tentando registrar: " + registerRequest.getEmail());
-
             // Verificar se email já existe
             if (userRepository.existsByEmail(registerRequest.getEmail())) {
-                System.out.println("❌ Email já existe: " + registerRequest.getEmail());
+                log.warn("Registro recusado: email já cadastrado: email={}", registerRequest.getEmail());
                 return ResponseEntity.status(400).body(createErrorResponse("Email já cadastrado"));
             }
 
@@ -92,15 +90,12 @@ public class AuthController {
             user.setNome(registerRequest.getNome());
             user.setAtivo(true);
 
-            System.out.println("✅ Usuário criado, salvando no banco...");
-
             // Salvar usuário
             User savedUser = userRepository.save(user);
-            System.out.println("✅ Usuário salvo com ID: " + savedUser.getId());
+            log.info("Usuário registrado: userId={}", savedUser.getId());
 
             // Gerar token JWT
             String token = jwtService.generateToken(savedUser.getEmail());
-            System.out.println("✅ Token gerado para novo usuário");
 
             // Retornar resposta de sucesso
             Map<String, Object> response = new HashMap<>();
@@ -110,8 +105,7 @@ public class AuthController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.out.println("❌ Erro no registro: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Erro no registro", e);
             return ResponseEntity.status(500).body(createErrorResponse("Erro ao criar usuário: " + e.getMessage()));
         }
     }
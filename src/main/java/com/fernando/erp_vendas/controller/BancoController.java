@@ -0,0 +1,38 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.service.EstatisticasBancoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+// 🆕 MONITORAMENTO DAS CONEXÕES COM O BANCO (por rota: primário / réplica)
+@RestController
+@RequestMapping("/api/banco")
+public class BancoController {
+
+    @Autowired
+    private EstatisticasBancoService estatisticasBancoService;
+
+    // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return (User) authentication.getPrincipal();
+        }
+        throw new RuntimeException("Usuário não autenticado");
+    }
+
+    // GET /api/banco/estatisticas: pool, limitador e roteamento de leituras de cada rota
+    @GetMapping("/estatisticas")
+    public ResponseEntity<?> getEstatisticas() {
+        try {
+            getCurrentUser();
+            return ResponseEntity.ok(estatisticasBancoService.estatisticas());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao carregar estatísticas do banco: " + e.getMessage());
+        }
+    }
+}
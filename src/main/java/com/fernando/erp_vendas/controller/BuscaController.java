@@ -0,0 +1,44 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.service.BuscaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// 🆕 BUSCA UNIFICADA DO USUÁRIO: produtos (nome, SKU, ASIN, descrição), compras (fornecedor, categoria,
+// observações) e despesas (descrição, categoria, observações), por relevância
+@RestController
+@RequestMapping("/api/busca")
+public class BuscaController {
+
+    @Autowired
+    private BuscaService buscaService;
+
+    // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return (User) authentication.getPrincipal();
+        }
+        throw new RuntimeException("Usuário não autenticado");
+    }
+
+    // GET /api/busca?q=parafuso&tipos=produtos,compras&pagina=0&limite=20
+    @GetMapping
+    public ResponseEntity<?> buscar(@RequestParam String q,
+                                    @RequestParam(required = false) List<String> tipos,
+                                    @RequestParam(defaultValue = "0") int pagina,
+                                    @RequestParam(required = false) Integer limite) {
+        try {
+            User currentUser = getCurrentUser();
+            return ResponseEntity.ok(buscaService.buscar(currentUser, q, tipos, pagina, limite));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao buscar: " + e.getMessage());
+        }
+    }
+}
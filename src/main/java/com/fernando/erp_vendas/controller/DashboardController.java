@@ -1,34 +1,61 @@
 package com.fernando.erp_vendas.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
-import com.fernando.erp_vendas.repository.VendaRepository;
+import com.fernando.erp_vendas.repository.VendaResumoDiarioRepository;
 import com.fernando.erp_vendas.repository.DespesaRepository;
-import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.model.Dinheiro;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.dto.DashboardData;
+import com.fernando.erp_vendas.dto.TotaisVendas;
+import com.fernando.erp_vendas.service.DashboardCacheService;
+import com.fernando.erp_vendas.service.EventosDashboardService;
+import com.fernando.erp_vendas.service.MontagemConcorrente;
+import com.fernando.erp_vendas.service.ResumoVendaService;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:4200")
 public class DashboardController {
 
+    private static final Logger log = LoggerFactory.getLogger(DashboardController.class);
+
+    @Autowired
+    private VendaResumoDiarioRepository vendaResumoDiarioRepository;
+
     @Autowired
-    private VendaRepository vendaRepository;
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private DashboardCacheService dashboardCacheService;
 
     @Autowired
     private DespesaRepository despesaRepository;
 
+    @Autowired
+    private EventosDashboardService eventosDashboardService;
+
+    // 🆕 Prazo de cada consulta do dashboard completo (montadas em paralelo)
+    @Value("${app.dashboard.prazo-fragmento-ms:2000}")
+    private long prazoFragmentoMs;
+
     // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -57,78 +84,110 @@ public class DashboardController {
         try {
             User currentUser = getCurrentUser();
 
-            // ✅ ATUALIZADO: Busca todas as vendas DO USUÁRIO no banco
-            List<Venda> vendas = vendaRepository.findByUser(currentUser);
+            // 🆕 CACHE POR USUÁRIO: recalcula apenas após alterações nos dados do usuário (ou TTL)
+            DashboardData dashboardData = dashboardCacheService.obterDashboard(currentUser.getId(),
+                    () -> montarDashboard(currentUser));
 
-            // ✅ CALCULAR TOTAIS DAS VENDAS DO USUÁRIO
-            double faturamentoTotal = 0;
-            double custoEfetivoTotal = 0;
-            double lucroBrutoTotal = 0;
+            return ResponseEntity.ok(dashboardData);
 
-            for (Venda venda : vendas) {
-                faturamentoTotal += venda.calcularFaturamento();
-                custoEfetivoTotal += venda.calcularCustoEfetivoTotal();
-                lucroBrutoTotal += venda.calcularLucroBruto();
-                // ❌ REMOVIDO: Não somar despesas operacionais das vendas aqui
-                // (já estão consideradas no cálculo do lucro bruto de cada venda)
-            }
+        } catch (Exception e) {
+            log.error("Erro ao carregar dashboard", e);
+            return ResponseEntity.badRequest().body("Erro ao carregar dashboard: " + e.getMessage());
+        }
+    }
 
+    // Monta o DashboardData completo do usuário (somente no cache miss)
+    // 🆕 As consultas são independentes e rodam em paralelo (MontagemConcorrente), cada uma com o prazo
+    // app.dashboard.prazo-fragmento-ms; a que não responder a tempo fica de fora e a resposta sai parcial,
+    // com o tempo de cada consulta em "montagem"
+    private DashboardData montarDashboard(User currentUser) {
+        LocalDate primeiroDiaMes = LocalDate.now().withDayOfMonth(1);
+        LocalDate ultimoDiaMes = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
+
+        try (MontagemConcorrente montagem = new MontagemConcorrente(Duration.ofMillis(prazoFragmentoMs))) {
+            // ✅ ATUALIZADO: Totais lidos do agregado diário (não carrega as vendas do usuário)
+            MontagemConcorrente.Fragmento<TotaisVendas> totaisFragmento = montagem.iniciar("totais",
+                    () -> resumoVendaService.totais(currentUser));
             // ✅ CORRIGIDO: CALCULAR APENAS DESPESAS GERAIS DO MÊS ATUAL DO USUÁRIO
-            LocalDate primeiroDiaMes = LocalDate.now().withDayOfMonth(1);
-            LocalDate ultimoDiaMes = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
-            BigDecimal totalDespesasMes = despesaRepository.calcularTotalDespesasPorPeriodo(
-                    currentUser, primeiroDiaMes, ultimoDiaMes);
-            double despesasGeraisTotal = totalDespesasMes != null ? totalDespesasMes.doubleValue() : 0.0;
-
-            // ✅ CORRIGIDO: LUCRO LÍQUIDO = LUCRO BRUTO - DESPESAS GERAIS
-            double lucroLiquidoCorrigido = lucroBrutoTotal - despesasGeraisTotal;
-
-            // ✅ CALCULAR ROI
-            double roiTotal = (custoEfetivoTotal > 0) ? (lucroLiquidoCorrigido / custoEfetivoTotal) * 100 : 0;
-
-            // 🆕 CONSULTAS ADICIONAIS
-            Long totalVendas = vendaRepository.countTotalVendas(currentUser);
-            Long vendasMesAtual = vendaRepository.countVendasDoMes(currentUser,
-                    LocalDate.now().getYear(), LocalDate.now().getMonthValue());
-            List<Object[]> faturamentoPorPlataforma = vendaRepository.findFaturamentoPorPlataforma(currentUser);
-            List<Object[]> produtosMaisVendidos = vendaRepository.findProdutosMaisVendidos(currentUser);
-            List<Object[]> topCategoriasDespesas = despesaRepository.findTopCategoriasComMaiorGasto(currentUser);
+            MontagemConcorrente.Fragmento<BigDecimal> despesasMesFragmento = montagem.iniciar("despesasMes",
+                    () -> despesaRepository.calcularTotalDespesasPorPeriodo(currentUser, primeiroDiaMes, ultimoDiaMes));
+            // 🆕 CONSULTAS ADICIONAIS (agregado diário)
+            MontagemConcorrente.Fragmento<Long> vendasMesFragmento = montagem.iniciar("vendasMesAtual",
+                    () -> vendaResumoDiarioRepository.countVendasNoPeriodo(
+                            currentUser, primeiroDiaMes, primeiroDiaMes.plusMonths(1)));
+            MontagemConcorrente.Fragmento<List<Object[]>> plataformasFragmento = montagem.iniciar(
+                    "faturamentoPorPlataforma", () -> {
+                        List<Object[]> faturamentoPorPlataforma = new ArrayList<>();
+                        for (Object[] linha : vendaResumoDiarioRepository.findTotaisPorPlataforma(currentUser)) {
+                            String plataforma = ((String) linha[0]).isEmpty() ? null : (String) linha[0];
+                            faturamentoPorPlataforma.add(new Object[]{plataforma, ((Number) linha[1]).doubleValue()});
+                        }
+                        return faturamentoPorPlataforma;
+                    });
+            MontagemConcorrente.Fragmento<List<Object[]>> produtosFragmento = montagem.iniciar(
+                    "produtosMaisVendidos", () -> {
+                        List<Object[]> produtosMaisVendidos = new ArrayList<>();
+                        for (Object[] linha : vendaResumoDiarioRepository.findTotaisPorProduto(currentUser)) {
+                            produtosMaisVendidos.add(new Object[]{linha[0], ((Number) linha[1]).longValue()});
+                        }
+                        return produtosMaisVendidos;
+                    });
+            MontagemConcorrente.Fragmento<List<Object[]>> categoriasFragmento = montagem.iniciar(
+                    "topCategoriasDespesas", () -> despesaRepository.findTopCategoriasComMaiorGasto(currentUser));
+
+            if (montagem.nenhumRespondeu()) {
+                throw new RuntimeException("Nenhuma consulta do dashboard respondeu a tempo");
+            }
 
             // Monta o objeto de resposta CORRIGIDO
             DashboardData dashboardData = new DashboardData();
-            dashboardData.setFaturamentoTotal(faturamentoTotal);
-            dashboardData.setCustoEfetivoTotal(custoEfetivoTotal);
-            dashboardData.setLucroBrutoTotal(lucroBrutoTotal);
-            dashboardData.setLucroLiquidoTotal(lucroLiquidoCorrigido);
 
-            // ✅ CORRIGIDO: Despesas operacionais totais = APENAS despesas gerais do mês
-            dashboardData.setDespesasOperacionaisTotal(despesasGeraisTotal);
+            // 🆕 Cálculos em centavos (exatos); convertidos para reais só no DashboardData
+            TotaisVendas totais = totaisFragmento.obter();
+            long lucroBrutoTotal = 0;
+            long custoEfetivoTotal = 0;
+            if (totais != null) {
+                lucroBrutoTotal = totais.calcularLucroBrutoCentavos();
+                custoEfetivoTotal = totais.calcularCustoEfetivoTotalCentavos();
+                dashboardData.setFaturamentoTotal(Dinheiro.paraReais(totais.calcularFaturamentoCentavos()));
+                dashboardData.setCustoEfetivoTotal(Dinheiro.paraReais(custoEfetivoTotal));
+                dashboardData.setLucroBrutoTotal(Dinheiro.paraReais(lucroBrutoTotal));
+                Long totalVendas = totais.getQuantidadeVendas();
+                dashboardData.setTotalVendas(totalVendas != null ? totalVendas.intValue() : 0);
+            }
+            // ❌ REMOVIDO: Não somar despesas operacionais das vendas aqui
+            // (já estão consideradas no cálculo do lucro bruto de cada venda)
+
+            BigDecimal totalDespesasMes = despesasMesFragmento.obter();
+            long despesasGeraisTotal = Dinheiro.deReais(totalDespesasMes);
+            if (despesasMesFragmento.respondeu()) {
+                // ✅ CORRIGIDO: Despesas operacionais totais = APENAS despesas gerais do mês
+                dashboardData.setDespesasOperacionaisTotal(Dinheiro.paraReais(despesasGeraisTotal));
+            }
+
+            // ✅ CORRIGIDO: LUCRO LÍQUIDO = LUCRO BRUTO - DESPESAS GERAIS (e ROI) só com as duas partes
+            long lucroLiquidoCorrigido = Dinheiro.subtrair(lucroBrutoTotal, despesasGeraisTotal);
+            if (totais != null && despesasMesFragmento.respondeu()) {
+                dashboardData.setLucroLiquidoTotal(Dinheiro.paraReais(lucroLiquidoCorrigido));
+                dashboardData.setRoiTotal(Dinheiro.percentual(lucroLiquidoCorrigido, custoEfetivoTotal));
+            }
 
             // ✅ MANTIDOS para compatibilidade (se necessário no futuro)
             // dashboardData.setDespesasVendas(0.0); // Removido do cálculo
             // dashboardData.setDespesasGerais(despesasGeraisTotal); // Removido do cálculo
 
-            dashboardData.setRoiTotal(roiTotal);
-            dashboardData.setTotalVendas(totalVendas != null ? totalVendas.intValue() : 0);
+            Long vendasMesAtual = vendasMesFragmento.obter();
             dashboardData.setVendasMesAtual(vendasMesAtual != null ? vendasMesAtual.intValue() : 0);
-            dashboardData.setFaturamentoPorPlataforma(faturamentoPorPlataforma);
-            dashboardData.setProdutosMaisVendidos(produtosMaisVendidos);
-            dashboardData.setTopCategoriasDespesas(topCategoriasDespesas);
-
-            // 🆕 LOG PARA DEBUG (remova depois de testar)
-            System.out.println("📊 DASHBOARD DEBUG - User: " + currentUser.getUsername());
-            System.out.println("💰 Faturamento: " + faturamentoTotal);
-            System.out.println("💸 Custo: " + custoEfetivoTotal);
-            System.out.println("📈 Lucro Bruto: " + lucroBrutoTotal);
-            System.out.println("🧾 Despesas Gerais: " + despesasGeraisTotal);
-            System.out.println("💵 Lucro Líquido: " + lucroLiquidoCorrigido);
+            dashboardData.setFaturamentoPorPlataforma(plataformasFragmento.obter());
+            dashboardData.setProdutosMaisVendidos(produtosFragmento.obter());
+            dashboardData.setTopCategoriasDespesas(categoriasFragmento.obter());
+            dashboardData.setMontagem(montagem.metadados());
 
-            return ResponseEntity.ok(dashboardData);
+            log.debug("Dashboard montado (centavos) em {}ms: custo={} lucroBruto={} despesasGerais={} lucroLiquido={} parcial={}",
+                    dashboardData.getMontagem().getDuracaoMs(), custoEfetivoTotal, lucroBrutoTotal, despesasGeraisTotal,
+                    lucroLiquidoCorrigido, dashboardData.getMontagem().isParcial());
 
-        } catch (Exception e) {
-            System.err.println("❌ ERRO NO DASHBOARD: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body("Erro ao carregar dashboard: " + e.getMessage());
+            return dashboardData;
         }
     }
 
@@ -138,42 +197,83 @@ public class DashboardController {
         try {
             User currentUser = getCurrentUser();
 
-            // Dados básicos usando métodos otimizados do repository
-            Long totalVendas = vendaRepository.countTotalVendas(currentUser);
-            Double lucroLiquidoTotal = vendaRepository.findLucroLiquidoTotal(currentUser);
-            Double custoEfetivoTotal = vendaRepository.findCustoEfetivoTotal(currentUser);
-
-            // ✅ CORRIGIDO: Despesas do mês atual
-            LocalDate primeiroDiaMes = LocalDate.now().withDayOfMonth(1);
-            LocalDate ultimoDiaMes = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
-            BigDecimal totalDespesasMes = despesaRepository.calcularTotalDespesasPorPeriodo(
-                    currentUser, primeiroDiaMes, ultimoDiaMes);
-            double despesasTotais = totalDespesasMes != null ? totalDespesasMes.doubleValue() : 0.0;
-
-            // ✅ CORRIGIDO: Calcular lucro líquido considerando despesas
-            double lucroLiquidoCorrigido = 0.0;
-            if (lucroLiquidoTotal != null) {
-                lucroLiquidoCorrigido = lucroLiquidoTotal - despesasTotais;
-            }
-
-            // Calcular ROI
-            double roiTotal = 0;
-            if (custoEfetivoTotal != null && custoEfetivoTotal > 0) {
-                roiTotal = (lucroLiquidoCorrigido / custoEfetivoTotal) * 100;
-            }
-
-            // Montar resposta resumida CORRIGIDA
-            DashboardData resumo = new DashboardData();
-            resumo.setTotalVendas(totalVendas != null ? totalVendas.intValue() : 0);
-            resumo.setLucroLiquidoTotal(lucroLiquidoCorrigido);
-            resumo.setRoiTotal(roiTotal);
-            resumo.setDespesasOperacionaisTotal(despesasTotais);
+            // 🆕 CACHE POR USUÁRIO: recalcula apenas após alterações nos dados do usuário (ou TTL)
+            DashboardData resumo = dashboardCacheService.obterResumo(currentUser.getId(),
+                    () -> montarResumo(currentUser));
 
             return ResponseEntity.ok(resumo);
 
         } catch (Exception e) {
-            System.err.println("❌ ERRO NO RESUMO DO DASHBOARD: " + e.getMessage());
+            log.error("Erro ao carregar resumo do dashboard", e);
             return ResponseEntity.badRequest().body("Erro ao carregar resumo do dashboard: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // Monta o resumo do dashboard do usuário (somente no cache miss)
+    private DashboardData montarResumo(User currentUser) {
+        // Dados básicos lidos do agregado diário
+        TotaisVendas totais = resumoVendaService.totais(currentUser);
+        Long totalVendas = totais.getQuantidadeVendas();
+        // 🆕 Em centavos: faturamento - tarifa - custo PEPS - envio
+        long lucroLiquidoTotal = Dinheiro.subtrair(Dinheiro.subtrair(Dinheiro.subtrair(
+                totais.calcularFaturamentoCentavos(), totais.getTarifaPlataformaCentavos()),
+                totais.getCustoProdutoVendidoCentavos()), totais.getCustoEnvioCentavos());
+        long custoEfetivoTotal = Dinheiro.somar(totais.getCustoProdutoVendidoCentavos(), totais.getCustoEnvioCentavos());
+
+        // ✅ CORRIGIDO: Despesas do mês atual
+        LocalDate primeiroDiaMes = LocalDate.now().withDayOfMonth(1);
+        LocalDate ultimoDiaMes = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
+        BigDecimal totalDespesasMes = despesaRepository.calcularTotalDespesasPorPeriodo(
+                currentUser, primeiroDiaMes, ultimoDiaMes);
+        long despesasTotais = Dinheiro.deReais(totalDespesasMes);
+
+        // ✅ CORRIGIDO: Calcular lucro líquido considerando despesas
+        long lucroLiquidoCorrigido = Dinheiro.subtrair(lucroLiquidoTotal, despesasTotais);
+
+        // Calcular ROI
+        double roiTotal = Dinheiro.percentual(lucroLiquidoCorrigido, custoEfetivoTotal);
+
+        // Montar resposta resumida CORRIGIDA
+        DashboardData resumo = new DashboardData();
+        resumo.setTotalVendas(totalVendas != null ? totalVendas.intValue() : 0);
+        resumo.setLucroLiquidoTotal(Dinheiro.paraReais(lucroLiquidoCorrigido));
+        resumo.setRoiTotal(roiTotal);
+        resumo.setDespesasOperacionaisTotal(Dinheiro.paraReais(despesasTotais));
+
+        return resumo;
+    }
+
+    // 🆕 ESTATÍSTICAS DO CACHE DOS DASHBOARDS (acertos, falhas, despejos, invalidações)
+    @GetMapping("/dashboard/cache/estatisticas")
+    public ResponseEntity<?> getEstatisticasCache() {
+        try {
+            getCurrentUser();
+            return ResponseEntity.ok(dashboardCacheService.estatisticas());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao carregar estatísticas do cache: " + e.getMessage());
+        }
+    }
+
+    // 🆕 DASHBOARD EM TEMPO REAL: stream SSE de deltas (venda, lotes, compra, despesa, totais)
+    // Reconexão com o cabeçalho Last-Event-ID recebe só os eventos perdidos (ou "reset" para recarregar tudo)
+    @GetMapping(value = "/dashboard/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> getEventosDashboard(@RequestHeader(value = "Last-Event-ID", required = false) String ultimoEventoId) {
+        try {
+            User currentUser = getCurrentUser();
+            return ResponseEntity.ok(eventosDashboardService.assinar(currentUser, ultimoEventoId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao abrir eventos do dashboard: " + e.getMessage());
+        }
+    }
+
+    // 🆕 ESTATÍSTICAS DOS EVENTOS SSE (canais, conexões, heartbeats, retomadas, buffers estourados)
+    @GetMapping("/dashboard/eventos/estatisticas")
+    public ResponseEntity<?> getEstatisticasEventos() {
+        try {
+            getCurrentUser();
+            return ResponseEntity.ok(eventosDashboardService.estatisticas());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao carregar estatísticas dos eventos: " + e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.fernando.erp_vendas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fernando.erp_vendas.dto.CamposEsparsos;
+import com.fernando.erp_vendas.dto.PaginaCursor;
 import com.fernando.erp_vendas.model.Despesa;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.repository.DespesaRepository;
+import com.fernando.erp_vendas.service.BuscaService;
+import com.fernando.erp_vendas.service.DadosUsuarioAlteradosEvent;
+import com.fernando.erp_vendas.service.MovimentoDashboardEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,6 +29,12 @@ public class DespesaController {
     @Autowired
     private DespesaRepository despesaRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -30,13 +44,37 @@ public class DespesaController {
         throw new RuntimeException("Usuário não autenticado");
     }
 
+    // 🆕 Delta de despesa para o dashboard em tempo real (SSE)
+    private static MovimentoDashboardEvent movimentoDespesa(String tipo, Despesa despesa, User user) {
+        return MovimentoDashboardEvent.de(user.getId(), tipo, "id", despesa.getId(), "valor", despesa.getValor(),
+                "data", despesa.getData(), "categoria", despesa.getCategoria());
+    }
+
     // ✅ ATUALIZADO: GET - Listar todas as despesas DO USUÁRIO
+    // 🆕 Paginação por cursor (?limite, ?cursor) e campos esparsos (?campos), como em GET /api/vendas
     @GetMapping
-    public ResponseEntity<?> listarTodas() {
+    public ResponseEntity<?> listarTodas(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limite,
+                                         @RequestParam(required = false) String campos) {
         try {
             User currentUser = getCurrentUser();
-            List<Despesa> despesas = despesaRepository.findByUserOrderByDataDesc(currentUser);
-            return ResponseEntity.ok(despesas);
+            if (cursor == null && limite == null) {
+                List<Despesa> despesas = despesaRepository.findByUserOrderByDataDesc(currentUser);
+                return ResponseEntity.ok(CamposEsparsos.filtrar(objectMapper, despesas, campos));
+            }
+
+            Slice<Despesa> fatia;
+            if (cursor == null) {
+                fatia = despesaRepository.findPaginaByUser(currentUser, PaginaCursor.paginacao(limite));
+            } else {
+                PaginaCursor.Posicao posicao = PaginaCursor.decodificar(cursor);
+                fatia = despesaRepository.findPaginaByUserApos(currentUser, posicao.getData(), posicao.getId(),
+                        PaginaCursor.paginacao(limite));
+            }
+
+            return ResponseEntity.ok(new PaginaCursor<>(
+                    CamposEsparsos.filtrar(objectMapper, fatia.getContent(), campos),
+                    PaginaCursor.proximoCursor(fatia, Despesa::getData, Despesa::getId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao listar despesas: " + e.getMessage());
         }
@@ -79,6 +117,8 @@ public class DespesaController {
             despesa.setUser(currentUser);
 
             Despesa despesaSalva = despesaRepository.save(despesa);
+            eventPublisher.publishEvent(movimentoDespesa(MovimentoDashboardEvent.DESPESA_ADICIONADA, despesaSalva, currentUser));
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.DESPESA));
             return ResponseEntity.ok(despesaSalva);
 
         } catch (Exception e) {
@@ -119,6 +159,8 @@ public class DespesaController {
             despesaExistente.setRecorrente(despesaAtualizada.isRecorrente());
 
             Despesa despesaSalva = despesaRepository.save(despesaExistente);
+            eventPublisher.publishEvent(movimentoDespesa(MovimentoDashboardEvent.DESPESA_ATUALIZADA, despesaSalva, currentUser));
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.DESPESA));
             return ResponseEntity.ok(despesaSalva);
 
         } catch (Exception e) {
@@ -139,6 +181,8 @@ public class DespesaController {
             }
 
             despesaRepository.deleteById(id);
+            eventPublisher.publishEvent(movimentoDespesa(MovimentoDashboardEvent.DESPESA_EXCLUIDA, despesa.get(), currentUser));
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.DESPESA));
             return ResponseEntity.noContent().build();
 
         } catch (Exception e) {
@@ -216,7 +260,8 @@ public class DespesaController {
     public ResponseEntity<?> buscarDespesasMesAtual() {
         try {
             User currentUser = getCurrentUser();
-            List<Despesa> despesas = despesaRepository.findDespesasDoMesAtual(currentUser);
+            LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+            List<Despesa> despesas = despesaRepository.findDespesasNoPeriodo(currentUser, inicioMes, inicioMes.plusMonths(1));
             return ResponseEntity.ok(despesas);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar despesas do mês atual: " + e.getMessage());
@@ -228,7 +273,9 @@ public class DespesaController {
     public ResponseEntity<?> calcularTotalMesAtual() {
         try {
             User currentUser = getCurrentUser();
-            BigDecimal total = despesaRepository.calcularTotalDespesasMesAtual(currentUser);
+            LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+            BigDecimal total = despesaRepository.calcularTotalDespesasNoPeriodo(currentUser, inicioMes,
+                    inicioMes.plusMonths(1));
             return ResponseEntity.ok(total != null ? total : BigDecimal.ZERO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao calcular total do mês atual: " + e.getMessage());
@@ -247,12 +294,13 @@ public class DespesaController {
         }
     }
 
-    // 🆕 GET - Buscar despesas por descrição (busca parcial) DO USUÁRIO
+    // 🆕 GET - Buscar despesas por descrição (busca parcial, sem diferenciar acentos e maiúsculas) DO USUÁRIO
     @GetMapping("/buscar")
     public ResponseEntity<?> buscarPorDescricao(@RequestParam String descricao) {
         try {
             User currentUser = getCurrentUser();
-            List<Despesa> despesas = despesaRepository.findByDescricaoContainingAndUser(descricao, currentUser);
+            List<Despesa> despesas = despesaRepository.buscarPorDescricao(currentUser.getId(),
+                    BuscaService.padraoContem(descricao));
             return ResponseEntity.ok(despesas);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar despesas: " + e.getMessage());
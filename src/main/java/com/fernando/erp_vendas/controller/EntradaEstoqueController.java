@@ -1,21 +1,37 @@
 package com.fernando.erp_vendas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fernando.erp_vendas.dto.CamposEsparsos;
 import com.fernando.erp_vendas.dto.EntradaEstoqueDTO;
+import com.fernando.erp_vendas.dto.PaginaCursor;
 import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.EntradaEstoqueHistorico;
 import com.fernando.erp_vendas.model.Produto;
 import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.EntradaEstoqueHistoricoRepository;
 import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
-import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.service.BuscaService;
+import com.fernando.erp_vendas.service.CatalogoProdutoService;
 import com.fernando.erp_vendas.service.EstoqueService;
+import com.fernando.erp_vendas.service.IdempotenciaPedidoService;
+import com.fernando.erp_vendas.service.MovimentoEstoqueService;
+import com.fernando.erp_vendas.service.PedidosAlteradosEvent;
+import com.fernando.erp_vendas.service.SaldoProdutoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -26,12 +42,28 @@ public class EntradaEstoqueController {
     @Autowired
     private EntradaEstoqueRepository entradaEstoqueRepository;
 
+    // 🆕 Leituras do histórico de compras (lotes ativos + arquivados)
     @Autowired
-    private ProdutoRepository produtoRepository;
+    private EntradaEstoqueHistoricoRepository entradaEstoqueHistoricoRepository;
+
+    @Autowired
+    private CatalogoProdutoService catalogoProdutoService;
 
     @Autowired
     private EstoqueService estoqueService;
 
+    @Autowired
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+
+    @Autowired
+    private SaldoProdutoService saldoProdutoService;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -42,6 +74,7 @@ public class EntradaEstoqueController {
     }
 
     // ✅ CORRIGIDO: Registrar nova entrada de estoque (COMPRA) PARA O USUÁRIO
+    // 🆕 Reenvio idêntico (mesmo Idempotency-Key ou idPedidoCompra e mesmos parâmetros): resposta original repetida
     @PostMapping("/entrada")
     public ResponseEntity<?> registrarEntrada(
             @RequestParam Long produtoId,
@@ -50,13 +83,31 @@ public class EntradaEstoqueController {
             @RequestParam(required = false) String fornecedor,
             @RequestParam String idPedidoCompra,
             @RequestParam String categoria,
-            @RequestParam(required = false) String observacoes) {
+            @RequestParam(required = false) String observacoes,
+            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
 
         try {
             User currentUser = getCurrentUser();
 
-            // Busca o produto pelo ID E USUÁRIO
-            Produto produto = produtoRepository.findByIdAndUser(produtoId, currentUser)
+            // 🆕 Reenvio: devolve a resposta da compra original, sem validar nem gravar de novo
+            String chave = chaveIdempotencia != null ? chaveIdempotencia : idPedidoCompra;
+            Map<String, Object> parametros = new HashMap<>();
+            parametros.put("produtoId", produtoId);
+            parametros.put("quantidade", quantidade);
+            parametros.put("custoTotal", custoTotal);
+            parametros.put("fornecedor", fornecedor);
+            parametros.put("idPedidoCompra", idPedidoCompra);
+            parametros.put("categoria", categoria);
+            parametros.put("observacoes", observacoes);
+            String impressaoDigital = IdempotenciaPedidoService.impressaoDigital(parametros);
+            Object respostaOriginal = idempotenciaPedidoService.respostaGravada(PedidosAlteradosEvent.Tipo.COMPRA,
+                    currentUser.getId(), chave, impressaoDigital);
+            if (respostaOriginal != null) {
+                return ResponseEntity.ok().header(IdempotenciaPedidoService.CABECALHO_REPETIDA, "true").body(respostaOriginal);
+            }
+
+            // Busca o produto pelo ID E USUÁRIO (🆕 no catálogo em memória, sem carregar o produto nem os lotes)
+            Produto produto = catalogoProdutoService.buscarReferencia(produtoId, currentUser)
                     .orElseThrow(() -> new RuntimeException("Produto não encontrado ou não pertence ao usuário"));
 
             // Validação dos campos obrigatórios
@@ -68,7 +119,10 @@ public class EntradaEstoqueController {
             }
 
             // 🆕 VERIFICAR SE JÁ EXISTE COMPRA COM MESMO ID PEDIDO PARA ESTE USUÁRIO
-            if (entradaEstoqueRepository.findByIdPedidoCompraAndUser(idPedidoCompra, currentUser).isPresent()) {
+            // (pedido que o filtro garante ser novo não consulta o banco; 🆕 compras arquivadas também contam)
+            // A mensagem amigável sai daqui; a unicidade nas duas tabelas é garantida pelo banco (V10)
+            if (idempotenciaPedidoService.buscarExistente(PedidosAlteradosEvent.Tipo.COMPRA, currentUser.getId(), idPedidoCompra,
+                    () -> entradaEstoqueHistoricoRepository.findByIdPedidoCompraAndUser(idPedidoCompra, currentUser)).isPresent()) {
                 return ResponseEntity.badRequest()
                         .body("Já existe uma compra cadastrada com este ID do Pedido: " + idPedidoCompra);
             }
@@ -85,26 +139,15 @@ public class EntradaEstoqueController {
                     currentUser
             );
 
-            // ✅ CORREÇÃO: CALCULAR CUSTO UNITÁRIO AUTOMATICAMENTE
-            if (quantidade != null && quantidade > 0) {
-                try {
-                    BigDecimal custoUnitario = custoTotal.divide(
-                            BigDecimal.valueOf(quantidade),
-                            2,
-                            java.math.RoundingMode.HALF_UP
-                    );
-                    entrada.setCustoUnitario(custoUnitario);
-                } catch (ArithmeticException e) {
-                    double custoUnitarioDouble = custoTotal.doubleValue() / quantidade;
-                    entrada.setCustoUnitario(BigDecimal.valueOf(custoUnitarioDouble)
-                            .setScale(2, java.math.RoundingMode.HALF_UP));
-                }
-            }
+            // ✅ CUSTO UNITÁRIO: calculado pelo construtor (rateio em centavos, HALF_UP)
 
             // ✅ CORREÇÃO: DEFINIR SALDO INICIAL
             entrada.setSaldo(quantidade);
 
-            EntradaEstoque entradaSalva = entradaEstoqueRepository.save(entrada);
+            // 🆕 Lote e saldo do produto gravados na mesma transação
+            EntradaEstoque entradaSalva = estoqueService.registrarEntrada(entrada);
+            idempotenciaPedidoService.gravarResposta(PedidosAlteradosEvent.Tipo.COMPRA, currentUser.getId(), chave,
+                    idPedidoCompra, impressaoDigital, entradaSalva);
 
             return ResponseEntity.ok(entradaSalva);
 
@@ -135,8 +178,8 @@ public class EntradaEstoqueController {
             EntradaEstoque entradaExistente = entradaEstoqueRepository.findByIdAndUser(id, currentUser)
                     .orElseThrow(() -> new RuntimeException("Compra não encontrada ou não pertence ao usuário"));
 
-            // Busca o produto pelo ID E USUÁRIO
-            Produto produto = produtoRepository.findByIdAndUser(produtoId, currentUser)
+            // Busca o produto pelo ID E USUÁRIO (🆕 no catálogo em memória, sem carregar o produto nem os lotes)
+            Produto produto = catalogoProdutoService.buscarReferencia(produtoId, currentUser)
                     .orElseThrow(() -> new RuntimeException("Produto não encontrado ou não pertence ao usuário"));
 
             // Validação dos campos obrigatórios
@@ -148,8 +191,9 @@ public class EntradaEstoqueController {
             }
 
             // 🆕 VERIFICAR SE JÁ EXISTE OUTRA COMPRA COM MESMO ID PEDIDO (exceto esta)
-            Optional<EntradaEstoque> compraComMesmoPedido = entradaEstoqueRepository
-                    .findByIdPedidoCompraAndUser(idPedidoCompra, currentUser);
+            Optional<EntradaEstoqueHistorico> compraComMesmoPedido = idempotenciaPedidoService.buscarExistente(
+                    PedidosAlteradosEvent.Tipo.COMPRA, currentUser.getId(), idPedidoCompra,
+                    () -> entradaEstoqueHistoricoRepository.findByIdPedidoCompraAndUser(idPedidoCompra, currentUser));
             if (compraComMesmoPedido.isPresent() && !compraComMesmoPedido.get().getId().equals(id)) {
                 return ResponseEntity.badRequest()
                         .body("Já existe outra compra cadastrada com este ID do Pedido: " + idPedidoCompra);
@@ -159,49 +203,35 @@ public class EntradaEstoqueController {
             Integer saldoAtual = entradaExistente.getSaldo();
             Integer quantidadeAntiga = entradaExistente.getQuantidade();
 
-            // Se o saldo atual é igual à quantidade antiga (lote intacto), atualiza o saldo
-            if (saldoAtual != null && saldoAtual.equals(quantidadeAntiga)) {
-                entradaExistente.setSaldo(quantidade);
-            }
-            // Se não tem saldo definido, define como a nova quantidade
-            else if (saldoAtual == null) {
-                entradaExistente.setSaldo(quantidade);
-            }
-            // Se o lote já foi parcialmente consumido, NÃO permite alterar quantidade
-            else {
+            // Só é possível editar lote intacto (saldo igual à quantidade antiga) ou sem saldo definido;
+            // se o lote já foi parcialmente consumido, NÃO permite alterar quantidade
+            if (saldoAtual != null && !saldoAtual.equals(quantidadeAntiga)) {
                 return ResponseEntity.badRequest()
                         .body("Não é possível alterar quantidade de um lote que já foi parcialmente consumido. " +
                                 "Saldo atual: " + saldoAtual + ", Quantidade antiga: " + quantidadeAntiga + ". " +
                                 "Exclua as VENDAS que utilizaram este lote para liberar a edição.");
             }
 
-            // Atualiza os campos da entrada existente
-            entradaExistente.setProduto(produto);
-            entradaExistente.setQuantidade(quantidade);
-            entradaExistente.setCustoTotal(custoTotal);
-            entradaExistente.setFornecedor(fornecedor != null ? fornecedor : "");
-            entradaExistente.setIdPedidoCompra(idPedidoCompra);
-            entradaExistente.setCategoria(categoria);
-            entradaExistente.setObservacoes(observacoes != null ? observacoes : "");
-
-            // ✅ CORREÇÃO: Recalcula o custo unitário COM TRATAMENTO DE ERRO
-            if (quantidade != null && quantidade > 0) {
-                try {
-                    entradaExistente.setCustoUnitario(custoTotal.divide(
-                            BigDecimal.valueOf(quantidade),
-                            2,
-                            java.math.RoundingMode.HALF_UP
-                    ));
-                } catch (ArithmeticException e) {
-                    double custoUnitarioDouble = custoTotal.doubleValue() / quantidade;
-                    entradaExistente.setCustoUnitario(BigDecimal.valueOf(custoUnitarioDouble)
-                            .setScale(2, java.math.RoundingMode.HALF_UP));
-                }
-            }
+            // Novos valores do lote (o construtor recalcula o custo unitário e define saldo = quantidade)
+            EntradaEstoque novosDados = new EntradaEstoque(
+                    produto,
+                    quantidade,
+                    custoTotal,
+                    fornecedor != null ? fornecedor : "",
+                    idPedidoCompra,
+                    categoria,
+                    observacoes != null ? observacoes : "",
+                    currentUser
+            );
 
-            EntradaEstoque entradaAtualizada = entradaEstoqueRepository.save(entradaExistente);
+            // 🆕 Lote e saldo do(s) produto(s) atualizados na mesma transação
+            EntradaEstoque entradaAtualizada = estoqueService.atualizarEntrada(entradaExistente, novosDados);
             return ResponseEntity.ok(entradaAtualizada);
 
+        } catch (OptimisticLockingFailureException e) {
+            // 🆕 Uma venda (ou outra edição) alterou o lote depois que ele foi lido: nada foi gravado
+            return ResponseEntity.badRequest()
+                    .body("Compra alterada por outra operação (ex.: venda registrada agora). Recarregue e tente novamente.");
         } catch (DataIntegrityViolationException e) {
             return ResponseEntity.badRequest()
                     .body("Erro de integridade de dados: " + e.getMessage());
@@ -238,6 +268,11 @@ public class EntradaEstoqueController {
                 }
             }
 
+            // 🆕 Lotes removidos fora do fluxo normal: recalcula o saldo mantido dos produtos
+            if (entradasDeletadas > 0) {
+                saldoProdutoService.reconciliar(null);
+            }
+
             return ResponseEntity.ok(String.format(
                     "🔧 LIMPEZA DE DADOS CONCLUÍDA:\n" +
                             "• Total de entradas no sistema: %d\n" +
@@ -257,18 +292,33 @@ public class EntradaEstoqueController {
     }
 
     // ✅ ATUALIZADO: Listar todas as entradas de estoque (COMPRAS) DO USUÁRIO - AGORA COM DTO
+    // 🆕 Paginação por cursor (?limite, ?cursor) e campos esparsos (?campos), como em GET /api/vendas
     @GetMapping("/entradas")
-    public ResponseEntity<?> listarTodasEntradas() {
+    public ResponseEntity<?> listarTodasEntradas(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limite,
+                                                 @RequestParam(required = false) String campos) {
         try {
             User currentUser = getCurrentUser();
-            List<EntradaEstoque> entradas = entradaEstoqueRepository.findByUserOrderByDataEntradaDesc(currentUser);
 
-            // ✅ CONVERTER PARA DTO
-            List<EntradaEstoqueDTO> entradasDTO = entradas.stream()
-                    .map(EntradaEstoqueDTO::new)
-                    .collect(Collectors.toList());
+            // ✅ DTOs projetados direto pelo JPQL (sem carregar o Produto de cada lote)
+            // 🆕 Histórico completo: lotes ativos e arquivados, na mesma ordem e com o mesmo cursor
+            if (cursor == null && limite == null) {
+                List<EntradaEstoqueDTO> entradasDTO = entradaEstoqueHistoricoRepository.findDTOByUser(currentUser);
+                return ResponseEntity.ok(CamposEsparsos.filtrar(objectMapper, entradasDTO, campos));
+            }
 
-            return ResponseEntity.ok(entradasDTO);
+            Slice<EntradaEstoqueDTO> fatia;
+            if (cursor == null) {
+                fatia = entradaEstoqueHistoricoRepository.findPaginaDTOByUser(currentUser, PaginaCursor.paginacao(limite));
+            } else {
+                PaginaCursor.Posicao posicao = PaginaCursor.decodificar(cursor);
+                fatia = entradaEstoqueHistoricoRepository.findPaginaDTOByUserApos(currentUser, posicao.getDataHora(),
+                        posicao.getId(), PaginaCursor.paginacao(limite));
+            }
+
+            return ResponseEntity.ok(new PaginaCursor<>(
+                    CamposEsparsos.filtrar(objectMapper, fatia.getContent(), campos),
+                    PaginaCursor.proximoCursor(fatia, EntradaEstoqueDTO::getDataEntrada, EntradaEstoqueDTO::getId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao listar compras: " + e.getMessage());
         }
@@ -281,15 +331,11 @@ public class EntradaEstoqueController {
             User currentUser = getCurrentUser();
 
             // Buscar produto DO USUÁRIO
-            Produto produto = produtoRepository.findByIdAndUser(produtoId, currentUser)
+            Produto produto = catalogoProdutoService.buscarReferencia(produtoId, currentUser)
                     .orElseThrow(() -> new RuntimeException("Produto não encontrado ou não pertence ao usuário"));
 
-            List<EntradaEstoque> entradas = entradaEstoqueRepository.findByProdutoAndUserOrderByDataEntradaAsc(produto, currentUser);
-
-            // ✅ CONVERTER PARA DTO
-            List<EntradaEstoqueDTO> entradasDTO = entradas.stream()
-                    .map(EntradaEstoqueDTO::new)
-                    .collect(Collectors.toList());
+            // ✅ DTOs projetados pelo JPQL, incluindo os lotes arquivados
+            List<EntradaEstoqueDTO> entradasDTO = entradaEstoqueHistoricoRepository.findDTOByProdutoAndUser(produto, currentUser);
 
             return ResponseEntity.ok(entradasDTO);
         } catch (Exception e) {
@@ -303,7 +349,7 @@ public class EntradaEstoqueController {
         try {
             User currentUser = getCurrentUser();
 
-            Produto produto = produtoRepository.findByIdAndUser(produtoId, currentUser)
+            Produto produto = catalogoProdutoService.buscarReferencia(produtoId, currentUser)
                     .orElseThrow(() -> new RuntimeException("Produto não encontrado ou não pertence ao usuário"));
 
             Integer saldo = estoqueService.verificarSaldoTotal(produto);
@@ -322,7 +368,7 @@ public class EntradaEstoqueController {
         try {
             User currentUser = getCurrentUser();
 
-            Produto produto = produtoRepository.findByIdAndUser(produtoId, currentUser)
+            Produto produto = catalogoProdutoService.buscarReferencia(produtoId, currentUser)
                     .orElseThrow(() -> new RuntimeException("Produto não encontrado ou não pertence ao usuário"));
 
             BigDecimal custo = estoqueService.calcularCustoVenda(produto, quantidade);
@@ -353,11 +399,15 @@ public class EntradaEstoqueController {
                                 "Exclua as VENDAS que utilizaram este lote primeiro para liberar a exclusão.");
             }
 
-            // ✅ CORRETO: No PEPS, apenas excluímos o lote se estiver intacto
-            entradaEstoqueRepository.delete(entrada);
+            // ✅ CORRETO: No PEPS, apenas excluímos o lote se estiver intacto (saldo do produto na mesma transação)
+            estoqueService.excluirEntrada(entrada);
 
             return ResponseEntity.ok().build();
 
+        } catch (OptimisticLockingFailureException e) {
+            // 🆕 Uma venda baixou o lote depois da validação acima: nada foi excluído
+            return ResponseEntity.badRequest()
+                    .body("Compra alterada por outra operação (ex.: venda registrada agora). Recarregue e tente novamente.");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao excluir compra: " + e.getMessage());
         }
@@ -368,8 +418,9 @@ public class EntradaEstoqueController {
     public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
         try {
             User currentUser = getCurrentUser();
-            Optional<EntradaEstoque> entrada = entradaEstoqueRepository.findByIdAndUser(id, currentUser);
-            return entrada.map(ent -> ResponseEntity.ok(new EntradaEstoqueDTO(ent)))
+            // 🆕 Também encontra lotes arquivados
+            Optional<EntradaEstoqueDTO> entrada = entradaEstoqueHistoricoRepository.findDTOByIdAndUser(id, currentUser);
+            return entrada.<ResponseEntity<?>>map(ResponseEntity::ok)
                     .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar compra: " + e.getMessage());
@@ -381,12 +432,8 @@ public class EntradaEstoqueController {
     public ResponseEntity<?> buscarPorCategoria(@PathVariable String categoria) {
         try {
             User currentUser = getCurrentUser();
-            List<EntradaEstoque> entradas = entradaEstoqueRepository.findByCategoriaAndUser(categoria, currentUser);
-
-            // ✅ CONVERTER PARA DTO
-            List<EntradaEstoqueDTO> entradasDTO = entradas.stream()
-                    .map(EntradaEstoqueDTO::new)
-                    .collect(Collectors.toList());
+            // ✅ DTOs projetados pelo JPQL, incluindo os lotes arquivados
+            List<EntradaEstoqueDTO> entradasDTO = entradaEstoqueHistoricoRepository.findDTOByCategoriaAndUser(categoria, currentUser);
 
             return ResponseEntity.ok(entradasDTO);
         } catch (Exception e) {
@@ -394,12 +441,13 @@ public class EntradaEstoqueController {
         }
     }
 
-    // 🆕 GET - Buscar entradas por fornecedor DO USUÁRIO
+    // 🆕 GET - Buscar entradas por fornecedor DO USUÁRIO (sem diferenciar acentos e maiúsculas; usa o índice de busca)
     @GetMapping("/fornecedor/{fornecedor}")
     public ResponseEntity<?> buscarPorFornecedor(@PathVariable String fornecedor) {
         try {
             User currentUser = getCurrentUser();
-            List<EntradaEstoque> entradas = entradaEstoqueRepository.findByFornecedorContainingAndUser(fornecedor, currentUser);
+            List<EntradaEstoqueHistorico> entradas = entradaEstoqueHistoricoRepository.buscarPorFornecedor(currentUser.getId(),
+                    BuscaService.padraoContem(fornecedor));
 
             // ✅ CONVERTER PARA DTO
             List<EntradaEstoqueDTO> entradasDTO = entradas.stream()
@@ -429,4 +477,15 @@ public class EntradaEstoqueController {
             return ResponseEntity.badRequest().body("Erro ao buscar compras com saldo baixo: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // 🆕 GET - Estoque e valor (custo PEPS) de cada produto no fim da data informada (padrão: hoje)
+    @GetMapping("/valoracao")
+    public ResponseEntity<?> getValoracao(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+        try {
+            User currentUser = getCurrentUser();
+            return ResponseEntity.ok(movimentoEstoqueService.valoracao(currentUser, data != null ? data : LocalDate.now()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao calcular valoração do estoque: " + e.getMessage());
+        }
+    }
+}
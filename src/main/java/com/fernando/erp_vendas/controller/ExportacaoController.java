@@ -0,0 +1,104 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.service.ExportacaoService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
+
+// 🆕 EXPORTAÇÃO DE VENDAS, COMPRAS E DESPESAS DO USUÁRIO (arquivos de qualquer tamanho, em streaming)
+@RestController
+@RequestMapping("/api/exportacoes")
+public class ExportacaoController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacaoController.class);
+
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return (User) authentication.getPrincipal();
+        }
+        throw new RuntimeException("Usuário não autenticado");
+    }
+
+    // GET /api/exportacoes/vendas?formato=csv&inicio=2024-01-01&fim=2025-01-01 (também compras e despesas)
+    // fim não incluso; sem datas = todo o histórico. CSV vai comprimido (Content-Encoding: gzip) quando o
+    // cliente aceita gzip; o XLSX já é um ZIP.
+    @GetMapping("/{tipo}")
+    public void exportar(@PathVariable String tipo,
+                         @RequestParam(defaultValue = "csv") String formato,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+                         @RequestHeader(value = "Accept-Encoding", required = false) String aceitaCodificacao,
+                         HttpServletResponse response) throws IOException {
+        ExportacaoService.Tipo tipoExportacao;
+        ExportacaoService.Formato formatoExportacao;
+        User currentUser;
+        try {
+            currentUser = getCurrentUser();
+            tipoExportacao = ExportacaoService.Tipo.de(tipo);
+            formatoExportacao = ExportacaoService.Formato.valueOf(formato.strip().toUpperCase());
+        } catch (Exception e) {
+            erro(response, e.getMessage());
+            return;
+        }
+
+        String arquivo = tipoExportacao.name().toLowerCase()
+                + (inicio != null ? "_" + inicio : "") + (fim != null ? "_ate_" + fim : "");
+        boolean gzip = formatoExportacao == ExportacaoService.Formato.CSV
+                && aceitaCodificacao != null && aceitaCodificacao.contains("gzip");
+        if (formatoExportacao == ExportacaoService.Formato.XLSX) {
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + arquivo + ".xlsx\"");
+        } else {
+            response.setContentType("text/csv");
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + arquivo + ".csv\"");
+        }
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
+        // Erros antes do primeiro byte (ex.: intervalo inválido) ainda viram 400; depois disso a resposta
+        // já começou e o arquivo fica truncado (o cliente percebe pela conexão encerrada)
+        try {
+            OutputStream saida = gzip ? new GZIPOutputStream(response.getOutputStream(), 64 * 1024)
+                    : response.getOutputStream();
+            long linhas = exportacaoService.exportar(currentUser, tipoExportacao, formatoExportacao, inicio, fim, saida);
+            if (saida instanceof GZIPOutputStream compactado) {
+                compactado.finish();
+            }
+            saida.flush();
+            log.info("Exportação concluída: tipo={}, formato={}, linhas={}", tipoExportacao, formatoExportacao, linhas);
+        } catch (Exception e) {
+            log.error("Erro na exportação: tipo={}, formato={}", tipoExportacao, formatoExportacao, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                erro(response, e.getMessage());
+            }
+        }
+    }
+
+    private static void erro(HttpServletResponse response, String mensagem) throws IOException {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        response.setContentType("text/plain");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Erro ao exportar: " + mensagem);
+    }
+}
@@ -1,6 +1,8 @@
 package com.fernando.erp_vendas.controller;
 
 import com.fernando.erp_vendas.service.DataMigrationService;
+import com.fernando.erp_vendas.service.ResumoVendaService;
+import com.fernando.erp_vendas.service.SaldoProdutoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,6 +14,12 @@ public class MigrationController {
     @Autowired
     private DataMigrationService dataMigrationService;
 
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private SaldoProdutoService saldoProdutoService;
+
     // ✅ CORRIGIDO: Migrar para usuário específico
     @PostMapping("/peps/{userId}")
     public ResponseEntity<String> migrarEstoqueUsuario(@PathVariable Long userId) {
@@ -67,4 +75,48 @@ public class MigrationController {
             return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    // 🆕 Reconstruir o agregado de vendas dos dashboards para um usuário
+    @PostMapping("/resumo-vendas/{userId}")
+    public ResponseEntity<String> reconstruirResumoVendasUsuario(@PathVariable Long userId) {
+        try {
+            int grupos = resumoVendaService.reconstruir(userId);
+            return ResponseEntity.ok("Agregado de vendas reconstruído: " + grupos + " grupos");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
+        }
+    }
+
+    // 🆕 Reconstruir o agregado de vendas dos dashboards para todos os usuários
+    @PostMapping("/resumo-vendas/todos")
+    public ResponseEntity<String> reconstruirResumoVendasTodos() {
+        try {
+            int grupos = resumoVendaService.reconstruir(null);
+            return ResponseEntity.ok("Agregado de vendas reconstruído: " + grupos + " grupos");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
+        }
+    }
+
+    // 🆕 Reconciliar o saldo mantido dos produtos com a soma dos lotes para um usuário
+    @PostMapping("/saldo-estoque/{userId}")
+    public ResponseEntity<String> reconciliarSaldoEstoqueUsuario(@PathVariable Long userId) {
+        try {
+            int corrigidos = saldoProdutoService.reconciliar(userId);
+            return ResponseEntity.ok("Saldo de estoque reconciliado: " + corrigidos + " produtos corrigidos");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
+        }
+    }
+
+    // 🆕 Reconciliar o saldo mantido dos produtos de todos os usuários
+    @PostMapping("/saldo-estoque/todos")
+    public ResponseEntity<String> reconciliarSaldoEstoqueTodos() {
+        try {
+            int corrigidos = saldoProdutoService.reconciliar(null);
+            return ResponseEntity.ok("Saldo de estoque reconciliado: " + corrigidos + " produtos corrigidos");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
+        }
+    }
+}
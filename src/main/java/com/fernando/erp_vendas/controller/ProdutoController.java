@@ -1,9 +1,20 @@
 package com.fernando.erp_vendas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fernando.erp_vendas.dto.CamposEsparsos;
+import com.fernando.erp_vendas.dto.PaginaCursor;
 import com.fernando.erp_vendas.model.Produto;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.service.BuscaService;
+import com.fernando.erp_vendas.service.CatalogoProdutoService;
+import com.fernando.erp_vendas.service.DadosUsuarioAlteradosEvent;
+import com.fernando.erp_vendas.service.EstoqueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,43 +27,58 @@ import java.util.Optional;
 @RequestMapping("/api/produtos")
 public class ProdutoController {
 
+    private static final Logger log = LoggerFactory.getLogger(ProdutoController.class);
+
     @Autowired
     private ProdutoRepository produtoRepository;
 
-    // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO (COM DEBUG)
-    private User getCurrentUser() {
-        try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            System.out.println("🔐 DEBUG - Authentication: " + authentication);
-            System.out.println("🔐 DEBUG - Principal type: " + (authentication != null ? authentication.getPrincipal().getClass().getName() : "null"));
-            System.out.println("🔐 DEBUG - Principal: " + (authentication != null ? authentication.getPrincipal() : "null"));
-            System.out.println("🔐 DEBUG - Is authenticated: " + (authentication != null ? authentication.isAuthenticated() : "false"));
-
-            if (authentication != null && authentication.getPrincipal() instanceof User) {
-                User user = (User) authentication.getPrincipal();
-                System.out.println("✅ DEBUG - User found: " + user.getEmail() + " ID: " + user.getId());
-                return user;
-            }
+    @Autowired
+    private CatalogoProdutoService catalogoProdutoService;
 
-            System.out.println("❌ DEBUG - User not found in SecurityContext");
-            throw new RuntimeException("Usuário não autenticado");
-        } catch (Exception e) {
-            System.out.println("❌ DEBUG - Error in getCurrentUser: " + e.getMessage());
-            throw new RuntimeException("Usuário não autenticado");
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return (User) authentication.getPrincipal();
         }
+        throw new RuntimeException("Usuário não autenticado");
     }
 
     // GET - Listar todos os produtos DO USUÁRIO LOGADO
+    // 🆕 Paginação por cursor (?limite, ?cursor) e campos esparsos (?campos), como em GET /api/vendas
+    // Páginas ordenadas do cadastro mais recente para o mais antigo (cursor = id)
     @GetMapping
-    public ResponseEntity<?> listarTodos() {
+    public ResponseEntity<?> listarTodos(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limite,
+                                         @RequestParam(required = false) String campos) {
         try {
-            System.out.println("🔐 DEBUG - Starting listarTodos()");
             User currentUser = getCurrentUser();
-            List<Produto> produtos = produtoRepository.findByUser(currentUser);
-            System.out.println("✅ DEBUG - Found " + produtos.size() + " products for user " + currentUser.getEmail());
-            return ResponseEntity.ok(produtos);
+            if (cursor == null && limite == null) {
+                List<Produto> produtos = produtoRepository.findByUser(currentUser);
+                log.debug("Produtos listados: quantidade={}", produtos.size());
+                return ResponseEntity.ok(CamposEsparsos.filtrar(objectMapper, produtos, campos));
+            }
+
+            Slice<Produto> fatia = cursor == null
+                    ? produtoRepository.findPaginaByUser(currentUser, PaginaCursor.paginacao(limite))
+                    : produtoRepository.findPaginaByUserApos(currentUser, PaginaCursor.decodificar(cursor).getId(),
+                            PaginaCursor.paginacao(limite));
+
+            log.debug("Página de produtos listada: quantidade={} temMais={}", fatia.getNumberOfElements(), fatia.hasNext());
+            return ResponseEntity.ok(new PaginaCursor<>(
+                    CamposEsparsos.filtrar(objectMapper, fatia.getContent(), campos),
+                    PaginaCursor.proximoCursor(fatia, produto -> null, Produto::getId)));
         } catch (Exception e) {
-            System.out.println("❌ DEBUG - Error in listarTodos: " + e.getMessage());
+            log.warn("Erro ao listar produtos: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Erro ao listar produtos: " + e.getMessage());
         }
     }
@@ -85,6 +111,8 @@ public class ProdutoController {
             produto.setUser(currentUser);
 
             Produto produtoSalvo = produtoRepository.save(produto);
+            // 🆕 Novo produto no catálogo em memória (CatalogoProdutoService) e na leitura após escrita
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.PRODUTO));
             return ResponseEntity.ok(produtoSalvo);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao criar produto: " + e.getMessage());
@@ -116,6 +144,7 @@ public class ProdutoController {
                 produto.setEstoqueMinimo(produtoAtualizado.getEstoqueMinimo());
 
                 Produto produtoAtualizadoSalvo = produtoRepository.save(produto);
+                eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.PRODUTO));
                 return ResponseEntity.ok(produtoAtualizadoSalvo);
             } else {
                 return ResponseEntity.notFound().build();
@@ -134,7 +163,8 @@ public class ProdutoController {
             // 🆕 VERIFICAR SE PRODUTO EXISTE E PERTENCE AO USUÁRIO
             Optional<Produto> produto = produtoRepository.findByIdAndUser(id, currentUser);
             if (produto.isPresent()) {
-                produtoRepository.deleteById(id);
+                // 🆕 Baixa o saldo dos lotes no livro de estoque antes de excluir (mesma transação)
+                estoqueService.excluirProduto(produto.get());
                 return ResponseEntity.ok().build();
             } else {
                 return ResponseEntity.notFound().build();
@@ -144,12 +174,12 @@ public class ProdutoController {
         }
     }
 
-    // 🆕 GET - Buscar produtos por nome (busca parcial)
+    // 🆕 GET - Buscar produtos por nome (busca parcial, sem diferenciar acentos e maiúsculas; usa o índice de busca)
     @GetMapping("/buscar")
     public ResponseEntity<?> buscarPorNome(@RequestParam String nome) {
         try {
             User currentUser = getCurrentUser();
-            List<Produto> produtos = produtoRepository.findByNomeContainingAndUser(nome, currentUser);
+            List<Produto> produtos = produtoRepository.buscarPorNome(currentUser.getId(), BuscaService.padraoContem(nome));
             return ResponseEntity.ok(produtos);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar produtos: " + e.getMessage());
@@ -169,6 +199,17 @@ public class ProdutoController {
         }
     }
 
+    // 🆕 ESTATÍSTICAS DO CATÁLOGO EM MEMÓRIA (acertos, falhas, despejos, invalidações)
+    @GetMapping("/catalogo/estatisticas")
+    public ResponseEntity<?> getEstatisticasCatalogo() {
+        try {
+            getCurrentUser();
+            return ResponseEntity.ok(catalogoProdutoService.estatisticas());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao carregar estatísticas do catálogo: " + e.getMessage());
+        }
+    }
+
     // 🆕 GET - Produtos com estoque baixo
     @GetMapping("/estoque-baixo")
     public ResponseEntity<?> getProdutosComEstoqueBaixo() {
@@ -0,0 +1,73 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.dto.Granularidade;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.service.RelatorioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+// 🆕 RELATÓRIOS EM SÉRIE TEMPORAL DO USUÁRIO
+@RestController
+@RequestMapping("/api/relatorios")
+public class RelatorioController {
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User) {
+            return (User) authentication.getPrincipal();
+        }
+        throw new RuntimeException("Usuário não autenticado");
+    }
+
+    // GET /api/relatorios/series?inicio=2025-01-01&fim=2025-04-01&granularidade=mes&divisao=plataforma
+    // fim não incluso; sem datas = últimos 30 dias (até hoje, inclusive). divisao: plataforma ou produto
+    // (limiteSeries produtos de maior faturamento, o resto em "Outros")
+    @GetMapping("/series")
+    public ResponseEntity<?> series(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+                                    @RequestParam(defaultValue = "dia") String granularidade,
+                                    @RequestParam(required = false) String divisao,
+                                    @RequestParam(required = false) Integer limiteSeries) {
+        try {
+            User currentUser = getCurrentUser();
+            LocalDate fimIntervalo = fim != null ? fim : LocalDate.now().plusDays(1);
+            LocalDate inicioIntervalo = inicio != null ? inicio : fimIntervalo.minusDays(30);
+            return ResponseEntity.ok(relatorioService.serieTemporal(currentUser, inicioIntervalo, fimIntervalo,
+                    Granularidade.de(granularidade), divisao, limiteSeries));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao gerar relatório: " + e.getMessage());
+        }
+    }
+
+    // 🆕 GET /api/relatorios/ranking-vendas?metrica=lucroLiquido&ordem=menores&limite=50&plataforma=AMAZON&inicio=2025-01-01&fim=2025-02-01
+    // metrica: faturamento, custoEfetivoTotal, lucroBruto, lucroLiquido ou roi; ordem: maiores (padrão) ou menores;
+    // plataforma e período opcionais (fim não incluso)
+    @GetMapping("/ranking-vendas")
+    public ResponseEntity<?> rankingVendas(@RequestParam(defaultValue = "lucroLiquido") String metrica,
+                                           @RequestParam(defaultValue = "maiores") String ordem,
+                                           @RequestParam(required = false) Integer limite,
+                                           @RequestParam(required = false) String plataforma,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        try {
+            User currentUser = getCurrentUser();
+            if (!ordem.equals("maiores") && !ordem.equals("menores")) {
+                return ResponseEntity.badRequest().body("Ordem inválida: " + ordem + " (use maiores ou menores)");
+            }
+            return ResponseEntity.ok(relatorioService.rankingVendas(currentUser, metrica, ordem.equals("maiores"),
+                    limite, plataforma, inicio, fim));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao gerar ranking de vendas: " + e.getMessage());
+        }
+    }
+}
@@ -1,42 +1,101 @@
 package com.fernando.erp_vendas.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fernando.erp_vendas.dto.CamposEsparsos;
+import com.fernando.erp_vendas.dto.Granularidade;
+import com.fernando.erp_vendas.dto.PaginaCursor;
+import com.fernando.erp_vendas.dto.ProdutoCatalogo;
+import com.fernando.erp_vendas.dto.ResultadoAlocacaoPeps;
+import com.fernando.erp_vendas.dto.ResultadoImportacao;
+import com.fernando.erp_vendas.dto.SerieTemporal;
+import com.fernando.erp_vendas.dto.TotaisVendas;
 import com.fernando.erp_vendas.dto.VendaDTO;
+import com.fernando.erp_vendas.model.Dinheiro;
 import com.fernando.erp_vendas.model.Produto;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.model.Venda;
-import com.fernando.erp_vendas.repository.ProdutoRepository;
 import com.fernando.erp_vendas.repository.VendaRepository;
+import com.fernando.erp_vendas.repository.VendaResumoDiarioRepository;
+import com.fernando.erp_vendas.service.BuscaService;
+import com.fernando.erp_vendas.service.CatalogoProdutoService;
+import com.fernando.erp_vendas.service.DashboardCacheService;
 import com.fernando.erp_vendas.service.EstoqueService;
+import com.fernando.erp_vendas.service.IdempotenciaPedidoService;
+import com.fernando.erp_vendas.service.ImportacaoVendaService;
+import com.fernando.erp_vendas.service.PedidosAlteradosEvent;
+import com.fernando.erp_vendas.service.RelatorioService;
+import com.fernando.erp_vendas.service.ReservaEstoqueService;
+import com.fernando.erp_vendas.service.ResumoVendaService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.math.BigDecimal;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/vendas")
 public class VendaController {
 
-    @Autowired
-    private ProdutoRepository produtoRepository;
+    private static final Logger log = LoggerFactory.getLogger(VendaController.class);
 
     @Autowired
     private VendaRepository vendaRepository;
 
+    @Autowired
+    private VendaResumoDiarioRepository vendaResumoDiarioRepository;
+
+    @Autowired
+    private CatalogoProdutoService catalogoProdutoService;
+
     @Autowired
     private EstoqueService estoqueService;
 
+    @Autowired
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @Autowired
+    private DashboardCacheService dashboardCacheService;
+
+    @Autowired
+    private ImportacaoVendaService importacaoVendaService;
+
+    @Autowired
+    private BuscaService buscaService;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -46,9 +105,8 @@ public class VendaController {
         throw new RuntimeException("Usuário não autenticado");
     }
 
-    // ✅ ATUALIZADO: Método para calcular faturamento por plataforma DO USUÁRIO
+    // ✅ ATUALIZADO: Faturamento por plataforma DO USUÁRIO (lido do agregado diário)
     private Map<String, Double> calcularFaturamentoPorPlataforma(User user) {
-        List<Venda> vendasUsuario = vendaRepository.findByUserWithProduto(user);
         Map<String, Double> faturamentoPorPlataforma = new HashMap<>();
 
         // Inicializar todas as plataformas
@@ -56,106 +114,43 @@ public class VendaController {
         faturamentoPorPlataforma.put("MERCADO_LIVRE", 0.0);
         faturamentoPorPlataforma.put("SHOPEE", 0.0);
 
-        // Calcular faturamento real usando o novo método
-        for (Venda venda : vendasUsuario) {
-            String plataforma = venda.getPlataforma();
-            double faturamentoVenda = venda.calcularFaturamento();
-
-            faturamentoPorPlataforma.put(plataforma,
-                    faturamentoPorPlataforma.getOrDefault(plataforma, 0.0) + faturamentoVenda);
+        // [plataforma, precoVenda, faturamento]
+        for (Object[] linha : vendaResumoDiarioRepository.findTotaisPorPlataforma(user)) {
+            String plataforma = ((String) linha[0]).isEmpty() ? null : (String) linha[0];
+            faturamentoPorPlataforma.put(plataforma, ((Number) linha[2]).doubleValue());
         }
 
         return faturamentoPorPlataforma;
     }
 
-    // ✅ ATUALIZADO: Método para produtos mais vendidos com faturamento DO USUÁRIO
+    // ✅ ATUALIZADO: Top 5 produtos mais vendidos com faturamento DO USUÁRIO (lido do agregado diário)
     private List<Map<String, Object>> calcularProdutosMaisVendidos(User user) {
-        List<Venda> vendasUsuario = vendaRepository.findByUserWithProduto(user);
-        Map<String, Map<String, Object>> produtosMap = new HashMap<>();
-
-        // Agrupar por produto
-        for (Venda venda : vendasUsuario) {
-            String produtoNome = venda.getProduto().getNome();
-
-            if (!produtosMap.containsKey(produtoNome)) {
-                Map<String, Object> produtoInfo = new HashMap<>();
-                produtoInfo.put("produto", produtoNome);
-                produtoInfo.put("quantidadeVendida", 0);
-                produtoInfo.put("faturamento", 0.0);
-                produtoInfo.put("lucroLiquido", 0.0);
-                produtosMap.put(produtoNome, produtoInfo);
-            }
-
-            Map<String, Object> produtoInfo = produtosMap.get(produtoNome);
-            int quantidadeAtual = (int) produtoInfo.get("quantidadeVendida");
-            double faturamentoAtual = (double) produtoInfo.get("faturamento");
-            double lucroLiquidoAtual = (double) produtoInfo.get("lucroLiquido");
-
-            produtoInfo.put("quantidadeVendida", quantidadeAtual + venda.getQuantidade());
-            produtoInfo.put("faturamento", faturamentoAtual + venda.calcularFaturamento());
-            produtoInfo.put("lucroLiquido", lucroLiquidoAtual + venda.calcularLucroLiquido());
+        List<Map<String, Object>> produtosMaisVendidos = new ArrayList<>();
+
+        // [nome, unidades, faturamento, lucroLiquido] já ordenado por unidades (decrescente)
+        for (Object[] linha : vendaResumoDiarioRepository.findTotaisPorProduto(user)) {
+            if (produtosMaisVendidos.size() == 5) break;
+
+            Map<String, Object> produtoInfo = new HashMap<>();
+            produtoInfo.put("produto", linha[0]);
+            produtoInfo.put("quantidadeVendida", ((Number) linha[1]).intValue());
+            produtoInfo.put("faturamento", ((Number) linha[2]).doubleValue());
+            produtoInfo.put("lucroLiquido", ((Number) linha[3]).doubleValue());
+            produtosMaisVendidos.add(produtoInfo);
         }
 
-        // Converter para lista e ordenar por quantidade vendida (decrescente)
-        List<Map<String, Object>> produtosMaisVendidos = new ArrayList<>(produtosMap.values());
-        produtosMaisVendidos.sort((a, b) -> {
-            int quantidadeA = (int) a.get("quantidadeVendida");
-            int quantidadeB = (int) b.get("quantidadeVendida");
-            return Integer.compare(quantidadeB, quantidadeA); // Ordem decrescente
-        });
-
-        // Manter apenas top 5
-        return produtosMaisVendidos.size() > 5 ? produtosMaisVendidos.subList(0, 5) : produtosMaisVendidos;
+        return produtosMaisVendidos;
     }
 
-    // ✅ ATUALIZADO: ENDPOINT DASHBOARD - VERSÃO FUNCIONAL COM MULTI-TENANCY
+    // ✅ ATUALIZADO: ENDPOINT DASHBOARD - LÊ APENAS O AGREGADO DIÁRIO (custo constante com o histórico)
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboard() {
         try {
             User currentUser = getCurrentUser();
-            Map<String, Object> dashboard = new HashMap<>();
-
-            // Buscar todas as vendas DO USUÁRIO para calcular em tempo real
-            List<Venda> vendasUsuario = vendaRepository.findByUserWithProduto(currentUser);
-
-            // ✅ CALCULAR TOTAIS USANDOS OS NOVOS MÉTODOS
-            double faturamentoTotal = 0;
-            double custoEfetivoTotal = 0;
-            double lucroBrutoTotal = 0;
-            double lucroLiquidoTotal = 0;
-            double despesasOperacionaisTotal = 0;
-
-            for (Venda venda : vendasUsuario) {
-                faturamentoTotal += venda.calcularFaturamento();
-                custoEfetivoTotal += venda.calcularCustoEfetivoTotal();
-                lucroBrutoTotal += venda.calcularLucroBruto();
-                lucroLiquidoTotal += venda.calcularLucroLiquido();
-                despesasOperacionaisTotal += venda.getDespesasOperacionais();
-            }
-
-            // ✅ DADOS ATUALIZADOS
-            dashboard.put("faturamentoTotal", faturamentoTotal);
-            dashboard.put("custoEfetivoTotal", custoEfetivoTotal);
-            dashboard.put("lucroBrutoTotal", lucroBrutoTotal);
-            dashboard.put("lucroLiquidoTotal", lucroLiquidoTotal);
-            dashboard.put("despesasOperacionaisTotal", despesasOperacionaisTotal);
 
-            // Calcular ROI total
-            double roiTotal = (custoEfetivoTotal > 0) ? (lucroLiquidoTotal / custoEfetivoTotal) * 100 : 0;
-            dashboard.put("roiTotal", roiTotal);
-
-            // ✅ DADOS EXISTENTES (agora calculados corretamente)
-            dashboard.put("faturamentoPorPlataforma", calcularFaturamentoPorPlataforma(currentUser));
-            dashboard.put("totalVendas", vendasUsuario.size());
-
-            LocalDateTime agora = LocalDateTime.now();
-            long vendasMesAtual = vendasUsuario.stream()
-                    .filter(venda -> venda.getData().getMonthValue() == agora.getMonthValue()
-                            && venda.getData().getYear() == agora.getYear())
-                    .count();
-            dashboard.put("vendasMesAtual", vendasMesAtual);
-
-            dashboard.put("produtosMaisVendidos", calcularProdutosMaisVendidos(currentUser));
+            // 🆕 CACHE POR USUÁRIO: recalcula apenas após alterações nos dados do usuário (ou TTL)
+            Map<String, Object> dashboard = dashboardCacheService.obterDashboardVendas(currentUser.getId(),
+                    () -> montarDashboard(currentUser));
 
             return ResponseEntity.ok(dashboard);
         } catch (Exception e) {
@@ -163,23 +158,65 @@ public class VendaController {
         }
     }
 
+    // Monta o mapa do dashboard de vendas do usuário (somente no cache miss)
+    private Map<String, Object> montarDashboard(User currentUser) {
+        Map<String, Object> dashboard = new HashMap<>();
+
+        // ✅ TOTAIS DO USUÁRIO (somas mantidas a cada criação/edição/exclusão de venda)
+        // 🆕 Fórmulas em centavos; reais só na resposta
+        TotaisVendas totais = resumoVendaService.totais(currentUser);
+        long custoEfetivoTotal = totais.calcularCustoEfetivoTotalCentavos();
+        long lucroLiquidoTotal = totais.calcularLucroLiquidoCentavos();
+
+        // ✅ DADOS ATUALIZADOS
+        dashboard.put("faturamentoTotal", totais.calcularFaturamento());
+        dashboard.put("custoEfetivoTotal", Dinheiro.paraReais(custoEfetivoTotal));
+        dashboard.put("lucroBrutoTotal", totais.calcularLucroBruto());
+        dashboard.put("lucroLiquidoTotal", Dinheiro.paraReais(lucroLiquidoTotal));
+        dashboard.put("despesasOperacionaisTotal", totais.getDespesasOperacionais());
+
+        // Calcular ROI total
+        double roiTotal = Dinheiro.percentual(lucroLiquidoTotal, custoEfetivoTotal);
+        dashboard.put("roiTotal", roiTotal);
+
+        // ✅ DADOS EXISTENTES (agora calculados corretamente)
+        dashboard.put("faturamentoPorPlataforma", calcularFaturamentoPorPlataforma(currentUser));
+        dashboard.put("totalVendas", (int) totais.getQuantidadeVendas());
+
+        LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+        long vendasMesAtual = vendaResumoDiarioRepository.countVendasNoPeriodo(
+                currentUser, inicioMes, inicioMes.plusMonths(1));
+        dashboard.put("vendasMesAtual", vendasMesAtual);
+
+        dashboard.put("produtosMaisVendidos", calcularProdutosMaisVendidos(currentUser));
+
+        return dashboard;
+    }
+
     // GET - Listar vendas por dia DO USUÁRIO
+    // ✅ Lido do agregado diário (antes: agrupado na tabela de vendas).
+    // Sem datas = todo o histórico, só os dias com venda (resposta de sempre). Com inicio e fim = intervalo
+    // [inicio, fim), dias sem venda aparecem com 0. Para outras granularidades: /api/relatorios/series
     @GetMapping("/vendas-por-dia")
-    public ResponseEntity<?> getVendasPorDia() {
+    public ResponseEntity<?> getVendasPorDia(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
         try {
             User currentUser = getCurrentUser();
-            List<Object[]> resultados = vendaRepository.findVendasPorDia(currentUser);
-            Map<String, Integer> vendasPorDia = new HashMap<>();
-
-            for (Object[] resultado : resultados) {
-                Date data = (Date) resultado[0];
-                Long quantidade = (Long) resultado[1];
+            Map<String, Integer> vendasPorDia = new LinkedHashMap<>();
 
-                // Converter Date para String no formato YYYY-MM-DD
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-                String dataStr = sdf.format(data);
+            if (inicio == null && fim == null) {
+                for (Object[] resultado : vendaResumoDiarioRepository.findVendasPorDia(currentUser)) {
+                    vendasPorDia.put(resultado[0].toString(), ((Number) resultado[1]).intValue());
+                }
+                return ResponseEntity.ok(vendasPorDia);
+            }
+            if (inicio == null || fim == null) {
+                return ResponseEntity.badRequest().body("Informe inicio e fim (ou nenhum dos dois para todo o histórico)");
+            }
 
-                vendasPorDia.put(dataStr, quantidade.intValue());
+            SerieTemporal serie = relatorioService.serieTemporal(currentUser, inicio, fim, Granularidade.DIA, null, null);
+            for (int i = 0; i < serie.getPeriodos().size(); i++) {
+                vendasPorDia.put(serie.getPeriodos().get(i).toString(), (int) serie.getTotais().getVendas()[i]);
             }
 
             return ResponseEntity.ok(vendasPorDia);
@@ -189,35 +226,38 @@ public class VendaController {
     }
 
     // ✅ ATUALIZADO: GET - Listar todas as vendas DO USUÁRIO - AGORA COM DTO
+    // 🆕 Paginação por cursor: ?limite=50 devolve {itens, proximoCursor, temMais}; a próxima página
+    // vem com ?cursor=<proximoCursor>. Sem limite/cursor a resposta continua sendo a lista completa.
+    // ?campos=id,data,precoVenda devolve só essas propriedades (nos dois formatos).
     @GetMapping
-    public ResponseEntity<?> listarTodas() {
+    public ResponseEntity<?> listarTodas(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limite,
+                                         @RequestParam(required = false) String campos) {
         try {
             User currentUser = getCurrentUser();
-            System.out.println("🔍 DEBUG VENDAS - Buscando vendas para usuário: " + currentUser.getEmail());
-
-            // ✅ CORREÇÃO: Usar método com JOIN FETCH para evitar LazyInitialization
-            List<Venda> vendas = vendaRepository.findByUserWithProduto(currentUser);
-            System.out.println("📊 DEBUG VENDAS - Total de vendas encontradas: " + vendas.size());
-
-            // ✅ DEBUG: Verificar cada venda
-            for (int i = 0; i < vendas.size(); i++) {
-                Venda venda = vendas.get(i);
-                System.out.println("   Venda " + i + ": ID=" + venda.getId() +
-                        ", Pedido=" + venda.getIdPedido() +
-                        ", Produto=" + (venda.getProduto() != null ? venda.getProduto().getNome() : "NULL") +
-                        ", Data=" + venda.getData());
+
+            // ✅ DTOs projetados direto pelo JPQL (sem hidratar Venda/Produto)
+            if (cursor == null && limite == null) {
+                List<VendaDTO> vendasDTO = vendaRepository.findDTOByUser(currentUser);
+                log.debug("Vendas listadas: quantidade={}", vendasDTO.size());
+                return ResponseEntity.ok(CamposEsparsos.filtrar(objectMapper, vendasDTO, campos));
             }
 
-            // ✅ CONVERTER PARA DTO
-            List<VendaDTO> vendasDTO = vendas.stream()
-                    .map(VendaDTO::new)
-                    .collect(Collectors.toList());
+            Slice<VendaDTO> fatia;
+            if (cursor == null) {
+                fatia = vendaRepository.findPaginaDTOByUser(currentUser, PaginaCursor.paginacao(limite));
+            } else {
+                PaginaCursor.Posicao posicao = PaginaCursor.decodificar(cursor);
+                fatia = vendaRepository.findPaginaDTOByUserApos(currentUser, posicao.getDataHora(), posicao.getId(),
+                        PaginaCursor.paginacao(limite));
+            }
 
-            System.out.println("✅ Vendas convertidas para DTO: " + vendasDTO.size());
-            return ResponseEntity.ok(vendasDTO);
+            log.debug("Página de vendas listada: quantidade={} temMais={}", fatia.getNumberOfElements(), fatia.hasNext());
+            return ResponseEntity.ok(new PaginaCursor<>(
+                    CamposEsparsos.filtrar(objectMapper, fatia.getContent(), campos),
+                    PaginaCursor.proximoCursor(fatia, VendaDTO::getData, VendaDTO::getId)));
         } catch (Exception e) {
-            System.out.println("❌ ERRO CRÍTICO em listarTodas: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Erro ao listar vendas", e);
             return ResponseEntity.badRequest().body("Erro ao listar vendas: " + e.getMessage());
         }
     }
@@ -235,20 +275,16 @@ public class VendaController {
         }
     }
 
-    // ✅ CORREÇÃO CRÍTICA: POST - Criar nova venda PARA O USUÁRIO (COM DEBUG COMPLETO)
+    // ✅ CORREÇÃO CRÍTICA: POST - Criar nova venda PARA O USUÁRIO
+    // 🆕 Reenvio idêntico (mesmo Idempotency-Key ou idPedido e mesmo corpo): resposta original repetida
     @PostMapping
-    public ResponseEntity<?> criarVenda(@RequestBody Map<String, Object> vendaData) {
+    public ResponseEntity<?> criarVenda(@RequestBody Map<String, Object> vendaData,
+                                        @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
         try {
-            System.out.println("🔍 DEBUG INICIAL - Dados recebidos: " + vendaData);
-
             User currentUser = getCurrentUser();
 
-            // 1. DEBUG: Mostrar TODOS os campos do Map
-            System.out.println("📋 DEBUG MAP COMPLETO:");
-            for (Map.Entry<String, Object> entry : vendaData.entrySet()) {
-                System.out.println("   " + entry.getKey() + " = " + entry.getValue() + " (tipo: " +
-                        (entry.getValue() != null ? entry.getValue().getClass().getSimpleName() : "null") + ")");
-            }
+            // 1. Campos recebidos (só os nomes: valores podem conter dados do cliente)
+            log.debug("Criando venda: campos={}", vendaData.keySet());
 
             // 2. Extrair dados do Map (INCLUINDO AGORA A DATA)
             Long produtoId = Long.valueOf(vendaData.get("produtoId").toString());
@@ -257,35 +293,37 @@ public class VendaController {
             String plataforma = vendaData.get("plataforma").toString();
             Double precoVenda = Double.valueOf(vendaData.get("precoVenda").toString());
 
-            // ✅ CORREÇÃO CRÍTICA: Extrair e converter a data COM DEBUG
+            // 🆕 Webhook repetido: devolve a resposta da criação original, sem validar nem gravar de novo
+            String chave = chaveIdempotencia != null ? chaveIdempotencia : idPedido;
+            String impressaoDigital = IdempotenciaPedidoService.impressaoDigital(vendaData);
+            Object respostaOriginal = idempotenciaPedidoService.respostaGravada(PedidosAlteradosEvent.Tipo.VENDA,
+                    currentUser.getId(), chave, impressaoDigital);
+            if (respostaOriginal != null) {
+                return ResponseEntity.ok().header(IdempotenciaPedidoService.CABECALHO_REPETIDA, "true").body(respostaOriginal);
+            }
+
+            // ✅ CORREÇÃO CRÍTICA: Extrair e converter a data
             String dataString = vendaData.get("data") != null ?
                     vendaData.get("data").toString() : null;
 
-            System.out.println("📅 DEBUG DATA - String recebida: '" + dataString + "'");
-
             LocalDateTime dataVenda;
             if (dataString != null && !dataString.trim().isEmpty()) {
                 try {
                     // Tentar parse direto (formato completo)
                     dataVenda = LocalDateTime.parse(dataString);
-                    System.out.println("✅ DEBUG DATA - Parse direto bem-sucedido: " + dataVenda);
                 } catch (Exception e1) {
                     try {
                         // Tentar parse com formato simplificado (sem segundos)
                         dataVenda = LocalDateTime.parse(dataString + ":00");
-                        System.out.println("✅ DEBUG DATA - Parse com segundos bem-sucedido: " + dataVenda);
                     } catch (Exception e2) {
-                        System.out.println("❌ DEBUG DATA - Erro no parse, usando data atual");
+                        log.warn("Data da venda inválida, usando data atual: data='{}'", dataString);
                         dataVenda = LocalDateTime.now();
                     }
                 }
             } else {
-                System.out.println("⚠️ DEBUG DATA - String vazia, usando data atual");
                 dataVenda = LocalDateTime.now();
             }
 
-            System.out.println("🎯 DEBUG DATA FINAL - Data que será salva: " + dataVenda);
-
             Double fretePagoPeloCliente = vendaData.get("fretePagoPeloCliente") != null ?
                     Double.valueOf(vendaData.get("fretePagoPeloCliente").toString()) : 0.0;
             Double custoEnvio = vendaData.get("custoEnvio") != null ?
@@ -296,28 +334,21 @@ public class VendaController {
                     Double.valueOf(vendaData.get("despesasOperacionais").toString()) : 0.0;
 
             // 3. Verificar se o produto existe E PERTENCE AO USUÁRIO
-            Optional<Produto> produtoOpt = produtoRepository.findByIdAndUser(produtoId, currentUser);
+            // 🆕 No catálogo em memória: sem carregar o produto nem os lotes
+            Optional<Produto> produtoOpt = catalogoProdutoService.buscarReferencia(produtoId, currentUser);
             if (!produtoOpt.isPresent()) {
                 return ResponseEntity.badRequest().body("Produto não encontrado ou não pertence ao usuário");
             }
             Produto produto = produtoOpt.get();
 
             // 4. Verificar se já existe venda com mesmo ID do pedido PARA ESTE USUÁRIO
-            if (vendaRepository.findByIdPedidoAndUser(idPedido, currentUser).isPresent()) {
+            // 🆕 Pedido que o filtro garante ser novo não consulta o banco
+            if (idempotenciaPedidoService.buscarExistente(PedidosAlteradosEvent.Tipo.VENDA, currentUser.getId(), idPedido,
+                    () -> vendaRepository.findByIdPedidoAndUser(idPedido, currentUser)).isPresent()) {
                 return ResponseEntity.badRequest().body("Já existe uma venda com este ID do pedido");
             }
 
-            // 5. ✅ CORREÇÃO: Verificar estoque de forma mais robusta
-            Integer saldoDisponivel = estoqueService.verificarSaldoTotal(produto);
-            System.out.println("📦 Verificando estoque - Produto: " + produto.getNome() +
-                    ", Saldo: " + saldoDisponivel + ", Necessário: " + quantidade);
-
-            if (saldoDisponivel < quantidade) {
-                return ResponseEntity.badRequest()
-                        .body("Estoque insuficiente! Disponível: " + saldoDisponivel + " unidades");
-            }
-
-            // 6. Criar nova venda COM DATA
+            // 5. Criar nova venda COM DATA
             Venda venda = new Venda();
             venda.setData(dataVenda); // ✅ DEFINIR A DATA (CORREÇÃO CRÍTICA)
             venda.setIdPedido(idPedido);
@@ -331,27 +362,82 @@ public class VendaController {
             venda.setDespesasOperacionais(despesasOperacionais);
             venda.setUser(currentUser);
 
-            System.out.println("✅ Data da venda definida na entidade: " + venda.getData());
+            // 6. ✅ PEPS SET-BASED: Salvar a venda, baixar os lotes e registrar os itens em uma única transação
+            // (o saldo é validado pelo próprio comando PEPS, sem consulta prévia de estoque)
+            // 🆕 Vendas simultâneas do mesmo produto: trava por produto + repetição em conflito
+            ResultadoAlocacaoPeps resultado = reservaEstoqueService.registrarVenda(venda);
+            Venda vendaSalva = resultado.getVenda();
 
-            // 7. PRIMEIRO: Salvar a venda (para gerar ID)
-            Venda vendaSalva = vendaRepository.save(venda);
+            log.info("Venda criada: idPedido={} custoPeps={} lotes={} data={}", vendaSalva.getIdPedido(),
+                    resultado.getCustoTotal(), resultado.getItens().size(), vendaSalva.getData());
 
-            // 8. SEGUNDO: Calcular custo PEPS E registrar itens (passando venda já salva)
-            BigDecimal custoPEPS = estoqueService.calcularCustoVendaERegistrarItens(vendaSalva);
+            VendaDTO resposta = new VendaDTO(vendaSalva);
+            idempotenciaPedidoService.gravarResposta(PedidosAlteradosEvent.Tipo.VENDA, currentUser.getId(), chave,
+                    idPedido, impressaoDigital, resposta);
+            return ResponseEntity.ok(resposta);
 
-            // 9. ATUALIZAR custo do produto na venda
-            vendaSalva.setCustoProdutoVendido(custoPEPS.doubleValue());
-            vendaRepository.save(vendaSalva);
+        } catch (Exception e) {
+            log.error("Erro ao criar venda", e);
+            return ResponseEntity.badRequest().body("Erro ao criar venda: " + e.getMessage());
+        }
+    }
 
-            System.out.println("✅ Venda criada com sucesso: " + vendaSalva.getIdPedido() +
-                    ", Custo PEPS: " + custoPEPS + ", Data: " + vendaSalva.getData());
+    // 🆕 POST - Importação em massa de vendas (CSV ou NDJSON) PARA O USUÁRIO
+    // Corpo: mesmas chaves de POST /api/vendas, com o produto identificado por "sku" ou "asin".
+    // Resposta em NDJSON, enviada durante o processamento: um evento "progresso" por bloco,
+    // um evento "erro" por linha rejeitada e o "resumo" final.
+    @PostMapping(value = "/importar", consumes = {"text/csv", "application/x-ndjson", "application/jsonl"})
+    public void importarVendas(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        User currentUser = getCurrentUser();
+        ImportacaoVendaService.Formato formato = request.getContentType().startsWith("text/csv")
+                ? ImportacaoVendaService.Formato.CSV
+                : ImportacaoVendaService.Formato.NDJSON;
+
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        PrintWriter saida = response.getWriter();
+
+        try (BufferedReader leitor = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+
+            ResultadoImportacao resultado = importacaoVendaService.importar(leitor, formato, currentUser,
+                    new ImportacaoVendaService.Ouvinte() {
+                        @Override
+                        public void progresso(int processadas, int importadas, int erros) {
+                            escreverEvento(saida, evento("tipo", "progresso", "processadas", processadas,
+                                    "importadas", importadas, "erros", erros));
+                        }
+
+                        @Override
+                        public void erro(int linha, String idPedido, String mensagem) {
+                            escreverEvento(saida, evento("tipo", "erro", "linha", linha,
+                                    "idPedido", idPedido, "mensagem", mensagem));
+                        }
+                    });
+
+            escreverEvento(saida, evento("tipo", "resumo", "processadas", resultado.getProcessadas(),
+                    "importadas", resultado.getImportadas(), "erros", resultado.getErros()));
+        } catch (Exception e) {
+            log.error("Erro na importação de vendas", e);
+            escreverEvento(saida, evento("tipo", "falha", "mensagem", "Erro ao importar vendas: " + e.getMessage()));
+        }
+    }
 
-            return ResponseEntity.ok(new VendaDTO(vendaSalva));
+    private Map<String, Object> evento(Object... chavesEValores) {
+        Map<String, Object> evento = new LinkedHashMap<>();
+        for (int i = 0; i < chavesEValores.length; i += 2) {
+            evento.put((String) chavesEValores[i], chavesEValores[i + 1]);
+        }
+        return evento;
+    }
 
-        } catch (Exception e) {
-            System.out.println("❌ Erro ao criar venda: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body("Erro ao criar venda: " + e.getMessage());
+    private void escreverEvento(PrintWriter saida, Map<String, Object> evento) {
+        try {
+            saida.write(objectMapper.writeValueAsString(evento));
+            saida.write('\n');
+            saida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -370,15 +456,16 @@ public class VendaController {
             Venda vendaExistente = vendaExistenteOpt.get();
 
             // 2. Verificar se o produto existe E PERTENCE AO USUÁRIO
-            Optional<Produto> produto = produtoRepository.findByIdAndUser(
+            Optional<ProdutoCatalogo> produto = catalogoProdutoService.buscarPorId(
                     vendaAtualizada.getProduto().getId(), currentUser);
             if (!produto.isPresent()) {
                 return ResponseEntity.badRequest().body("Produto não encontrado ou não pertence ao usuário");
             }
 
             // 3. Verificar se já existe outra venda com mesmo ID do pedido (exceto a própria)
-            Optional<Venda> vendaComMesmoPedido = vendaRepository.findByIdPedidoAndUser(
-                    vendaAtualizada.getIdPedido(), currentUser);
+            Optional<Venda> vendaComMesmoPedido = idempotenciaPedidoService.buscarExistente(PedidosAlteradosEvent.Tipo.VENDA,
+                    currentUser.getId(), vendaAtualizada.getIdPedido(),
+                    () -> vendaRepository.findByIdPedidoAndUser(vendaAtualizada.getIdPedido(), currentUser));
             if (vendaComMesmoPedido.isPresent() && !vendaComMesmoPedido.get().getId().equals(id)) {
                 return ResponseEntity.badRequest().body("Já existe outra venda com este ID do pedido");
             }
@@ -391,23 +478,13 @@ public class VendaController {
                 return ResponseEntity.badRequest().body("Não é permitido alterar produto ou quantidade da venda");
             }
 
-            // 5. Atualizar apenas campos permitidos
-            vendaExistente.setData(vendaAtualizada.getData());
-            vendaExistente.setIdPedido(vendaAtualizada.getIdPedido());
-            vendaExistente.setPlataforma(vendaAtualizada.getPlataforma());
-            vendaExistente.setPrecoVenda(vendaAtualizada.getPrecoVenda());
-            vendaExistente.setFretePagoPeloCliente(vendaAtualizada.getFretePagoPeloCliente());
-            vendaExistente.setCustoEnvio(vendaAtualizada.getCustoEnvio());
-            vendaExistente.setTarifaPlataforma(vendaAtualizada.getTarifaPlataforma());
-            vendaExistente.setDespesasOperacionais(vendaAtualizada.getDespesasOperacionais());
-
-            // 6. Salvar venda atualizada
-            Venda vendaSalva = vendaRepository.save(vendaExistente);
+            // 5. Atualizar apenas campos permitidos (venda e agregado do dashboard na mesma transação)
+            Venda vendaSalva = estoqueService.atualizarVenda(vendaExistente, vendaAtualizada);
 
             return ResponseEntity.ok(vendaSalva);
 
         } catch (Exception e) {
-            System.out.println("❌ Erro ao atualizar venda: " + e.getMessage());
+            log.warn("Erro ao atualizar venda: id={} erro={}", id, e.getMessage());
             return ResponseEntity.badRequest().body("Erro ao atualizar venda: " + e.getMessage());
         }
     }
@@ -425,17 +502,14 @@ public class VendaController {
 
             Venda venda = vendaOpt.get();
 
-            // ✅ NOVO: Reverter estoque baseado nos itens rastreados
-            estoqueService.reverterEstoqueVenda(venda);
-
-            // Excluir a venda (os itens serão excluídos automaticamente pelo cascade)
-            vendaRepository.deleteById(id);
+            // ✅ NOVO: Reverter estoque, atualizar o agregado e excluir a venda em uma transação
+            estoqueService.excluirVenda(venda);
 
-            System.out.println("✅ Venda excluída e estoque revertido: " + venda.getIdPedido());
+            log.info("Venda excluída e estoque revertido: idPedido={}", venda.getIdPedido());
             return ResponseEntity.noContent().build();
 
         } catch (Exception e) {
-            System.out.println("❌ Erro ao reverter estoque na exclusão da venda: " + e.getMessage());
+            log.warn("Erro ao excluir venda: id={} erro={}", id, e.getMessage());
             return ResponseEntity.badRequest().body("Erro ao excluir venda: " + e.getMessage());
         }
     }
@@ -479,29 +553,17 @@ public class VendaController {
     }
 
     // ✅ ATUALIZADO: GET - Buscar venda por nome DO USUÁRIO - AGORA COM DTO
+    // 🆕 Uma única consulta (produtos pelo índice de busca + suas vendas), sem diferenciar acentos e maiúsculas
     @GetMapping("/produto/{nome}")
     public ResponseEntity<?> buscarPorNomeProduto(@PathVariable String nome) {
         try {
             User currentUser = getCurrentUser();
+            List<VendaDTO> vendasDTO = buscaService.vendasPorNomeProduto(currentUser, nome);
 
-            // 1. Buscar produtos com nome similar DO USUÁRIO
-            List<Produto> produtos = produtoRepository.findByNomeContainingAndUser(nome, currentUser);
-
-            if (produtos.isEmpty()) {
+            if (vendasDTO.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
 
-            // 2. Buscar vendas para cada produto encontrado DO USUÁRIO
-            List<Venda> vendas = new ArrayList<>();
-            for (Produto produto : produtos) {
-                vendas.addAll(vendaRepository.findByProdutoAndUser(produto, currentUser));
-            }
-
-            // ✅ CONVERTER PARA DTO
-            List<VendaDTO> vendasDTO = vendas.stream()
-                    .map(VendaDTO::new)
-                    .collect(Collectors.toList());
-
             return ResponseEntity.ok(vendasDTO);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Erro ao buscar vendas por nome do produto: " + e.getMessage());
@@ -568,4 +630,15 @@ public class VendaController {
             return ResponseEntity.badRequest().body("Erro ao buscar venda por ID do pedido: " + e.getMessage());
         }
     }
+
+    // 🆕 ESTATÍSTICAS DA IDEMPOTÊNCIA DE VENDAS E COMPRAS (consultas evitadas, falsos positivos, reenvios)
+    @GetMapping("/idempotencia/estatisticas")
+    public ResponseEntity<?> getEstatisticasIdempotencia() {
+        try {
+            getCurrentUser();
+            return ResponseEntity.ok(idempotenciaPedidoService.estatisticas());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Erro ao carregar estatísticas de idempotência: " + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
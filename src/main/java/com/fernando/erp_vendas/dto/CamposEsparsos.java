@@ -0,0 +1,36 @@
+package com.fernando.erp_vendas.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 🆕 SPARSE FIELDSETS: ?campos=id,data,precoVenda devolve só essas propriedades de cada item
+// (clientes móveis pedem apenas as colunas que exibem). Sem o parâmetro a lista volta inalterada.
+// Os itens passam pelo ObjectMapper da aplicação, então formatos de data e nomes são os mesmos do JSON completo.
+public final class CamposEsparsos {
+
+    private CamposEsparsos() {
+    }
+
+    public static List<?> filtrar(ObjectMapper objectMapper, List<?> itens, String campos) {
+        if (campos == null || campos.isBlank()) {
+            return itens;
+        }
+        Set<String> selecionados = Arrays.stream(campos.split(","))
+                .map(String::trim)
+                .filter(campo -> !campo.isEmpty())
+                .collect(Collectors.toSet());
+
+        return itens.stream().map(item -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> completo = objectMapper.convertValue(item, LinkedHashMap.class);
+            completo.keySet().retainAll(selecionados);
+            return completo;
+        }).collect(Collectors.toList());
+    }
+}
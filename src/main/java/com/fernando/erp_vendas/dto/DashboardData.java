@@ -19,6 +19,9 @@ public class DashboardData {
     private List<Object[]> produtosMaisVendidos;
     private List<Object[]> topCategoriasDespesas;
 
+    // 🆕 Tempo de cada consulta da montagem (só no dashboard completo)
+    private MetadadosMontagem montagem;
+
     // Getters e Setters ORIGINAIS
     public double getFaturamentoTotal() { return faturamentoTotal; }
     public void setFaturamentoTotal(double faturamentoTotal) { this.faturamentoTotal = faturamentoTotal; }
@@ -59,4 +62,7 @@ public class DashboardData {
 
     public List<Object[]> getTopCategoriasDespesas() { return topCategoriasDespesas; }
     public void setTopCategoriasDespesas(List<Object[]> topCategoriasDespesas) { this.topCategoriasDespesas = topCategoriasDespesas; }
+
+    public MetadadosMontagem getMontagem() { return montagem; }
+    public void setMontagem(MetadadosMontagem montagem) { this.montagem = montagem; }
 }
\ No newline at end of file
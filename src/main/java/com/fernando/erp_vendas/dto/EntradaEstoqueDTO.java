@@ -1,6 +1,8 @@
 package com.fernando.erp_vendas.dto;
 
+import com.fernando.erp_vendas.model.Dinheiro;
 import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.EntradaEstoqueHistorico;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -11,31 +13,67 @@ public class EntradaEstoqueDTO {
     private String produtoSku;
     private Integer quantidade;
     private Integer saldo;
-    private BigDecimal custoTotal;
-    private BigDecimal custoUnitario;
+    // 🆕 Em centavos; os getters entregam BigDecimal em reais no JSON
+    private long custoTotal;
+    private long custoUnitario;
     private LocalDateTime dataEntrada;
     private String fornecedor;
     private String idPedidoCompra;
     private String categoria;
     private String observacoes;
+    // 🆕 Lote esgotado movido para o arquivo (somente leitura: não pode ser editado nem excluído)
+    private boolean arquivado;
 
     // Construtor que recebe EntradaEstoque
     public EntradaEstoqueDTO(EntradaEstoque entrada) {
-        this.id = entrada.getId();
-        if (entrada.getProduto() != null) {
-            this.produtoId = entrada.getProduto().getId();
-            this.produtoNome = entrada.getProduto().getNome();
-            this.produtoSku = entrada.getProduto().getSku();
-        }
-        this.quantidade = entrada.getQuantidade();
-        this.saldo = entrada.getSaldo();
-        this.custoTotal = entrada.getCustoTotal();
-        this.custoUnitario = entrada.getCustoUnitario();
-        this.dataEntrada = entrada.getDataEntrada();
-        this.fornecedor = entrada.getFornecedor();
-        this.idPedidoCompra = entrada.getIdPedidoCompra();
-        this.categoria = entrada.getCategoria();
-        this.observacoes = entrada.getObservacoes();
+        this(entrada.getId(),
+                entrada.getProduto() != null ? entrada.getProduto().getId() : null,
+                entrada.getProduto() != null ? entrada.getProduto().getNome() : null,
+                entrada.getProduto() != null ? entrada.getProduto().getSku() : null,
+                entrada.getQuantidade(), entrada.getSaldo(), entrada.getCustoTotalCentavos(), entrada.getCustoUnitarioCentavos(),
+                entrada.getDataEntrada(), entrada.getFornecedor(), entrada.getIdPedidoCompra(),
+                entrada.getCategoria(), entrada.getObservacoes());
+    }
+
+    // 🆕 Construtor que recebe um lote do histórico (ativo ou arquivado)
+    public EntradaEstoqueDTO(EntradaEstoqueHistorico entrada) {
+        this(entrada.getId(),
+                entrada.getProduto() != null ? entrada.getProduto().getId() : null,
+                entrada.getProduto() != null ? entrada.getProduto().getNome() : null,
+                entrada.getProduto() != null ? entrada.getProduto().getSku() : null,
+                entrada.getQuantidade(), entrada.getSaldo(), entrada.getCustoTotalCentavos(), entrada.getCustoUnitarioCentavos(),
+                entrada.getDataEntrada(), entrada.getFornecedor(), entrada.getIdPedidoCompra(),
+                entrada.getCategoria(), entrada.getObservacoes(), entrada.isArquivado());
+    }
+
+    // 🆕 PROJEÇÃO: construtor usado direto no JPQL (SELECT new ...EntradaEstoqueDTO(...)), custos em centavos
+    public EntradaEstoqueDTO(Long id, Long produtoId, String produtoNome, String produtoSku,
+                             Integer quantidade, Integer saldo, Long custoTotal, Long custoUnitario,
+                             LocalDateTime dataEntrada, String fornecedor, String idPedidoCompra,
+                             String categoria, String observacoes) {
+        this(id, produtoId, produtoNome, produtoSku, quantidade, saldo, custoTotal, custoUnitario, dataEntrada,
+                fornecedor, idPedidoCompra, categoria, observacoes, false);
+    }
+
+    // 🆕 PROJEÇÃO DO HISTÓRICO: mesmo construtor + indicador de lote arquivado
+    public EntradaEstoqueDTO(Long id, Long produtoId, String produtoNome, String produtoSku,
+                             Integer quantidade, Integer saldo, Long custoTotal, Long custoUnitario,
+                             LocalDateTime dataEntrada, String fornecedor, String idPedidoCompra,
+                             String categoria, String observacoes, boolean arquivado) {
+        this.id = id;
+        this.produtoId = produtoId;
+        this.produtoNome = produtoNome;
+        this.produtoSku = produtoSku;
+        this.quantidade = quantidade;
+        this.saldo = saldo;
+        this.custoTotal = custoTotal != null ? custoTotal : Dinheiro.ZERO;
+        this.custoUnitario = custoUnitario != null ? custoUnitario : Dinheiro.ZERO;
+        this.dataEntrada = dataEntrada;
+        this.fornecedor = fornecedor;
+        this.idPedidoCompra = idPedidoCompra;
+        this.categoria = categoria;
+        this.observacoes = observacoes;
+        this.arquivado = arquivado;
     }
 
     // Getters e Setters
@@ -57,11 +95,11 @@ public class EntradaEstoqueDTO {
     public Integer getSaldo() { return saldo; }
     public void setSaldo(Integer saldo) { this.saldo = saldo; }
 
-    public BigDecimal getCustoTotal() { return custoTotal; }
-    public void setCustoTotal(BigDecimal custoTotal) { this.custoTotal = custoTotal; }
+    public BigDecimal getCustoTotal() { return Dinheiro.paraDecimal(custoTotal); }
+    public void setCustoTotal(BigDecimal custoTotal) { this.custoTotal = Dinheiro.deReais(custoTotal); }
 
-    public BigDecimal getCustoUnitario() { return custoUnitario; }
-    public void setCustoUnitario(BigDecimal custoUnitario) { this.custoUnitario = custoUnitario; }
+    public BigDecimal getCustoUnitario() { return Dinheiro.paraDecimal(custoUnitario); }
+    public void setCustoUnitario(BigDecimal custoUnitario) { this.custoUnitario = Dinheiro.deReais(custoUnitario); }
 
     public LocalDateTime getDataEntrada() { return dataEntrada; }
     public void setDataEntrada(LocalDateTime dataEntrada) { this.dataEntrada = dataEntrada; }
@@ -77,4 +115,7 @@ public class EntradaEstoqueDTO {
 
     public String getObservacoes() { return observacoes; }
     public void setObservacoes(String observacoes) { this.observacoes = observacoes; }
-}
\ No newline at end of file
+
+    public boolean isArquivado() { return arquivado; }
+    public void setArquivado(boolean arquivado) { this.arquivado = arquivado; }
+}
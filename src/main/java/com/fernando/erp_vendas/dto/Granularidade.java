@@ -0,0 +1,52 @@
+package com.fernando.erp_vendas.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// 🆕 GRANULARIDADE DAS SÉRIES TEMPORAIS
+// O campo do date_trunc do PostgreSQL e o truncamento em Java precisam coincidir: semana começa na
+// segunda-feira (ISO), trimestre em jan/abr/jul/out.
+public enum Granularidade {
+    DIA("day"),
+    SEMANA("week"),
+    MES("month"),
+    TRIMESTRE("quarter");
+
+    private final String campoSql;
+
+    Granularidade(String campoSql) {
+        this.campoSql = campoSql;
+    }
+
+    public String getCampoSql() { return campoSql; }
+
+    // ✅ Início do período que contém a data
+    public LocalDate truncar(LocalDate data) {
+        return switch (this) {
+            case DIA -> data;
+            case SEMANA -> data.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MES -> data.withDayOfMonth(1);
+            case TRIMESTRE -> data.withDayOfMonth(1).withMonth((data.getMonthValue() - 1) / 3 * 3 + 1);
+        };
+    }
+
+    // ✅ Início do período seguinte
+    public LocalDate proximo(LocalDate inicioPeriodo) {
+        return switch (this) {
+            case DIA -> inicioPeriodo.plusDays(1);
+            case SEMANA -> inicioPeriodo.plusWeeks(1);
+            case MES -> inicioPeriodo.plusMonths(1);
+            case TRIMESTRE -> inicioPeriodo.plusMonths(3);
+        };
+    }
+
+    // ✅ Aceita "dia", "MES", "Trimestre"...
+    public static Granularidade de(String valor) {
+        try {
+            return valueOf(valor.strip().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Granularidade inválida: " + valor + " (use dia, semana, mes ou trimestre)");
+        }
+    }
+}
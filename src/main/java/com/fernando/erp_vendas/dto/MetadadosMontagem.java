@@ -0,0 +1,44 @@
+package com.fernando.erp_vendas.dto;
+
+import java.util.List;
+
+// 🆕 COMO A RESPOSTA FOI MONTADA: tempo de cada consulta (fragmento) executada em paralelo
+// parcial = algum fragmento estourou o tempo ou falhou; os campos que dependem dele ficam de fora
+// (listas) ou zerados (totais), e a resposta não vai para o cache.
+public class MetadadosMontagem {
+
+    public static final String OK = "ok";
+    public static final String TEMPO_ESGOTADO = "tempo_esgotado";
+    public static final String ERRO = "erro";
+
+    private final boolean parcial;
+    private final long duracaoMs;
+    private final List<Fragmento> fragmentos;
+
+    public MetadadosMontagem(boolean parcial, long duracaoMs, List<Fragmento> fragmentos) {
+        this.parcial = parcial;
+        this.duracaoMs = duracaoMs;
+        this.fragmentos = fragmentos;
+    }
+
+    public boolean isParcial() { return parcial; }
+    public long getDuracaoMs() { return duracaoMs; }
+    public List<Fragmento> getFragmentos() { return fragmentos; }
+
+    // status: ok, tempo_esgotado ou erro
+    public static class Fragmento {
+        private final String nome;
+        private final long duracaoMs;
+        private final String status;
+
+        public Fragmento(String nome, long duracaoMs, String status) {
+            this.nome = nome;
+            this.duracaoMs = duracaoMs;
+            this.status = status;
+        }
+
+        public String getNome() { return nome; }
+        public long getDuracaoMs() { return duracaoMs; }
+        public String getStatus() { return status; }
+    }
+}
@@ -0,0 +1,25 @@
+package com.fernando.erp_vendas.dto;
+
+import java.util.List;
+
+// 🆕 PÁGINA DA BUSCA: resultados ordenados por relevância, paginados por número de página.
+// A relevância não é uma chave estável de ordenação, então aqui não há cursor (keyset) como nas listagens;
+// a busca existe para achar algo nas primeiras páginas, não para percorrer tudo.
+public class PaginaBusca<T> {
+
+    public static final int LIMITE_PADRAO = 20;
+
+    private final List<T> itens;
+    private final int pagina;
+    private final boolean temMais;
+
+    public PaginaBusca(List<T> itens, int pagina, boolean temMais) {
+        this.itens = itens;
+        this.pagina = pagina;
+        this.temMais = temMais;
+    }
+
+    public List<T> getItens() { return itens; }
+    public int getPagina() { return pagina; }
+    public boolean isTemMais() { return temMais; }
+}
@@ -0,0 +1,94 @@
+package com.fernando.erp_vendas.dto;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// 🆕 PÁGINA POR CURSOR (keyset) das listagens
+// O cursor é opaco para o cliente: base64 de "<chave de ordenação>|<id>" do último item da página.
+// A próxima página continua a partir dessa posição (WHERE (data, id) < (cursor)), então o custo não
+// cresce com o número de páginas já lidas, ao contrário de OFFSET. proximoCursor nulo = última página.
+public class PaginaCursor<T> {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    private List<T> itens;
+    private String proximoCursor;
+
+    public PaginaCursor(List<T> itens, String proximoCursor) {
+        this.itens = itens;
+        this.proximoCursor = proximoCursor;
+    }
+
+    // ✅ Tamanho da página pedido pelo cliente, limitado a [1, LIMITE_MAXIMO]
+    public static Pageable paginacao(Integer limite) {
+        int tamanho = limite != null ? limite : LIMITE_PADRAO;
+        return PageRequest.ofSize(Math.max(1, Math.min(tamanho, LIMITE_MAXIMO)));
+    }
+
+    // ✅ Cursor do último item da fatia, se houver mais itens depois dela
+    public static <E> String proximoCursor(Slice<E> fatia, Function<E, Object> chave, Function<E, Long> id) {
+        if (!fatia.hasNext() || fatia.getContent().isEmpty()) {
+            return null;
+        }
+        E ultimo = fatia.getContent().get(fatia.getNumberOfElements() - 1);
+        return codificar(chave.apply(ultimo), id.apply(ultimo));
+    }
+
+    public static String codificar(Object chave, Long id) {
+        String texto = (chave != null ? chave.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Posicao decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            return new Posicao(texto.substring(0, separador), Long.parseLong(texto.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor inválido");
+        }
+    }
+
+    // Posição decodificada do cursor: chave de ordenação (texto ISO da data) + id de desempate
+    public static class Posicao {
+        private final String chave;
+        private final Long id;
+
+        Posicao(String chave, Long id) {
+            this.chave = chave;
+            this.id = id;
+        }
+
+        public LocalDateTime getDataHora() {
+            try {
+                return LocalDateTime.parse(chave);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+
+        public LocalDate getData() {
+            try {
+                return LocalDate.parse(chave);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Cursor inválido");
+            }
+        }
+
+        public Long getId() { return id; }
+    }
+
+    // Getters
+    public List<T> getItens() { return itens; }
+    public String getProximoCursor() { return proximoCursor; }
+    public boolean isTemMais() { return proximoCursor != null; }
+}
@@ -0,0 +1,35 @@
+package com.fernando.erp_vendas.dto;
+
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+
+// 🆕 ENTRADA DO CATÁLOGO DE PRODUTOS EM MEMÓRIA (CatalogoProdutoService): só o cadastro, sem lotes nem saldo
+public class ProdutoCatalogo {
+    private final Long id;
+    private final String sku;
+    private final String asin;
+    private final String nome;
+    private final Integer estoqueMinimo;
+
+    public ProdutoCatalogo(Long id, String sku, String asin, String nome, Integer estoqueMinimo) {
+        this.id = id;
+        this.sku = sku;
+        this.asin = asin;
+        this.nome = nome;
+        this.estoqueMinimo = estoqueMinimo;
+    }
+
+    // ✅ Produto para associar a uma venda ou compra (só a chave estrangeira é gravada; nome e SKU vão na resposta)
+    // Não é uma entidade gerenciada: nunca salvar diretamente (estoque_atual e lotes não estão preenchidos)
+    public Produto comoReferencia(User user) {
+        Produto produto = new Produto(nome, sku, asin, null, estoqueMinimo, user);
+        produto.setId(id);
+        return produto;
+    }
+
+    public Long getId() { return id; }
+    public String getSku() { return sku; }
+    public String getAsin() { return asin; }
+    public String getNome() { return nome; }
+    public Integer getEstoqueMinimo() { return estoqueMinimo; }
+}
@@ -0,0 +1,25 @@
+package com.fernando.erp_vendas.dto;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.ItemVenda;
+import com.fernando.erp_vendas.model.Venda;
+import java.math.BigDecimal;
+import java.util.List;
+
+// 🆕 Resultado da alocação PEPS: venda persistida, itens registrados (um por lote) e custo total (centavos)
+public class ResultadoAlocacaoPeps {
+    private final Venda venda;
+    private final List<ItemVenda> itens;
+    private final long custoTotal;
+
+    public ResultadoAlocacaoPeps(Venda venda, List<ItemVenda> itens, long custoTotal) {
+        this.venda = venda;
+        this.itens = itens;
+        this.custoTotal = custoTotal;
+    }
+
+    public Venda getVenda() { return venda; }
+    public List<ItemVenda> getItens() { return itens; }
+    public BigDecimal getCustoTotal() { return Dinheiro.paraDecimal(custoTotal); }
+    public long getCustoTotalCentavos() { return custoTotal; }
+}
@@ -0,0 +1,24 @@
+package com.fernando.erp_vendas.dto;
+
+// 🆕 Item da busca unificada (produto, compra ou despesa), ordenado por relevância
+public class ResultadoBusca {
+    private final String tipo;
+    private final Long id;
+    private final String titulo;
+    private final String detalhe;
+    private final double relevancia;
+
+    public ResultadoBusca(String tipo, Long id, String titulo, String detalhe, double relevancia) {
+        this.tipo = tipo;
+        this.id = id;
+        this.titulo = titulo;
+        this.detalhe = detalhe;
+        this.relevancia = relevancia;
+    }
+
+    public String getTipo() { return tipo; }
+    public Long getId() { return id; }
+    public String getTitulo() { return titulo; }
+    public String getDetalhe() { return detalhe; }
+    public double getRelevancia() { return relevancia; }
+}
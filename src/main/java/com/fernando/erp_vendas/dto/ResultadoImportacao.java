@@ -0,0 +1,18 @@
+package com.fernando.erp_vendas.dto;
+
+// 🆕 Resumo de uma importação em massa de vendas
+public class ResultadoImportacao {
+    private final int processadas;
+    private final int importadas;
+    private final int erros;
+
+    public ResultadoImportacao(int processadas, int importadas, int erros) {
+        this.processadas = processadas;
+        this.importadas = importadas;
+        this.erros = erros;
+    }
+
+    public int getProcessadas() { return processadas; }
+    public int getImportadas() { return importadas; }
+    public int getErros() { return erros; }
+}
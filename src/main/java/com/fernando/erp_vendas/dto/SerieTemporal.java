@@ -0,0 +1,39 @@
+package com.fernando.erp_vendas.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// 🆕 RELATÓRIO EM SÉRIE TEMPORAL para o intervalo [inicio, fim)
+// periodos = início de cada período (dia, segunda-feira da semana, dia 1 do mês/trimestre), sem buracos;
+// cada série tem um valor por período. O tamanho da resposta depende do número de períodos (e de séries),
+// não do número de vendas. O primeiro/último período podem ser parciais quando inicio/fim não caem
+// no começo de um período.
+public class SerieTemporal {
+    private final LocalDate inicio;
+    private final LocalDate fim;
+    private final Granularidade granularidade;
+    private final String divisao;
+    private final List<LocalDate> periodos;
+    private final SerieValores totais;
+    private final List<SerieValores> series;
+
+    public SerieTemporal(LocalDate inicio, LocalDate fim, Granularidade granularidade, String divisao,
+                         List<LocalDate> periodos, SerieValores totais, List<SerieValores> series) {
+        this.inicio = inicio;
+        this.fim = fim;
+        this.granularidade = granularidade;
+        this.divisao = divisao;
+        this.periodos = periodos;
+        this.totais = totais;
+        this.series = series;
+    }
+
+    // Getters
+    public LocalDate getInicio() { return inicio; }
+    public LocalDate getFim() { return fim; }
+    public Granularidade getGranularidade() { return granularidade; }
+    public String getDivisao() { return divisao; }
+    public List<LocalDate> getPeriodos() { return periodos; }
+    public SerieValores getTotais() { return totais; }
+    public List<SerieValores> getSeries() { return series; }
+}
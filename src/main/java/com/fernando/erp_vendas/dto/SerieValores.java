@@ -0,0 +1,97 @@
+package com.fernando.erp_vendas.dto;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+
+// 🆕 UMA SÉRIE DO RELATÓRIO (totais, uma plataforma ou um produto): um valor por período, na ordem de
+// SerieTemporal.periodos, períodos sem movimento valem zero. Acumula em centavos; os getters em reais
+// convertem só na saída.
+// custo = custo efetivo (PEPS + envio + tarifa) + despesas operacionais da venda, então lucro = faturamento - custo.
+// despesas/resultado (lucro - despesas) só existem na série de totais: despesas não são por plataforma/produto.
+public class SerieValores {
+    private final String chave;
+    private final String rotulo;
+    private final long[] vendas;
+    private final long[] unidades;
+    private final long[] faturamento;
+    private final long[] custo;
+    private long[] despesas;
+
+    public SerieValores(String chave, String rotulo, int periodos) {
+        this.chave = chave;
+        this.rotulo = rotulo;
+        this.vendas = new long[periodos];
+        this.unidades = new long[periodos];
+        this.faturamento = new long[periodos];
+        this.custo = new long[periodos];
+    }
+
+    // ✅ Soma um grupo (período × chave) do agregado de vendas
+    public void acumular(int periodo, long quantidadeVendas, long unidades, long faturamento, long custo) {
+        this.vendas[periodo] += quantidadeVendas;
+        this.unidades[periodo] += unidades;
+        this.faturamento[periodo] = Dinheiro.somar(this.faturamento[periodo], faturamento);
+        this.custo[periodo] = Dinheiro.somar(this.custo[periodo], custo);
+    }
+
+    // ✅ Soma outra série inteira (ex.: produtos fora do top N em "Outros")
+    public void acumular(SerieValores outra) {
+        for (int i = 0; i < vendas.length; i++) {
+            acumular(i, outra.vendas[i], outra.unidades[i], outra.faturamento[i], outra.custo[i]);
+        }
+    }
+
+    // ✅ Série de totais: passa a ter despesas (zeradas) e resultado
+    public SerieValores comDespesas() {
+        this.despesas = new long[vendas.length];
+        return this;
+    }
+
+    public void acumularDespesas(int periodo, long centavos) {
+        despesas[periodo] = Dinheiro.somar(despesas[periodo], centavos);
+    }
+
+    public long calcularFaturamentoTotalCentavos() {
+        long total = 0;
+        for (long valor : faturamento) {
+            total = Dinheiro.somar(total, valor);
+        }
+        return total;
+    }
+
+    // Getters
+    public String getChave() { return chave; }
+    public String getRotulo() { return rotulo; }
+    public long[] getVendas() { return vendas; }
+    public long[] getUnidades() { return unidades; }
+    public double[] getFaturamento() { return reais(faturamento); }
+    public double[] getCusto() { return reais(custo); }
+    public double[] getDespesas() { return despesas != null ? reais(despesas) : null; }
+
+    public double[] getLucro() {
+        double[] lucro = new double[vendas.length];
+        for (int i = 0; i < lucro.length; i++) {
+            lucro[i] = Dinheiro.paraReais(Dinheiro.subtrair(faturamento[i], custo[i]));
+        }
+        return lucro;
+    }
+
+    // 📊 RESULTADO = LUCRO DAS VENDAS - DESPESAS do período
+    public double[] getResultado() {
+        if (despesas == null) {
+            return null;
+        }
+        double[] resultado = new double[vendas.length];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = Dinheiro.paraReais(Dinheiro.subtrair(Dinheiro.subtrair(faturamento[i], custo[i]), despesas[i]));
+        }
+        return resultado;
+    }
+
+    private static double[] reais(long[] centavos) {
+        double[] reais = new double[centavos.length];
+        for (int i = 0; i < reais.length; i++) {
+            reais[i] = Dinheiro.paraReais(centavos[i]);
+        }
+        return reais;
+    }
+}
@@ -0,0 +1,83 @@
+package com.fernando.erp_vendas.dto;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+
+// 🆕 TOTAIS DE VENDAS lidos do agregado diário (mesmas fórmulas de Venda, aplicadas às somas)
+// Valores em centavos: as fórmulas são exatas; os getters em double convertem só o resultado
+public class TotaisVendas {
+    private long quantidadeVendas;
+    private long unidades;
+    private long precoVenda;
+    private long fretePagoPeloCliente;
+    private long custoProdutoVendido;
+    private long custoEnvio;
+    private long tarifaPlataforma;
+    private long despesasOperacionais;
+
+    public TotaisVendas(long quantidadeVendas, long unidades, long precoVenda, long fretePagoPeloCliente,
+                        long custoProdutoVendido, long custoEnvio, long tarifaPlataforma,
+                        long despesasOperacionais) {
+        this.quantidadeVendas = quantidadeVendas;
+        this.unidades = unidades;
+        this.precoVenda = precoVenda;
+        this.fretePagoPeloCliente = fretePagoPeloCliente;
+        this.custoProdutoVendido = custoProdutoVendido;
+        this.custoEnvio = custoEnvio;
+        this.tarifaPlataforma = tarifaPlataforma;
+        this.despesasOperacionais = despesasOperacionais;
+    }
+
+    // Getters (reais)
+    public long getQuantidadeVendas() { return quantidadeVendas; }
+    public long getUnidades() { return unidades; }
+    public double getPrecoVenda() { return Dinheiro.paraReais(precoVenda); }
+    public double getFretePagoPeloCliente() { return Dinheiro.paraReais(fretePagoPeloCliente); }
+    public double getCustoProdutoVendido() { return Dinheiro.paraReais(custoProdutoVendido); }
+    public double getCustoEnvio() { return Dinheiro.paraReais(custoEnvio); }
+    public double getTarifaPlataforma() { return Dinheiro.paraReais(tarifaPlataforma); }
+    public double getDespesasOperacionais() { return Dinheiro.paraReais(despesasOperacionais); }
+
+    // Getters (centavos)
+    public long getPrecoVendaCentavos() { return precoVenda; }
+    public long getFretePagoPeloClienteCentavos() { return fretePagoPeloCliente; }
+    public long getCustoProdutoVendidoCentavos() { return custoProdutoVendido; }
+    public long getCustoEnvioCentavos() { return custoEnvio; }
+    public long getTarifaPlataformaCentavos() { return tarifaPlataforma; }
+    public long getDespesasOperacionaisCentavos() { return despesasOperacionais; }
+
+    // 💰 FATURAMENTO = Preço Venda + Frete
+    public long calcularFaturamentoCentavos() {
+        return Dinheiro.somar(precoVenda, fretePagoPeloCliente);
+    }
+
+    // 💸 CUSTO EFETIVO = Custo PEPS + Custo Envio + Tarifa
+    public long calcularCustoEfetivoTotalCentavos() {
+        return Dinheiro.somar(Dinheiro.somar(custoProdutoVendido, custoEnvio), tarifaPlataforma);
+    }
+
+    // 📊 LUCRO BRUTO = FATURAMENTO - CUSTO EFETIVO
+    public long calcularLucroBrutoCentavos() {
+        return Dinheiro.subtrair(calcularFaturamentoCentavos(), calcularCustoEfetivoTotalCentavos());
+    }
+
+    // 💵 LUCRO LÍQUIDO = LUCRO BRUTO - DESPESAS OPERACIONAIS
+    public long calcularLucroLiquidoCentavos() {
+        return Dinheiro.subtrair(calcularLucroBrutoCentavos(), despesasOperacionais);
+    }
+
+    public double calcularFaturamento() {
+        return Dinheiro.paraReais(calcularFaturamentoCentavos());
+    }
+
+    public double calcularCustoEfetivoTotal() {
+        return Dinheiro.paraReais(calcularCustoEfetivoTotalCentavos());
+    }
+
+    public double calcularLucroBruto() {
+        return Dinheiro.paraReais(calcularLucroBrutoCentavos());
+    }
+
+    public double calcularLucroLiquido() {
+        return Dinheiro.paraReais(calcularLucroLiquidoCentavos());
+    }
+}
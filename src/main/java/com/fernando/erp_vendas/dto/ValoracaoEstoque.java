@@ -0,0 +1,60 @@
+package com.fernando.erp_vendas.dto;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// 🆕 VALORAÇÃO DO ESTOQUE NO FIM DE UM DIA (quantidade e valor ao custo PEPS por produto)
+// Montada a partir do livro de movimentos: última fotografia do produto até a data + movimentos depois dela.
+// movimentosLidos = tamanho da cauda somada (limitado aos movimentos de um período de fotografia por produto).
+public class ValoracaoEstoque {
+
+    // Saldo de um produto na data; custoMedio = valor / quantidade (0 sem estoque)
+    public static class Item {
+        private final Long produtoId;
+        private final String nome;
+        private final String sku;
+        private final int quantidade;
+        private final long valor;
+
+        public Item(Long produtoId, String nome, String sku, int quantidade, long valor) {
+            this.produtoId = produtoId;
+            this.nome = nome;
+            this.sku = sku;
+            this.quantidade = quantidade;
+            this.valor = valor;
+        }
+
+        public Long getProdutoId() { return produtoId; }
+        public String getNome() { return nome; }
+        public String getSku() { return sku; }
+        public int getQuantidade() { return quantidade; }
+        public double getValor() { return Dinheiro.paraReais(valor); }
+        public double getCustoMedio() { return quantidade > 0 ? Dinheiro.paraReais(Dinheiro.dividir(valor, quantidade)) : 0.0; }
+
+        public long getValorCentavos() { return valor; }
+    }
+
+    private final LocalDate data;
+    private final List<Item> itens;
+    private final long movimentosLidos;
+
+    public ValoracaoEstoque(LocalDate data, List<Item> itens, long movimentosLidos) {
+        this.data = data;
+        this.itens = itens;
+        this.movimentosLidos = movimentosLidos;
+    }
+
+    public LocalDate getData() { return data; }
+    public List<Item> getItens() { return itens; }
+    public long getMovimentosLidos() { return movimentosLidos; }
+
+    public long getQuantidadeTotal() {
+        return itens.stream().mapToLong(Item::getQuantidade).sum();
+    }
+
+    public double getValorTotal() {
+        return Dinheiro.paraReais(itens.stream().mapToLong(Item::getValorCentavos).reduce(Dinheiro.ZERO, Dinheiro::somar));
+    }
+}
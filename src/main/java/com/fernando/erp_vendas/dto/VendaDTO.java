@@ -1,5 +1,6 @@
 package com.fernando.erp_vendas.dto;
 
+import com.fernando.erp_vendas.model.Dinheiro;
 import com.fernando.erp_vendas.model.Venda;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import java.time.LocalDateTime;
@@ -19,96 +20,76 @@ public class VendaDTO {
     private String produtoNome;
     private String produtoSku;
 
-    private Double precoVenda;
-    private Double fretePagoPeloCliente;
-    private Double custoEnvio;
-    private Double tarifaPlataforma;
-    private Double custoProdutoVendido;
-    private Double despesasOperacionais;
+    // 🆕 Valores em centavos; os getters entregam reais (Double) no JSON
+    private long precoVenda;
+    private long fretePagoPeloCliente;
+    private long custoEnvio;
+    private long tarifaPlataforma;
+    private long custoProdutoVendido;
+    private long despesasOperacionais;
 
     // ✅ CORREÇÃO: Adicionar campos de cálculo para o frontend
-    private Double faturamento;
-    private Double custoEfetivoTotal;
-    private Double lucroBruto;
-    private Double lucroLiquido;
-    private Double roi;
+    private long faturamento;
+    private long custoEfetivoTotal;
+    private long lucroBruto;
+    private long lucroLiquido;
+    private double roi;
 
     public VendaDTO(Venda venda) {
-        this.id = venda.getId();
+        this(venda.getId(), venda.getData(), venda.getIdPedido(), venda.getPlataforma(), venda.getQuantidade(),
+                venda.getProduto() != null ? venda.getProduto().getId() : null,
+                venda.getProduto() != null ? venda.getProduto().getNome() : null,
+                venda.getProduto() != null ? venda.getProduto().getSku() : null,
+                venda.getPrecoVendaCentavos(), venda.getFretePagoPeloClienteCentavos(), venda.getCustoEnvioCentavos(),
+                venda.getTarifaPlataformaCentavos(), venda.getCustoProdutoVendidoCentavos(),
+                venda.getDespesasOperacionaisCentavos());
+    }
+
+    // 🆕 PROJEÇÃO: construtor usado direto no JPQL (SELECT new ...VendaDTO(...)), sem hidratar Venda e Produto
+    // Valores em centavos (o conversor de Venda já aplicado pelo Hibernate)
+    public VendaDTO(Long id, LocalDateTime data, String idPedido, String plataforma, Integer quantidade,
+                    Long produtoId, String produtoNome, String produtoSku,
+                    Long precoVenda, Long fretePagoPeloCliente, Long custoEnvio, Long tarifaPlataforma,
+                    Long custoProdutoVendido, Long despesasOperacionais) {
+        this.id = id;
 
         // ✅ CORREÇÃO: Garantir que data nunca seja null
-        this.data = venda.getData() != null ? venda.getData() : LocalDateTime.now();
+        this.data = data != null ? data : LocalDateTime.now();
 
-        this.idPedido = venda.getIdPedido();
-        this.plataforma = venda.getPlataforma();
-        this.quantidade = venda.getQuantidade();
+        this.idPedido = idPedido;
+        this.plataforma = plataforma;
+        this.quantidade = quantidade;
 
         // ✅ CORREÇÃO CRÍTICA: Incluir produtoId, produtoNome e produtoSku
-        if (venda.getProduto() != null) {
-            this.produtoId = venda.getProduto().getId();
-            this.produtoNome = venda.getProduto().getNome();
-            this.produtoSku = venda.getProduto().getSku();
+        if (produtoId != null) {
+            this.produtoId = produtoId;
+            this.produtoNome = produtoNome;
+            this.produtoSku = produtoSku;
         } else {
             this.produtoId = null;
             this.produtoNome = "Produto não encontrado";
             this.produtoSku = "";
         }
 
-        // ✅ TRATAMENTO CRÍTICO: Garantir que nenhum campo Double seja null
-        this.precoVenda = venda.getPrecoVenda() != null ? venda.getPrecoVenda() : 0.0;
-        this.fretePagoPeloCliente = venda.getFretePagoPeloCliente() != null ? venda.getFretePagoPeloCliente() : 0.0;
-        this.custoEnvio = venda.getCustoEnvio() != null ? venda.getCustoEnvio() : 0.0;
-        this.tarifaPlataforma = venda.getTarifaPlataforma() != null ? venda.getTarifaPlataforma() : 0.0;
-        this.custoProdutoVendido = venda.getCustoProdutoVendido() != null ? venda.getCustoProdutoVendido() : 0.0;
-        this.despesasOperacionais = venda.getDespesasOperacionais() != null ? venda.getDespesasOperacionais() : 0.0;
+        // ✅ TRATAMENTO CRÍTICO: Garantir que nenhum valor seja null
+        this.precoVenda = precoVenda != null ? precoVenda : Dinheiro.ZERO;
+        this.fretePagoPeloCliente = fretePagoPeloCliente != null ? fretePagoPeloCliente : Dinheiro.ZERO;
+        this.custoEnvio = custoEnvio != null ? custoEnvio : Dinheiro.ZERO;
+        this.tarifaPlataforma = tarifaPlataforma != null ? tarifaPlataforma : Dinheiro.ZERO;
+        this.custoProdutoVendido = custoProdutoVendido != null ? custoProdutoVendido : Dinheiro.ZERO;
+        this.despesasOperacionais = despesasOperacionais != null ? despesasOperacionais : Dinheiro.ZERO;
 
         // ✅ CORREÇÃO: Calcular e incluir os campos financeiros
-        this.faturamento = calcularFaturamento();
-        this.custoEfetivoTotal = calcularCustoEfetivoTotal();
-        this.lucroBruto = calcularLucroBruto();
-        this.lucroLiquido = calcularLucroLiquido();
-        this.roi = calcularROI();
-
-        System.out.println("✅ VendaDTO criado - ID: " + this.id +
-                ", Data: " + this.data +
-                ", ProdutoId: " + this.produtoId +
-                ", Produto: " + this.produtoNome);
-    }
-
-    // ✅ MÉTODOS DE CÁLCULO
-    private Double calcularFaturamento() {
-        Double precoVendaSafe = this.precoVenda != null ? this.precoVenda : 0.0;
-        Double fretePagoSafe = this.fretePagoPeloCliente != null ? this.fretePagoPeloCliente : 0.0;
-        return precoVendaSafe + fretePagoSafe;
-    }
-
-    private Double calcularCustoEfetivoTotal() {
-        Double custoProdutoSafe = this.custoProdutoVendido != null ? this.custoProdutoVendido : 0.0;
-        Double custoEnvioSafe = this.custoEnvio != null ? this.custoEnvio : 0.0;
-        Double tarifaSafe = this.tarifaPlataforma != null ? this.tarifaPlataforma : 0.0;
-        return custoProdutoSafe + custoEnvioSafe + tarifaSafe;
+        calcular();
     }
 
-    private Double calcularLucroBruto() {
-        Double faturamentoSafe = this.faturamento != null ? this.faturamento : 0.0;
-        Double custoEfetivoSafe = this.custoEfetivoTotal != null ? this.custoEfetivoTotal : 0.0;
-        return faturamentoSafe - custoEfetivoSafe;
-    }
-
-    private Double calcularLucroLiquido() {
-        Double lucroBrutoSafe = this.lucroBruto != null ? this.lucroBruto : 0.0;
-        Double despesasSafe = this.despesasOperacionais != null ? this.despesasOperacionais : 0.0;
-        return lucroBrutoSafe - despesasSafe;
-    }
-
-    private Double calcularROI() {
-        Double custoEfetivoSafe = this.custoEfetivoTotal != null ? this.custoEfetivoTotal : 0.0;
-        Double lucroLiquidoSafe = this.lucroLiquido != null ? this.lucroLiquido : 0.0;
-
-        if (custoEfetivoSafe == 0.0) {
-            return 0.0;
-        }
-        return (lucroLiquidoSafe / custoEfetivoSafe) * 100;
+    // ✅ MÉTODOS DE CÁLCULO (centavos: exatos e sem boxing)
+    private void calcular() {
+        this.faturamento = Dinheiro.somar(precoVenda, fretePagoPeloCliente);
+        this.custoEfetivoTotal = Dinheiro.somar(Dinheiro.somar(custoProdutoVendido, custoEnvio), tarifaPlataforma);
+        this.lucroBruto = Dinheiro.subtrair(faturamento, custoEfetivoTotal);
+        this.lucroLiquido = Dinheiro.subtrair(lucroBruto, despesasOperacionais);
+        this.roi = Dinheiro.percentual(lucroLiquido, custoEfetivoTotal);
     }
 
     // GETTERS
@@ -123,19 +104,19 @@ public class VendaDTO {
     public String getProdutoNome() { return produtoNome != null ? produtoNome : ""; }
     public String getProdutoSku() { return produtoSku != null ? produtoSku : ""; }
 
-    public Double getPrecoVenda() { return precoVenda != null ? precoVenda : 0.0; }
-    public Double getFretePagoPeloCliente() { return fretePagoPeloCliente != null ? fretePagoPeloCliente : 0.0; }
-    public Double getCustoEnvio() { return custoEnvio != null ? custoEnvio : 0.0; }
-    public Double getTarifaPlataforma() { return tarifaPlataforma != null ? tarifaPlataforma : 0.0; }
-    public Double getCustoProdutoVendido() { return custoProdutoVendido != null ? custoProdutoVendido : 0.0; }
-    public Double getDespesasOperacionais() { return despesasOperacionais != null ? despesasOperacionais : 0.0; }
+    public Double getPrecoVenda() { return Dinheiro.paraReais(precoVenda); }
+    public Double getFretePagoPeloCliente() { return Dinheiro.paraReais(fretePagoPeloCliente); }
+    public Double getCustoEnvio() { return Dinheiro.paraReais(custoEnvio); }
+    public Double getTarifaPlataforma() { return Dinheiro.paraReais(tarifaPlataforma); }
+    public Double getCustoProdutoVendido() { return Dinheiro.paraReais(custoProdutoVendido); }
+    public Double getDespesasOperacionais() { return Dinheiro.paraReais(despesasOperacionais); }
 
     // ✅ CORREÇÃO: Getters para campos de cálculo
-    public Double getFaturamento() { return faturamento != null ? faturamento : 0.0; }
-    public Double getCustoEfetivoTotal() { return custoEfetivoTotal != null ? custoEfetivoTotal : 0.0; }
-    public Double getLucroBruto() { return lucroBruto != null ? lucroBruto : 0.0; }
-    public Double getLucroLiquido() { return lucroLiquido != null ? lucroLiquido : 0.0; }
-    public Double getRoi() { return roi != null ? roi : 0.0; }
+    public Double getFaturamento() { return Dinheiro.paraReais(faturamento); }
+    public Double getCustoEfetivoTotal() { return Dinheiro.paraReais(custoEfetivoTotal); }
+    public Double getLucroBruto() { return Dinheiro.paraReais(lucroBruto); }
+    public Double getLucroLiquido() { return Dinheiro.paraReais(lucroLiquido); }
+    public Double getRoi() { return roi; }
 
     // SETTERS (opcionais, mas úteis para testes)
     public void setId(Long id) { this.id = id; }
@@ -146,10 +127,10 @@ public class VendaDTO {
     public void setProdutoId(Long produtoId) { this.produtoId = produtoId; }
     public void setProdutoNome(String produtoNome) { this.produtoNome = produtoNome; }
     public void setProdutoSku(String produtoSku) { this.produtoSku = produtoSku; }
-    public void setPrecoVenda(Double precoVenda) { this.precoVenda = precoVenda; }
-    public void setFretePagoPeloCliente(Double fretePagoPeloCliente) { this.fretePagoPeloCliente = fretePagoPeloCliente; }
-    public void setCustoEnvio(Double custoEnvio) { this.custoEnvio = custoEnvio; }
-    public void setTarifaPlataforma(Double tarifaPlataforma) { this.tarifaPlataforma = tarifaPlataforma; }
-    public void setCustoProdutoVendido(Double custoProdutoVendido) { this.custoProdutoVendido = custoProdutoVendido; }
-    public void setDespesasOperacionais(Double despesasOperacionais) { this.despesasOperacionais = despesasOperacionais; }
+    public void setPrecoVenda(Double precoVenda) { this.precoVenda = Dinheiro.deReais(precoVenda); calcular(); }
+    public void setFretePagoPeloCliente(Double fretePagoPeloCliente) { this.fretePagoPeloCliente = Dinheiro.deReais(fretePagoPeloCliente); calcular(); }
+    public void setCustoEnvio(Double custoEnvio) { this.custoEnvio = Dinheiro.deReais(custoEnvio); calcular(); }
+    public void setTarifaPlataforma(Double tarifaPlataforma) { this.tarifaPlataforma = Dinheiro.deReais(tarifaPlataforma); calcular(); }
+    public void setCustoProdutoVendido(Double custoProdutoVendido) { this.custoProdutoVendido = Dinheiro.deReais(custoProdutoVendido); calcular(); }
+    public void setDespesasOperacionais(Double despesasOperacionais) { this.despesasOperacionais = Dinheiro.deReais(despesasOperacionais); calcular(); }
 }
\ No newline at end of file
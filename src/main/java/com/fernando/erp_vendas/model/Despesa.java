@@ -6,11 +6,13 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+// Índices: migrações em src/main/resources/db/migration
 @Table(name = "despesa")
 public class Despesa {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "despesa_seq")
+    @SequenceGenerator(name = "despesa_seq", sequenceName = "despesa_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "descricao", nullable = false, length = 200)
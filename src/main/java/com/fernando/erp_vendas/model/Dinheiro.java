@@ -0,0 +1,92 @@
+package com.fernando.erp_vendas.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// 🆕 VALORES MONETÁRIOS EM CENTAVOS (long primitivo)
+// Somas e subtrações de centavos são exatas e não alocam objetos: os cálculos de venda, custo PEPS e
+// totais do dashboard trabalham em centavos e só convertem para Double/BigDecimal na borda (JSON, JDBC).
+// Regra de arredondamento única: 2 casas, HALF_UP sobre o valor decimal (a mesma de setScale(2, HALF_UP)
+// usada no resto do sistema) — 0,005 vira 0,01 e -0,005 vira -0,01.
+// Operações que estourariam o long lançam ArithmeticException em vez de dar a volta.
+public final class Dinheiro {
+
+    public static final long ZERO = 0L;
+
+    // Acima disso (10 bilhões de reais) a fração do centavo em double perde precisão: vai pelo BigDecimal
+    private static final double LIMITE_CAMINHO_RAPIDO = 1.0e12;
+
+    private Dinheiro() {
+    }
+
+    // ✅ Reais (double) -> centavos, HALF_UP
+    public static long deReais(double valor) {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            throw new RuntimeException("Valor monetário inválido: " + valor);
+        }
+        double centavos = Math.abs(valor) * 100;
+        double inteiro = Math.floor(centavos);
+        double fracao = centavos - inteiro;
+        // Perto de meio centavo o produto em double pode cair de qualquer lado (1.005 * 100 = 100.4999...):
+        // decide pelo valor decimal, como BigDecimal.valueOf(valor).setScale(2, HALF_UP)
+        if (Math.abs(fracao - 0.5) < 1e-6 || centavos >= LIMITE_CAMINHO_RAPIDO) {
+            return deReais(BigDecimal.valueOf(valor));
+        }
+        long resultado = (long) inteiro + (fracao > 0.5 ? 1 : 0);
+        return valor < 0 ? -resultado : resultado;
+    }
+
+    // ✅ Reais (Double, nulo = zero) -> centavos
+    public static long deReais(Double valor) {
+        return valor != null ? deReais(valor.doubleValue()) : ZERO;
+    }
+
+    // ✅ Reais (BigDecimal, nulo = zero) -> centavos, HALF_UP
+    public static long deReais(BigDecimal valor) {
+        if (valor == null) {
+            return ZERO;
+        }
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // ✅ Centavos -> reais (double mais próximo do valor decimal exato)
+    public static double paraReais(long centavos) {
+        return centavos / 100.0;
+    }
+
+    // ✅ Centavos -> BigDecimal com 2 casas
+    public static BigDecimal paraDecimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    public static long somar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtrair(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // ✅ Valor unitário × quantidade
+    public static long multiplicar(long centavos, long quantidade) {
+        return Math.multiplyExact(centavos, quantidade);
+    }
+
+    // ✅ Rateio (ex.: custo unitário = custo total / quantidade), HALF_UP
+    public static long dividir(long centavos, long divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Divisão de valor monetário por zero");
+        }
+        long quociente = centavos / divisor;
+        long resto = centavos % divisor;
+        if (Math.abs(resto) * 2 >= Math.abs(divisor)) {
+            quociente += (centavos < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quociente;
+    }
+
+    // ✅ Razão em percentual (ex.: ROI = lucro / custo × 100); base <= 0 resulta em 0
+    public static double percentual(long parte, long base) {
+        return base > 0 ? (double) parte / base * 100 : 0.0;
+    }
+}
@@ -0,0 +1,21 @@
+package com.fernando.erp_vendas.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+// 🆕 Centavos (long) <-> coluna numeric em reais (custos dos lotes e dos itens PEPS)
+@Converter
+public class DinheiroDecimalConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long centavos) {
+        return centavos != null ? Dinheiro.paraDecimal(centavos) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal reais) {
+        return reais != null ? Dinheiro.deReais(reais) : null;
+    }
+}
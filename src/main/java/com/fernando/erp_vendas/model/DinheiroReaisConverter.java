@@ -0,0 +1,20 @@
+package com.fernando.erp_vendas.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// 🆕 Centavos (long) <-> coluna double precision em reais (colunas de valores da venda)
+// A coluna continua em reais: o esquema e as consultas nativas/relatórios não mudam
+@Converter
+public class DinheiroReaisConverter implements AttributeConverter<Long, Double> {
+
+    @Override
+    public Double convertToDatabaseColumn(Long centavos) {
+        return centavos != null ? Dinheiro.paraReais(centavos) : null;
+    }
+
+    @Override
+    public Long convertToEntityAttribute(Double reais) {
+        return reais != null ? Dinheiro.deReais(reais.doubleValue()) : null;
+    }
+}
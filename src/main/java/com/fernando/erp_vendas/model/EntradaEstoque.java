@@ -8,13 +8,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Índices: migrações em src/main/resources/db/migration
 @Table(name = "entrada_estoque", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"id_pedido_compra", "user_id"})
 })
 public class EntradaEstoque {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entrada_estoque_seq")
+    @SequenceGenerator(name = "entrada_estoque_seq", sequenceName = "entrada_estoque_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -28,11 +30,14 @@ public class EntradaEstoque {
     @Column(nullable = false)
     private Integer saldo;
 
+    // 🆕 Custos em centavos (long); as colunas continuam numeric(10,2) em reais
     @Column(name = "custo_total", nullable = false, precision = 10, scale = 2)
-    private BigDecimal custoTotal;
+    @Convert(converter = DinheiroDecimalConverter.class)
+    private long custoTotal;
 
     @Column(name = "custo_unitario", nullable = false, precision = 10, scale = 2)
-    private BigDecimal custoUnitario;
+    @Convert(converter = DinheiroDecimalConverter.class)
+    private long custoUnitario;
 
     @Column(name = "data_entrada", nullable = false)
     private LocalDateTime dataEntrada = LocalDateTime.now();
@@ -60,6 +65,13 @@ public class EntradaEstoque {
     @JsonIgnore
     private List<ItemVenda> itensVenda = new ArrayList<>();
 
+    // 🆕 CONTROLE OTIMISTA: incrementada a cada alteração do lote, inclusive pelos comandos PEPS nativos
+    // (baixa, reversão, importação). Editar ou excluir um lote que uma venda acabou de baixar falha
+    // em vez de sobrescrever o saldo; a baixa PEPS só decrementa o lote na versão que leu.
+    @Version
+    @Column(name = "versao", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long versao = 0L;
+
     // Construtor padrão
     public EntradaEstoque() {
     }
@@ -71,28 +83,18 @@ public class EntradaEstoque {
         this.produto = produto;
         this.quantidade = quantidade;
         this.saldo = quantidade;
-        this.custoTotal = custoTotal;
+        this.custoTotal = Dinheiro.deReais(custoTotal);
         this.fornecedor = fornecedor;
         this.idPedidoCompra = idPedidoCompra;
         this.categoria = categoria;
         this.observacoes = observacoes;
         this.user = user;
 
-        // ✅ CORREÇÃO: Cálculo SEGURO do custo unitário
+        // ✅ CORREÇÃO: Cálculo SEGURO do custo unitário (rateio em centavos, HALF_UP)
         if (quantidade != null && quantidade > 0) {
-            try {
-                this.custoUnitario = custoTotal.divide(
-                        BigDecimal.valueOf(quantidade),
-                        2,
-                        java.math.RoundingMode.HALF_UP
-                );
-            } catch (ArithmeticException e) {
-                double custoUnitarioDouble = custoTotal.doubleValue() / quantidade;
-                this.custoUnitario = BigDecimal.valueOf(custoUnitarioDouble)
-                        .setScale(2, java.math.RoundingMode.HALF_UP);
-            }
+            this.custoUnitario = Dinheiro.dividir(this.custoTotal, quantidade);
         } else {
-            this.custoUnitario = BigDecimal.ZERO;
+            this.custoUnitario = Dinheiro.ZERO;
         }
     }
 
@@ -111,11 +113,20 @@ public class EntradaEstoque {
     public Integer getSaldo() { return saldo; }
     public void setSaldo(Integer saldo) { this.saldo = saldo; }
 
-    public BigDecimal getCustoTotal() { return custoTotal; }
-    public void setCustoTotal(BigDecimal custoTotal) { this.custoTotal = custoTotal; }
+    public Long getVersao() { return versao; }
+
+    public BigDecimal getCustoTotal() { return Dinheiro.paraDecimal(custoTotal); }
+    public void setCustoTotal(BigDecimal custoTotal) { this.custoTotal = Dinheiro.deReais(custoTotal); }
+
+    public BigDecimal getCustoUnitario() { return Dinheiro.paraDecimal(custoUnitario); }
+    public void setCustoUnitario(BigDecimal custoUnitario) { this.custoUnitario = Dinheiro.deReais(custoUnitario); }
 
-    public BigDecimal getCustoUnitario() { return custoUnitario; }
-    public void setCustoUnitario(BigDecimal custoUnitario) { this.custoUnitario = custoUnitario; }
+    // 🆕 Custos em centavos (cálculos PEPS e saldo do produto)
+    @JsonIgnore
+    public long getCustoTotalCentavos() { return custoTotal; }
+
+    @JsonIgnore
+    public long getCustoUnitarioCentavos() { return custoUnitario; }
 
     public LocalDateTime getDataEntrada() { return dataEntrada; }
     public void setDataEntrada(LocalDateTime dataEntrada) { this.dataEntrada = dataEntrada; }
@@ -162,7 +173,7 @@ public class EntradaEstoque {
                 ", produto=" + (produto != null ? produto.getNome() : "null") +
                 ", quantidade=" + quantidade +
                 ", saldo=" + saldo +
-                ", custoUnitario=" + custoUnitario +
+                ", custoUnitario=" + getCustoUnitario() +
                 ", userId=" + (user != null ? user.getId() : "null") +
                 ", dataEntrada=" + dataEntrada +
                 ", fornecedor='" + fornecedor + '\'' +
@@ -0,0 +1,76 @@
+package com.fernando.erp_vendas.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// 🆕 HISTÓRICO DE COMPRAS (somente leitura): view entrada_estoque_historico (V6)
+// Lotes ativos e esgotados de entrada_estoque + lotes arquivados de entrada_estoque_arquivo, com o mesmo id.
+// PEPS, saldo e edição continuam em EntradaEstoque; aqui só as leituras do histórico de compras.
+@Entity
+@Immutable
+@Table(name = "entrada_estoque_historico")
+public class EntradaEstoqueHistorico {
+
+    @Id
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "produto_id")
+    @JsonIgnore
+    private Produto produto;
+
+    private Integer quantidade;
+
+    private Integer saldo;
+
+    @Column(name = "custo_total")
+    @Convert(converter = DinheiroDecimalConverter.class)
+    private long custoTotal;
+
+    @Column(name = "custo_unitario")
+    @Convert(converter = DinheiroDecimalConverter.class)
+    private long custoUnitario;
+
+    @Column(name = "data_entrada")
+    private LocalDateTime dataEntrada;
+
+    @Column(name = "fornecedor")
+    private String fornecedor;
+
+    @Column(name = "id_pedido_compra")
+    private String idPedidoCompra;
+
+    @Column(name = "categoria")
+    private String categoria;
+
+    @Column(name = "observacoes")
+    private String observacoes;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    @JsonIgnore
+    private User user;
+
+    // true = lote em entrada_estoque_arquivo (esgotado e antigo, somente leitura)
+    private boolean arquivado;
+
+    protected EntradaEstoqueHistorico() {
+    }
+
+    public Long getId() { return id; }
+    public Produto getProduto() { return produto; }
+    public Integer getQuantidade() { return quantidade; }
+    public Integer getSaldo() { return saldo; }
+    public long getCustoTotalCentavos() { return custoTotal; }
+    public long getCustoUnitarioCentavos() { return custoUnitario; }
+    public LocalDateTime getDataEntrada() { return dataEntrada; }
+    public String getFornecedor() { return fornecedor; }
+    public String getIdPedidoCompra() { return idPedidoCompra; }
+    public String getCategoria() { return categoria; }
+    public String getObservacoes() { return observacoes; }
+    public User getUser() { return user; }
+    public boolean isArquivado() { return arquivado; }
+}
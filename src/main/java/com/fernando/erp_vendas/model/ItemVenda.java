@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 @Table(name = "item_venda")
 public class ItemVenda {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_venda_seq")
+    @SequenceGenerator(name = "item_venda_seq", sequenceName = "item_venda_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -16,7 +17,8 @@ public class ItemVenda {
     @JsonIgnore // ✅ ALTERADO: Substituído @JsonIgnoreProperties por @JsonIgnore
     private Venda venda;
 
-    @ManyToOne
+    // 🆕 LAZY: o lote pode estar arquivado (entrada_estoque_arquivo, mesmo id); carregar o item não lê o lote
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lote_id", nullable = false)
     @JsonIgnore // ✅ ALTERADO: Substituído @JsonIgnoreProperties por @JsonIgnore
     private EntradaEstoque lote;
@@ -24,8 +26,10 @@ public class ItemVenda {
     @Column(nullable = false)
     private Integer quantidade;
 
+    // 🆕 Em centavos (long); a coluna continua numeric(10,2) em reais
     @Column(name = "custo_unitario", nullable = false, precision = 10, scale = 2)
-    private BigDecimal custoUnitario;
+    @Convert(converter = DinheiroDecimalConverter.class)
+    private long custoUnitario;
 
     // 🆕 RELAÇÃO COM USUÁRIO - MULTI-TENANCY
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,10 +44,16 @@ public class ItemVenda {
     // 🆕 CONSTRUTOR ATUALIZADO COM USER
     public ItemVenda(Venda venda, EntradaEstoque lote, Integer quantidade,
                      BigDecimal custoUnitario, User user) {
+        this(venda, lote, quantidade, Dinheiro.deReais(custoUnitario), user);
+    }
+
+    // 🆕 Custo unitário em centavos (alocação PEPS)
+    public ItemVenda(Venda venda, EntradaEstoque lote, Integer quantidade,
+                     long custoUnitarioCentavos, User user) {
         this.venda = venda;
         this.lote = lote;
         this.quantidade = quantidade;
-        this.custoUnitario = custoUnitario;
+        this.custoUnitario = custoUnitarioCentavos;
         this.user = user;
     }
 
@@ -81,11 +91,16 @@ public class ItemVenda {
     }
 
     public BigDecimal getCustoUnitario() {
-        return custoUnitario;
+        return Dinheiro.paraDecimal(custoUnitario);
     }
 
     public void setCustoUnitario(BigDecimal custoUnitario) {
-        this.custoUnitario = custoUnitario;
+        this.custoUnitario = Dinheiro.deReais(custoUnitario);
+    }
+
+    @JsonIgnore
+    public long getCustoUnitarioCentavos() {
+        return custoUnitario;
     }
 
     // 🆕 GETTER E SETTER PARA USER
@@ -99,7 +114,12 @@ public class ItemVenda {
 
     // Método para calcular custo total do item
     public BigDecimal getCustoTotal() {
-        return custoUnitario.multiply(BigDecimal.valueOf(quantidade));
+        return Dinheiro.paraDecimal(getCustoTotalCentavos());
+    }
+
+    @JsonIgnore
+    public long getCustoTotalCentavos() {
+        return Dinheiro.multiplicar(custoUnitario, quantidade);
     }
 
     @Override
@@ -109,7 +129,7 @@ public class ItemVenda {
                 ", venda=" + (venda != null ? venda.getIdPedido() : "null") +
                 ", lote=" + (lote != null ? lote.getId() : "null") +
                 ", quantidade=" + quantidade +
-                ", custoUnitario=" + custoUnitario +
+                ", custoUnitario=" + getCustoUnitario() +
                 ", userId=" + (user != null ? user.getId() : "null") +
                 '}';
     }
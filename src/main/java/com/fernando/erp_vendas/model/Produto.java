@@ -2,16 +2,24 @@ package com.fernando.erp_vendas.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Índices: migrações em src/main/resources/db/migration
 @Table(name = "produto")
 public class Produto {
 
+    private static final Logger log = LoggerFactory.getLogger(Produto.class);
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produto_seq")
+    @SequenceGenerator(name = "produto_seq", sequenceName = "produto_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,6 +43,17 @@ public class Produto {
     @JsonIgnore
     private User user;
 
+    // 🆕 SALDO DESNORMALIZADO: mantido por SaldoProdutoService na mesma transação de cada movimento dos lotes.
+    // Somente leitura para o Hibernate: salvar o produto (ex.: edição do cadastro) nunca sobrescreve o saldo.
+    @Column(name = "estoque_atual", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    private Integer estoqueAtual = 0;
+
+    // Valor do saldo ao custo PEPS: soma de saldo × custo unitário de cada lote
+    @Column(name = "valor_estoque_atual", insertable = false, updatable = false, precision = 15, scale = 2,
+            columnDefinition = "numeric(15,2) not null default 0")
+    private BigDecimal valorEstoqueAtual = BigDecimal.ZERO;
+
     // ✅ CORREÇÃO: Adicionar @JsonIgnore na lista também
     @OneToMany(mappedBy = "produto", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
@@ -80,43 +99,26 @@ public class Produto {
     public List<EntradaEstoque> getEntradaEstoques() { return entradaEstoques; }
     public void setEntradaEstoques(List<EntradaEstoque> entradaEstoques) { this.entradaEstoques = entradaEstoques; }
 
-    // ✅ CORREÇÃO CRÍTICA: Método de estoque total com tratamento de null
+    // ✅ Estoque total: lido da coluna mantida a cada movimento (não percorre os lotes)
     public Integer getQuantidadeEstoqueTotal() {
-        if (entradaEstoques == null || entradaEstoques.isEmpty()) {
-            System.out.println("⚠️  ESTOQUE VAZIO - Produto: " + this.nome + " (entradaEstoques is null or empty)");
-            return 0;
-        }
-
-        Integer total = 0;
-        int entradasComSaldo = 0;
-
-        for (EntradaEstoque entrada : entradaEstoques) {
-            Integer saldoEntrada = entrada.getSaldo();
-            if (saldoEntrada != null) {
-                total += saldoEntrada;
-                entradasComSaldo++;
-            } else {
-                System.out.println("⚠️  Entrada com saldo NULL - Produto: " + this.nome + ", Entrada ID: " + entrada.getId());
-            }
-        }
-
-        System.out.println("📊 ESTOQUE CALCULADO - Produto: " + this.nome +
-                ", Total: " + total +
-                ", Entradas com saldo: " + entradasComSaldo +
-                ", Total entradas: " + entradaEstoques.size());
+        return estoqueAtual != null ? estoqueAtual : 0;
+    }
 
-        return total;
+    // 🆕 Valor do estoque ao custo PEPS
+    public BigDecimal getValorEstoqueTotal() {
+        return valorEstoqueAtual != null ? valorEstoqueAtual : BigDecimal.ZERO;
     }
 
     // ✅ NOVO: Método para debug completo do estoque
     public void debugEstoque() {
-        System.out.println("\n🔍 ===== DEBUG ESTOQUE COMPLETO =====");
-        System.out.println("📦 Produto: " + this.nome + " (ID: " + this.id + ")");
-        System.out.println("👤 Usuário: " + (this.user != null ? this.user.getUsername() : "NULL"));
-        System.out.println("📁 Total de entradas: " + (entradaEstoques != null ? entradaEstoques.size() : 0));
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        log.debug("Debug estoque: produto={} id={} usuario={} totalEntradas={}", this.nome, this.id,
+                this.user != null ? this.user.getUsername() : null, entradaEstoques != null ? entradaEstoques.size() : 0);
 
         if (entradaEstoques == null || entradaEstoques.isEmpty()) {
-            System.out.println("❌ NENHUMA ENTRADA DE ESTOQUE ENCONTRADA!");
+            log.debug("Nenhuma entrada de estoque encontrada: produto={}", this.nome);
             return;
         }
 
@@ -126,25 +128,18 @@ public class Produto {
 
         for (int i = 0; i < entradaEstoques.size(); i++) {
             EntradaEstoque entrada = entradaEstoques.get(i);
-            String userInfo = entrada.getUser() != null ? entrada.getUser().getUsername() : "❌ NULL";
             if (entrada.getUser() != null) entradasComUser++;
 
-            System.out.println("   [" + i + "] Entrada ID: " + entrada.getId() +
-                    " | Qtd: " + entrada.getQuantidade() +
-                    " | Saldo: " + (entrada.getSaldo() != null ? entrada.getSaldo() : "❌ NULL") +
-                    " | User: " + userInfo +
-                    " | Custo: " + (entrada.getCustoUnitario() != null ? entrada.getCustoUnitario() : "NULL"));
+            log.debug("  [{}] entradaId={} quantidade={} saldo={} usuario={} custoUnitario={}", i, entrada.getId(),
+                    entrada.getQuantidade(), entrada.getSaldo(),
+                    entrada.getUser() != null ? entrada.getUser().getUsername() : null, entrada.getCustoUnitario());
 
             totalQuantidade += entrada.getQuantidade() != null ? entrada.getQuantidade() : 0;
             totalSaldo += entrada.getSaldo() != null ? entrada.getSaldo() : 0;
         }
 
-        System.out.println("📊 RESUMO:");
-        System.out.println("   - Quantidade total comprada: " + totalQuantidade);
-        System.out.println("   - Saldo total disponível: " + totalSaldo);
-        System.out.println("   - Entradas com usuário: " + entradasComUser + "/" + entradaEstoques.size());
-        System.out.println("   - Estoque calculado: " + getQuantidadeEstoqueTotal());
-        System.out.println("🔍 ===== FIM DEBUG ESTOQUE =====\n");
+        log.debug("Resumo estoque: produto={} quantidadeComprada={} saldoDisponivel={} entradasComUsuario={}/{} estoqueAtual={}",
+                this.nome, totalQuantidade, totalSaldo, entradasComUser, entradaEstoques.size(), getQuantidadeEstoqueTotal());
     }
 
     // ✅ NOVO: Método para verificar se há entradas sem usuário
@@ -161,25 +156,22 @@ public class Produto {
 
     // ✅ NOVO: Método para contar entradas por usuário
     public void analisarUsuariosEntradas() {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
         if (entradaEstoques == null) {
-            System.out.println("❌ Nenhuma entrada para analisar");
+            log.debug("Nenhuma entrada para analisar: produto={}", this.nome);
             return;
         }
 
-        System.out.println("\n👤 ==== ANÁLISE DE USUÁRIOS NAS ENTRADAS ====");
-        System.out.println("📦 Produto: " + this.nome);
-
         java.util.Map<String, Integer> usuariosCount = new java.util.HashMap<>();
 
         for (EntradaEstoque entrada : entradaEstoques) {
-            String usuario = entrada.getUser() != null ? entrada.getUser().getUsername() : "❌ SEM USUÁRIO";
+            String usuario = entrada.getUser() != null ? entrada.getUser().getUsername() : "SEM USUÁRIO";
             usuariosCount.put(usuario, usuariosCount.getOrDefault(usuario, 0) + 1);
         }
 
-        for (java.util.Map.Entry<String, Integer> entry : usuariosCount.entrySet()) {
-            System.out.println("   - " + entry.getKey() + ": " + entry.getValue() + " entradas");
-        }
-        System.out.println("👤 ==== FIM ANÁLISE ====\n");
+        log.debug("Entradas por usuário: produto={} contagem={}", this.nome, usuariosCount);
     }
 
     public boolean temEstoqueSuficiente(Integer quantidade) {
@@ -190,11 +182,9 @@ public class Produto {
         Integer estoqueTotal = getQuantidadeEstoqueTotal();
         boolean suficiente = estoqueTotal >= quantidade;
 
-        System.out.println("🔍 VERIFICAÇÃO ESTOQUE - Produto: " + this.nome +
-                ", Necessário: " + quantidade +
-                ", Disponível: " + estoqueTotal +
-                ", Suficiente: " + suficiente);
+        log.debug("Verificação de estoque: produto={} necessario={} disponivel={} suficiente={}",
+                this.nome, quantidade, estoqueTotal, suficiente);
 
         return suficiente;
     }
-}
\ No newline at end of file
+}
@@ -7,11 +7,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+// Índices: migrações em src/main/resources/db/migration
 @Table(name = "venda")
 public class Venda {
 
+    // 🆕 Sequência em blocos de 50 (V3): ids sem ida ao banco por INSERT, que assim podem ir em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "venda_seq")
+    @SequenceGenerator(name = "venda_seq", sequenceName = "venda_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "data", nullable = false)
@@ -30,23 +33,30 @@ public class Venda {
     private Produto produto;
 
     // Preços e custos
+    // 🆕 Em centavos (long): somas exatas e sem boxing; a coluna continua double precision em reais
     @Column(name = "preco_venda")
-    private Double precoVenda = 0.0;
+    @Convert(converter = DinheiroReaisConverter.class)
+    private long precoVenda;
 
     @Column(name = "frete_pago_pelo_cliente")
-    private Double fretePagoPeloCliente = 0.0;
+    @Convert(converter = DinheiroReaisConverter.class)
+    private long fretePagoPeloCliente;
 
     @Column(name = "custo_envio")
-    private Double custoEnvio = 0.0;
+    @Convert(converter = DinheiroReaisConverter.class)
+    private long custoEnvio;
 
     @Column(name = "tarifa_plataforma")
-    private Double tarifaPlataforma = 0.0;
+    @Convert(converter = DinheiroReaisConverter.class)
+    private long tarifaPlataforma;
 
     @Column(name = "custo_produto_vendido")
-    private Double custoProdutoVendido = 0.0;
+    @Convert(converter = DinheiroReaisConverter.class)
+    private long custoProdutoVendido;
 
     @Column(name = "despesas_operacionais")
-    private Double despesasOperacionais = 0.0;
+    @Convert(converter = DinheiroReaisConverter.class)
+    private long despesasOperacionais;
 
     // ✅ Multi-tenancy
     @ManyToOne(fetch = FetchType.LAZY)
@@ -69,12 +79,12 @@ public class Venda {
         this.plataforma = plataforma;
         this.quantidade = quantidade;
         this.produto = produto;
-        this.precoVenda = precoVenda != null ? precoVenda : 0.0;
-        this.fretePagoPeloCliente = fretePagoPeloCliente != null ? fretePagoPeloCliente : 0.0;
-        this.custoEnvio = custoEnvio != null ? custoEnvio : 0.0;
-        this.tarifaPlataforma = tarifaPlataforma != null ? tarifaPlataforma : 0.0;
-        this.custoProdutoVendido = custoProdutoVendido != null ? custoProdutoVendido : 0.0;
-        this.despesasOperacionais = despesasOperacionais != null ? despesasOperacionais : 0.0;
+        this.precoVenda = Dinheiro.deReais(precoVenda);
+        this.fretePagoPeloCliente = Dinheiro.deReais(fretePagoPeloCliente);
+        this.custoEnvio = Dinheiro.deReais(custoEnvio);
+        this.tarifaPlataforma = Dinheiro.deReais(tarifaPlataforma);
+        this.custoProdutoVendido = Dinheiro.deReais(custoProdutoVendido);
+        this.despesasOperacionais = Dinheiro.deReais(despesasOperacionais);
         this.user = user;
     }
 
@@ -97,23 +107,49 @@ public class Venda {
     public Produto getProduto() { return produto; }
     public void setProduto(Produto produto) { this.produto = produto; }
 
-    public Double getPrecoVenda() { return precoVenda != null ? precoVenda : 0.0; }
-    public void setPrecoVenda(Double precoVenda) { this.precoVenda = precoVenda != null ? precoVenda : 0.0; }
+    // Valores em reais (API/JSON); nulo é gravado como zero
+    public Double getPrecoVenda() { return Dinheiro.paraReais(precoVenda); }
+    public void setPrecoVenda(Double precoVenda) { this.precoVenda = Dinheiro.deReais(precoVenda); }
 
-    public Double getFretePagoPeloCliente() { return fretePagoPeloCliente != null ? fretePagoPeloCliente : 0.0; }
-    public void setFretePagoPeloCliente(Double fretePagoPeloCliente) { this.fretePagoPeloCliente = fretePagoPeloCliente != null ? fretePagoPeloCliente : 0.0; }
+    public Double getFretePagoPeloCliente() { return Dinheiro.paraReais(fretePagoPeloCliente); }
+    public void setFretePagoPeloCliente(Double fretePagoPeloCliente) { this.fretePagoPeloCliente = Dinheiro.deReais(fretePagoPeloCliente); }
 
-    public Double getCustoEnvio() { return custoEnvio != null ? custoEnvio : 0.0; }
-    public void setCustoEnvio(Double custoEnvio) { this.custoEnvio = custoEnvio != null ? custoEnvio : 0.0; }
+    public Double getCustoEnvio() { return Dinheiro.paraReais(custoEnvio); }
+    public void setCustoEnvio(Double custoEnvio) { this.custoEnvio = Dinheiro.deReais(custoEnvio); }
 
-    public Double getTarifaPlataforma() { return tarifaPlataforma != null ? tarifaPlataforma : 0.0; }
-    public void setTarifaPlataforma(Double tarifaPlataforma) { this.tarifaPlataforma = tarifaPlataforma != null ? tarifaPlataforma : 0.0; }
+    public Double getTarifaPlataforma() { return Dinheiro.paraReais(tarifaPlataforma); }
+    public void setTarifaPlataforma(Double tarifaPlataforma) { this.tarifaPlataforma = Dinheiro.deReais(tarifaPlataforma); }
 
-    public Double getCustoProdutoVendido() { return custoProdutoVendido != null ? custoProdutoVendido : 0.0; }
-    public void setCustoProdutoVendido(Double custoProdutoVendido) { this.custoProdutoVendido = custoProdutoVendido != null ? custoProdutoVendido : 0.0; }
+    public Double getCustoProdutoVendido() { return Dinheiro.paraReais(custoProdutoVendido); }
+    public void setCustoProdutoVendido(Double custoProdutoVendido) { this.custoProdutoVendido = Dinheiro.deReais(custoProdutoVendido); }
 
-    public Double getDespesasOperacionais() { return despesasOperacionais != null ? despesasOperacionais : 0.0; }
-    public void setDespesasOperacionais(Double despesasOperacionais) { this.despesasOperacionais = despesasOperacionais != null ? despesasOperacionais : 0.0; }
+    public Double getDespesasOperacionais() { return Dinheiro.paraReais(despesasOperacionais); }
+    public void setDespesasOperacionais(Double despesasOperacionais) { this.despesasOperacionais = Dinheiro.deReais(despesasOperacionais); }
+
+    // 🆕 Valores em centavos (cálculos internos)
+    @JsonIgnore
+    public long getPrecoVendaCentavos() { return precoVenda; }
+    public void setPrecoVendaCentavos(long precoVenda) { this.precoVenda = precoVenda; }
+
+    @JsonIgnore
+    public long getFretePagoPeloClienteCentavos() { return fretePagoPeloCliente; }
+    public void setFretePagoPeloClienteCentavos(long fretePagoPeloCliente) { this.fretePagoPeloCliente = fretePagoPeloCliente; }
+
+    @JsonIgnore
+    public long getCustoEnvioCentavos() { return custoEnvio; }
+    public void setCustoEnvioCentavos(long custoEnvio) { this.custoEnvio = custoEnvio; }
+
+    @JsonIgnore
+    public long getTarifaPlataformaCentavos() { return tarifaPlataforma; }
+    public void setTarifaPlataformaCentavos(long tarifaPlataforma) { this.tarifaPlataforma = tarifaPlataforma; }
+
+    @JsonIgnore
+    public long getCustoProdutoVendidoCentavos() { return custoProdutoVendido; }
+    public void setCustoProdutoVendidoCentavos(long custoProdutoVendido) { this.custoProdutoVendido = custoProdutoVendido; }
+
+    @JsonIgnore
+    public long getDespesasOperacionaisCentavos() { return despesasOperacionais; }
+    public void setDespesasOperacionaisCentavos(long despesasOperacionais) { this.despesasOperacionais = despesasOperacionais; }
 
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
@@ -122,37 +158,48 @@ public class Venda {
     public void setItens(List<ItemVenda> itens) { this.itens = itens; }
 
     // ✅ CORREÇÃO CRÍTICA: NOVAS FÓRMULAS COM TRATAMENTO DE NULL
+    // 🆕 Calculadas em centavos; as versões em Double só convertem o resultado
+    // 🆕 As mesmas fórmulas ficam gravadas em colunas geradas de venda (V4: faturamento, custo_efetivo_total,
+    // lucro_bruto, lucro_liquido, roi), recalculadas pelo banco a cada escrita; usadas no ranking indexado
 
     // 💰 FATURAMENTO = Preço Venda + Frete
-    public Double calcularFaturamento() {
-        double preco = getPrecoVenda();
-        double frete = getFretePagoPeloCliente();
-        return preco + frete;
+    public long calcularFaturamentoCentavos() {
+        return Dinheiro.somar(precoVenda, fretePagoPeloCliente);
     }
 
     // 💸 CUSTO EFETIVO = Custo PEPS + Custo Envio + Tarifa
-    public Double calcularCustoEfetivoTotal() {
-        double custoProduto = getCustoProdutoVendido();
-        double custoEnvioVal = getCustoEnvio();
-        double tarifa = getTarifaPlataforma();
-        return custoProduto + custoEnvioVal + tarifa;
+    public long calcularCustoEfetivoTotalCentavos() {
+        return Dinheiro.somar(Dinheiro.somar(custoProdutoVendido, custoEnvio), tarifaPlataforma);
     }
 
     // 📊 LUCRO BRUTO = FATURAMENTO - CUSTO EFETIVO
-    public Double calcularLucroBruto() {
-        return calcularFaturamento() - calcularCustoEfetivoTotal();
+    public long calcularLucroBrutoCentavos() {
+        return Dinheiro.subtrair(calcularFaturamentoCentavos(), calcularCustoEfetivoTotalCentavos());
     }
 
     // 💵 LUCRO LÍQUIDO = LUCRO BRUTO - DESPESAS OPERACIONAIS
+    public long calcularLucroLiquidoCentavos() {
+        return Dinheiro.subtrair(calcularLucroBrutoCentavos(), despesasOperacionais);
+    }
+
+    public Double calcularFaturamento() {
+        return Dinheiro.paraReais(calcularFaturamentoCentavos());
+    }
+
+    public Double calcularCustoEfetivoTotal() {
+        return Dinheiro.paraReais(calcularCustoEfetivoTotalCentavos());
+    }
+
+    public Double calcularLucroBruto() {
+        return Dinheiro.paraReais(calcularLucroBrutoCentavos());
+    }
+
     public Double calcularLucroLiquido() {
-        double despesas = getDespesasOperacionais();
-        return calcularLucroBruto() - despesas;
+        return Dinheiro.paraReais(calcularLucroLiquidoCentavos());
     }
 
     // 🎯 ROI = (LUCRO LÍQUIDO / CUSTO EFETIVO) × 100
     public Double calcularROI() {
-        Double custoEfetivo = calcularCustoEfetivoTotal();
-        Double lucroLiquido = calcularLucroLiquido();
-        return (custoEfetivo > 0) ? (lucroLiquido / custoEfetivo) * 100 : 0.0;
+        return Dinheiro.percentual(calcularLucroLiquidoCentavos(), calcularCustoEfetivoTotalCentavos());
     }
-}
\ No newline at end of file
+}
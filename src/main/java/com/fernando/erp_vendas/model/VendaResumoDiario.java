@@ -0,0 +1,104 @@
+package com.fernando.erp_vendas.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// 🆕 AGREGADO DE VENDAS por usuário, dia, plataforma e produto
+// Mantido na mesma transação que cria, edita ou exclui a Venda (ver ResumoVendaService),
+// para que os dashboards não precisem ler todas as vendas do usuário.
+@Entity
+@Table(name = "venda_resumo_diario", uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"user_id", "dia", "plataforma", "produto_id"})
+})
+public class VendaResumoDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "venda_resumo_diario_seq")
+    @SequenceGenerator(name = "venda_resumo_diario_seq", sequenceName = "venda_resumo_diario_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private User user;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia;
+
+    // Plataforma vazia ("") representa vendas sem plataforma informada
+    @Column(name = "plataforma", nullable = false)
+    private String plataforma;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "produto_id", nullable = false)
+    @JsonIgnore
+    private Produto produto;
+
+    @Column(name = "quantidade_vendas", nullable = false)
+    private Long quantidadeVendas = 0L;
+
+    @Column(name = "unidades", nullable = false)
+    private Long unidades = 0L;
+
+    @Column(name = "preco_venda", nullable = false, precision = 15, scale = 2)
+    private BigDecimal precoVenda = BigDecimal.ZERO;
+
+    @Column(name = "frete_pago_pelo_cliente", nullable = false, precision = 15, scale = 2)
+    private BigDecimal fretePagoPeloCliente = BigDecimal.ZERO;
+
+    @Column(name = "custo_produto_vendido", nullable = false, precision = 15, scale = 2)
+    private BigDecimal custoProdutoVendido = BigDecimal.ZERO;
+
+    @Column(name = "custo_envio", nullable = false, precision = 15, scale = 2)
+    private BigDecimal custoEnvio = BigDecimal.ZERO;
+
+    @Column(name = "tarifa_plataforma", nullable = false, precision = 15, scale = 2)
+    private BigDecimal tarifaPlataforma = BigDecimal.ZERO;
+
+    @Column(name = "despesas_operacionais", nullable = false, precision = 15, scale = 2)
+    private BigDecimal despesasOperacionais = BigDecimal.ZERO;
+
+    public VendaResumoDiario() {}
+
+    // Getters e Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+
+    public LocalDate getDia() { return dia; }
+    public void setDia(LocalDate dia) { this.dia = dia; }
+
+    public String getPlataforma() { return plataforma; }
+    public void setPlataforma(String plataforma) { this.plataforma = plataforma; }
+
+    public Produto getProduto() { return produto; }
+    public void setProduto(Produto produto) { this.produto = produto; }
+
+    public Long getQuantidadeVendas() { return quantidadeVendas; }
+    public void setQuantidadeVendas(Long quantidadeVendas) { this.quantidadeVendas = quantidadeVendas; }
+
+    public Long getUnidades() { return unidades; }
+    public void setUnidades(Long unidades) { this.unidades = unidades; }
+
+    public BigDecimal getPrecoVenda() { return precoVenda; }
+    public void setPrecoVenda(BigDecimal precoVenda) { this.precoVenda = precoVenda; }
+
+    public BigDecimal getFretePagoPeloCliente() { return fretePagoPeloCliente; }
+    public void setFretePagoPeloCliente(BigDecimal fretePagoPeloCliente) { this.fretePagoPeloCliente = fretePagoPeloCliente; }
+
+    public BigDecimal getCustoProdutoVendido() { return custoProdutoVendido; }
+    public void setCustoProdutoVendido(BigDecimal custoProdutoVendido) { this.custoProdutoVendido = custoProdutoVendido; }
+
+    public BigDecimal getCustoEnvio() { return custoEnvio; }
+    public void setCustoEnvio(BigDecimal custoEnvio) { this.custoEnvio = custoEnvio; }
+
+    public BigDecimal getTarifaPlataforma() { return tarifaPlataforma; }
+    public void setTarifaPlataforma(BigDecimal tarifaPlataforma) { this.tarifaPlataforma = tarifaPlataforma; }
+
+    public BigDecimal getDespesasOperacionais() { return despesasOperacionais; }
+    public void setDespesasOperacionais(BigDecimal despesasOperacionais) { this.despesasOperacionais = despesasOperacionais; }
+}
@@ -2,10 +2,13 @@ package com.fernando.erp_vendas.repository;
 
 import com.fernando.erp_vendas.model.Despesa;
 import com.fernando.erp_vendas.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -13,6 +16,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface DespesaRepository extends JpaRepository<Despesa, Long> {
 
     // 🆕 MÉTODOS MULTI-TENANCY - TODOS FILTRADOS POR USER
@@ -20,6 +24,16 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
     // Buscar TODAS as despesas do usuário ordenadas por data (mais recente primeiro)
     List<Despesa> findByUserOrderByDataDesc(User user);
 
+    // 🆕 KEYSET: primeira página (mais recentes primeiro; id desempata despesas do mesmo dia)
+    @Query("SELECT d FROM Despesa d WHERE d.user = :user ORDER BY d.data DESC, d.id DESC")
+    Slice<Despesa> findPaginaByUser(@Param("user") User user, Pageable pageable);
+
+    // 🆕 KEYSET: página seguinte à posição (data, id) do cursor
+    @Query("SELECT d FROM Despesa d WHERE d.user = :user AND d.data <= :data " +
+            "AND (d.data < :data OR d.id < :id) ORDER BY d.data DESC, d.id DESC")
+    Slice<Despesa> findPaginaByUserApos(@Param("user") User user, @Param("data") LocalDate data,
+                                        @Param("id") Long id, Pageable pageable);
+
     // Buscar despesas por categoria DO USUÁRIO
     List<Despesa> findByCategoriaAndUserOrderByDataDesc(String categoria, User user);
 
@@ -32,15 +46,25 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
     // 🆕 Buscar despesa por ID e usuário
     Optional<Despesa> findByIdAndUser(Long id, User user);
 
-    // 🆕 Buscar despesas por descrição (busca parcial) DO USUÁRIO
-    List<Despesa> findByDescricaoContainingAndUser(String descricao, User user);
+    // 🆕 BUSCA INDEXADA: documento de busca da despesa (descrição, categoria, observações)
+    // A expressão precisa ser idêntica à do índice idx_despesa_busca_trgm (migração V1)
+    String BUSCA_DOCUMENTO = "erp_normalizar(coalesce(descricao, '') || ' ' || coalesce(categoria, '') || ' ' || " +
+            "coalesce(observacoes, ''))";
+
+    // 🆕 Buscar despesas por descrição (busca parcial, padrão de BuscaService.padraoContem) DO USUÁRIO
+    @Query(value = "SELECT * FROM despesa WHERE user_id = :userId AND " + BUSCA_DOCUMENTO +
+            " LIKE erp_normalizar(:padrao) AND erp_normalizar(descricao) LIKE erp_normalizar(:padrao) " +
+            "ORDER BY data DESC, id DESC", nativeQuery = true)
+    List<Despesa> buscarPorDescricao(@Param("userId") Long userId, @Param("padrao") String padrao);
 
     // 🆕 Contar total de despesas do usuário
     long countByUser(User user);
 
-    // 🆕 Buscar despesas do mês atual DO USUÁRIO
-    @Query("SELECT d FROM Despesa d WHERE d.user = :user AND YEAR(d.data) = YEAR(CURRENT_DATE) AND MONTH(d.data) = MONTH(CURRENT_DATE) ORDER BY d.data DESC")
-    List<Despesa> findDespesasDoMesAtual(@Param("user") User user);
+    // ✅ Buscar despesas no intervalo [inicio, fim) DO USUÁRIO (ex.: mês atual = [dia 1, dia 1 do próximo mês))
+    // Comparação direta com a coluna (sem YEAR()/MONTH()): usa o índice (user_id, data, id)
+    @Query("SELECT d FROM Despesa d WHERE d.user = :user AND d.data >= :inicio AND d.data < :fim ORDER BY d.data DESC")
+    List<Despesa> findDespesasNoPeriodo(@Param("user") User user, @Param("inicio") LocalDate inicio,
+                                        @Param("fim") LocalDate fim);
 
     // CONSULTAS COMPLEXAS MULTI-TENANT
 
@@ -57,9 +81,10 @@ public interface DespesaRepository extends JpaRepository<Despesa, Long> {
                                                          @Param("inicio") LocalDate inicio,
                                                          @Param("fim") LocalDate fim);
 
-    // 🆕 Calcular total de despesas do mês atual DO USUÁRIO
-    @Query("SELECT SUM(d.valor) FROM Despesa d WHERE d.user = :user AND YEAR(d.data) = YEAR(CURRENT_DATE) AND MONTH(d.data) = MONTH(CURRENT_DATE)")
-    BigDecimal calcularTotalDespesasMesAtual(@Param("user") User user);
+    // ✅ Calcular total de despesas no intervalo [inicio, fim) DO USUÁRIO
+    @Query("SELECT SUM(d.valor) FROM Despesa d WHERE d.user = :user AND d.data >= :inicio AND d.data < :fim")
+    BigDecimal calcularTotalDespesasNoPeriodo(@Param("user") User user, @Param("inicio") LocalDate inicio,
+                                              @Param("fim") LocalDate fim);
 
     // 🆕 Calcular média mensal de despesas DO USUÁRIO
     @Query("SELECT AVG(d.valor) FROM Despesa d WHERE d.user = :user AND d.data >= :inicio")
@@ -0,0 +1,63 @@
+package com.fernando.erp_vendas.repository;
+
+import com.fernando.erp_vendas.dto.EntradaEstoqueDTO;
+import com.fernando.erp_vendas.model.EntradaEstoqueHistorico;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// 🆕 HISTÓRICO DE COMPRAS: lotes de entrada_estoque + entrada_estoque_arquivo (view entrada_estoque_historico, V6)
+// Cada filtro desce para as duas tabelas e usa os índices equivalentes de cada uma.
+@Repository
+@Transactional(readOnly = true)
+public interface EntradaEstoqueHistoricoRepository extends JpaRepository<EntradaEstoqueHistorico, Long> {
+
+    // 🆕 PROJEÇÕES PARA LISTAGEM: EntradaEstoqueDTO montado pelo JPQL (sem carregar o Produto de cada lote)
+    String SELECT_ENTRADA_DTO = "SELECT new com.fernando.erp_vendas.dto.EntradaEstoqueDTO(e.id, p.id, p.nome, p.sku, " +
+            "e.quantidade, e.saldo, e.custoTotal, e.custoUnitario, e.dataEntrada, e.fornecedor, e.idPedidoCompra, " +
+            "e.categoria, e.observacoes, e.arquivado) FROM EntradaEstoqueHistorico e JOIN e.produto p ";
+
+    // Lista completa (resposta legada, sem cursor)
+    @Query(SELECT_ENTRADA_DTO + "WHERE e.user = :user ORDER BY e.dataEntrada DESC, e.id DESC")
+    List<EntradaEstoqueDTO> findDTOByUser(@Param("user") User user);
+
+    // 🆕 KEYSET: primeira página (mais recentes primeiro)
+    @Query(SELECT_ENTRADA_DTO + "WHERE e.user = :user ORDER BY e.dataEntrada DESC, e.id DESC")
+    Slice<EntradaEstoqueDTO> findPaginaDTOByUser(@Param("user") User user, Pageable pageable);
+
+    // 🆕 KEYSET: página seguinte à posição (dataEntrada, id) do cursor
+    @Query(SELECT_ENTRADA_DTO + "WHERE e.user = :user AND e.dataEntrada <= :data " +
+            "AND (e.dataEntrada < :data OR e.id < :id) ORDER BY e.dataEntrada DESC, e.id DESC")
+    Slice<EntradaEstoqueDTO> findPaginaDTOByUserApos(@Param("user") User user, @Param("data") LocalDateTime data,
+                                                     @Param("id") Long id, Pageable pageable);
+
+    // Histórico de compras de um produto do usuário (mais antigas primeiro)
+    @Query(SELECT_ENTRADA_DTO + "WHERE e.produto = :produto AND e.user = :user ORDER BY e.dataEntrada ASC, e.id ASC")
+    List<EntradaEstoqueDTO> findDTOByProdutoAndUser(@Param("produto") Produto produto, @Param("user") User user);
+
+    @Query(SELECT_ENTRADA_DTO + "WHERE e.id = :id AND e.user = :user")
+    Optional<EntradaEstoqueDTO> findDTOByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
+    // p.user: centenas de lotes da categoria juntam só com os produtos do usuário (não varre produto)
+    @Query(SELECT_ENTRADA_DTO + "WHERE e.categoria = :categoria AND e.user = :user AND p.user = :user")
+    List<EntradaEstoqueDTO> findDTOByCategoriaAndUser(@Param("categoria") String categoria, @Param("user") User user);
+
+    // Unicidade do pedido de compra: um lote arquivado continua ocupando o seu idPedidoCompra
+    Optional<EntradaEstoqueHistorico> findByIdPedidoCompraAndUser(String idPedidoCompra, User user);
+
+    // 🆕 Buscar compras por fornecedor do usuário (padrão de BuscaService.padraoContem; índice de busca de cada tabela)
+    @Query(value = "SELECT * FROM entrada_estoque_historico WHERE user_id = :userId AND " +
+            EntradaEstoqueRepository.BUSCA_DOCUMENTO + " LIKE erp_normalizar(:padrao) " +
+            "AND erp_normalizar(fornecedor) LIKE erp_normalizar(:padrao) ORDER BY data_entrada DESC, id DESC",
+            nativeQuery = true)
+    List<EntradaEstoqueHistorico> buscarPorFornecedor(@Param("userId") Long userId, @Param("padrao") String padrao);
+}
@@ -7,10 +7,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface EntradaEstoqueRepository extends JpaRepository<EntradaEstoque, Long> {
 
     // 🆕 MÉTODOS MULTI-TENANCY - TODOS FILTRADOS POR USER
@@ -31,15 +34,21 @@ public interface EntradaEstoqueRepository extends JpaRepository<EntradaEstoque,
     // 🆕 Listar todas as entradas do usuário ordenadas por data (mais recentes primeiro)
     List<EntradaEstoque> findByUserOrderByDataEntradaDesc(User user);
 
+    // 🆕 Listagens do histórico de compras (lotes ativos + arquivados): EntradaEstoqueHistoricoRepository
+
     // 🆕 Soma o saldo total de um produto DO USUÁRIO
-    @Query("SELECT COALESCE(SUM(e.saldo), 0) FROM EntradaEstoque e WHERE e.produto = :produto AND e.user = :user")
+    // ✅ Só lotes com saldo (mesmo resultado): lê o índice parcial PEPS, sem passar pelos lotes esgotados
+    @Query("SELECT COALESCE(SUM(e.saldo), 0) FROM EntradaEstoque e WHERE e.produto = :produto AND e.user = :user AND e.saldo > 0")
     Integer findSaldoTotalByProdutoAndUser(@Param("produto") Produto produto, @Param("user") User user);
 
     // 🆕 Buscar entradas por categoria do usuário
     List<EntradaEstoque> findByCategoriaAndUser(String categoria, User user);
 
-    // 🆕 Buscar entradas por fornecedor do usuário
-    List<EntradaEstoque> findByFornecedorContainingAndUser(String fornecedor, User user);
+    // 🆕 BUSCA INDEXADA: documento de busca da compra (fornecedor, categoria, observações)
+    // A expressão precisa ser idêntica à do índice idx_entrada_estoque_busca_trgm (migração V1)
+    // e à de idx_entrada_estoque_arquivo_busca_trgm (V6)
+    String BUSCA_DOCUMENTO = "erp_normalizar(coalesce(fornecedor, '') || ' ' || coalesce(categoria, '') || ' ' || " +
+            "coalesce(observacoes, ''))";
 
     // 🆕 Contar total de entradas do usuário
     long countByUser(User user);
@@ -48,6 +57,150 @@ public interface EntradaEstoqueRepository extends JpaRepository<EntradaEstoque,
     @Query("SELECT e FROM EntradaEstoque e WHERE e.user = :user AND e.saldo > 0 AND e.saldo < 5")
     List<EntradaEstoque> findEntradasComSaldoBaixo(@Param("user") User user);
 
+    // 🆕 PEPS SET-BASED: Calcula a alocação pela soma acumulada, baixa o saldo dos lotes e registra
+    // os itens da venda em UM único comando (1 round-trip por venda).
+    // ✅ OTIMISTA: os lotes são lidos sem trava e cada baixa é condicional
+    // (WHERE versao = <lida> AND saldo >= <alocada>). Lote alterado por outra transação no meio
+    // não é baixado e volta com baixado = false: o chamador desfaz tudo e tenta de novo.
+    // Retorna [lote_id, quantidade, custo_unitario, baixado] de cada lote alocado, na ordem PEPS.
+    // Se o saldo total não cobrir :quantidade, a soma das quantidades retornadas fica menor
+    // e o chamador deve lançar exceção para desfazer a transação.
+    @Transactional
+    @Query(value = """
+            WITH lotes AS (
+                SELECT e.id, e.saldo, e.custo_unitario, e.data_entrada, e.versao
+                FROM entrada_estoque e
+                WHERE e.produto_id = :produtoId AND e.user_id = :userId AND e.saldo > 0
+            ),
+            acumulado AS (
+                SELECT l.id, l.saldo, l.custo_unitario, l.data_entrada, l.versao,
+                       SUM(l.saldo) OVER (ORDER BY l.data_entrada, l.id) - l.saldo AS consumido_antes
+                FROM lotes l
+            ),
+            alocacao AS (
+                SELECT a.id, LEAST(a.saldo, :quantidade - a.consumido_antes) AS quantidade,
+                       a.custo_unitario, a.data_entrada, a.versao
+                FROM acumulado a
+                WHERE a.consumido_antes < :quantidade
+            ),
+            baixa AS (
+                UPDATE entrada_estoque e SET saldo = e.saldo - al.quantidade, versao = e.versao + 1
+                FROM alocacao al
+                WHERE e.id = al.id AND e.versao = al.versao AND e.saldo >= al.quantidade
+                RETURNING e.id, al.quantidade, al.custo_unitario
+            ),
+            itens AS (
+                INSERT INTO item_venda (venda_id, lote_id, quantidade, custo_unitario, user_id)
+                SELECT :vendaId, b.id, b.quantidade, b.custo_unitario, :userId FROM baixa b
+            )
+            SELECT al.id, al.quantidade, al.custo_unitario, (b.id IS NOT NULL) AS baixado
+            FROM alocacao al LEFT JOIN baixa b ON b.id = al.id
+            ORDER BY al.data_entrada, al.id
+            """, nativeQuery = true)
+    List<Object[]> alocarPepsERegistrarItens(@Param("vendaId") Long vendaId,
+                                             @Param("produtoId") Long produtoId,
+                                             @Param("userId") Long userId,
+                                             @Param("quantidade") Integer quantidade);
+
+    // 🆕 PEPS SET-BASED: Apenas baixa o saldo dos lotes (sem registrar itens), em UM comando
+    // Retorna uma linha [quantidade_baixada, valor_baixado] (valor ao custo de cada lote)
+    @Transactional
+    @Query(value = """
+            WITH lotes AS (
+                SELECT e.id, e.saldo, e.data_entrada
+                FROM entrada_estoque e
+                WHERE e.produto_id = :produtoId AND e.user_id = :userId AND e.saldo > 0
+                ORDER BY e.data_entrada, e.id
+                FOR UPDATE
+            ),
+            alocacao AS (
+                SELECT a.id, LEAST(a.saldo, :quantidade - a.consumido_antes) AS quantidade
+                FROM (SELECT l.id, l.saldo,
+                             SUM(l.saldo) OVER (ORDER BY l.data_entrada, l.id) - l.saldo AS consumido_antes
+                      FROM lotes l) a
+                WHERE a.consumido_antes < :quantidade
+            ),
+            baixa AS (
+                UPDATE entrada_estoque e SET saldo = e.saldo - al.quantidade, versao = e.versao + 1
+                FROM alocacao al
+                WHERE e.id = al.id
+                RETURNING al.quantidade, e.custo_unitario
+            )
+            SELECT COALESCE(SUM(b.quantidade), 0), COALESCE(SUM(b.quantidade * b.custo_unitario), 0) FROM baixa b
+            """, nativeQuery = true)
+    List<Object[]> baixarPepsEmLote(@Param("produtoId") Long produtoId,
+                             @Param("userId") Long userId,
+                             @Param("quantidade") Integer quantidade);
+
+    // 🆕 Lotes com saldo de vários produtos DO USUÁRIO, travados e em ordem PEPS (importação em massa)
+    // Retorna [id, produto_id, saldo, custo_unitario]
+    @Transactional
+    @Query(value = """
+            SELECT e.id, e.produto_id, e.saldo, e.custo_unitario
+            FROM entrada_estoque e
+            WHERE e.produto_id IN (:produtoIds) AND e.user_id = :userId AND e.saldo > 0
+            ORDER BY e.produto_id, e.data_entrada, e.id
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Object[]> findLotesComSaldoParaAlocacao(@Param("produtoIds") Collection<Long> produtoIds,
+                                                 @Param("userId") Long userId);
+
+    // 🆕 REVERSÃO SET-BASED: Exclui os itens da venda e devolve o saldo aos lotes em UM comando
+    // Retorna [lote_id, quantidade_devolvida, produto_id, valor_devolvido] por lote dos itens
+    // (valor ao custo registrado no item, o mesmo que saiu do estoque na venda)
+    // ✅ produto_id nulo: o lote não estava em entrada_estoque (arquivado no meio da reversão)
+    @Transactional
+    @Query(value = """
+            WITH removidos AS (
+                DELETE FROM item_venda iv
+                WHERE iv.venda_id = :vendaId AND iv.user_id = :userId
+                RETURNING iv.lote_id, iv.quantidade, iv.custo_unitario
+            ),
+            devolucao AS (
+                SELECT r.lote_id, SUM(r.quantidade) AS quantidade, SUM(r.quantidade * r.custo_unitario) AS valor
+                FROM removidos r GROUP BY r.lote_id
+            ),
+            devolvidos AS (
+                UPDATE entrada_estoque e SET saldo = e.saldo + d.quantidade, versao = e.versao + 1
+                FROM devolucao d
+                WHERE e.id = d.lote_id
+                RETURNING e.id, e.produto_id
+            )
+            SELECT d.lote_id, d.quantidade, dv.produto_id, d.valor
+            FROM devolucao d LEFT JOIN devolvidos dv ON dv.id = d.lote_id
+            """, nativeQuery = true)
+    List<Object[]> reverterItensVendaEmLote(@Param("vendaId") Long vendaId, @Param("userId") Long userId);
+
+    // 🆕 ARQUIVO: devolve para entrada_estoque (mesmo id e versão) os lotes arquivados consumidos pela venda,
+    // antes da reversão dos itens. Retorna os ids restaurados
+    @Transactional
+    @Query(value = """
+            WITH restaurados AS (
+                DELETE FROM entrada_estoque_arquivo a
+                WHERE a.id IN (SELECT iv.lote_id FROM item_venda iv WHERE iv.venda_id = :vendaId AND iv.user_id = :userId)
+                RETURNING a.id, a.produto_id, a.quantidade, a.saldo, a.custo_total, a.custo_unitario, a.data_entrada,
+                          a.fornecedor, a.id_pedido_compra, a.categoria, a.observacoes, a.user_id, a.versao
+            )
+            INSERT INTO entrada_estoque (id, produto_id, quantidade, saldo, custo_total, custo_unitario, data_entrada,
+                                         fornecedor, id_pedido_compra, categoria, observacoes, user_id, versao)
+            SELECT r.id, r.produto_id, r.quantidade, r.saldo, r.custo_total, r.custo_unitario, r.data_entrada,
+                   r.fornecedor, r.id_pedido_compra, r.categoria, r.observacoes, r.user_id, r.versao
+            FROM restaurados r
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> restaurarLotesArquivadosDaVenda(@Param("vendaId") Long vendaId, @Param("userId") Long userId);
+
+    // 🆕 ARQUIVO: exclusão do produto apaga os lotes arquivados dele sem itens de venda (o cascade de Produto só
+    // alcança entrada_estoque). Lote arquivado com itens fica e impede a exclusão, como na tabela quente
+    @Transactional
+    @Query(value = """
+            DELETE FROM entrada_estoque_arquivo a
+            WHERE a.produto_id = :produtoId AND a.user_id = :userId
+              AND NOT EXISTS (SELECT 1 FROM item_venda iv WHERE iv.lote_id = a.id)
+            RETURNING a.id
+            """, nativeQuery = true)
+    List<Long> excluirLotesArquivadosSemItens(@Param("produtoId") Long produtoId, @Param("userId") Long userId);
+
     // ✅ MÉTODOS LEGACY (MANTIDOS PARA COMPATIBILIDADE - USAR COM CAUTELA)
 
     // @deprecated - Use findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc em vez disso
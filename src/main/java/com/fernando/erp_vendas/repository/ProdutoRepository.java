@@ -2,16 +2,21 @@ package com.fernando.erp_vendas.repository;
 
 import com.fernando.erp_vendas.model.Produto;
 import com.fernando.erp_vendas.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
     // 🆕 MÉTODOS MULTI-TENANCY - TODOS FILTRADOS POR USER
@@ -25,25 +30,53 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     // Buscar produto pelo ASIN e usuário
     Optional<Produto> findByAsinAndUser(String asin, User user);
 
-    // Buscar produtos pelo nome e usuário
-    List<Produto> findByNomeContainingAndUser(String nome, User user);
-
-    // 🆕 Buscar TODOS os produtos do usuário com estoques carregados
-    @EntityGraph(attributePaths = {"entradaEstoques"})
+    // 🆕 BUSCA INDEXADA (trigramas, sem acento e sem diferenciar maiúsculas): documento de busca do produto.
+    // A expressão precisa ser idêntica à do índice idx_produto_busca_trgm (migração V1), senão o índice não é usado
+    String BUSCA_DOCUMENTO = "erp_normalizar(coalesce(nome, '') || ' ' || coalesce(sku, '') || ' ' || " +
+            "coalesce(asin, '') || ' ' || coalesce(descricao, ''))";
+
+    // Buscar produtos pelo nome e usuário (padrão de BuscaService.padraoContem)
+    // O índice do documento filtra os candidatos; o nome confirma (busca só no nome, como antes)
+    @Query(value = "SELECT * FROM produto WHERE user_id = :userId AND " + BUSCA_DOCUMENTO + " LIKE erp_normalizar(:padrao) " +
+            "AND erp_normalizar(nome) LIKE erp_normalizar(:padrao) ORDER BY id DESC", nativeQuery = true)
+    List<Produto> buscarPorNome(@Param("userId") Long userId, @Param("padrao") String padrao);
+
+    // 🆕 Resolver produtos por SKU ou ASIN em uma única consulta (importação em massa)
+    // Retorna [id, sku, asin] sem carregar os lotes
+    @Query("SELECT p.id, p.sku, p.asin FROM Produto p WHERE p.user = :user AND (p.sku IN :skus OR p.asin IN :asins)")
+    List<Object[]> findIdentificadoresBySkuOrAsin(@Param("user") User user,
+                                                  @Param("skus") Collection<String> skus,
+                                                  @Param("asins") Collection<String> asins);
+
+    // 🆕 Catálogo do usuário (CatalogoProdutoService): [id, sku, asin, nome, estoqueMinimo], sem lotes nem saldo
+    @Query("SELECT p.id, p.sku, p.asin, p.nome, p.estoqueMinimo FROM Produto p WHERE p.user = :user")
+    List<Object[]> findCatalogoByUser(@Param("user") User user);
+
+    // 🆕 Buscar TODOS os produtos do usuário (o estoque vem da coluna estoque_atual, sem carregar lotes)
     List<Produto> findByUser(User user);
 
-    // 🆕 Buscar produto por ID e usuário com estoques carregados
-    @EntityGraph(attributePaths = {"entradaEstoques"})
+    // 🆕 KEYSET: primeira página (cadastrados mais recentemente primeiro)
+    // Ordena só pelo id: é crescente com o cadastro e, ao contrário de dataCriacao, nunca é nulo
+    @Query("SELECT p FROM Produto p WHERE p.user = :user ORDER BY p.id DESC")
+    Slice<Produto> findPaginaByUser(@Param("user") User user, Pageable pageable);
+
+    // 🆕 KEYSET: página seguinte ao id do cursor
+    @Query("SELECT p FROM Produto p WHERE p.user = :user AND p.id < :id ORDER BY p.id DESC")
+    Slice<Produto> findPaginaByUserApos(@Param("user") User user, @Param("id") Long id, Pageable pageable);
+
+    // 🆕 Buscar produto por ID e usuário
     Optional<Produto> findByIdAndUser(Long id, User user);
 
+    // 🆕 Saldo mantido do produto do usuário (consulta pela chave primária)
+    @Query("SELECT p.estoqueAtual FROM Produto p WHERE p.id = :id AND p.user = :user")
+    Optional<Integer> findEstoqueAtualByIdAndUser(@Param("id") Long id, @Param("user") User user);
+
     // 🆕 Buscar produtos com estoque baixo (abaixo do mínimo) por usuário
-    @Query("SELECT p FROM Produto p WHERE p.user = :user AND " +
-            "(SELECT COALESCE(SUM(e.saldo), 0) FROM p.entradaEstoques e) < p.estoqueMinimo")
+    @Query("SELECT p FROM Produto p WHERE p.user = :user AND p.estoqueAtual < p.estoqueMinimo")
     List<Produto> findProdutosComEstoqueBaixo(@Param("user") User user);
 
     // 🆕 Buscar produtos com estoque zero por usuário
-    @Query("SELECT p FROM Produto p WHERE p.user = :user AND " +
-            "(SELECT COALESCE(SUM(e.saldo), 0) FROM p.entradaEstoques e) = 0")
+    @Query("SELECT p FROM Produto p WHERE p.user = :user AND p.estoqueAtual = 0")
     List<Produto> findProdutosComEstoqueZero(@Param("user") User user);
 
     // 🆕 Contar total de produtos do usuário
@@ -63,7 +96,7 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
     @Deprecated
     Produto findByAsin(String asin);
 
-    // @deprecated - Use findByNomeContainingAndUser em vez disso
+    // @deprecated - Use buscarPorNome em vez disso
     @Deprecated
     List<Produto> findByNomeContaining(String nome);
 
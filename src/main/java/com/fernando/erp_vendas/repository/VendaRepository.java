@@ -1,17 +1,23 @@
 package com.fernando.erp_vendas.repository;
 
+import com.fernando.erp_vendas.dto.VendaDTO;
 import com.fernando.erp_vendas.model.Produto;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.model.Venda;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.time.LocalDateTime;
 import org.springframework.data.jpa.repository.Query;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface VendaRepository extends JpaRepository<Venda, Long> {
 
     // 🆕 MÉTODOS MULTI-TENANCY - TODOS FILTRADOS POR USER
@@ -23,12 +29,36 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
     @Query("SELECT v FROM Venda v JOIN FETCH v.produto WHERE v.user = :user")
     List<Venda> findByUserWithProduto(@Param("user") User user);
 
+    // 🆕 PROJEÇÕES PARA LISTAGEM: VendaDTO montado pelo JPQL (sem hidratar Venda/Produto)
+    String SELECT_VENDA_DTO = "SELECT new com.fernando.erp_vendas.dto.VendaDTO(v.id, v.data, v.idPedido, v.plataforma, " +
+            "v.quantidade, p.id, p.nome, p.sku, v.precoVenda, v.fretePagoPeloCliente, v.custoEnvio, " +
+            "v.tarifaPlataforma, v.custoProdutoVendido, v.despesasOperacionais) FROM Venda v JOIN v.produto p ";
+
+    // Lista completa (resposta legada, sem cursor)
+    @Query(SELECT_VENDA_DTO + "WHERE v.user = :user ORDER BY v.data DESC, v.id DESC")
+    List<VendaDTO> findDTOByUser(@Param("user") User user);
+
+    // 🆕 KEYSET: primeira página (mais recentes primeiro)
+    @Query(SELECT_VENDA_DTO + "WHERE v.user = :user ORDER BY v.data DESC, v.id DESC")
+    Slice<VendaDTO> findPaginaDTOByUser(@Param("user") User user, Pageable pageable);
+
+    // 🆕 KEYSET: página seguinte à posição (data, id) do cursor
+    // v.data <= :data limita a faixa do índice (user_id, data, id); o OR desempata vendas no mesmo instante
+    @Query(SELECT_VENDA_DTO + "WHERE v.user = :user AND v.data <= :data " +
+            "AND (v.data < :data OR v.id < :id) ORDER BY v.data DESC, v.id DESC")
+    Slice<VendaDTO> findPaginaDTOByUserApos(@Param("user") User user, @Param("data") LocalDateTime data,
+                                            @Param("id") Long id, Pageable pageable);
+
     // Buscar vendas pela plataforma DO USUÁRIO
     List<Venda> findByPlataformaAndUser(String plataforma, User user);
 
     // Buscar uma VENDA pelo ID do pedido E USUÁRIO
     Optional<Venda> findByIdPedidoAndUser(String idPedido, User user);
 
+    // 🆕 Verificar em uma única consulta quais IDs de pedido já existem PARA O USUÁRIO
+    @Query("SELECT v.idPedido FROM Venda v WHERE v.user = :user AND v.idPedido IN :idsPedido")
+    List<String> findIdPedidosExistentes(@Param("user") User user, @Param("idsPedido") Collection<String> idsPedido);
+
     // Buscar vendas por produto E USUÁRIO
     List<Venda> findByProdutoAndUser(Produto produto, User user);
 
@@ -54,13 +84,11 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
     @Query("SELECT COUNT(v) FROM Venda v WHERE v.user = :user")
     Long countTotalVendas(@Param("user") User user);
 
-    // Consultar total de vendas do mês DO USUÁRIO
-    @Query("SELECT COUNT(v) FROM Venda v WHERE v.user = :user AND YEAR(v.data) = :ano AND MONTH(v.data) = :mes")
-    Long countVendasDoMes(@Param("user") User user, @Param("ano") int ano, @Param("mes") int mes);
-
-    // Consultar total de vendas por dia DO USUÁRIO
-    @Query("SELECT DATE(v.data), COUNT(v) FROM Venda v WHERE v.user = :user GROUP BY DATE(v.data) ORDER BY DATE(v.data)")
-    List<Object[]> findVendasPorDia(@Param("user") User user);
+    // ✅ Consultar total de vendas no intervalo [inicio, fim) DO USUÁRIO
+    // Comparação direta com a coluna (sem YEAR()/MONTH()): usa o índice (user_id, data, id)
+    @Query("SELECT COUNT(v) FROM Venda v WHERE v.user = :user AND v.data >= :inicio AND v.data < :fim")
+    Long countVendasNoPeriodo(@Param("user") User user, @Param("inicio") LocalDateTime inicio,
+                              @Param("fim") LocalDateTime fim);
 
     // Consultar produtos mais vendidos DO USUÁRIO
     @Query("SELECT v.produto.nome, SUM(v.quantidade) FROM Venda v WHERE v.user = :user GROUP BY v.produto.nome ORDER BY SUM(v.quantidade) DESC")
@@ -78,11 +106,6 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
     @Query("SELECT SUM(v.precoVenda + v.fretePagoPeloCliente - v.tarifaPlataforma) FROM Venda v WHERE v.user = :user")
     Double findLucroBrutoTotal(@Param("user") User user);
 
-    // 🆕 Consultar faturamento mensal DO USUÁRIO
-    @Query("SELECT YEAR(v.data), MONTH(v.data), SUM(v.precoVenda + v.fretePagoPeloCliente - v.tarifaPlataforma) " +
-            "FROM Venda v WHERE v.user = :user GROUP BY YEAR(v.data), MONTH(v.data) ORDER BY YEAR(v.data), MONTH(v.data)")
-    List<Object[]> findFaturamentoMensal(@Param("user") User user);
-
     // 🆕 Consultar ROI médio DO USUÁRIO
     @Query("SELECT AVG((v.precoVenda + v.fretePagoPeloCliente - v.tarifaPlataforma - v.custoProdutoVendido - v.custoEnvio) / (v.custoProdutoVendido + v.custoEnvio) * 100) " +
             "FROM Venda v WHERE v.user = :user AND (v.custoProdutoVendido + v.custoEnvio) > 0")
@@ -116,12 +139,12 @@ public interface VendaRepository extends JpaRepository<Venda, Long> {
     @Query("SELECT COUNT(v) FROM Venda v")
     Long countTotalVendas();
 
-    // @deprecated - Use countVendasDoMes com user em vez disso
+    // @deprecated - Use countVendasNoPeriodo com user em vez disso
     @Deprecated
     @Query("SELECT COUNT(v) FROM Venda v WHERE YEAR(v.data) = :ano AND MONTH(v.data) = :mes")
     Long countVendasDoMes(@Param("ano") int ano, @Param("mes") int mes);
 
-    // @deprecated - Use findVendasPorDia com user em vez disso
+    // @deprecated - Use RelatorioService.serieTemporal em vez disso
     @Deprecated
     @Query("SELECT DATE(v.data), COUNT(v) FROM Venda v GROUP BY DATE(v.data) ORDER BY DATE(v.data)")
     List<Object[]> findVendasPorDia();
@@ -0,0 +1,53 @@
+package com.fernando.erp_vendas.repository;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.VendaResumoDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface VendaResumoDiarioRepository extends JpaRepository<VendaResumoDiario, Long> {
+
+    // Linhas do agregado DO USUÁRIO
+    List<VendaResumoDiario> findByUser(User user);
+
+    // 🆕 CONSULTAS DOS DASHBOARDS - LEEM APENAS O AGREGADO (nunca a tabela de vendas)
+
+    // Totais do usuário: [quantidadeVendas, unidades, precoVenda, frete, custoProduto, custoEnvio, tarifa, despesas]
+    @Query("SELECT COALESCE(SUM(r.quantidadeVendas), 0), COALESCE(SUM(r.unidades), 0), " +
+            "COALESCE(SUM(r.precoVenda), 0), COALESCE(SUM(r.fretePagoPeloCliente), 0), " +
+            "COALESCE(SUM(r.custoProdutoVendido), 0), COALESCE(SUM(r.custoEnvio), 0), " +
+            "COALESCE(SUM(r.tarifaPlataforma), 0), COALESCE(SUM(r.despesasOperacionais), 0) " +
+            "FROM VendaResumoDiario r WHERE r.user = :user")
+    List<Object[]> findTotais(@Param("user") User user);
+
+    // Vendas por dia de todo o histórico DO USUÁRIO (só dias com venda): [dia, quantidadeVendas]
+    @Query("SELECT r.dia, SUM(r.quantidadeVendas) FROM VendaResumoDiario r WHERE r.user = :user " +
+            "GROUP BY r.dia ORDER BY r.dia")
+    List<Object[]> findVendasPorDia(@Param("user") User user);
+
+    // Quantidade de vendas no intervalo [inicio, fim) DO USUÁRIO
+    @Query("SELECT COALESCE(SUM(r.quantidadeVendas), 0) FROM VendaResumoDiario r " +
+            "WHERE r.user = :user AND r.dia >= :inicio AND r.dia < :fim")
+    Long countVendasNoPeriodo(@Param("user") User user, @Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    // Por plataforma: [plataforma, precoVenda, faturamento (preço + frete)]
+    @Query("SELECT r.plataforma, SUM(r.precoVenda), SUM(r.precoVenda + r.fretePagoPeloCliente) " +
+            "FROM VendaResumoDiario r WHERE r.user = :user GROUP BY r.plataforma")
+    List<Object[]> findTotaisPorPlataforma(@Param("user") User user);
+
+    // Por produto, mais vendidos primeiro: [nome, unidades, faturamento, lucroLiquido]
+    @Query("SELECT p.nome, SUM(r.unidades), SUM(r.precoVenda + r.fretePagoPeloCliente), " +
+            "SUM(r.precoVenda + r.fretePagoPeloCliente - r.custoProdutoVendido - r.custoEnvio " +
+            "- r.tarifaPlataforma - r.despesasOperacionais) " +
+            "FROM VendaResumoDiario r JOIN r.produto p WHERE r.user = :user " +
+            "GROUP BY p.id, p.nome ORDER BY SUM(r.unidades) DESC")
+    List<Object[]> findTotaisPorProduto(@Param("user") User user);
+}
@@ -0,0 +1,49 @@
+package com.fernando.erp_vendas.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+// 🆕 JOB DE ARQUIVAMENTO DOS LOTES ESGOTADOS
+// Uma vez por dia, move para entrada_estoque_arquivo os lotes com saldo zero e entrada há mais de "dias",
+// em transações de até "lote" lotes (cada uma trava só os lotes que move), até não sobrar candidato.
+@Component
+public class ArquivamentoLoteJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ArquivamentoLoteJob.class);
+
+    @Autowired
+    private ArquivamentoLoteService arquivamentoLoteService;
+
+    private final int dias;
+    private final int lote;
+
+    public ArquivamentoLoteJob(@Value("${app.estoque.arquivamento.dias:180}") int dias,
+                               @Value("${app.estoque.arquivamento.lote:1000}") int lote) {
+        this.dias = dias;
+        this.lote = lote;
+    }
+
+    @Scheduled(cron = "${app.estoque.arquivamento.cron:0 0 3 * * *}")
+    public void arquivar() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(dias);
+        long inicio = System.nanoTime();
+        int total = 0;
+        try {
+            int arquivados;
+            do {
+                arquivados = arquivamentoLoteService.arquivar(limite, lote);
+                total += arquivados;
+            } while (arquivados == lote);
+            log.info("Arquivamento de lotes esgotados concluído: limite={} lotes={} tempoMs={}", limite, total,
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Erro no arquivamento de lotes esgotados: limite={} arquivadosAntesDoErro={}", limite, total, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.fernando.erp_vendas.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 🆕 ARQUIVAMENTO DE LOTES ESGOTADOS (entrada_estoque -> entrada_estoque_arquivo, V6)
+// Lotes com saldo = 0 e data de entrada anterior ao limite são copiados para o arquivo com o mesmo id e
+// excluídos da tabela quente, na MESMA transação. Nada muda no saldo dos produtos nem no livro de movimentos.
+// ✅ Concorrência: os lotes copiados ficam travados (FOR UPDATE) até o commit; lote travado por uma venda ou
+// reversão em andamento é pulado (SKIP LOCKED) e fica para a próxima rodada. Uma reversão que encontra o lote
+// já arquivado o restaura antes (EntradaEstoqueRepository.restaurarLotesArquivadosDaVenda).
+@Service
+public class ArquivamentoLoteService {
+
+    // Copia um lote de candidatos, mais antigos primeiro (índice parcial idx_entrada_estoque_esgotados)
+    private static final String SQL_COPIAR = """
+            INSERT INTO entrada_estoque_arquivo (id, produto_id, quantidade, saldo, custo_total, custo_unitario,
+                                                 data_entrada, fornecedor, id_pedido_compra, categoria, observacoes,
+                                                 user_id, versao)
+            SELECT e.id, e.produto_id, e.quantidade, e.saldo, e.custo_total, e.custo_unitario, e.data_entrada,
+                   e.fornecedor, e.id_pedido_compra, e.categoria, e.observacoes, e.user_id, e.versao
+            FROM entrada_estoque e
+            WHERE e.saldo = 0 AND e.data_entrada < ?
+            ORDER BY e.data_entrada, e.id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            RETURNING id
+            """;
+
+    // O gatilho de entrada_estoque libera a exclusão de lote com itens de venda porque ele já está no arquivo
+    private static final String SQL_EXCLUIR = "DELETE FROM entrada_estoque WHERE id IN (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // ✅ Arquiva até "tamanho" lotes esgotados com entrada antes de "limite"; retorna quantos foram arquivados
+    @Transactional
+    public int arquivar(LocalDateTime limite, int tamanho) {
+        List<Long> ids = jdbcTemplate.queryForList(SQL_COPIAR, Long.class, Timestamp.valueOf(limite), tamanho);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int excluidos = namedParameterJdbcTemplate.update(SQL_EXCLUIR, new MapSqlParameterSource("ids", ids));
+        if (excluidos != ids.size()) {
+            throw new RuntimeException("Arquivamento inconsistente: copiados=" + ids.size() + " excluidos=" + excluidos);
+        }
+        return excluidos;
+    }
+}
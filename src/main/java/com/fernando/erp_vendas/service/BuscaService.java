@@ -0,0 +1,135 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.PaginaBusca;
+import com.fernando.erp_vendas.dto.PaginaCursor;
+import com.fernando.erp_vendas.dto.ResultadoBusca;
+import com.fernando.erp_vendas.dto.VendaDTO;
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.DespesaRepository;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+// 🆕 BUSCA TEXTUAL INDEXADA (produtos, compras e despesas do usuário)
+// Cada tabela tem um "documento de busca" normalizado (minúsculas, sem acento) com índice GIN de trigramas
+// (pg_trgm). O índice atende tanto o LIKE '%termo%' quanto a semelhança por palavra (termo <% documento),
+// então a busca não varre as linhas do usuário e tolera erro de digitação.
+// Ranking: documentos que contêm o termo inteiro primeiro, depois por word_similarity.
+// As extensões, a função erp_normalizar e os índices vêm da migração V1 (db/migration).
+@Service
+public class BuscaService {
+
+    public static final Set<String> TIPOS = Set.of("produtos", "compras", "despesas");
+
+    // Um SELECT por tipo, todos com as mesmas colunas; o termo e o padrão passam por erp_normalizar
+    // no próprio SQL (constante na consulta, então o planejador usa o índice da expressão).
+    // Relevância: +1 se o documento contém o termo, +1 se o título contém o termo, + semelhança por palavra
+    private static final String RELEVANCIA = "(CASE WHEN %1$s LIKE erp_normalizar(:padrao) THEN 1 ELSE 0 END) "
+            + "+ (CASE WHEN erp_normalizar(%2$s) LIKE erp_normalizar(:padrao) THEN 1 ELSE 0 END) "
+            + "+ word_similarity(erp_normalizar(:termo), %1$s)";
+    private static final String CONDICAO = "(%1$s LIKE erp_normalizar(:padrao) OR erp_normalizar(:termo) <%% %1$s)";
+
+    private static final String SQL_PRODUTOS = ("SELECT 'PRODUTO' AS tipo, id, nome AS titulo, "
+            + "concat_ws(' | ', sku, asin) AS detalhe, " + RELEVANCIA + " AS relevancia "
+            + "FROM produto WHERE user_id = :userId AND " + CONDICAO).formatted(ProdutoRepository.BUSCA_DOCUMENTO, "nome");
+
+    private static final String SQL_COMPRAS = ("SELECT 'COMPRA' AS tipo, id, fornecedor AS titulo, "
+            + "concat_ws(' | ', categoria, id_pedido_compra) AS detalhe, " + RELEVANCIA + " AS relevancia "
+            + "FROM entrada_estoque_historico WHERE user_id = :userId AND " + CONDICAO)
+            .formatted(EntradaEstoqueRepository.BUSCA_DOCUMENTO, "fornecedor");
+
+    private static final String SQL_DESPESAS = ("SELECT 'DESPESA' AS tipo, id, descricao AS titulo, "
+            + "categoria AS detalhe, " + RELEVANCIA + " AS relevancia "
+            + "FROM despesa WHERE user_id = :userId AND " + CONDICAO).formatted(DespesaRepository.BUSCA_DOCUMENTO, "descricao");
+
+    // Vendas dos produtos cujo nome contém o termo, em UMA consulta (antes: uma consulta por produto)
+    private static final String SQL_VENDAS_POR_PRODUTO = """
+            SELECT v.id, v.data, v.id_pedido, v.plataforma, v.quantidade, p.id AS produto_id, p.nome, p.sku,
+                   v.preco_venda, v.frete_pago_pelo_cliente, v.custo_envio, v.tarifa_plataforma,
+                   v.custo_produto_vendido, v.despesas_operacionais
+            FROM venda v
+            JOIN produto p ON p.id = v.produto_id
+            WHERE v.user_id = :userId
+              AND p.id IN (SELECT id FROM produto
+                           WHERE user_id = :userId
+                             AND %s LIKE erp_normalizar(:padrao)
+                             AND erp_normalizar(nome) LIKE erp_normalizar(:padrao))
+            ORDER BY v.data DESC, v.id DESC
+            """.formatted(ProdutoRepository.BUSCA_DOCUMENTO);
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // 🔍 BUSCA UNIFICADA: tipos vazios = todos
+    @Transactional(readOnly = true)
+    public PaginaBusca<ResultadoBusca> buscar(User user, String termo, Collection<String> tipos, int pagina, Integer limite) {
+        String termoLimpo = validarTermo(termo);
+        List<String> consultas = new ArrayList<>();
+        for (String tipo : tipos == null || tipos.isEmpty() ? List.of("produtos", "compras", "despesas") : tipos) {
+            switch (tipo) {
+                case "produtos" -> consultas.add(SQL_PRODUTOS);
+                case "compras" -> consultas.add(SQL_COMPRAS);
+                case "despesas" -> consultas.add(SQL_DESPESAS);
+                default -> throw new RuntimeException("Tipo de busca inválido: " + tipo + " (use " + TIPOS + ")");
+            }
+        }
+
+        int tamanho = PaginaCursor.paginacao(limite != null ? limite : PaginaBusca.LIMITE_PADRAO).getPageSize();
+        int paginaAtual = Math.max(0, pagina);
+        // Um item a mais indica se existe próxima página
+        String sql = String.join(" UNION ALL ", consultas)
+                + " ORDER BY relevancia DESC, tipo, id DESC LIMIT :limite OFFSET :offset";
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("userId", user.getId())
+                .addValue("termo", termoLimpo)
+                .addValue("padrao", padraoContem(termoLimpo))
+                .addValue("limite", tamanho + 1)
+                .addValue("offset", (long) paginaAtual * tamanho);
+
+        List<ResultadoBusca> itens = namedParameterJdbcTemplate.query(sql, parametros, (rs, i) -> new ResultadoBusca(
+                rs.getString("tipo"), rs.getLong("id"), rs.getString("titulo"), rs.getString("detalhe"),
+                rs.getDouble("relevancia")));
+
+        boolean temMais = itens.size() > tamanho;
+        return new PaginaBusca<>(temMais ? itens.subList(0, tamanho) : itens, paginaAtual, temMais);
+    }
+
+    // 🛒 Vendas dos produtos com o nome parecido, mais recentes primeiro
+    @Transactional(readOnly = true)
+    public List<VendaDTO> vendasPorNomeProduto(User user, String nome) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("userId", user.getId())
+                .addValue("padrao", padraoContem(validarTermo(nome)));
+        return namedParameterJdbcTemplate.query(SQL_VENDAS_POR_PRODUTO, parametros, (rs, i) -> new VendaDTO(
+                rs.getLong("id"), rs.getTimestamp("data").toLocalDateTime(), rs.getString("id_pedido"),
+                rs.getString("plataforma"), rs.getObject("quantidade", Integer.class), rs.getLong("produto_id"),
+                rs.getString("nome"), rs.getString("sku"),
+                Dinheiro.deReais(rs.getDouble("preco_venda")), Dinheiro.deReais(rs.getDouble("frete_pago_pelo_cliente")),
+                Dinheiro.deReais(rs.getDouble("custo_envio")), Dinheiro.deReais(rs.getDouble("tarifa_plataforma")),
+                Dinheiro.deReais(rs.getDouble("custo_produto_vendido")),
+                Dinheiro.deReais(rs.getDouble("despesas_operacionais"))));
+    }
+
+    // ✅ Padrão "contém" para LIKE: os curingas digitados pelo usuário valem como texto
+    public static String padraoContem(String termo) {
+        String escapado = termo.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escapado + "%";
+    }
+
+    private static String validarTermo(String termo) {
+        if (termo == null || termo.isBlank()) {
+            throw new RuntimeException("Informe o termo de busca");
+        }
+        return termo.strip();
+    }
+}
@@ -0,0 +1,183 @@
+package com.fernando.erp_vendas.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// 🆕 CACHE EM MEMÓRIA COM TAMANHO MÁXIMO (LRU) E EXPIRAÇÃO POR TEMPO (TTL)
+// Conta acertos, falhas, despejos e invalidações para acompanhar a eficácia em produção.
+public class CacheLimitado<K, V> {
+
+    // Carregamentos em andamento de uma chave e a geração da chave (incrementada por invalidar(chave))
+    private static class Carregamento {
+        int emAndamento;
+        long geracao;
+    }
+
+    private static class Entrada<V> {
+        final V valor;
+        final long expiraEm;
+
+        Entrada(V valor, long expiraEm) {
+            this.valor = valor;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    private final String nome;
+    private final int capacidadeMaxima;
+    private final long ttlNanos;
+
+    // accessOrder = true: a entrada menos usada recentemente é a primeira a sair
+    private final LinkedHashMap<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Invalidação de uma chave: um valor dela carregado antes não é gravado depois. Só as chaves com
+    // carregamento em andamento são acompanhadas, então invalidar outra chave (outro usuário) não afeta
+    private final Map<K, Carregamento> carregando = new HashMap<>();
+
+    // Incrementada por invalidarSe/invalidarTudo: nenhum valor carregado antes delas é gravado depois
+    private long geracaoGeral;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong despejosPorTamanho = new AtomicLong();
+    private final AtomicLong despejosPorTempo = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    public CacheLimitado(String nome, int capacidadeMaxima, Duration ttl) {
+        this.nome = nome;
+        this.capacidadeMaxima = capacidadeMaxima;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // ✅ Retorna o valor em cache ou carrega, grava e retorna
+    public V obter(K chave, Supplier<V> carregador) {
+        return obter(chave, carregador, valor -> true);
+    }
+
+    // Só grava o valor carregado se atender a "armazenar" (ex.: resposta parcial não vai para o cache)
+    public V obter(K chave, Supplier<V> carregador, Predicate<V> armazenar) {
+        long geracaoGeralAntes;
+        long geracaoChaveAntes;
+        Carregamento carregamento;
+        synchronized (this) {
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada != null) {
+                if (entrada.expiraEm - System.nanoTime() > 0) {
+                    acertos.incrementAndGet();
+                    return entrada.valor;
+                }
+                entradas.remove(chave);
+                despejosPorTempo.incrementAndGet();
+            }
+            falhas.incrementAndGet();
+            geracaoGeralAntes = geracaoGeral;
+            carregamento = carregando.computeIfAbsent(chave, k -> new Carregamento());
+            carregamento.emAndamento++;
+            geracaoChaveAntes = carregamento.geracao;
+        }
+
+        // Carregamento fora do lock: consultas de usuários diferentes não se bloqueiam
+        V valor = null;
+        try {
+            valor = carregador.get();
+        } finally {
+            synchronized (this) {
+                // Se a chave (ou tudo) foi invalidada durante o carregamento, o valor pode estar desatualizado
+                boolean atual = geracaoGeral == geracaoGeralAntes && carregamento.geracao == geracaoChaveAntes;
+                if (--carregamento.emAndamento == 0) {
+                    carregando.remove(chave);
+                }
+                if (valor != null && atual && armazenar.test(valor)) {
+                    entradas.put(chave, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+                    despejarExcedentes();
+                }
+            }
+        }
+        return valor;
+    }
+
+    // ✅ Valor em cache, ou null se ausente ou expirado (sem carregador: quem grava é o chamador)
+    public synchronized V buscar(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada != null) {
+            if (entrada.expiraEm - System.nanoTime() > 0) {
+                acertos.incrementAndGet();
+                return entrada.valor;
+            }
+            entradas.remove(chave);
+            despejosPorTempo.incrementAndGet();
+        }
+        falhas.incrementAndGet();
+        return null;
+    }
+
+    public synchronized void gravar(K chave, V valor) {
+        entradas.put(chave, new Entrada<>(valor, System.nanoTime() + ttlNanos));
+        despejarExcedentes();
+    }
+
+    public synchronized void invalidar(K chave) {
+        Carregamento carregamento = carregando.get(chave);
+        if (carregamento != null) {
+            carregamento.geracao++;
+        }
+        if (entradas.remove(chave) != null) {
+            invalidacoes.incrementAndGet();
+        }
+    }
+
+    // Remove todas as entradas cujo valor atende ao critério (ex.: todos os tokens de um usuário)
+    public synchronized void invalidarSe(Predicate<V> criterio) {
+        geracaoGeral++;
+        Iterator<Map.Entry<K, Entrada<V>>> iterador = entradas.entrySet().iterator();
+        while (iterador.hasNext()) {
+            if (criterio.test(iterador.next().getValue().valor)) {
+                iterador.remove();
+                invalidacoes.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void invalidarTudo() {
+        geracaoGeral++;
+        invalidacoes.addAndGet(entradas.size());
+        entradas.clear();
+    }
+
+    private void despejarExcedentes() {
+        Iterator<Map.Entry<K, Entrada<V>>> iterador = entradas.entrySet().iterator();
+        while (entradas.size() > capacidadeMaxima && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+            despejosPorTamanho.incrementAndGet();
+        }
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    // 📊 Contadores para monitoramento
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        long totalAcertos = acertos.get();
+        long totalFalhas = falhas.get();
+        long total = totalAcertos + totalFalhas;
+        estatisticas.put("nome", nome);
+        estatisticas.put("tamanho", tamanho());
+        estatisticas.put("capacidadeMaxima", capacidadeMaxima);
+        estatisticas.put("acertos", totalAcertos);
+        estatisticas.put("falhas", totalFalhas);
+        estatisticas.put("taxaAcerto", total > 0 ? (double) totalAcertos / total : 0.0);
+        estatisticas.put("despejosPorTamanho", despejosPorTamanho.get());
+        estatisticas.put("despejosPorTempo", despejosPorTempo.get());
+        estatisticas.put("invalidacoes", invalidacoes.get());
+        return estatisticas;
+    }
+}
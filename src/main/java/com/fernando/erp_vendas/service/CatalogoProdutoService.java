@@ -0,0 +1,92 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.ProdutoCatalogo;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// 🆕 CATÁLOGO DE PRODUTOS POR USUÁRIO EM MEMÓRIA (id, SKU, ASIN, nome, estoque mínimo)
+// Os caminhos de escrita (venda, compra) só precisam saber se o produto existe e é do usuário: validam aqui,
+// sem carregar a entidade Produto nem os seus lotes.
+// 1️⃣ Um catálogo por usuário, carregado inteiro na primeira consulta (uma projeção da tabela produto) e
+//    indexado por id, SKU e ASIN.
+// 2️⃣ Limitado a app.cache.catalogo.capacidade usuários (LRU) e com TTL, no CacheLimitado.
+// 3️⃣ Invalidado após o commit de cada cadastro, edição ou exclusão de produto (DadosUsuarioAlteradosEvent
+//    com origem PRODUTO, publicado pelo ProdutoController). Vendas e compras não mudam o catálogo.
+@Service
+public class CatalogoProdutoService {
+
+    // Índices de um usuário: não mudam depois de carregados (a invalidação descarta o catálogo inteiro)
+    private static class Catalogo {
+        final Map<Long, ProdutoCatalogo> porId = new HashMap<>();
+        final Map<String, ProdutoCatalogo> porSku = new HashMap<>();
+        final Map<String, ProdutoCatalogo> porAsin = new HashMap<>();
+    }
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private final CacheLimitado<Long, Catalogo> catalogos;
+
+    public CatalogoProdutoService(@Value("${app.cache.catalogo.capacidade:500}") int capacidade,
+                                  @Value("${app.cache.catalogo.ttl-segundos:600}") long ttlSegundos) {
+        this.catalogos = new CacheLimitado<>("catalogo-produtos", capacidade, Duration.ofSeconds(ttlSegundos));
+    }
+
+    public Optional<ProdutoCatalogo> buscarPorId(Long id, User user) {
+        return Optional.ofNullable(catalogo(user).porId.get(id));
+    }
+
+    public Optional<ProdutoCatalogo> buscarPorSku(String sku, User user) {
+        return Optional.ofNullable(catalogo(user).porSku.get(sku));
+    }
+
+    public Optional<ProdutoCatalogo> buscarPorAsin(String asin, User user) {
+        return Optional.ofNullable(catalogo(user).porAsin.get(asin));
+    }
+
+    // ✅ Produto do usuário para associar a uma venda ou compra (vazio se não existe ou é de outro usuário)
+    public Optional<Produto> buscarReferencia(Long id, User user) {
+        return buscarPorId(id, user).map(produto -> produto.comoReferencia(user));
+    }
+
+    private Catalogo catalogo(User user) {
+        return catalogos.obter(user.getId(), () -> carregar(user));
+    }
+
+    private Catalogo carregar(User user) {
+        Catalogo catalogo = new Catalogo();
+        for (Object[] linha : produtoRepository.findCatalogoByUser(user)) {
+            ProdutoCatalogo produto = new ProdutoCatalogo(((Number) linha[0]).longValue(), (String) linha[1],
+                    (String) linha[2], (String) linha[3], (Integer) linha[4]);
+            catalogo.porId.put(produto.getId(), produto);
+            if (produto.getSku() != null) catalogo.porSku.put(produto.getSku(), produto);
+            if (produto.getAsin() != null) catalogo.porAsin.put(produto.getAsin(), produto);
+        }
+        return catalogo;
+    }
+
+    // ✅ Invalidação após o commit (ou imediata, se publicado fora de transação)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDadosUsuarioAlterados(DadosUsuarioAlteradosEvent evento) {
+        if (evento.getUserId() == null) {
+            catalogos.invalidarTudo();
+        } else if (evento.getOrigem() == DadosUsuarioAlteradosEvent.Origem.PRODUTO) {
+            catalogos.invalidar(evento.getUserId());
+        }
+    }
+
+    // 📊 Acertos, falhas, despejos e invalidações
+    public Map<String, Object> estatisticas() {
+        return catalogos.estatisticas();
+    }
+}
@@ -0,0 +1,20 @@
+package com.fernando.erp_vendas.service;
+
+// 🆕 EVENTO: dados de um usuário que alimentam os dashboards foram alterados
+// Publicado em toda escrita de Venda, Despesa, EntradaEstoque ou Produto do usuário.
+// userId nulo: alteração em massa que pode afetar qualquer usuário.
+public class DadosUsuarioAlteradosEvent {
+
+    public enum Origem { VENDA, DESPESA, ENTRADA_ESTOQUE, PRODUTO }
+
+    private final Long userId;
+    private final Origem origem;
+
+    public DadosUsuarioAlteradosEvent(Long userId, Origem origem) {
+        this.userId = userId;
+        this.origem = origem;
+    }
+
+    public Long getUserId() { return userId; }
+    public Origem getOrigem() { return origem; }
+}
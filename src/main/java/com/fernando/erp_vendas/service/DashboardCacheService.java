@@ -0,0 +1,76 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.DashboardData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// 🆕 CACHE DOS DASHBOARDS POR USUÁRIO
+// O frontend consulta os dashboards com muito mais frequência do que os dados mudam.
+// As entradas são invalidadas após o commit de qualquer escrita do usuário (DadosUsuarioAlteradosEvent)
+// e expiram pelo TTL (ex.: virada do mês nas despesas do mês atual).
+@Service
+public class DashboardCacheService {
+
+    private final CacheLimitado<Long, DashboardData> dashboard;
+    private final CacheLimitado<Long, DashboardData> resumo;
+    private final CacheLimitado<Long, Map<String, Object>> dashboardVendas;
+
+    public DashboardCacheService(@Value("${app.cache.dashboard.capacidade:1000}") int capacidade,
+                                 @Value("${app.cache.dashboard.ttl-segundos:300}") long ttlSegundos) {
+        Duration ttl = Duration.ofSeconds(ttlSegundos);
+        this.dashboard = new CacheLimitado<>("dashboard", capacidade, ttl);
+        this.resumo = new CacheLimitado<>("dashboard-resumo", capacidade, ttl);
+        this.dashboardVendas = new CacheLimitado<>("vendas-dashboard", capacidade, ttl);
+    }
+
+    // Dashboard parcial (alguma consulta não respondeu a tempo) não é guardado: a próxima requisição tenta de novo
+    public DashboardData obterDashboard(Long userId, Supplier<DashboardData> carregador) {
+        return dashboard.obter(userId, carregador,
+                dados -> dados.getMontagem() == null || !dados.getMontagem().isParcial());
+    }
+
+    public DashboardData obterResumo(Long userId, Supplier<DashboardData> carregador) {
+        return resumo.obter(userId, carregador);
+    }
+
+    public Map<String, Object> obterDashboardVendas(Long userId, Supplier<Map<String, Object>> carregador) {
+        return dashboardVendas.obter(userId, carregador);
+    }
+
+    // ✅ Invalidação após o commit (ou imediata, se publicado fora de transação)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDadosUsuarioAlterados(DadosUsuarioAlteradosEvent evento) {
+        if (evento.getUserId() == null) {
+            invalidarTudo();
+        } else {
+            invalidar(evento.getUserId());
+        }
+    }
+
+    public void invalidar(Long userId) {
+        dashboard.invalidar(userId);
+        resumo.invalidar(userId);
+        dashboardVendas.invalidar(userId);
+    }
+
+    public void invalidarTudo() {
+        dashboard.invalidarTudo();
+        resumo.invalidarTudo();
+        dashboardVendas.invalidarTudo();
+    }
+
+    // 📊 Acertos, falhas, despejos e invalidações de cada cache
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("caches", List.of(dashboard.estatisticas(), resumo.estatisticas(),
+                dashboardVendas.estatisticas()));
+        return estatisticas;
+    }
+}
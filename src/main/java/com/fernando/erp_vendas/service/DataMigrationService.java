@@ -7,6 +7,7 @@ import com.fernando.erp_vendas.repository.ProdutoRepository;
 import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
 import com.fernando.erp_vendas.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.util.List;
@@ -24,6 +25,12 @@ public class DataMigrationService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SaldoProdutoService saldoProdutoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // 🆕 MÉTODO TEMPORÁRIO: Migração básica sem usar métodos complexos
     public String migrarEstoqueParaPEPS(Long userId) {
         try {
@@ -65,10 +72,18 @@ public class DataMigrationService {
                     entrada.setUser(user); // 🆕 ASSOCIAR USUÁRIO
 
                     entradaEstoqueRepository.save(entrada);
+                    eventPublisher.publishEvent(PedidosAlteradosEvent.adicionado(user.getId(), PedidosAlteradosEvent.Tipo.COMPRA,
+                            entrada.getIdPedidoCompra()));
                     migrados++;
                 }
             }
 
+            // 🆕 Lotes criados fora do fluxo normal: recalcula o saldo mantido dos produtos
+            if (migrados > 0) {
+                saldoProdutoService.reconciliar(null);
+            }
+
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.ENTRADA_ESTOQUE));
             return "Migração concluída para usuário " + user.getEmail() + ": " + migrados + " entradas criadas";
 
         } catch (Exception e) {
@@ -134,6 +149,7 @@ public class DataMigrationService {
                 corrigidos++;
             }
 
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.PRODUTO));
             return "Corrigidos " + corrigidos + " produtos sem usuário (associados a " + user.getEmail() + ")";
 
         } catch (Exception e) {
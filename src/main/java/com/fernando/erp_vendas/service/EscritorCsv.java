@@ -0,0 +1,68 @@
+package com.fernando.erp_vendas.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.Temporal;
+import java.util.List;
+
+// 🆕 CSV (RFC 4180, UTF-8): vírgula como separador, ponto decimal, datas ISO (2025-01-31T14:30:00).
+// Campos com vírgula, aspas ou quebra de linha vão entre aspas (aspas internas duplicadas), como o
+// leitor da importação espera.
+class EscritorCsv implements EscritorPlanilha {
+
+    private final BufferedWriter saida;
+
+    EscritorCsv(OutputStream saida) {
+        this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void cabecalho(List<String> titulos) throws IOException {
+        linha(titulos.toArray());
+    }
+
+    @Override
+    public void linha(Object[] valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                saida.write(',');
+            }
+            Object valor = valores[i];
+            if (valor == null) {
+                continue;
+            }
+            if (valor instanceof BigDecimal decimal) {
+                saida.write(decimal.toPlainString());
+            } else if (valor instanceof Number || valor instanceof Temporal) {
+                saida.write(valor.toString());
+            } else {
+                escreverTexto(valor.toString());
+            }
+        }
+        saida.write("\r\n");
+    }
+
+    private void escreverTexto(String texto) throws IOException {
+        boolean precisaAspas = false;
+        for (int i = 0; i < texto.length() && !precisaAspas; i++) {
+            char c = texto.charAt(i);
+            precisaAspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!precisaAspas) {
+            saida.write(texto);
+            return;
+        }
+        saida.write('"');
+        saida.write(texto.replace("\"", "\"\""));
+        saida.write('"');
+    }
+
+    @Override
+    public void finalizar() throws IOException {
+        saida.flush();
+    }
+}
@@ -0,0 +1,17 @@
+package com.fernando.erp_vendas.service;
+
+import java.io.IOException;
+import java.util.List;
+
+// 🆕 SAÍDA DA EXPORTAÇÃO, uma linha por vez (CSV ou XLSX): nada é acumulado em memória além do buffer
+// de escrita, então o heap não cresce com o número de linhas.
+// Valores: String, Number (BigDecimal/Long/Integer), LocalDate, LocalDateTime ou null (célula vazia).
+interface EscritorPlanilha {
+
+    void cabecalho(List<String> titulos) throws IOException;
+
+    void linha(Object[] valores) throws IOException;
+
+    // Completa o arquivo (no XLSX, o índice das planilhas); não fecha o stream de saída
+    void finalizar() throws IOException;
+}
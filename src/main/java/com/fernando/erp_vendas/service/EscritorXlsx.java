@@ -0,0 +1,176 @@
+package com.fernando.erp_vendas.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// 🆕 XLSX GRAVADO EM STREAMING (SpreadsheetML direto no ZIP, sem biblioteca de planilhas)
+// Cada planilha é uma entrada do ZIP escrita linha a linha; o índice (workbook, rels, content types) vai
+// no fim, quando já se sabe quantas planilhas existem. Textos como inlineStr (sem tabela de strings
+// compartilhadas, que exigiria guardar todos os textos em memória).
+// Uma planilha do Excel comporta 1.048.576 linhas: acima disso a exportação continua em "Dados 2", "Dados 3"...
+// com o cabeçalho repetido.
+class EscritorXlsx implements EscritorPlanilha {
+
+    static final int LINHAS_POR_PLANILHA = 1_048_576;
+
+    private static final LocalDate ORIGEM_DATAS_EXCEL = LocalDate.of(1899, 12, 30);
+
+    private final ZipOutputStream zip;
+    private final BufferedWriter saida;
+    private final int linhasPorPlanilha;
+    private List<String> titulos;
+    private int planilhas;
+    private int linhasNaPlanilha;
+
+    EscritorXlsx(OutputStream saida) {
+        this(saida, LINHAS_POR_PLANILHA);
+    }
+
+    // Limite menor só nos testes da troca de planilha
+    EscritorXlsx(OutputStream saida, int linhasPorPlanilha) {
+        this.zip = new ZipOutputStream(saida, StandardCharsets.UTF_8);
+        this.saida = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        this.linhasPorPlanilha = linhasPorPlanilha;
+    }
+
+    @Override
+    public void cabecalho(List<String> titulos) throws IOException {
+        this.titulos = titulos;
+        abrirPlanilha();
+    }
+
+    @Override
+    public void linha(Object[] valores) throws IOException {
+        if (linhasNaPlanilha == linhasPorPlanilha) {
+            fecharPlanilha();
+            abrirPlanilha();
+        }
+        saida.write("<row>");
+        for (Object valor : valores) {
+            if (valor == null) {
+                saida.write("<c/>");
+            } else if (valor instanceof BigDecimal decimal) {
+                saida.write("<c><v>" + decimal.toPlainString() + "</v></c>");
+            } else if (valor instanceof Number numero) {
+                saida.write("<c><v>" + numero + "</v></c>");
+            } else if (valor instanceof LocalDateTime dataHora) {
+                double serial = ChronoUnit.DAYS.between(ORIGEM_DATAS_EXCEL, dataHora.toLocalDate())
+                        + dataHora.toLocalTime().toSecondOfDay() / 86400.0;
+                saida.write("<c s=\"1\"><v>" + serial + "</v></c>");
+            } else if (valor instanceof LocalDate data) {
+                saida.write("<c s=\"2\"><v>" + ChronoUnit.DAYS.between(ORIGEM_DATAS_EXCEL, data) + "</v></c>");
+            } else {
+                saida.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                escreverTexto(valor.toString());
+                saida.write("</t></is></c>");
+            }
+        }
+        saida.write("</row>");
+        linhasNaPlanilha++;
+    }
+
+    @Override
+    public void finalizar() throws IOException {
+        fecharPlanilha();
+
+        StringBuilder sheets = new StringBuilder();
+        StringBuilder relacoes = new StringBuilder();
+        for (int i = 1; i <= planilhas; i++) {
+            sheets.append("<sheet name=\"Dados").append(i > 1 ? " " + i : "").append("\" sheetId=\"").append(i)
+                    .append("\" r:id=\"rId").append(i).append("\"/>");
+            relacoes.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\"")
+                    .append(" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        relacoes.append("<Relationship Id=\"rId").append(planilhas + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\"")
+                .append(" Target=\"styles.xml\"/>");
+
+        escreverEntrada("[Content_Types].xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">\
+                <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>\
+                <Default Extension="xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>\
+                <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>\
+                <Override PartName="/xl/styles.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml"/>\
+                </Types>""");
+        escreverEntrada("_rels/.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">\
+                <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>\
+                </Relationships>""");
+        escreverEntrada("xl/workbook.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" \
+                xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships"><sheets>%s</sheets></workbook>"""
+                .formatted(sheets));
+        escreverEntrada("xl/_rels/workbook.xml.rels", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">%s</Relationships>"""
+                .formatted(relacoes));
+        // Estilo 1 = data e hora, estilo 2 = data
+        escreverEntrada("xl/styles.xml", """
+                <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+                <styleSheet xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main">\
+                <numFmts count="2"><numFmt numFmtId="164" formatCode="dd/mm/yyyy hh:mm:ss"/>\
+                <numFmt numFmtId="165" formatCode="dd/mm/yyyy"/></numFmts>\
+                <fonts count="1"><font><sz val="11"/><name val="Calibri"/></font></fonts>\
+                <fills count="2"><fill><patternFill patternType="none"/></fill><fill><patternFill patternType="gray125"/></fill></fills>\
+                <borders count="1"><border><left/><right/><top/><bottom/><diagonal/></border></borders>\
+                <cellStyleXfs count="1"><xf numFmtId="0" fontId="0" fillId="0" borderId="0"/></cellStyleXfs>\
+                <cellXfs count="3"><xf numFmtId="0" fontId="0" fillId="0" borderId="0" xfId="0"/>\
+                <xf numFmtId="164" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/>\
+                <xf numFmtId="165" fontId="0" fillId="0" borderId="0" xfId="0" applyNumberFormat="1"/></cellXfs>\
+                </styleSheet>""");
+        zip.finish();
+    }
+
+    private void abrirPlanilha() throws IOException {
+        planilhas++;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + planilhas + ".xml"));
+        saida.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        linhasNaPlanilha = 0;
+        linha(titulos.toArray());
+    }
+
+    private void fecharPlanilha() throws IOException {
+        saida.write("</sheetData></worksheet>");
+        saida.flush();
+        zip.closeEntry();
+    }
+
+    private void escreverEntrada(String nome, String conteudo) throws IOException {
+        zip.putNextEntry(new ZipEntry(nome));
+        saida.write(conteudo);
+        saida.flush();
+        zip.closeEntry();
+    }
+
+    // Escapa o XML e descarta caracteres de controle, que o XML 1.0 não aceita
+    private void escreverTexto(String texto) throws IOException {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> saida.write("&amp;");
+                case '<' -> saida.write("&lt;");
+                case '>' -> saida.write("&gt;");
+                default -> {
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        saida.write(c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.config.LimitadorConexoesBanco;
+import com.fernando.erp_vendas.config.RoteamentoDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 🆕 ESTATÍSTICAS DAS CONEXÕES POR ROTA (primário / réplica)
+// Para cada pool: conexões do Hikari (ativas, ociosas, threads aguardando) e o LimitadorConexoesBanco na frente
+// dele; com réplica configurada, também quantas leituras foram para a réplica e quantas foram desviadas para o
+// primário por leitura após escrita.
+@Service
+public class EstatisticasBancoService {
+
+    @Autowired
+    private Map<String, DataSource> dataSources;
+
+    public Map<String, Object> estatisticas() {
+        List<Map<String, Object>> pools = new ArrayList<>();
+        Map<String, Object> roteamento = null;
+        for (Map.Entry<String, DataSource> entrada : dataSources.entrySet()) {
+            DataSource dataSource = entrada.getValue();
+            if (dataSource instanceof LimitadorConexoesBanco limitador) {
+                Map<String, Object> pool = new LinkedHashMap<>();
+                pool.put("nome", limitador.getNome());
+                if (limitador.getTargetDataSource() instanceof HikariDataSource hikari) {
+                    pool.put("conexoes", estatisticasPool(hikari));
+                }
+                pool.put("limitador", limitador.estatisticas());
+                pools.add(pool);
+            } else if (dataSource instanceof HikariDataSource hikari) {
+                // Limitador desligado (app.db.limitador.ativo=false)
+                Map<String, Object> pool = new LinkedHashMap<>();
+                pool.put("nome", hikari.getPoolName() != null ? hikari.getPoolName() : entrada.getKey());
+                pool.put("conexoes", estatisticasPool(hikari));
+                pools.add(pool);
+            } else if (dataSource instanceof RoteamentoDataSource roteador) {
+                roteamento = roteador.estatisticas();
+            }
+        }
+
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("pools", pools);
+        estatisticas.put("replicaConfigurada", roteamento != null);
+        if (roteamento != null) {
+            estatisticas.put("roteamento", roteamento);
+        }
+        return estatisticas;
+    }
+
+    private static Map<String, Object> estatisticasPool(HikariDataSource hikari) {
+        Map<String, Object> conexoes = new LinkedHashMap<>();
+        conexoes.put("maximo", hikari.getMaximumPoolSize());
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        // null enquanto o pool não abriu a primeira conexão
+        if (pool != null) {
+            conexoes.put("ativas", pool.getActiveConnections());
+            conexoes.put("ociosas", pool.getIdleConnections());
+            conexoes.put("total", pool.getTotalConnections());
+            conexoes.put("aguardando", pool.getThreadsAwaitingConnection());
+        }
+        return conexoes;
+    }
+}
@@ -1,14 +1,20 @@
 package com.fernando.erp_vendas.service;
 
+import com.fernando.erp_vendas.dto.ResultadoAlocacaoPeps;
+import com.fernando.erp_vendas.model.Dinheiro;
 import com.fernando.erp_vendas.model.EntradaEstoque;
 import com.fernando.erp_vendas.model.ItemVenda;
 import com.fernando.erp_vendas.model.Produto;
 import com.fernando.erp_vendas.model.User;
 import com.fernando.erp_vendas.model.Venda;
 import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
-import com.fernando.erp_vendas.repository.ItemVendaRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
 import com.fernando.erp_vendas.repository.VendaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -17,18 +23,30 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class EstoqueService {
 
+    private static final Logger log = LoggerFactory.getLogger(EstoqueService.class);
+
     @Autowired
     private EntradaEstoqueRepository entradaEstoqueRepository;
 
     @Autowired
-    private ItemVendaRepository itemVendaRepository;
+    private VendaRepository vendaRepository;
 
     @Autowired
-    private VendaRepository vendaRepository;
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private SaldoProdutoService saldoProdutoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     // 🆕 MÉTODO PARA OBTER USUÁRIO LOGADO
     private User getCurrentUser() {
@@ -53,9 +71,13 @@ public class EstoqueService {
         return lotesComSaldo.get(0);
     }
 
-    // ✅ CORRIGIDO: Calcula o custo total E registra os itens da venda COM MULTI-TENANCY
+    // 🆕 PEPS SET-BASED: Persiste a venda, baixa os lotes e registra os itens em UMA transação.
+    // Round-trips fixos por venda, independente da quantidade de lotes consumidos:
+    // INSERT da venda + 1 comando PEPS (baixa condicional e insere itens) + UPDATE do custo no commit
+    // ✅ Lote alterado por outra transação durante a baixa: OptimisticLockingFailureException
+    // (tudo desfeito). Use ReservaEstoqueService.registrarVenda, que serializa por produto e repete.
     @Transactional
-    public BigDecimal calcularCustoVendaERegistrarItens(Venda venda) {
+    public ResultadoAlocacaoPeps registrarVendaPeps(Venda venda) {
         User currentUser = getCurrentUser();
 
         // 🆕 VERIFICAR SE O PRODUTO PERTENCE AO USUÁRIO
@@ -63,74 +85,77 @@ public class EstoqueService {
             throw new RuntimeException("Produto não pertence ao usuário logado");
         }
 
-        // 1️⃣ PRIMEIRO: Salvar a Venda para gerar ID
+        // 1️⃣ Salvar a Venda para gerar ID (único save explícito da venda)
         Venda vendaSalva = vendaRepository.save(venda);
+        Integer quantidade = vendaSalva.getQuantidade();
 
-        BigDecimal custoTotal = BigDecimal.ZERO;
-        Integer quantidadeRestante = venda.getQuantidade();
-        Produto produto = venda.getProduto();
+        // 2️⃣ Alocar lotes PEPS, baixar saldo e registrar itens em um único comando
+        List<Object[]> alocacoes = entradaEstoqueRepository.alocarPepsERegistrarItens(
+                vendaSalva.getId(), vendaSalva.getProduto().getId(), currentUser.getId(), quantidade);
 
-        List<EntradaEstoque> lotesComSaldo = entradaEstoqueRepository
-                .findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc(produto, currentUser, 0);
+        long custoTotal = Dinheiro.ZERO;
+        int quantidadeAlocada = 0;
+        List<ItemVenda> itensVenda = new ArrayList<>(alocacoes.size());
 
-        List<ItemVenda> itensVenda = new ArrayList<>();
-
-        for (EntradaEstoque lote : lotesComSaldo) {
-            if (quantidadeRestante <= 0) break;
-
-            Integer quantidadeUsada = Math.min(quantidadeRestante, lote.getSaldo());
-            BigDecimal custoLote = lote.getCustoUnitario().multiply(BigDecimal.valueOf(quantidadeUsada));
+        for (Object[] alocacao : alocacoes) {
+            // ✅ Conflito: algum lote mudou entre a leitura e a baixa condicional
+            if (!(Boolean) alocacao[3]) {
+                throw new OptimisticLockingFailureException(
+                        "Lote " + alocacao[0] + " alterado por outra transação durante a baixa PEPS");
+            }
 
-            // ✅ CORRIGIDO: Usar vendaSalva (já persistida) em vez de venda (transient)
-            // 🆕 ADICIONAR USUÁRIO AO ITEM VENDA
-            ItemVenda itemVenda = new ItemVenda(vendaSalva, lote, quantidadeUsada, lote.getCustoUnitario(), currentUser);
-            itensVenda.add(itemVenda);
+            Long loteId = ((Number) alocacao[0]).longValue();
+            int quantidadeUsada = ((Number) alocacao[1]).intValue();
+            long custoUnitario = Dinheiro.deReais((BigDecimal) alocacao[2]);
 
-            // Baixar estoque do lote
-            lote.setSaldo(lote.getSaldo() - quantidadeUsada);
-            entradaEstoqueRepository.save(lote);
+            // Referência ao lote sem consulta adicional (proxy)
+            EntradaEstoque lote = entradaEstoqueRepository.getReferenceById(loteId);
+            itensVenda.add(new ItemVenda(vendaSalva, lote, quantidadeUsada, custoUnitario, currentUser));
 
-            custoTotal = custoTotal.add(custoLote);
-            quantidadeRestante -= quantidadeUsada;
+            custoTotal = Dinheiro.somar(custoTotal, Dinheiro.multiplicar(custoUnitario, quantidadeUsada));
+            quantidadeAlocada += quantidadeUsada;
         }
 
-        if (quantidadeRestante > 0) {
-            throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
+        // ✅ Saldo insuficiente: a exceção desfaz a baixa e os itens já inseridos
+        if (quantidade != null && quantidadeAlocada < quantidade) {
+            throw new RuntimeException("Estoque insuficiente! Disponível: " + quantidadeAlocada + " unidades");
         }
 
-        // ✅ SALVAR todos os itens da venda
-        itemVendaRepository.saveAll(itensVenda);
-
-        // ✅ CORRIGIDO: Converter BigDecimal para double
-        vendaSalva.setCustoProdutoVendido(custoTotal.doubleValue());
-        vendaRepository.save(vendaSalva);
+        // 3️⃣ Custo PEPS na entidade gerenciada (gravado no commit, sem save extra)
+        vendaSalva.setCustoProdutoVendidoCentavos(custoTotal);
+
+        // 4️⃣ Baixar unidades e valor do saldo mantido do produto
+        saldoProdutoService.ajustar(vendaSalva.getProduto().getId(), -quantidadeAlocada, Dinheiro.paraDecimal(-custoTotal),
+                MovimentoEstoqueService.Tipo.CONSUMO_VENDA, null, vendaSalva.getId());
+
+        // 5️⃣ Somar a venda (já com o custo PEPS) ao agregado dos dashboards
+        resumoVendaService.registrar(vendaSalva);
+
+        // 6️⃣ Deltas para o dashboard em tempo real (SSE), antes dos totais
+        eventPublisher.publishEvent(MovimentoDashboardEvent.de(currentUser.getId(), MovimentoDashboardEvent.VENDA_CRIADA,
+                "id", vendaSalva.getId(), "idPedido", vendaSalva.getIdPedido(), "produtoId", vendaSalva.getProduto().getId(),
+                "quantidade", quantidadeAlocada, "precoVenda", vendaSalva.getPrecoVenda(),
+                "custoProdutoVendido", vendaSalva.getCustoProdutoVendido()));
+        eventPublisher.publishEvent(MovimentoDashboardEvent.de(currentUser.getId(), MovimentoDashboardEvent.LOTES_CONSUMIDOS,
+                "vendaId", vendaSalva.getId(), "produtoId", vendaSalva.getProduto().getId(),
+                "lotes", itensVenda.stream().map(item -> Map.of("loteId", item.getLote().getId(),
+                        "quantidade", item.getQuantidade())).toList()));
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.VENDA));
+        eventPublisher.publishEvent(PedidosAlteradosEvent.adicionado(currentUser.getId(), PedidosAlteradosEvent.Tipo.VENDA, vendaSalva.getIdPedido()));
+
+        return new ResultadoAlocacaoPeps(vendaSalva, itensVenda, custoTotal);
+    }
 
-        return custoTotal;
+    // ✅ CORRIGIDO: Calcula o custo total E registra os itens da venda COM MULTI-TENANCY
+    @Transactional
+    public BigDecimal calcularCustoVendaERegistrarItens(Venda venda) {
+        return registrarVendaPeps(venda).getCustoTotal();
     }
 
-    // ✅ ATUALIZADO: Baixa estoque usando PEPS E rastreia os itens COM MULTI-TENANCY
+    // ✅ ATUALIZADO: Baixa estoque usando PEPS (set-based) COM MULTI-TENANCY
     @Transactional
     public void baixarEstoque(Venda venda) {
-        User currentUser = getCurrentUser();
-        Integer quantidadeRestante = venda.getQuantidade();
-        Produto produto = venda.getProduto();
-
-        List<EntradaEstoque> lotesComSaldo = entradaEstoqueRepository
-                .findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc(produto, currentUser, 0);
-
-        for (EntradaEstoque lote : lotesComSaldo) {
-            if (quantidadeRestante <= 0) break;
-
-            Integer quantidadeBaixa = Math.min(quantidadeRestante, lote.getSaldo());
-            lote.setSaldo(lote.getSaldo() - quantidadeBaixa);
-            entradaEstoqueRepository.save(lote);
-
-            quantidadeRestante -= quantidadeBaixa;
-        }
-
-        if (quantidadeRestante > 0) {
-            throw new RuntimeException("Erro ao baixar estoque. Estoque insuficiente.");
-        }
+        baixarEstoque(venda.getProduto(), venda.getQuantidade());
     }
 
     // ✅ CORRIGIDO: Reverter estoque baseado nos itens rastreados da venda COM MULTI-TENANCY
@@ -143,64 +168,97 @@ public class EstoqueService {
             throw new RuntimeException("Venda não pertence ao usuário logado");
         }
 
-        // Buscar todos os itens da venda
-        List<ItemVenda> itensVenda = itemVendaRepository.findByVendaAndUser(venda, currentUser);
+        // 🆕 Lotes da venda já arquivados (esgotados e antigos) voltam para entrada_estoque antes da devolução
+        List<Long> restaurados = entradaEstoqueRepository.restaurarLotesArquivadosDaVenda(venda.getId(), currentUser.getId());
+        if (!restaurados.isEmpty()) {
+            log.info("Lotes arquivados restaurados para reverter venda: idPedido={} lotes={}", venda.getIdPedido(), restaurados);
+        }
+
+        // 🆕 SET-BASED: Exclui os itens e devolve o saldo aos lotes em um único comando
+        List<Object[]> devolucoes = entradaEstoqueRepository.reverterItensVendaEmLote(venda.getId(), currentUser.getId());
 
-        if (itensVenda.isEmpty()) {
+        if (devolucoes.isEmpty()) {
             throw new RuntimeException("Nenhum item encontrado para a venda: " + venda.getIdPedido());
         }
 
-        // Reverter estoque para cada lote usado
-        for (ItemVenda item : itensVenda) {
-            // ✅ CORRIGIDO: Usar getLote() em vez de getEntradaEstoque()
-            EntradaEstoque lote = item.getLote();
-            Integer quantidadeReverter = item.getQuantidade();
-
-            // Incrementar o saldo do lote original
-            lote.setSaldo(lote.getSaldo() + quantidadeReverter);
-            entradaEstoqueRepository.save(lote);
+        // ✅ Lote arquivado por outra transação entre a restauração e a devolução: desfaz tudo
+        for (Object[] devolucao : devolucoes) {
+            if (devolucao[2] == null) {
+                throw new OptimisticLockingFailureException(
+                        "Lote " + devolucao[0] + " arquivado por outra transação durante a reversão da venda");
+            }
+        }
 
-            System.out.println("✅ Estoque revertido: " + quantidadeReverter +
-                    " unidades devolvidas ao lote " + lote.getId() +
-                    " (Custo: " + item.getCustoUnitario() + ")");
+        // ✅ Devolver ao saldo mantido do produto o que a venda tinha baixado
+        for (Object[] devolucao : devolucoes) {
+            saldoProdutoService.ajustar(((Number) devolucao[2]).longValue(),
+                    ((Number) devolucao[1]).intValue(), (BigDecimal) devolucao[3],
+                    MovimentoEstoqueService.Tipo.REVERSAO_VENDA, ((Number) devolucao[0]).longValue(), venda.getId());
         }
 
-        // ✅ NOVO: Excluir os itens da venda após reverter estoque
-        itemVendaRepository.deleteAll(itensVenda);
+        log.info("Estoque da venda revertido: idPedido={} lotes={}", venda.getIdPedido(), devolucoes.size());
+    }
 
-        System.out.println("✅ Reversão completa: " + itensVenda.size() +
-                " itens revertidos para a venda " + venda.getIdPedido());
+    // 🆕 EDIÇÃO DE VENDA: troca a contribuição antiga pela nova no agregado na MESMA transação
+    @Transactional
+    public Venda atualizarVenda(Venda vendaExistente, Venda vendaAtualizada) {
+        resumoVendaService.remover(vendaExistente);
+        String idPedidoAnterior = vendaExistente.getIdPedido();
+
+        vendaExistente.setData(vendaAtualizada.getData());
+        vendaExistente.setIdPedido(vendaAtualizada.getIdPedido());
+        vendaExistente.setPlataforma(vendaAtualizada.getPlataforma());
+        vendaExistente.setPrecoVenda(vendaAtualizada.getPrecoVenda());
+        vendaExistente.setFretePagoPeloCliente(vendaAtualizada.getFretePagoPeloCliente());
+        vendaExistente.setCustoEnvio(vendaAtualizada.getCustoEnvio());
+        vendaExistente.setTarifaPlataforma(vendaAtualizada.getTarifaPlataforma());
+        vendaExistente.setDespesasOperacionais(vendaAtualizada.getDespesasOperacionais());
+
+        Venda vendaSalva = vendaRepository.save(vendaExistente);
+        resumoVendaService.registrar(vendaSalva);
+        eventPublisher.publishEvent(MovimentoDashboardEvent.de(vendaSalva.getUser().getId(), MovimentoDashboardEvent.VENDA_ATUALIZADA,
+                "id", vendaSalva.getId(), "idPedido", vendaSalva.getIdPedido(), "precoVenda", vendaSalva.getPrecoVenda()));
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(vendaSalva.getUser().getId(), DadosUsuarioAlteradosEvent.Origem.VENDA));
+        eventPublisher.publishEvent(PedidosAlteradosEvent.trocado(vendaSalva.getUser().getId(), PedidosAlteradosEvent.Tipo.VENDA,
+                idPedidoAnterior, vendaSalva.getIdPedido()));
+        return vendaSalva;
+    }
+
+    // 🆕 EXCLUSÃO DE VENDA: devolve o estoque, retira do agregado e exclui, tudo ou nada
+    @Transactional
+    public void excluirVenda(Venda venda) {
+        reverterEstoqueVenda(venda);
+        resumoVendaService.remover(venda);
+        vendaRepository.deleteById(venda.getId());
+        eventPublisher.publishEvent(MovimentoDashboardEvent.de(venda.getUser().getId(), MovimentoDashboardEvent.VENDA_EXCLUIDA,
+                "id", venda.getId(), "idPedido", venda.getIdPedido(), "produtoId", venda.getProduto().getId(),
+                "quantidade", venda.getQuantidade()));
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(venda.getUser().getId(), DadosUsuarioAlteradosEvent.Origem.VENDA));
+        eventPublisher.publishEvent(PedidosAlteradosEvent.removido(venda.getUser().getId(), PedidosAlteradosEvent.Tipo.VENDA, venda.getIdPedido()));
     }
 
     // ✅ MANTIDO: Método antigo para compatibilidade (será depreciado) COM MULTI-TENANCY
     @Transactional
     public void baixarEstoque(Produto produto, Integer quantidade) {
         User currentUser = getCurrentUser();
-        Integer quantidadeRestante = quantidade;
-
-        List<EntradaEstoque> lotesComSaldo = entradaEstoqueRepository
-                .findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc(produto, currentUser, 0);
-
-        for (EntradaEstoque lote : lotesComSaldo) {
-            if (quantidadeRestante <= 0) break;
 
-            Integer quantidadeBaixa = Math.min(quantidadeRestante, lote.getSaldo());
-            lote.setSaldo(lote.getSaldo() - quantidadeBaixa);
-            entradaEstoqueRepository.save(lote);
+        Object[] baixa = entradaEstoqueRepository.baixarPepsEmLote(
+                produto.getId(), currentUser.getId(), quantidade).get(0);
+        int quantidadeBaixada = ((Number) baixa[0]).intValue();
 
-            quantidadeRestante -= quantidadeBaixa;
-        }
-
-        if (quantidadeRestante > 0) {
+        if (quantidadeBaixada < quantidade) {
             throw new RuntimeException("Erro ao baixar estoque. Estoque insuficiente.");
         }
+        saldoProdutoService.ajustar(produto.getId(), -quantidadeBaixada, ((BigDecimal) baixa[1]).negate(),
+                MovimentoEstoqueService.Tipo.CONSUMO_VENDA, null, null);
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(currentUser.getId(), DadosUsuarioAlteradosEvent.Origem.ENTRADA_ESTOQUE));
     }
 
     // ✅ MANTIDO: Calcula o custo total para uma venda (sem registrar itens) COM MULTI-TENANCY
     public BigDecimal calcularCustoVenda(Produto produto, Integer quantidadeVenda) {
         User currentUser = getCurrentUser();
-        BigDecimal custoTotal = BigDecimal.ZERO;
-        Integer quantidadeRestante = quantidadeVenda;
+        long custoTotal = Dinheiro.ZERO;
+        int quantidadeRestante = quantidadeVenda;
 
         List<EntradaEstoque> lotesComSaldo = entradaEstoqueRepository
                 .findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc(produto, currentUser, 0);
@@ -208,10 +266,8 @@ public class EstoqueService {
         for (EntradaEstoque lote : lotesComSaldo) {
             if (quantidadeRestante <= 0) break;
 
-            Integer quantidadeUsada = Math.min(quantidadeRestante, lote.getSaldo());
-            BigDecimal custoLote = lote.getCustoUnitario().multiply(BigDecimal.valueOf(quantidadeUsada));
-
-            custoTotal = custoTotal.add(custoLote);
+            int quantidadeUsada = Math.min(quantidadeRestante, lote.getSaldo());
+            custoTotal = Dinheiro.somar(custoTotal, Dinheiro.multiplicar(lote.getCustoUnitarioCentavos(), quantidadeUsada));
             quantidadeRestante -= quantidadeUsada;
         }
 
@@ -219,39 +275,87 @@ public class EstoqueService {
             throw new RuntimeException("Estoque insuficiente para o produto: " + produto.getNome());
         }
 
-        return custoTotal;
+        return Dinheiro.paraDecimal(custoTotal);
     }
 
     // ✅ CORREÇÃO CRÍTICA: Verifica saldo total de um produto PARA O USUÁRIO LOGADO
+    // 🆕 Lê o saldo mantido do produto (consulta pela chave, sem somar lotes)
     public Integer verificarSaldoTotal(Produto produto) {
         User currentUser = getCurrentUser();
+        return produtoRepository.findEstoqueAtualByIdAndUser(produto.getId(), currentUser).orElse(0);
+    }
 
-        try {
-            // ✅ PRIMEIRO: Tentar usar o método do repositório
-            Integer saldo = entradaEstoqueRepository.findSaldoTotalByProdutoAndUser(produto, currentUser);
-            if (saldo != null) {
-                System.out.println("📦 Saldo via repositório: " + saldo + " para produto: " + produto.getNome());
-                return saldo;
-            }
-        } catch (Exception e) {
-            System.out.println("⚠️ Método repositório falhou, usando cálculo manual: " + e.getMessage());
-        }
+    // 🆕 ENTRADA DE LOTE (COMPRA): grava o lote e soma ao saldo do produto na mesma transação
+    @Transactional
+    public EntradaEstoque registrarEntrada(EntradaEstoque entrada) {
+        EntradaEstoque entradaSalva = entradaEstoqueRepository.save(entrada);
+        saldoProdutoService.somarLote(entradaSalva.getProduto().getId(), entradaSalva.getSaldo(), entradaSalva.getCustoUnitarioCentavos(),
+                MovimentoEstoqueService.Tipo.COMPRA, entradaSalva.getId());
+        eventPublisher.publishEvent(movimentoCompra(MovimentoDashboardEvent.COMPRA_REGISTRADA, entradaSalva));
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(entradaSalva.getUser().getId(), DadosUsuarioAlteradosEvent.Origem.ENTRADA_ESTOQUE));
+        eventPublisher.publishEvent(PedidosAlteradosEvent.adicionado(entradaSalva.getUser().getId(), PedidosAlteradosEvent.Tipo.COMPRA,
+                entradaSalva.getIdPedidoCompra()));
+        return entradaSalva;
+    }
 
-        // ✅ FALLBACK: Cálculo manual seguro
-        List<EntradaEstoque> entradas = entradaEstoqueRepository.findByProdutoAndUserOrderByDataEntradaAsc(produto, currentUser);
-        Integer saldoManual = 0;
+    // 🆕 EDIÇÃO DE LOTE: troca a contribuição antiga pela nova no saldo (o produto do lote também pode mudar)
+    @Transactional
+    public EntradaEstoque atualizarEntrada(EntradaEstoque entradaExistente, EntradaEstoque entradaAtualizada) {
+        saldoProdutoService.subtrairLote(entradaExistente.getProduto().getId(), entradaExistente.getSaldo(),
+                entradaExistente.getCustoUnitarioCentavos(), MovimentoEstoqueService.Tipo.AJUSTE, entradaExistente.getId());
+        String idPedidoCompraAnterior = entradaExistente.getIdPedidoCompra();
+
+        entradaExistente.setProduto(entradaAtualizada.getProduto());
+        entradaExistente.setQuantidade(entradaAtualizada.getQuantidade());
+        entradaExistente.setSaldo(entradaAtualizada.getSaldo());
+        entradaExistente.setCustoTotal(entradaAtualizada.getCustoTotal());
+        entradaExistente.setCustoUnitario(entradaAtualizada.getCustoUnitario());
+        entradaExistente.setFornecedor(entradaAtualizada.getFornecedor());
+        entradaExistente.setIdPedidoCompra(entradaAtualizada.getIdPedidoCompra());
+        entradaExistente.setCategoria(entradaAtualizada.getCategoria());
+        entradaExistente.setObservacoes(entradaAtualizada.getObservacoes());
+
+        EntradaEstoque entradaSalva = entradaEstoqueRepository.save(entradaExistente);
+        saldoProdutoService.somarLote(entradaSalva.getProduto().getId(), entradaSalva.getSaldo(), entradaSalva.getCustoUnitarioCentavos(),
+                MovimentoEstoqueService.Tipo.AJUSTE, entradaSalva.getId());
+        eventPublisher.publishEvent(movimentoCompra(MovimentoDashboardEvent.COMPRA_ATUALIZADA, entradaSalva));
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(entradaSalva.getUser().getId(), DadosUsuarioAlteradosEvent.Origem.ENTRADA_ESTOQUE));
+        eventPublisher.publishEvent(PedidosAlteradosEvent.trocado(entradaSalva.getUser().getId(), PedidosAlteradosEvent.Tipo.COMPRA,
+                idPedidoCompraAnterior, entradaSalva.getIdPedidoCompra()));
+        return entradaSalva;
+    }
 
-        for (EntradaEstoque entrada : entradas) {
-            // ✅ TRATAR saldo null como 0
-            Integer saldoEntrada = entrada.getSaldo();
-            if (saldoEntrada != null) {
-                saldoManual += saldoEntrada;
-            }
-        }
+    // 🆕 EXCLUSÃO DE LOTE: remove o lote e o seu saldo restante do produto
+    @Transactional
+    public void excluirEntrada(EntradaEstoque entrada) {
+        entradaEstoqueRepository.delete(entrada);
+        saldoProdutoService.subtrairLote(entrada.getProduto().getId(), entrada.getSaldo(), entrada.getCustoUnitarioCentavos(),
+                MovimentoEstoqueService.Tipo.AJUSTE, entrada.getId());
+        eventPublisher.publishEvent(movimentoCompra(MovimentoDashboardEvent.COMPRA_EXCLUIDA, entrada));
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(entrada.getUser().getId(), DadosUsuarioAlteradosEvent.Origem.ENTRADA_ESTOQUE));
+        eventPublisher.publishEvent(PedidosAlteradosEvent.removido(entrada.getUser().getId(), PedidosAlteradosEvent.Tipo.COMPRA,
+                entrada.getIdPedidoCompra()));
+    }
 
-        System.out.println("📦 Saldo manual calculado: " + saldoManual + " para produto: " + produto.getNome());
-        System.out.println("📦 Total de entradas encontradas: " + entradas.size());
+    // 🆕 EXCLUSÃO DE PRODUTO: os lotes saem pelo cascade do JPA, então o saldo restante de cada lote é
+    // baixado antes pelo SaldoProdutoService (movimento AJUSTE no livro: o estoque do produto fecha em zero)
+    // Lotes arquivados não estão no cascade: os sem itens de venda são apagados aqui (com itens, a FK impede a exclusão)
+    @Transactional
+    public void excluirProduto(Produto produto) {
+        for (EntradaEstoque lote : entradaEstoqueRepository.findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc(
+                produto, produto.getUser(), 0)) {
+            saldoProdutoService.subtrairLote(produto.getId(), lote.getSaldo(), lote.getCustoUnitarioCentavos(),
+                    MovimentoEstoqueService.Tipo.AJUSTE, lote.getId());
+        }
+        entradaEstoqueRepository.excluirLotesArquivadosSemItens(produto.getId(), produto.getUser().getId());
+        produtoRepository.deleteById(produto.getId());
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(produto.getUser().getId(), DadosUsuarioAlteradosEvent.Origem.PRODUTO));
+    }
 
-        return saldoManual;
+    // 🆕 Delta de lote para o dashboard em tempo real
+    private static MovimentoDashboardEvent movimentoCompra(String tipo, EntradaEstoque entrada) {
+        return MovimentoDashboardEvent.de(entrada.getUser().getId(), tipo,
+                "id", entrada.getId(), "idPedidoCompra", entrada.getIdPedidoCompra(), "produtoId", entrada.getProduto().getId(),
+                "quantidade", entrada.getQuantidade(), "saldo", entrada.getSaldo(), "custoUnitario", entrada.getCustoUnitario());
     }
-}
\ No newline at end of file
+}
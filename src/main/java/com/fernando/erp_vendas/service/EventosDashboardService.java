@@ -0,0 +1,310 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.TotaisVendas;
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 🆕 DASHBOARD EM TEMPO REAL (SSE): deltas por usuário em vez de polling de /dashboard
+// 1️⃣ Cada write (venda, lote, despesa, importação) publica um MovimentoDashboardEvent; após o commit ele vira
+//    um evento SSE curto para as conexões abertas do usuário, seguido de "totais" (agregado de vendas).
+// 2️⃣ Canal por usuário com histórico limitado (app.sse.historico): quem reconecta com Last-Event-ID recebe
+//    só o que perdeu. ID de outro canal (reinício do servidor, canal descartado) ou já fora do histórico:
+//    evento "reset" e o cliente recarrega o dashboard completo.
+// 3️⃣ Cada conexão tem fila limitada (app.sse.buffer) e uma thread virtual que escreve no socket: quem
+//    publica só enfileira e nunca espera um cliente lento. Fila cheia encerra a conexão (o cliente retoma).
+// 4️⃣ Conexão ociosa = thread virtual estacionada em poll(heartbeat), sem thread de plataforma presa.
+//    A cada app.sse.heartbeat-ms sem eventos vai um comentário SSE para manter proxies e o navegador ativos.
+@Service
+public class EventosDashboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosDashboardService.class);
+
+    public static final String RESET = "reset";
+    public static final String TOTAIS = "totais";
+
+    private record Evento(long sequencia, String id, String tipo, Object dados) {}
+
+    // Canal de um usuário: histórico e conexões abertas (alterados sob o lock do próprio canal)
+    private static class Canal {
+        final User user;
+        final long geracao;
+        final ArrayDeque<Evento> historico = new ArrayDeque<>();
+        final Set<Conexao> conexoes = ConcurrentHashMap.newKeySet();
+        long sequencia;
+        volatile long ultimoUso = System.currentTimeMillis();
+
+        Canal(User user, long geracao) {
+            this.user = user;
+            this.geracao = geracao;
+        }
+    }
+
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    private final long heartbeatMs;
+    private final long timeoutMs;
+    private final int tamanhoBuffer;
+    private final int tamanhoHistorico;
+    private final long canalOciosoMs;
+
+    private final Map<Long, Canal> canais = new ConcurrentHashMap<>();
+    // Geração única por canal criado: o ID de evento "<geracao>-<sequencia>" não vale em outro canal
+    private final AtomicLong geracoes = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final AtomicLong eventosEnviados = new AtomicLong();
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong retomadas = new AtomicLong();
+    private final AtomicLong resets = new AtomicLong();
+    private final AtomicLong encerradasPorBuffer = new AtomicLong();
+
+    public EventosDashboardService(@Value("${app.sse.heartbeat-ms:15000}") long heartbeatMs,
+                                   @Value("${app.sse.timeout-ms:1800000}") long timeoutMs,
+                                   @Value("${app.sse.buffer:64}") int tamanhoBuffer,
+                                   @Value("${app.sse.historico:256}") int tamanhoHistorico,
+                                   @Value("${app.sse.canal-ocioso-ms:300000}") long canalOciosoMs) {
+        this.heartbeatMs = heartbeatMs;
+        this.timeoutMs = timeoutMs;
+        this.tamanhoBuffer = tamanhoBuffer;
+        this.tamanhoHistorico = tamanhoHistorico;
+        this.canalOciosoMs = canalOciosoMs;
+    }
+
+    // ✅ Nova conexão do usuário; ultimoEventoId (Last-Event-ID) retoma de onde a anterior parou
+    public SseEmitter assinar(User user, String ultimoEventoId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Conexao[] nova = new Conexao[1];
+        // compute: atômico em relação à limpeza de canais ociosos (a conexão nunca entra num canal descartado)
+        canais.compute(user.getId(), (id, atual) -> {
+            Canal canal = atual != null ? atual : new Canal(user, geracoes.incrementAndGet());
+            Conexao conexao = new Conexao(canal, emitter);
+            synchronized (canal) {
+                conexao.pendentes.addAll(retomar(canal, ultimoEventoId));
+                canal.conexoes.add(conexao);
+                canal.ultimoUso = System.currentTimeMillis();
+            }
+            nova[0] = conexao;
+            return canal;
+        });
+        Conexao conexao = nova[0];
+
+        emitter.onCompletion(conexao::encerrar);
+        emitter.onTimeout(() -> {
+            conexao.encerrar();
+            emitter.complete();
+        });
+        emitter.onError(erro -> conexao.encerrar());
+
+        conexao.thread = Thread.ofVirtual().name("sse-dashboard-" + user.getId()).start(conexao);
+        return emitter;
+    }
+
+    // Eventos a repetir para quem reconecta (chamado sob o lock do canal)
+    private List<Evento> retomar(Canal canal, String ultimoEventoId) {
+        if (ultimoEventoId == null || ultimoEventoId.isBlank()) {
+            return List.of();
+        }
+        long ultimaSequencia = -1;
+        String[] partes = ultimoEventoId.trim().split("-");
+        if (partes.length == 2 && partes[0].equals(Long.toString(canal.geracao))) {
+            try {
+                ultimaSequencia = Long.parseLong(partes[1]);
+            } catch (NumberFormatException ignorado) {
+                // ID inválido: tratado como desconhecido
+            }
+        }
+
+        Evento primeiro = canal.historico.peekFirst();
+        long primeiraDisponivel = primeiro != null ? primeiro.sequencia() : canal.sequencia + 1;
+        if (ultimaSequencia < 0 || ultimaSequencia > canal.sequencia || ultimaSequencia + 1 < primeiraDisponivel) {
+            resets.incrementAndGet();
+            return List.of(new Evento(canal.sequencia, idDe(canal, canal.sequencia), RESET, Map.of()));
+        }
+
+        retomadas.incrementAndGet();
+        List<Evento> perdidos = new ArrayList<>();
+        for (Evento evento : canal.historico) {
+            if (evento.sequencia() > ultimaSequencia) perdidos.add(evento);
+        }
+        return perdidos;
+    }
+
+    // ✅ Delta confirmado: só para usuários com canal aberto (sem ninguém ouvindo, nada é guardado)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovimento(MovimentoDashboardEvent evento) {
+        Canal canal = evento.getUserId() != null ? canais.get(evento.getUserId()) : null;
+        if (canal != null) {
+            publicar(canal, evento.getTipo(), evento.getDados());
+        }
+    }
+
+    // ✅ Totais novos após vendas; troca em massa (userId nulo) manda todos recarregarem
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDadosUsuarioAlterados(DadosUsuarioAlteradosEvent evento) {
+        if (evento.getUserId() == null) {
+            canais.values().forEach(canal -> publicar(canal, RESET, Map.of()));
+            return;
+        }
+        if (evento.getOrigem() != DadosUsuarioAlteradosEvent.Origem.VENDA) {
+            return;
+        }
+        Canal canal = canais.get(evento.getUserId());
+        if (canal == null || canal.conexoes.isEmpty()) {
+            return;
+        }
+        try {
+            publicar(canal, TOTAIS, totais(resumoVendaService.totais(canal.user)));
+        } catch (Exception e) {
+            // A venda já foi confirmada: sem totais, o cliente ainda tem o delta
+            log.warn("Totais do dashboard não enviados: userId={} erro={}", evento.getUserId(), e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> totais(TotaisVendas totais) {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        dados.put("quantidadeVendas", totais.getQuantidadeVendas());
+        dados.put("unidades", totais.getUnidades());
+        dados.put("faturamento", Dinheiro.paraReais(totais.calcularFaturamentoCentavos()));
+        dados.put("custoEfetivoTotal", Dinheiro.paraReais(totais.calcularCustoEfetivoTotalCentavos()));
+        dados.put("lucroBruto", Dinheiro.paraReais(totais.calcularLucroBrutoCentavos()));
+        dados.put("lucroLiquido", Dinheiro.paraReais(totais.calcularLucroLiquidoCentavos()));
+        return dados;
+    }
+
+    private void publicar(Canal canal, String tipo, Object dados) {
+        synchronized (canal) {
+            long sequencia = ++canal.sequencia;
+            Evento evento = new Evento(sequencia, idDe(canal, sequencia), tipo, dados);
+            canal.historico.addLast(evento);
+            while (canal.historico.size() > tamanhoHistorico) {
+                canal.historico.removeFirst();
+            }
+            for (Conexao conexao : canal.conexoes) {
+                conexao.enfileirar(evento);
+            }
+        }
+    }
+
+    private static String idDe(Canal canal, long sequencia) {
+        return canal.geracao + "-" + sequencia;
+    }
+
+    // 🧹 Descarta canais sem conexão há mais de app.sse.canal-ocioso-ms (quem voltar depois recebe "reset")
+    @Scheduled(fixedDelayString = "${app.sse.limpeza-ms:60000}")
+    public void descartarCanaisOciosos() {
+        long limite = System.currentTimeMillis() - canalOciosoMs;
+        for (Long userId : canais.keySet()) {
+            canais.computeIfPresent(userId, (id, canal) ->
+                    canal.conexoes.isEmpty() && canal.ultimoUso < limite ? null : canal);
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("canais", canais.size());
+        estatisticas.put("conexoes", canais.values().stream().mapToInt(canal -> canal.conexoes.size()).sum());
+        estatisticas.put("eventosEnviados", eventosEnviados.get());
+        estatisticas.put("heartbeats", heartbeats.get());
+        estatisticas.put("retomadas", retomadas.get());
+        estatisticas.put("resets", resets.get());
+        estatisticas.put("encerradasPorBuffer", encerradasPorBuffer.get());
+        estatisticas.put("heartbeatMs", heartbeatMs);
+        estatisticas.put("buffer", tamanhoBuffer);
+        estatisticas.put("historico", tamanhoHistorico);
+        return estatisticas;
+    }
+
+    // Uma conexão SSE: fila limitada + thread virtual que escreve no emitter
+    private class Conexao implements Runnable {
+        final Canal canal;
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Evento> fila = new ArrayBlockingQueue<>(tamanhoBuffer);
+        final List<Evento> pendentes = new ArrayList<>();
+        volatile boolean encerrada;
+        volatile boolean estourou;
+        volatile Thread thread;
+
+        Conexao(Canal canal, SseEmitter emitter) {
+            this.canal = canal;
+            this.emitter = emitter;
+        }
+
+        // Nunca bloqueia quem publica: fila cheia marca a conexão para encerrar
+        void enfileirar(Evento evento) {
+            if (!encerrada && !fila.offer(evento)) {
+                estourou = true;
+                encerrada = true;
+                Thread escritor = thread;
+                if (escritor != null) escritor.interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (Evento evento : pendentes) {
+                    enviar(evento);
+                }
+                pendentes.clear();
+                while (!encerrada) {
+                    Evento evento = fila.poll(heartbeatMs, TimeUnit.MILLISECONDS);
+                    if (encerrada) break;
+                    if (evento == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                        heartbeats.incrementAndGet();
+                    } else {
+                        enviar(evento);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Encerrada (buffer cheio, timeout ou cliente saiu)
+            } catch (Exception e) {
+                // Cliente desconectou: a escrita falha e a conexão é descartada
+                log.debug("Conexão SSE encerrada: userId={} erro={}", canal.user.getId(), e.getMessage());
+            } finally {
+                encerrar();
+                if (estourou) {
+                    encerradasPorBuffer.incrementAndGet();
+                    log.info("Conexão SSE encerrada por buffer cheio: userId={} buffer={}", canal.user.getId(), tamanhoBuffer);
+                }
+                try {
+                    emitter.complete();
+                } catch (Exception ignorado) {
+                    // Já completado
+                }
+            }
+        }
+
+        private void enviar(Evento evento) throws Exception {
+            emitter.send(SseEmitter.event().id(evento.id()).name(evento.tipo()).data(evento.dados()));
+            eventosEnviados.incrementAndGet();
+        }
+
+        void encerrar() {
+            encerrada = true;
+            canal.conexoes.remove(this);
+            canal.ultimoUso = System.currentTimeMillis();
+            Thread escritor = thread;
+            if (escritor != null && escritor != Thread.currentThread()) escritor.interrupt();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// 🆕 EXPORTAÇÃO EM STREAMING (CSV / XLSX) de vendas (com os lotes PEPS de cada venda), compras e despesas
+// A consulta roda dentro de uma transação somente leitura com fetch size: o driver do PostgreSQL só usa
+// cursor (busca TAMANHO_LOTE linhas por vez) com autocommit desligado. Cada linha é escrita na saída assim
+// que chega e descartada, então o heap fica constante qualquer que seja o número de linhas; nenhuma
+// entidade ou DTO é criado. Intervalo opcional [inicio, fim), comparando a coluna de data direto (índices
+// (user_id, data, id)).
+@Service
+public class ExportacaoService {
+
+    public enum Formato { CSV, XLSX }
+
+    public static final int TAMANHO_LOTE = 1000;
+
+    private enum TipoColuna { TEXTO, INTEIRO, DINHEIRO, DATA_HORA, DATA, BOOLEANO }
+
+    private record Coluna(String titulo, String nome, TipoColuna tipo) {
+    }
+
+    // Uma consulta por tipo: colunas do SELECT na mesma ordem da lista de colunas, filtros de data no fim
+    public enum Tipo {
+        // Uma linha por lote consumido (venda sem itens PEPS = uma linha com as colunas do lote vazias)
+        VENDAS("""
+                SELECT v.id, v.data, v.id_pedido, v.plataforma, p.sku, p.nome, v.quantidade, v.preco_venda,
+                       v.frete_pago_pelo_cliente, v.custo_envio, v.tarifa_plataforma, v.custo_produto_vendido,
+                       v.despesas_operacionais, i.lote_id, e.data_entrada, i.quantidade AS lote_quantidade,
+                       i.custo_unitario AS lote_custo_unitario
+                FROM venda v
+                LEFT JOIN produto p ON p.id = v.produto_id
+                LEFT JOIN item_venda i ON i.venda_id = v.id AND i.user_id = v.user_id
+                LEFT JOIN entrada_estoque_historico e ON e.id = i.lote_id
+                WHERE v.user_id = ?""", "v.data", "v.data, v.id, i.id", List.of(
+                new Coluna("id", "id", TipoColuna.INTEIRO),
+                new Coluna("data", "data", TipoColuna.DATA_HORA),
+                new Coluna("idPedido", "id_pedido", TipoColuna.TEXTO),
+                new Coluna("plataforma", "plataforma", TipoColuna.TEXTO),
+                new Coluna("sku", "sku", TipoColuna.TEXTO),
+                new Coluna("produto", "nome", TipoColuna.TEXTO),
+                new Coluna("quantidade", "quantidade", TipoColuna.INTEIRO),
+                new Coluna("precoVenda", "preco_venda", TipoColuna.DINHEIRO),
+                new Coluna("fretePagoPeloCliente", "frete_pago_pelo_cliente", TipoColuna.DINHEIRO),
+                new Coluna("custoEnvio", "custo_envio", TipoColuna.DINHEIRO),
+                new Coluna("tarifaPlataforma", "tarifa_plataforma", TipoColuna.DINHEIRO),
+                new Coluna("custoProdutoVendido", "custo_produto_vendido", TipoColuna.DINHEIRO),
+                new Coluna("despesasOperacionais", "despesas_operacionais", TipoColuna.DINHEIRO),
+                new Coluna("loteId", "lote_id", TipoColuna.INTEIRO),
+                new Coluna("loteDataEntrada", "data_entrada", TipoColuna.DATA_HORA),
+                new Coluna("loteQuantidade", "lote_quantidade", TipoColuna.INTEIRO),
+                new Coluna("loteCustoUnitario", "lote_custo_unitario", TipoColuna.DINHEIRO))),
+
+        COMPRAS("""
+                SELECT e.id, e.data_entrada, e.id_pedido_compra, e.fornecedor, e.categoria, p.sku, p.nome,
+                       e.quantidade, e.saldo, e.custo_unitario, e.custo_total, e.observacoes
+                FROM entrada_estoque_historico e
+                JOIN produto p ON p.id = e.produto_id
+                WHERE e.user_id = ?""", "e.data_entrada", "e.data_entrada, e.id", List.of(
+                new Coluna("id", "id", TipoColuna.INTEIRO),
+                new Coluna("dataEntrada", "data_entrada", TipoColuna.DATA_HORA),
+                new Coluna("idPedidoCompra", "id_pedido_compra", TipoColuna.TEXTO),
+                new Coluna("fornecedor", "fornecedor", TipoColuna.TEXTO),
+                new Coluna("categoria", "categoria", TipoColuna.TEXTO),
+                new Coluna("sku", "sku", TipoColuna.TEXTO),
+                new Coluna("produto", "nome", TipoColuna.TEXTO),
+                new Coluna("quantidade", "quantidade", TipoColuna.INTEIRO),
+                new Coluna("saldo", "saldo", TipoColuna.INTEIRO),
+                new Coluna("custoUnitario", "custo_unitario", TipoColuna.DINHEIRO),
+                new Coluna("custoTotal", "custo_total", TipoColuna.DINHEIRO),
+                new Coluna("observacoes", "observacoes", TipoColuna.TEXTO))),
+
+        DESPESAS("""
+                SELECT d.id, d.data, d.descricao, d.categoria, d.valor, d.recorrente, d.observacoes
+                FROM despesa d
+                WHERE d.user_id = ?""", "d.data", "d.data, d.id", List.of(
+                new Coluna("id", "id", TipoColuna.INTEIRO),
+                new Coluna("data", "data", TipoColuna.DATA),
+                new Coluna("descricao", "descricao", TipoColuna.TEXTO),
+                new Coluna("categoria", "categoria", TipoColuna.TEXTO),
+                new Coluna("valor", "valor", TipoColuna.DINHEIRO),
+                new Coluna("recorrente", "recorrente", TipoColuna.BOOLEANO),
+                new Coluna("observacoes", "observacoes", TipoColuna.TEXTO)));
+
+        private final String sql;
+        private final String colunaData;
+        private final String ordem;
+        private final List<Coluna> colunas;
+
+        Tipo(String sql, String colunaData, String ordem, List<Coluna> colunas) {
+            this.sql = sql;
+            this.colunaData = colunaData;
+            this.ordem = ordem;
+            this.colunas = colunas;
+        }
+
+        // ✅ "vendas", "compras", "despesas"
+        public static Tipo de(String valor) {
+            try {
+                return valueOf(valor.strip().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Exportação inválida: " + valor + " (use vendas, compras ou despesas)");
+            }
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // 📤 Escreve o arquivo em saida e devolve o número de linhas de dados; não fecha saida
+    @Transactional(readOnly = true)
+    public long exportar(User user, Tipo tipo, Formato formato, LocalDate inicio, LocalDate fim, OutputStream saida) {
+        if (inicio != null && fim != null && !inicio.isBefore(fim)) {
+            throw new RuntimeException("Intervalo inválido: inicio deve ser anterior a fim (fim não incluso)");
+        }
+
+        StringBuilder sql = new StringBuilder(tipo.sql);
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(user.getId());
+        if (inicio != null) {
+            sql.append(" AND ").append(tipo.colunaData).append(" >= ?");
+            parametros.add(tipo == Tipo.DESPESAS ? inicio : inicio.atStartOfDay());
+        }
+        if (fim != null) {
+            sql.append(" AND ").append(tipo.colunaData).append(" < ?");
+            parametros.add(tipo == Tipo.DESPESAS ? fim : fim.atStartOfDay());
+        }
+        sql.append(" ORDER BY ").append(tipo.ordem);
+
+        EscritorPlanilha escritor = formato == Formato.XLSX ? new EscritorXlsx(saida) : new EscritorCsv(saida);
+        long[] linhas = {0};
+        try {
+            escritor.cabecalho(tipo.colunas.stream().map(Coluna::titulo).toList());
+            jdbcTemplate.query(conexao -> {
+                PreparedStatement comando = conexao.prepareStatement(sql.toString(),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                comando.setFetchSize(TAMANHO_LOTE);
+                for (int i = 0; i < parametros.size(); i++) {
+                    comando.setObject(i + 1, parametros.get(i));
+                }
+                return comando;
+            }, rs -> {
+                Object[] valores = new Object[tipo.colunas.size()];
+                for (int i = 0; i < valores.length; i++) {
+                    valores[i] = ler(rs, tipo.colunas.get(i));
+                }
+                try {
+                    escritor.linha(valores);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                linhas[0]++;
+            });
+            escritor.finalizar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return linhas[0];
+    }
+
+    private static Object ler(ResultSet rs, Coluna coluna) throws SQLException {
+        Object valor = switch (coluna.tipo()) {
+            case TEXTO -> rs.getString(coluna.nome());
+            case INTEIRO -> rs.getLong(coluna.nome());
+            // float8 (vendas) e numeric (lotes/despesas) saem com 2 casas, pela regra de arredondamento de Dinheiro
+            case DINHEIRO -> Dinheiro.paraDecimal(Dinheiro.deReais(rs.getBigDecimal(coluna.nome())));
+            case DATA_HORA -> {
+                Timestamp data = rs.getTimestamp(coluna.nome());
+                yield data != null ? data.toLocalDateTime() : null;
+            }
+            case DATA -> rs.getObject(coluna.nome(), LocalDate.class);
+            case BOOLEANO -> rs.getBoolean(coluna.nome()) ? "sim" : "não";
+        };
+        return rs.wasNull() ? null : valor;
+    }
+}
@@ -0,0 +1,125 @@
+package com.fernando.erp_vendas.service;
+
+// 🆕 FILTRO DE BLOOM COM CONTADORES (aceita remoção)
+// Responde "com certeza não está" sem falso negativo, ou "talvez esteja" com taxa de falso positivo ~p
+// enquanto o número de elementos não passar da capacidade.
+// 1️⃣ m contadores de 8 bits e k funções de hash (hash duplo: h1 + i·h2), dimensionados para capacidade e p.
+// 2️⃣ Remover decrementa os k contadores; contador saturado (255) nunca é decrementado, para não criar falso
+//    negativo. Só remova o que foi adicionado.
+// 3️⃣ Pronto: até ser marcado (carga inicial terminada) o filtro responde sempre "talvez".
+public class FiltroBloomContador {
+
+    private static final int SATURADO = 0xFF;
+
+    private final byte[] contadores;
+    private final int funcoes;
+    private final int capacidade;
+    private int elementos;
+    private volatile boolean pronto;
+
+    public FiltroBloomContador(int capacidade, double taxaFalsoPositivo) {
+        this.capacidade = Math.max(1, capacidade);
+        double ln2 = Math.log(2);
+        long tamanho = (long) Math.ceil(-this.capacidade * Math.log(taxaFalsoPositivo) / (ln2 * ln2));
+        this.contadores = new byte[(int) Math.min(Math.max(64, tamanho), Integer.MAX_VALUE - 8)];
+        this.funcoes = Math.max(1, (int) Math.round((double) contadores.length / this.capacidade * ln2));
+    }
+
+    public synchronized void adicionar(String valor) {
+        long h1 = hash(valor);
+        long h2 = misturar(h1) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            int posicao = posicao(h1, h2, i);
+            int contador = contadores[posicao] & 0xFF;
+            if (contador < SATURADO) {
+                contadores[posicao] = (byte) (contador + 1);
+            }
+        }
+        elementos++;
+    }
+
+    public synchronized void remover(String valor) {
+        long h1 = hash(valor);
+        long h2 = misturar(h1) | 1;
+        // Com certeza não estava no filtro: decrementar zeraria contadores de outros elementos
+        for (int i = 0; i < funcoes; i++) {
+            if (contadores[posicao(h1, h2, i)] == 0) {
+                return;
+            }
+        }
+        for (int i = 0; i < funcoes; i++) {
+            int posicao = posicao(h1, h2, i);
+            int contador = contadores[posicao] & 0xFF;
+            if (contador < SATURADO) {
+                contadores[posicao] = (byte) (contador - 1);
+            }
+        }
+        elementos = Math.max(0, elementos - 1);
+    }
+
+    // ✅ false = com certeza não foi adicionado; true = talvez (ou filtro ainda não pronto)
+    public synchronized boolean podeConter(String valor) {
+        if (!pronto) {
+            return true;
+        }
+        long h1 = hash(valor);
+        long h2 = misturar(h1) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            if (contadores[posicao(h1, h2, i)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void marcarPronto() {
+        pronto = true;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    // Passou da capacidade: a taxa de falso positivo sobe acima da planejada (hora de reconstruir maior)
+    public synchronized boolean excedeuCapacidade() {
+        return elementos > capacidade;
+    }
+
+    public synchronized int getElementos() {
+        return elementos;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    // 📊 Taxa teórica com a ocupação atual: (1 - e^(-k·n/m))^k
+    public synchronized double taxaFalsoPositivoEstimada() {
+        return Math.pow(1 - Math.exp(-(double) funcoes * elementos / contadores.length), funcoes);
+    }
+
+    public int tamanhoBytes() {
+        return contadores.length;
+    }
+
+    private int posicao(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + i * h2, (long) contadores.length);
+    }
+
+    // FNV-1a de 64 bits sobre os caracteres
+    private static long hash(String valor) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Finalizador do SplitMix64: segundo hash independente do primeiro
+    private static long misturar(long valor) {
+        valor = (valor ^ (valor >>> 30)) * 0xbf58476d1ce4e5b9L;
+        valor = (valor ^ (valor >>> 27)) * 0x94d049bb133111ebL;
+        return valor ^ (valor >>> 31);
+    }
+}
@@ -0,0 +1,332 @@
+package com.fernando.erp_vendas.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// 🆕 IDEMPOTÊNCIA DOS PEDIDOS (webhooks dos marketplaces repetem o mesmo POST várias vezes)
+// 1️⃣ Filtro de pedidos conhecidos: um FiltroBloomContador por usuário e tipo (idPedido das vendas,
+//    idPedidoCompra das compras). "Com certeza novo" dispensa a consulta de unicidade; "talvez" consulta o banco.
+//    Construído na subida a partir das tabelas (e, para quem ainda não tem, na primeira consulta), atualizado após
+//    o commit de cada gravação ou exclusão (PedidosAlteradosEvent) e reconstruído maior ao passar da capacidade.
+//    As constraints UNIQUE de venda.id_pedido e entrada_estoque(id_pedido_compra, user_id) continuam sendo a
+//    garantia final: o filtro só evita consultas. Compras arquivadas (entrada_estoque_arquivo) entram no filtro.
+// 2️⃣ Respostas gravadas: a resposta de cada criação fica por alguns minutos (chave Idempotency-Key ou o próprio
+//    ID do pedido); um reenvio idêntico (mesma impressão digital do corpo) recebe a resposta original.
+//    Impressão digital: SHA-256 do JSON canônico do corpo (chaves ordenadas, números normalizados).
+// 3️⃣ Métricas: consultas evitadas, falsos positivos observados (filtro disse "talvez" e o pedido não existia)
+//    e taxa teórica de cada filtro.
+@Service
+public class IdempotenciaPedidoService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotenciaPedidoService.class);
+
+    // Cabeçalho da resposta repetida de um reenvio
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    // JSON canônico: chaves em ordem e BigDecimal sem notação científica
+    private static final ObjectMapper JSON_CANONICO = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+
+    private static class RespostaGravada {
+        final Long userId;
+        final PedidosAlteradosEvent.Tipo tipo;
+        final String idPedido;
+        final String impressaoDigital;
+        final Object corpo;
+
+        RespostaGravada(Long userId, PedidosAlteradosEvent.Tipo tipo, String idPedido, String impressaoDigital, Object corpo) {
+            this.userId = userId;
+            this.tipo = tipo;
+            this.idPedido = idPedido;
+            this.impressaoDigital = impressaoDigital;
+            this.corpo = corpo;
+        }
+    }
+
+    private static class Contadores {
+        final AtomicLong consultas = new AtomicLong();
+        final AtomicLong comCertezaNovos = new AtomicLong();
+        final AtomicLong talvez = new AtomicLong();
+        final AtomicLong falsosPositivos = new AtomicLong();
+        final AtomicLong filtroEmConstrucao = new AtomicLong();
+        final AtomicLong reconstrucoes = new AtomicLong();
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final int capacidadeMinima;
+    private final double taxaFalsoPositivo;
+    private final boolean construirNaSubida;
+    private final Map<PedidosAlteradosEvent.Tipo, ConcurrentHashMap<Long, FiltroBloomContador>> filtros =
+            new EnumMap<>(PedidosAlteradosEvent.Tipo.class);
+    private final Map<PedidosAlteradosEvent.Tipo, Contadores> contadores = new EnumMap<>(PedidosAlteradosEvent.Tipo.class);
+    private final CacheLimitado<String, RespostaGravada> respostas;
+    private final AtomicLong respostasRepetidas = new AtomicLong();
+    private final AtomicLong chavesComCorpoDiferente = new AtomicLong();
+
+    public IdempotenciaPedidoService(@Value("${app.idempotencia.filtro.capacidade-minima:1024}") int capacidadeMinima,
+                                     @Value("${app.idempotencia.filtro.taxa-falso-positivo:0.01}") double taxaFalsoPositivo,
+                                     @Value("${app.idempotencia.filtro.construir-na-subida:true}") boolean construirNaSubida,
+                                     @Value("${app.idempotencia.respostas.capacidade:10000}") int capacidadeRespostas,
+                                     @Value("${app.idempotencia.respostas.ttl-segundos:600}") long ttlRespostasSegundos) {
+        this.capacidadeMinima = capacidadeMinima;
+        this.taxaFalsoPositivo = taxaFalsoPositivo;
+        this.construirNaSubida = construirNaSubida;
+        for (PedidosAlteradosEvent.Tipo tipo : PedidosAlteradosEvent.Tipo.values()) {
+            filtros.put(tipo, new ConcurrentHashMap<>());
+            contadores.put(tipo, new Contadores());
+        }
+        this.respostas = new CacheLimitado<>("respostas-idempotentes", capacidadeRespostas,
+                Duration.ofSeconds(ttlRespostasSegundos));
+    }
+
+    // ✅ Pedido já gravado pelo usuário: vazio sem consulta quando o filtro garante que é novo
+    public <T> Optional<T> buscarExistente(PedidosAlteradosEvent.Tipo tipo, Long userId, String idPedido,
+                                           Supplier<Optional<T>> consulta) {
+        Contadores contador = contadores.get(tipo);
+        contador.consultas.incrementAndGet();
+        if (idPedido == null) {
+            return consulta.get();
+        }
+
+        FiltroBloomContador filtro = filtro(tipo, userId);
+        if (!filtro.isPronto()) {
+            contador.filtroEmConstrucao.incrementAndGet();
+            return consulta.get();
+        }
+        if (!filtro.podeConter(idPedido)) {
+            contador.comCertezaNovos.incrementAndGet();
+            return Optional.empty();
+        }
+
+        contador.talvez.incrementAndGet();
+        Optional<T> existente = consulta.get();
+        if (existente.isEmpty()) {
+            contador.falsosPositivos.incrementAndGet();
+        }
+        return existente;
+    }
+
+    // ✅ Resposta original de uma criação com a mesma chave e o mesmo corpo (null se não houver)
+    public Object respostaGravada(PedidosAlteradosEvent.Tipo tipo, Long userId, String chave, String impressaoDigital) {
+        if (chave == null) {
+            return null;
+        }
+        RespostaGravada resposta = respostas.buscar(chaveResposta(tipo, userId, chave));
+        if (resposta == null) {
+            return null;
+        }
+        // Mesma chave com outro corpo não é reenvio: segue o fluxo normal (e a validação de duplicidade)
+        if (!resposta.impressaoDigital.equals(impressaoDigital)) {
+            chavesComCorpoDiferente.incrementAndGet();
+            return null;
+        }
+        respostasRepetidas.incrementAndGet();
+        log.info("Reenvio de pedido respondido com a resposta original: tipo={} idPedido={}", tipo, resposta.idPedido);
+        return resposta.corpo;
+    }
+
+    public void gravarResposta(PedidosAlteradosEvent.Tipo tipo, Long userId, String chave, String idPedido,
+                               String impressaoDigital, Object corpo) {
+        if (chave != null) {
+            respostas.gravar(chaveResposta(tipo, userId, chave),
+                    new RespostaGravada(userId, tipo, idPedido, impressaoDigital, corpo));
+        }
+    }
+
+    // ✅ Impressão digital do corpo de uma criação: SHA-256 (hex) do JSON canônico
+    // Mapas com as chaves ordenadas e números pelo valor (10, 10.0 e 1E+1 são o mesmo número): um reenvio com
+    // outra ordem ou outra grafia dos números é o mesmo corpo; corpos diferentes não colidem na prática
+    public static String impressaoDigital(Object corpo) {
+        try {
+            byte[] json = JSON_CANONICO.writeValueAsBytes(canonico(corpo));
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Erro ao calcular a impressão digital do corpo: " + e.getMessage(), e);
+        }
+    }
+
+    private static Object canonico(Object valor) {
+        if (valor instanceof Map<?, ?> mapa) {
+            Map<String, Object> ordenado = new TreeMap<>();
+            mapa.forEach((chave, item) -> ordenado.put(String.valueOf(chave), canonico(item)));
+            return ordenado;
+        }
+        if (valor instanceof Collection<?> itens) {
+            return itens.stream().map(IdempotenciaPedidoService::canonico).toList();
+        }
+        if (valor instanceof Number numero) {
+            BigDecimal decimal = new BigDecimal(numero.toString()).stripTrailingZeros();
+            return decimal.signum() == 0 ? BigDecimal.ZERO : decimal;
+        }
+        return valor;
+    }
+
+    // ✅ Após o commit: o filtro acompanha as gravações e exclusões do usuário
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPedidosAlterados(PedidosAlteradosEvent evento) {
+        if (!evento.getRemovidos().isEmpty()) {
+            // Pedido excluído: um reenvio passa a ser uma nova criação, não a repetição da antiga
+            respostas.invalidarSe(resposta -> resposta.userId.equals(evento.getUserId())
+                    && resposta.tipo == evento.getTipo() && evento.getRemovidos().contains(resposta.idPedido));
+        }
+
+        FiltroBloomContador filtro = filtros.get(evento.getTipo()).get(evento.getUserId());
+        if (filtro == null) {
+            // Ainda sem filtro: a construção lerá o pedido do banco
+            return;
+        }
+        evento.getAdicionados().forEach(filtro::adicionar);
+        // Em construção, remover o que a carga ainda não leu estragaria outros contadores (fica um falso positivo)
+        if (filtro.isPronto()) {
+            evento.getRemovidos().forEach(filtro::remover);
+        }
+        if (filtro.excedeuCapacidade()) {
+            construir(evento.getTipo(), evento.getUserId());
+        }
+    }
+
+    // Alteração em massa (migração, limpeza): os filtros são refeitos do banco sob demanda
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDadosUsuarioAlterados(DadosUsuarioAlteradosEvent evento) {
+        if (evento.getUserId() == null) {
+            filtros.values().forEach(Map::clear);
+            respostas.invalidarTudo();
+        }
+    }
+
+    // 🔄 Na subida: filtros de todos os usuários com pedidos, um usuário por vez
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirTodos() {
+        if (!construirNaSubida) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        int construidos = 0;
+        for (PedidosAlteradosEvent.Tipo tipo : PedidosAlteradosEvent.Tipo.values()) {
+            List<Long> userIds = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT user_id FROM " + tabela(tipo) + " WHERE user_id IS NOT NULL", Long.class);
+            for (Long userId : userIds) {
+                try {
+                    construir(tipo, userId);
+                    construidos++;
+                } catch (Exception e) {
+                    log.error("Erro ao construir filtro de pedidos: tipo={} userId={}", tipo, userId, e);
+                }
+            }
+        }
+        log.info("Filtros de pedidos construídos: filtros={} tempoMs={}", construidos,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private FiltroBloomContador filtro(PedidosAlteradosEvent.Tipo tipo, Long userId) {
+        FiltroBloomContador filtro = filtros.get(tipo).get(userId);
+        return filtro != null ? filtro : construir(tipo, userId);
+    }
+
+    // Lê do primário (JdbcTemplate fora de transação somente leitura): na réplica poderia faltar pedido recente
+    private FiltroBloomContador construir(PedidosAlteradosEvent.Tipo tipo, Long userId) {
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM " + tabela(tipo) + " WHERE user_id = ?", Long.class, userId);
+        FiltroBloomContador novo = new FiltroBloomContador(
+                (int) Math.min(Integer.MAX_VALUE / 16, Math.max(capacidadeMinima, 2 * (total != null ? total : 0))),
+                taxaFalsoPositivo);
+
+        // Registrado ANTES da leitura: o que for confirmado daqui em diante chega pelo evento; o que foi confirmado
+        // antes, a leitura encontra
+        filtros.get(tipo).put(userId, novo);
+        jdbcTemplate.query("SELECT " + coluna(tipo) + " FROM " + tabela(tipo) + " WHERE user_id = ? AND "
+                + coluna(tipo) + " IS NOT NULL", rs -> {
+            novo.adicionar(rs.getString(1));
+        }, userId);
+        novo.marcarPronto();
+        contadores.get(tipo).reconstrucoes.incrementAndGet();
+        return novo;
+    }
+
+    private static String tabela(PedidosAlteradosEvent.Tipo tipo) {
+        // Compras: lotes ativos e arquivados (o idPedidoCompra de um lote arquivado continua ocupado)
+        return tipo == PedidosAlteradosEvent.Tipo.VENDA ? "venda" : "entrada_estoque_historico";
+    }
+
+    private static String coluna(PedidosAlteradosEvent.Tipo tipo) {
+        return tipo == PedidosAlteradosEvent.Tipo.VENDA ? "id_pedido" : "id_pedido_compra";
+    }
+
+    private static String chaveResposta(PedidosAlteradosEvent.Tipo tipo, Long userId, String chave) {
+        return tipo + ":" + userId + ":" + chave;
+    }
+
+    // 📊 Por tipo: consultas evitadas, falsos positivos (observados e teóricos) e memória dos filtros
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> estatisticas = new LinkedHashMap<>();
+        List<Map<String, Object>> porTipo = new ArrayList<>();
+        for (PedidosAlteradosEvent.Tipo tipo : PedidosAlteradosEvent.Tipo.values()) {
+            Contadores contador = contadores.get(tipo);
+            long comCertezaNovos = contador.comCertezaNovos.get();
+            long falsosPositivos = contador.falsosPositivos.get();
+            double taxaEstimadaMaxima = 0;
+            long elementos = 0;
+            long bytes = 0;
+            for (FiltroBloomContador filtro : filtros.get(tipo).values()) {
+                taxaEstimadaMaxima = Math.max(taxaEstimadaMaxima, filtro.taxaFalsoPositivoEstimada());
+                elementos += filtro.getElementos();
+                bytes += filtro.tamanhoBytes();
+            }
+
+            Map<String, Object> filtro = new LinkedHashMap<>();
+            filtro.put("tipo", tipo.name());
+            filtro.put("usuarios", filtros.get(tipo).size());
+            filtro.put("pedidos", elementos);
+            filtro.put("memoriaBytes", bytes);
+            filtro.put("consultas", contador.consultas.get());
+            filtro.put("comCertezaNovos", comCertezaNovos);
+            filtro.put("talvez", contador.talvez.get());
+            filtro.put("falsosPositivos", falsosPositivos);
+            // Entre os pedidos que de fato eram novos, quantos o filtro não conseguiu descartar
+            filtro.put("taxaFalsoPositivoObservada", comCertezaNovos + falsosPositivos > 0
+                    ? (double) falsosPositivos / (comCertezaNovos + falsosPositivos) : 0.0);
+            filtro.put("taxaFalsoPositivoEstimadaMaxima", taxaEstimadaMaxima);
+            filtro.put("taxaFalsoPositivoPlanejada", taxaFalsoPositivo);
+            filtro.put("filtroEmConstrucao", contador.filtroEmConstrucao.get());
+            filtro.put("reconstrucoes", contador.reconstrucoes.get());
+            porTipo.add(filtro);
+        }
+        estatisticas.put("filtros", porTipo);
+        estatisticas.put("respostasRepetidas", respostasRepetidas.get());
+        estatisticas.put("chavesComCorpoDiferente", chavesComCorpoDiferente.get());
+        estatisticas.put("respostas", respostas.estatisticas());
+        return estatisticas;
+    }
+}
@@ -0,0 +1,441 @@
+package com.fernando.erp_vendas.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fernando.erp_vendas.dto.ResultadoImportacao;
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.repository.VendaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 🆕 IMPORTAÇÃO EM MASSA DE VENDAS (CSV / NDJSON)
+// Processa o arquivo em blocos: por bloco são feitas 1 busca de produtos (SKU/ASIN), 1 verificação de
+// pedidos duplicados, 1 leitura travada dos lotes, alocação PEPS em memória na ordem das linhas e
+// escrita com JDBC batching (vendas, itens, saldos dos lotes e dos produtos e agregado dos dashboards),
+// tudo em uma transação por bloco.
+@Service
+public class ImportacaoVendaService {
+
+    public enum Formato { CSV, NDJSON }
+
+    // Recebe o andamento da importação (progresso por bloco e erros por linha)
+    public interface Ouvinte {
+        void progresso(int processadas, int importadas, int erros);
+
+        void erro(int linha, String idPedido, String mensagem);
+    }
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private EntradaEstoqueRepository entradaEstoqueRepository;
+
+    @Autowired
+    private ResumoVendaService resumoVendaService;
+
+    @Autowired
+    private SaldoProdutoService saldoProdutoService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // = INCREMENT BY das sequências (V3) e allocationSize das entidades
+    private static final int BLOCO_IDS = 50;
+
+    @Value("${app.importacao.tamanho-bloco:1000}")
+    private int tamanhoBloco;
+
+    // Linha do arquivo já convertida para os campos da venda
+    private static class LinhaVenda {
+        int numero;
+        String idPedido;
+        String sku;
+        String asin;
+        String plataforma;
+        int quantidade;
+        // Valores em centavos
+        long precoVenda;
+        long fretePagoPeloCliente;
+        long custoEnvio;
+        long tarifaPlataforma;
+        long despesasOperacionais;
+        LocalDateTime data;
+        Long produtoId;
+        Long vendaId;
+        long custoPeps;
+        final List<Object[]> itens = new ArrayList<>();
+    }
+
+    // Lote com saldo disponível para a alocação PEPS em memória
+    private static class LoteDisponivel {
+        final long id;
+        int saldo;
+        final long custoUnitario;
+        boolean alterado;
+
+        LoteDisponivel(long id, int saldo, long custoUnitario) {
+            this.id = id;
+            this.saldo = saldo;
+            this.custoUnitario = custoUnitario;
+        }
+    }
+
+    public ResultadoImportacao importar(BufferedReader leitor, Formato formato, User user, Ouvinte ouvinte) throws IOException {
+        int processadas = 0;
+        int importadas = 0;
+        int erros = 0;
+        int numeroLinha = 0;
+
+        String[] cabecalho = null;
+        char separador = ',';
+        if (formato == Formato.CSV) {
+            String linhaCabecalho = leitor.readLine();
+            if (linhaCabecalho == null) {
+                return new ResultadoImportacao(0, 0, 0);
+            }
+            numeroLinha++;
+            separador = linhaCabecalho.indexOf(';') >= 0 && linhaCabecalho.indexOf(',') < 0 ? ';' : ',';
+            cabecalho = dividirCsv(linhaCabecalho.replace("\uFEFF", ""), separador).toArray(new String[0]);
+        }
+
+        List<LinhaVenda> bloco = new ArrayList<>(tamanhoBloco);
+        String texto;
+        while ((texto = leitor.readLine()) != null) {
+            numeroLinha++;
+            if (texto.isBlank()) continue;
+            processadas++;
+
+            try {
+                Map<String, String> campos = formato == Formato.CSV
+                        ? camposCsv(cabecalho, dividirCsv(texto, separador))
+                        : camposJson(texto);
+                bloco.add(converterLinha(numeroLinha, campos));
+            } catch (Exception e) {
+                erros++;
+                ouvinte.erro(numeroLinha, null, "Linha inválida: " + e.getMessage());
+            }
+
+            if (bloco.size() >= tamanhoBloco) {
+                int[] resultado = processarBloco(bloco, user, ouvinte);
+                importadas += resultado[0];
+                erros += resultado[1];
+                bloco.clear();
+                ouvinte.progresso(processadas, importadas, erros);
+            }
+        }
+
+        if (!bloco.isEmpty()) {
+            int[] resultado = processarBloco(bloco, user, ouvinte);
+            importadas += resultado[0];
+            erros += resultado[1];
+        }
+        ouvinte.progresso(processadas, importadas, erros);
+
+        return new ResultadoImportacao(processadas, importadas, erros);
+    }
+
+    // Processa um bloco em uma única transação. Retorna {importadas, erros}
+    private int[] processarBloco(List<LinhaVenda> bloco, User user, Ouvinte ouvinte) {
+        List<String> errosBloco = new ArrayList<>();
+        List<LinhaVenda> linhasErro = new ArrayList<>();
+
+        Integer importadas;
+        try {
+            importadas = new TransactionTemplate(transactionManager).execute(status -> {
+                // 1️⃣ Resolver produtos por SKU/ASIN em uma única consulta
+                Set<String> skus = new HashSet<>();
+                Set<String> asins = new HashSet<>();
+                for (LinhaVenda linha : bloco) {
+                    if (linha.sku != null) skus.add(linha.sku);
+                    if (linha.asin != null) asins.add(linha.asin);
+                }
+                Map<String, Long> produtoPorSku = new HashMap<>();
+                Map<String, Long> produtoPorAsin = new HashMap<>();
+                for (Object[] produto : produtoRepository.findIdentificadoresBySkuOrAsin(user,
+                        skus.isEmpty() ? Set.of("") : skus, asins.isEmpty() ? Set.of("") : asins)) {
+                    Long id = ((Number) produto[0]).longValue();
+                    if (produto[1] != null) produtoPorSku.put((String) produto[1], id);
+                    if (produto[2] != null) produtoPorAsin.put((String) produto[2], id);
+                }
+
+                // 2️⃣ Pedidos já existentes em uma única consulta
+                Set<String> idsPedido = new HashSet<>();
+                for (LinhaVenda linha : bloco) idsPedido.add(linha.idPedido);
+                Set<String> pedidosExistentes = new HashSet<>(vendaRepository.findIdPedidosExistentes(user, idsPedido));
+
+                List<LinhaVenda> validas = new ArrayList<>();
+                Set<String> pedidosNoBloco = new HashSet<>();
+                for (LinhaVenda linha : bloco) {
+                    linha.produtoId = linha.sku != null ? produtoPorSku.get(linha.sku) : null;
+                    if (linha.produtoId == null && linha.asin != null) {
+                        linha.produtoId = produtoPorAsin.get(linha.asin);
+                    }
+
+                    if (linha.produtoId == null) {
+                        registrarErro(linhasErro, errosBloco, linha, "Produto não encontrado (SKU: " + linha.sku + ", ASIN: " + linha.asin + ")");
+                    } else if (pedidosExistentes.contains(linha.idPedido) || !pedidosNoBloco.add(linha.idPedido)) {
+                        registrarErro(linhasErro, errosBloco, linha, "Já existe uma venda com este ID do pedido");
+                    } else {
+                        validas.add(linha);
+                    }
+                }
+                if (validas.isEmpty()) {
+                    return 0;
+                }
+
+                // 3️⃣ Lotes com saldo dos produtos do bloco (travados), agrupados por produto em ordem PEPS
+                Set<Long> produtoIds = new HashSet<>();
+                for (LinhaVenda linha : validas) produtoIds.add(linha.produtoId);
+                Map<Long, Deque<LoteDisponivel>> lotesPorProduto = new HashMap<>();
+                List<LoteDisponivel> todosLotes = new ArrayList<>();
+                for (Object[] lote : entradaEstoqueRepository.findLotesComSaldoParaAlocacao(produtoIds, user.getId())) {
+                    LoteDisponivel disponivel = new LoteDisponivel(((Number) lote[0]).longValue(),
+                            ((Number) lote[2]).intValue(), Dinheiro.deReais((BigDecimal) lote[3]));
+                    lotesPorProduto.computeIfAbsent(((Number) lote[1]).longValue(), k -> new ArrayDeque<>()).add(disponivel);
+                    todosLotes.add(disponivel);
+                }
+
+                // 4️⃣ Alocação PEPS em memória, na ordem das linhas do arquivo
+                List<LinhaVenda> alocadas = new ArrayList<>();
+                for (LinhaVenda linha : validas) {
+                    Deque<LoteDisponivel> lotes = lotesPorProduto.getOrDefault(linha.produtoId, new ArrayDeque<>());
+                    int disponivel = 0;
+                    for (LoteDisponivel lote : lotes) disponivel += lote.saldo;
+                    if (disponivel < linha.quantidade) {
+                        registrarErro(linhasErro, errosBloco, linha, "Estoque insuficiente! Disponível: " + disponivel + " unidades");
+                        continue;
+                    }
+
+                    int restante = linha.quantidade;
+                    while (restante > 0) {
+                        LoteDisponivel lote = lotes.peekFirst();
+                        int usada = Math.min(restante, lote.saldo);
+                        lote.saldo -= usada;
+                        lote.alterado = true;
+                        linha.itens.add(new Object[]{lote.id, usada, Dinheiro.paraDecimal(lote.custoUnitario)});
+                        linha.custoPeps = Dinheiro.somar(linha.custoPeps, Dinheiro.multiplicar(lote.custoUnitario, usada));
+                        restante -= usada;
+                        if (lote.saldo == 0) lotes.pollFirst();
+                    }
+                    alocadas.add(linha);
+                }
+                if (alocadas.isEmpty()) {
+                    return 0;
+                }
+
+                // 5️⃣ Reservar IDs das vendas e dos itens em blocos da sequência e gravar tudo com JDBC batching
+                List<Long> ids = reservarIds("venda_seq", alocadas.size());
+                Iterator<Long> idsItens = reservarIds("item_venda_seq",
+                        alocadas.stream().mapToInt(linha -> linha.itens.size()).sum()).iterator();
+                List<Object[]> vendas = new ArrayList<>(alocadas.size());
+                List<Object[]> itens = new ArrayList<>();
+                List<Object[]> resumos = new ArrayList<>(alocadas.size());
+                List<Object[]> baixasProduto = new ArrayList<>(alocadas.size());
+                for (int i = 0; i < alocadas.size(); i++) {
+                    LinhaVenda linha = alocadas.get(i);
+                    linha.vendaId = ids.get(i);
+                    vendas.add(new Object[]{linha.vendaId, Timestamp.valueOf(linha.data), linha.idPedido, linha.plataforma,
+                            linha.quantidade, linha.produtoId, Dinheiro.paraReais(linha.precoVenda),
+                            Dinheiro.paraReais(linha.fretePagoPeloCliente), Dinheiro.paraReais(linha.custoEnvio),
+                            Dinheiro.paraReais(linha.tarifaPlataforma), Dinheiro.paraReais(linha.custoPeps),
+                            Dinheiro.paraReais(linha.despesasOperacionais), user.getId()});
+                    for (Object[] item : linha.itens) {
+                        itens.add(new Object[]{idsItens.next(), linha.vendaId, item[0], item[1], item[2], user.getId()});
+                    }
+                    resumos.add(ResumoVendaService.parametros(user.getId(), linha.data, linha.plataforma, linha.produtoId,
+                            linha.quantidade, linha.precoVenda, linha.fretePagoPeloCliente, linha.custoPeps,
+                            linha.custoEnvio, linha.tarifaPlataforma, linha.despesasOperacionais));
+                    baixasProduto.add(new Object[]{linha.produtoId, -linha.quantidade, -linha.custoPeps});
+                }
+
+                List<Object[]> saldos = new ArrayList<>();
+                for (LoteDisponivel lote : todosLotes) {
+                    if (lote.alterado) saldos.add(new Object[]{lote.saldo, lote.id});
+                }
+
+                jdbcTemplate.batchUpdate("INSERT INTO venda (id, data, id_pedido, plataforma, quantidade, produto_id, preco_venda, " +
+                        "frete_pago_pelo_cliente, custo_envio, tarifa_plataforma, custo_produto_vendido, despesas_operacionais, user_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", vendas);
+                jdbcTemplate.batchUpdate("INSERT INTO item_venda (id, venda_id, lote_id, quantidade, custo_unitario, user_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", itens);
+                jdbcTemplate.batchUpdate("UPDATE entrada_estoque SET saldo = ?, versao = versao + 1 WHERE id = ?", saldos);
+                saldoProdutoService.ajustarEmLote(baixasProduto, MovimentoEstoqueService.Tipo.CONSUMO_VENDA);
+                resumoVendaService.registrarEmLote(resumos);
+                // 🆕 Um único delta por bloco (não um por venda) para o dashboard em tempo real
+                eventPublisher.publishEvent(MovimentoDashboardEvent.de(user.getId(), MovimentoDashboardEvent.VENDAS_IMPORTADAS,
+                        "quantidade", alocadas.size(), "lotesAlterados", saldos.size()));
+                eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.VENDA));
+                eventPublisher.publishEvent(new PedidosAlteradosEvent(user.getId(), PedidosAlteradosEvent.Tipo.VENDA,
+                        alocadas.stream().map(linha -> linha.idPedido).toList(), List.of()));
+
+                return alocadas.size();
+            });
+        } catch (Exception e) {
+            // ❌ Falha na gravação: a transação do bloco foi desfeita, todas as linhas do bloco falham
+            linhasErro.clear();
+            errosBloco.clear();
+            for (LinhaVenda linha : bloco) {
+                registrarErro(linhasErro, errosBloco, linha, "Falha ao gravar bloco: " + e.getMessage());
+            }
+            importadas = 0;
+        }
+
+        for (int i = 0; i < linhasErro.size(); i++) {
+            ouvinte.erro(linhasErro.get(i).numero, linhasErro.get(i).idPedido, errosBloco.get(i));
+        }
+        return new int[]{importadas != null ? importadas : 0, linhasErro.size()};
+    }
+
+    // 🆕 Reserva "quantidade" ids como o Hibernate faz (otimizador pooled): cada nextval = N entrega os ids
+    // N-49..N, então um nextval cobre 50 linhas e os ids não colidem com os reservados pelas entidades
+    private List<Long> reservarIds(String sequencia, int quantidade) {
+        List<Long> blocos = jdbcTemplate.queryForList("SELECT nextval(?::regclass) FROM generate_series(1, ?)",
+                Long.class, sequencia, (quantidade + BLOCO_IDS - 1) / BLOCO_IDS);
+        List<Long> ids = new ArrayList<>(quantidade);
+        for (Long fimBloco : blocos) {
+            for (long id = fimBloco - BLOCO_IDS + 1; id <= fimBloco && ids.size() < quantidade; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private void registrarErro(List<LinhaVenda> linhasErro, List<String> errosBloco, LinhaVenda linha, String mensagem) {
+        linhasErro.add(linha);
+        errosBloco.add(mensagem);
+    }
+
+    // ✅ Mesmas chaves aceitas por POST /api/vendas (produto identificado por sku ou asin)
+    private LinhaVenda converterLinha(int numero, Map<String, String> campos) {
+        LinhaVenda linha = new LinhaVenda();
+        linha.numero = numero;
+        linha.idPedido = obrigatorio(campos, "idPedido");
+        linha.sku = vazioParaNull(campos.get("sku"));
+        linha.asin = vazioParaNull(campos.get("asin"));
+        if (linha.sku == null && linha.asin == null) {
+            throw new IllegalArgumentException("sku ou asin é obrigatório");
+        }
+        linha.plataforma = obrigatorio(campos, "plataforma");
+        linha.quantidade = Integer.parseInt(obrigatorio(campos, "quantidade"));
+        if (linha.quantidade <= 0) {
+            throw new IllegalArgumentException("quantidade deve ser maior que zero");
+        }
+        linha.precoVenda = numero(obrigatorio(campos, "precoVenda"));
+        linha.fretePagoPeloCliente = numero(campos.get("fretePagoPeloCliente"));
+        linha.custoEnvio = numero(campos.get("custoEnvio"));
+        linha.tarifaPlataforma = numero(campos.get("tarifaPlataforma"));
+        linha.despesasOperacionais = numero(campos.get("despesasOperacionais"));
+        linha.data = data(campos.get("data"));
+        return linha;
+    }
+
+    private static String obrigatorio(Map<String, String> campos, String nome) {
+        String valor = vazioParaNull(campos.get(nome));
+        if (valor == null) {
+            throw new IllegalArgumentException(nome + " é obrigatório");
+        }
+        return valor;
+    }
+
+    private static String vazioParaNull(String valor) {
+        return valor == null || valor.trim().isEmpty() ? null : valor.trim();
+    }
+
+    // Aceita "12.50" e o formato brasileiro "12,50"; retorna centavos (decimal exato, sem passar por double)
+    private static long numero(String valor) {
+        String texto = vazioParaNull(valor);
+        if (texto == null) return Dinheiro.ZERO;
+        if (texto.indexOf(',') >= 0) {
+            texto = texto.replace(".", "").replace(',', '.');
+        }
+        return Dinheiro.deReais(new BigDecimal(texto));
+    }
+
+    private static LocalDateTime data(String valor) {
+        String texto = vazioParaNull(valor);
+        if (texto == null) return LocalDateTime.now();
+        if (texto.length() == 10) return LocalDateTime.parse(texto + "T00:00:00");
+        if (texto.length() == 16) return LocalDateTime.parse(texto + ":00");
+        return LocalDateTime.parse(texto);
+    }
+
+    private Map<String, String> camposJson(String texto) throws IOException {
+        Map<String, String> campos = new HashMap<>();
+        objectMapper.readTree(texto).properties().forEach(campo ->
+                campos.put(campo.getKey(), campo.getValue().isNull() ? null : campo.getValue().asText()));
+        return campos;
+    }
+
+    private static Map<String, String> camposCsv(String[] cabecalho, List<String> valores) {
+        Map<String, String> campos = new LinkedHashMap<>();
+        for (int i = 0; i < cabecalho.length && i < valores.size(); i++) {
+            campos.put(cabecalho[i].trim(), valores.get(i));
+        }
+        return campos;
+    }
+
+    // CSV simples com suporte a campos entre aspas ("a,b" e aspas escapadas "")
+    private static List<String> dividirCsv(String linha, char separador) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                valores.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        valores.add(atual.toString());
+        return valores;
+    }
+}
@@ -2,6 +2,7 @@ package com.fernando.erp_vendas.service;
 
 import com.fernando.erp_vendas.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -21,6 +22,10 @@ public class JwtService {
     private final String secretKey = "minhaChaveSecretaSuperSeguraParaJWTTokenMultivendas2025QueTemExatamente64BytesParaHS256";
     private final long expiration = 86400000; // 24 horas
 
+    // 🆕 Chave HMAC e parser construídos UMA vez (são imutáveis e thread-safe)
+    private final Key signKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signKey).build();
+
     // Extrair username do token
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -37,31 +42,22 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    // Extrair todos os claims
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    // Verificar se o token expirou
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    // 🆕 Extrair todos os claims com UMA verificação (assinatura e expiração)
+    // Lança JwtException se o token for inválido ou estiver expirado
+    public Claims extractAllClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
     }
 
     // ✅ CORREÇÃO: Manter compatibilidade com UserDetails
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && claims.getExpiration().after(new Date()));
     }
 
     // ✅ CORREÇÃO CRÍTICA: Adicionar sobrecarga para User
     public Boolean validateToken(String token, User user) {
-        final String username = extractUsername(token);
-        return (username.equals(user.getEmail()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(user.getEmail()) && claims.getExpiration().after(new Date()));
     }
 
     // Gerar token
@@ -77,13 +73,7 @@ public class JwtService {
                 .setSubject(userName)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
-
-    // ✅ CORREÇÃO: Usar chave FIXA baseada na string secreta
-    private Key getSignKey() {
-        byte[] keyBytes = secretKey.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
 }
\ No newline at end of file
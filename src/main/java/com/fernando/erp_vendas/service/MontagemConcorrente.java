@@ -0,0 +1,134 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.MetadadosMontagem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// 🆕 MONTAGEM CONCORRENTE DE UMA RESPOSTA A PARTIR DE CONSULTAS INDEPENDENTES (uma thread virtual por fragmento)
+// O tempo total passa a ser o do fragmento mais lento, não a soma de todos.
+// 1️⃣ Escopo: as threads pertencem à montagem (try-with-resources); no close() o que ainda estiver rodando é
+//    interrompido, então nenhuma consulta sobrevive à requisição que a pediu.
+// 2️⃣ Prazo por fragmento, contado a partir do início da montagem (todos começam juntos): quem não responder
+//    a tempo ou falhar devolve null e a montagem fica parcial.
+// 3️⃣ Contexto: SecurityContext (usuário atual, usado também no roteamento para a réplica) e MDC (id da
+//    requisição nos logs) são copiados para cada thread.
+// Cada fragmento usa a sua conexão e a devolve no fim (nenhum segura duas), passando pelo LimitadorConexoesBanco.
+public class MontagemConcorrente implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MontagemConcorrente.class);
+
+    private final ExecutorService executor =
+            new DelegatingSecurityContextExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+    private final long inicio = System.nanoTime();
+    private final long prazoNanos;
+    private final List<Fragmento<?>> fragmentos = new ArrayList<>();
+
+    public MontagemConcorrente(Duration prazoPorFragmento) {
+        this.prazoNanos = prazoPorFragmento.toNanos();
+    }
+
+    // ✅ Dispara a consulta imediatamente; o resultado é lido depois com Fragmento.obter()
+    public <T> Fragmento<T> iniciar(String nome, Supplier<T> consulta) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        Fragmento<T> fragmento = new Fragmento<>(nome);
+        fragmento.futuro = executor.submit(() -> {
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            long inicioFragmento = System.nanoTime();
+            try {
+                return consulta.get();
+            } finally {
+                fragmento.duracaoNanos = System.nanoTime() - inicioFragmento;
+                MDC.clear();
+            }
+        });
+        fragmentos.add(fragmento);
+        return fragmento;
+    }
+
+    // 📊 Tempo e status de cada fragmento (aguarda os que ainda não foram lidos, até o prazo)
+    public MetadadosMontagem metadados() {
+        List<MetadadosMontagem.Fragmento> tempos = new ArrayList<>();
+        boolean parcial = false;
+        for (Fragmento<?> fragmento : fragmentos) {
+            fragmento.obter();
+            parcial |= !MetadadosMontagem.OK.equals(fragmento.status);
+            tempos.add(new MetadadosMontagem.Fragmento(fragmento.nome,
+                    TimeUnit.NANOSECONDS.toMillis(fragmento.duracaoNanos), fragmento.status));
+        }
+        return new MetadadosMontagem(parcial, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), tempos);
+    }
+
+    // Todos os fragmentos falharam ou estouraram o prazo?
+    public boolean nenhumRespondeu() {
+        for (Fragmento<?> fragmento : fragmentos) {
+            if (fragmento.respondeu()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public final class Fragmento<T> {
+        private final String nome;
+        private Future<T> futuro;
+        private volatile long duracaoNanos;
+        private String status;
+        private T valor;
+
+        private Fragmento(String nome) {
+            this.nome = nome;
+        }
+
+        // ✅ Resultado da consulta, ou null se ela falhou ou não terminou dentro do prazo
+        public T obter() {
+            if (status != null) {
+                return valor;
+            }
+            try {
+                valor = futuro.get(Math.max(0, inicio + prazoNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                status = MetadadosMontagem.OK;
+            } catch (TimeoutException e) {
+                futuro.cancel(true);
+                duracaoNanos = System.nanoTime() - inicio;
+                status = MetadadosMontagem.TEMPO_ESGOTADO;
+                log.warn("Fragmento {} sem resposta em {}ms: resposta parcial", nome,
+                        TimeUnit.NANOSECONDS.toMillis(prazoNanos));
+            } catch (ExecutionException e) {
+                status = MetadadosMontagem.ERRO;
+                log.warn("Fragmento {} falhou: resposta parcial", nome, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futuro.cancel(true);
+                status = MetadadosMontagem.ERRO;
+            }
+            return valor;
+        }
+
+        // ✅ A consulta terminou dentro do prazo (o resultado pode ser null mesmo assim, ex.: SUM sem linhas)
+        public boolean respondeu() {
+            obter();
+            return MetadadosMontagem.OK.equals(status);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.fernando.erp_vendas.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 🆕 EVENTO: alteração pontual dos dados do dashboard de um usuário (venda criada, lote consumido, despesa...)
+// Enviado após o commit, como delta, a quem acompanha o dashboard por SSE (EventosDashboardService).
+// Os dados são só o necessário para o frontend atualizar a tela sem recarregar tudo.
+public class MovimentoDashboardEvent {
+
+    public static final String VENDA_CRIADA = "venda_criada";
+    public static final String VENDA_ATUALIZADA = "venda_atualizada";
+    public static final String VENDA_EXCLUIDA = "venda_excluida";
+    public static final String VENDAS_IMPORTADAS = "vendas_importadas";
+    public static final String LOTES_CONSUMIDOS = "lotes_consumidos";
+    public static final String COMPRA_REGISTRADA = "compra_registrada";
+    public static final String COMPRA_ATUALIZADA = "compra_atualizada";
+    public static final String COMPRA_EXCLUIDA = "compra_excluida";
+    public static final String DESPESA_ADICIONADA = "despesa_adicionada";
+    public static final String DESPESA_ATUALIZADA = "despesa_atualizada";
+    public static final String DESPESA_EXCLUIDA = "despesa_excluida";
+
+    private final Long userId;
+    private final String tipo;
+    private final Map<String, Object> dados;
+
+    public MovimentoDashboardEvent(Long userId, String tipo, Map<String, Object> dados) {
+        this.userId = userId;
+        this.tipo = tipo;
+        this.dados = dados;
+    }
+
+    // Pares chave, valor (valores nulos são omitidos)
+    public static MovimentoDashboardEvent de(Long userId, String tipo, Object... chavesEValores) {
+        Map<String, Object> dados = new LinkedHashMap<>();
+        for (int i = 0; i < chavesEValores.length; i += 2) {
+            if (chavesEValores[i + 1] != null) {
+                dados.put((String) chavesEValores[i], chavesEValores[i + 1]);
+            }
+        }
+        return new MovimentoDashboardEvent(userId, tipo, dados);
+    }
+
+    public Long getUserId() { return userId; }
+    public String getTipo() { return tipo; }
+    public Map<String, Object> getDados() { return dados; }
+}
@@ -0,0 +1,154 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.ValoracaoEstoque;
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// 🆕 LIVRO DE MOVIMENTOS DE ESTOQUE E CONSULTA DO ESTOQUE EM UMA DATA
+// 1️⃣ Movimentos (movimento_estoque, V5): gravados pelo SaldoProdutoService no mesmo comando que altera o
+//    saldo mantido do produto, então entram e saem junto com a transação da venda/compra. Só INSERT.
+// 2️⃣ Fotografias (estoque_fotografia): uma vez por dia (app.estoque.fotografia.cron), o saldo acumulado até
+//    a meia-noite de cada produto que teve movimento desde o último corte = fotografia anterior + movimentos.
+// 3️⃣ Estoque em uma data: por produto, a última fotografia até a data + os movimentos entre ela e a data
+//    (no máximo um dia de movimentos, se o job rodou). Nunca repassa os itens de venda nem o histórico todo.
+// A data de um movimento é a do registro (início da transação), não a data informada na venda/compra:
+// vendas lançadas com data retroativa entram no estoque do dia em que foram registradas.
+@Service
+public class MovimentoEstoqueService {
+
+    private static final Logger log = LoggerFactory.getLogger(MovimentoEstoqueService.class);
+
+    public enum Tipo { ABERTURA, COMPRA, CONSUMO_VENDA, REVERSAO_VENDA, AJUSTE, RECONCILIACAO }
+
+    // Produtos com movimento em [desde, corte): nova fotografia = anterior + movimentos desde ela
+    private static final String SQL_GERAR_FOTOGRAFIAS = """
+            WITH produtos AS (
+                SELECT DISTINCT m.produto_id FROM movimento_estoque m
+                WHERE m.data_movimento >= :desde AND m.data_movimento < :corte
+            )
+            INSERT INTO estoque_fotografia (produto_id, corte, user_id, quantidade, valor)
+            SELECT p.produto_id, :corte, c.user_id, COALESCE(f.quantidade, 0) + c.quantidade, COALESCE(f.valor, 0) + c.valor
+            FROM produtos p
+            LEFT JOIN LATERAL (
+                SELECT f.corte, f.quantidade, f.valor FROM estoque_fotografia f
+                WHERE f.produto_id = p.produto_id AND f.corte < :corte
+                ORDER BY f.corte DESC LIMIT 1
+            ) f ON true
+            CROSS JOIN LATERAL (
+                SELECT MAX(m.user_id) AS user_id, SUM(m.quantidade) AS quantidade, SUM(m.valor) AS valor
+                FROM movimento_estoque m
+                WHERE m.produto_id = p.produto_id AND m.data_movimento < :corte
+                  AND m.data_movimento >= COALESCE(f.corte, '-infinity'::timestamp)
+            ) c
+            ON CONFLICT (produto_id, corte) DO NOTHING
+            """;
+
+    // Por produto com movimento do usuário: última fotografia até a data + cauda de movimentos
+    // (índice produto_id, data_movimento). Os produtos vêm do próprio livro, não de produto: um produto
+    // excluído continua nas datas em que tinha estoque (nome/SKU nulos). "produtos" percorre o índice
+    // (user_id, produto_id) pulando de produto em produto, sem ler todos os movimentos do usuário.
+    public static final String SQL_ESTOQUE_EM = """
+            WITH RECURSIVE produtos AS (
+                (SELECT m.produto_id FROM movimento_estoque m
+                 WHERE m.user_id = :userId ORDER BY m.produto_id LIMIT 1)
+                UNION ALL
+                SELECT (SELECT m.produto_id FROM movimento_estoque m
+                        WHERE m.user_id = :userId AND m.produto_id > pr.produto_id ORDER BY m.produto_id LIMIT 1)
+                FROM produtos pr WHERE pr.produto_id IS NOT NULL
+            )
+            SELECT pr.produto_id AS id, p.nome, p.sku,
+                   COALESCE(f.quantidade, 0) + COALESCE(c.quantidade, 0) AS quantidade,
+                   COALESCE(f.valor, 0) + COALESCE(c.valor, 0) AS valor,
+                   c.movimentos
+            FROM produtos pr
+            LEFT JOIN produto p ON p.id = pr.produto_id
+            LEFT JOIN LATERAL (
+                SELECT f.corte, f.quantidade, f.valor FROM estoque_fotografia f
+                WHERE f.produto_id = pr.produto_id AND f.corte <= :ate
+                ORDER BY f.corte DESC LIMIT 1
+            ) f ON true
+            CROSS JOIN LATERAL (
+                SELECT SUM(m.quantidade) AS quantidade, SUM(m.valor) AS valor, COUNT(*) AS movimentos
+                FROM movimento_estoque m
+                WHERE m.produto_id = pr.produto_id AND m.data_movimento < :ate
+                  AND m.data_movimento >= COALESCE(f.corte, '-infinity'::timestamp)
+            ) c
+            WHERE pr.produto_id IS NOT NULL
+            ORDER BY p.nome NULLS LAST, pr.produto_id
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Espera após a meia-noite antes de fotografar o dia: transações iniciadas antes do corte já terminaram
+    private final long margemMinutos;
+
+    public MovimentoEstoqueService(@Value("${app.estoque.fotografia.margem-minutos:15}") long margemMinutos) {
+        this.margemMinutos = margemMinutos;
+    }
+
+    // 📦 Estoque e valor PEPS de cada produto do usuário no FIM do dia informado (produtos zerados ficam de fora)
+    @Transactional(readOnly = true)
+    public ValoracaoEstoque valoracao(User user, LocalDate data) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("userId", user.getId())
+                .addValue("ate", Timestamp.valueOf(data.plusDays(1).atStartOfDay()));
+        List<ValoracaoEstoque.Item> itens = new ArrayList<>();
+        long[] movimentosLidos = new long[1];
+        namedParameterJdbcTemplate.query(SQL_ESTOQUE_EM, parametros, rs -> {
+            movimentosLidos[0] += rs.getLong("movimentos");
+            int quantidade = rs.getInt("quantidade");
+            long valor = Dinheiro.deReais(rs.getBigDecimal("valor"));
+            if (quantidade != 0 || valor != Dinheiro.ZERO) {
+                itens.add(new ValoracaoEstoque.Item(rs.getLong("id"), rs.getString("nome"), rs.getString("sku"),
+                        quantidade, valor));
+            }
+        });
+        return new ValoracaoEstoque(data, itens, movimentosLidos[0]);
+    }
+
+    // 📸 Fotografias com corte na meia-noite de hoje (job diário; repetir no mesmo dia não duplica)
+    @Scheduled(cron = "${app.estoque.fotografia.cron:0 30 0 * * *}")
+    public void fotografarDia() {
+        LocalDateTime corte = LocalDate.now().atStartOfDay();
+        if (LocalDateTime.now().isBefore(corte.plusMinutes(margemMinutos))) {
+            corte = corte.minusDays(1);
+        }
+        try {
+            int produtos = gerarFotografias(corte);
+            log.info("Fotografias de estoque geradas: corte={} produtos={}", corte, produtos);
+        } catch (Exception e) {
+            log.error("Erro ao gerar fotografias de estoque: corte={}", corte, e);
+        }
+    }
+
+    // ✅ Uma fotografia por produto com movimento desde o corte anterior; retorna quantas foram gravadas
+    @Transactional
+    public int gerarFotografias(LocalDateTime corte) {
+        Timestamp anterior = jdbcTemplate.queryForObject(
+                "SELECT MAX(corte) FROM estoque_fotografia WHERE corte < ?", Timestamp.class, Timestamp.valueOf(corte));
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("corte", Timestamp.valueOf(corte))
+                .addValue("desde", anterior != null ? anterior : Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0)));
+        return namedParameterJdbcTemplate.update(SQL_GERAR_FOTOGRAFIAS, parametros);
+    }
+}
@@ -0,0 +1,45 @@
+package com.fernando.erp_vendas.service;
+
+import java.util.Collection;
+import java.util.List;
+
+// 🆕 EVENTO: IDs de pedido de venda (idPedido) ou de compra (idPedidoCompra) gravados ou excluídos de um usuário
+// Consumido após o commit pelos filtros de pedidos conhecidos (IdempotenciaPedidoService).
+public class PedidosAlteradosEvent {
+
+    public enum Tipo { VENDA, COMPRA }
+
+    private final Long userId;
+    private final Tipo tipo;
+    private final Collection<String> adicionados;
+    private final Collection<String> removidos;
+
+    public PedidosAlteradosEvent(Long userId, Tipo tipo, Collection<String> adicionados, Collection<String> removidos) {
+        this.userId = userId;
+        this.tipo = tipo;
+        this.adicionados = adicionados;
+        this.removidos = removidos;
+    }
+
+    public static PedidosAlteradosEvent adicionado(Long userId, Tipo tipo, String idPedido) {
+        return new PedidosAlteradosEvent(userId, tipo, idPedido != null ? List.of(idPedido) : List.of(), List.of());
+    }
+
+    public static PedidosAlteradosEvent removido(Long userId, Tipo tipo, String idPedido) {
+        return new PedidosAlteradosEvent(userId, tipo, List.of(), idPedido != null ? List.of(idPedido) : List.of());
+    }
+
+    // Edição que trocou o ID do pedido (nenhuma mudança se for o mesmo)
+    public static PedidosAlteradosEvent trocado(Long userId, Tipo tipo, String anterior, String atual) {
+        if (anterior == null ? atual == null : anterior.equals(atual)) {
+            return new PedidosAlteradosEvent(userId, tipo, List.of(), List.of());
+        }
+        return new PedidosAlteradosEvent(userId, tipo,
+                atual != null ? List.of(atual) : List.of(), anterior != null ? List.of(anterior) : List.of());
+    }
+
+    public Long getUserId() { return userId; }
+    public Tipo getTipo() { return tipo; }
+    public Collection<String> getAdicionados() { return adicionados; }
+    public Collection<String> getRemovidos() { return removidos; }
+}
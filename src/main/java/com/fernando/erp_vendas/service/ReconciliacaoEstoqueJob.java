@@ -0,0 +1,47 @@
+package com.fernando.erp_vendas.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// 🆕 JOB DE RECONCILIAÇÃO DO SALDO DESNORMALIZADO DOS PRODUTOS
+// Roda na subida (popula as colunas na primeira vez) e depois periodicamente, um usuário por transação
+// para não travar os produtos de todos ao mesmo tempo. Divergências encontradas são corrigidas e logadas.
+@Component
+public class ReconciliacaoEstoqueJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliacaoEstoqueJob.class);
+
+    @Autowired
+    private SaldoProdutoService saldoProdutoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Scheduled(initialDelayString = "${app.estoque.reconciliacao.atraso-inicial-ms:0}",
+            fixedDelayString = "${app.estoque.reconciliacao.intervalo-ms:3600000}")
+    public void reconciliar() {
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM produto WHERE user_id IS NOT NULL", Long.class);
+
+        int corrigidos = 0;
+        for (Long userId : userIds) {
+            try {
+                corrigidos += saldoProdutoService.reconciliar(userId);
+            } catch (Exception e) {
+                log.error("Erro na reconciliação de estoque: userId={}", userId, e);
+            }
+        }
+
+        if (corrigidos > 0) {
+            log.warn("Reconciliação de estoque concluída: usuarios={} produtosCorrigidos={}", userIds.size(), corrigidos);
+        } else {
+            log.info("Reconciliação de estoque concluída sem divergências: usuarios={}", userIds.size());
+        }
+    }
+}
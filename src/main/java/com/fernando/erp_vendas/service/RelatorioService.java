@@ -0,0 +1,207 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.Granularidade;
+import com.fernando.erp_vendas.dto.SerieTemporal;
+import com.fernando.erp_vendas.dto.SerieValores;
+import com.fernando.erp_vendas.dto.VendaDTO;
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 🆕 RELATÓRIOS EM SÉRIE TEMPORAL (faturamento, custo, lucro, unidades e despesas por período)
+// Vendas vêm do agregado diário (venda_resumo_diario), nunca da tabela de vendas: o custo da consulta
+// depende de dias × plataformas × produtos com venda no intervalo, não do número de vendas.
+// Intervalos sempre semiabertos [inicio, fim) comparando a coluna direto (dia >= :inicio AND dia < :fim),
+// então os índices (user_id, dia...) e (user_id, data, id) delimitam as linhas lidas. O agrupamento por
+// período é feito no banco (date_trunc) e os períodos sem movimento são preenchidos aqui com zero.
+@Service
+public class RelatorioService {
+
+    public static final Set<String> DIVISOES = Set.of("plataforma", "produto");
+    public static final int MAXIMO_PERIODOS = 1000;
+    public static final int SERIES_PADRAO = 10;
+    public static final int MAXIMO_SERIES = 50;
+
+    // Fórmulas de TotaisVendas: faturamento = preço + frete; custo = PEPS + envio + tarifa + despesas da venda
+    // %1$s = chave, %2$s = rótulo, %3$s = JOIN extra
+    private static final String SQL_VENDAS = """
+            SELECT date_trunc(:campo, r.dia::timestamp)::date AS periodo, %1$s AS chave, %2$s AS rotulo,
+                   sum(r.quantidade_vendas) AS vendas, sum(r.unidades) AS unidades,
+                   sum(r.preco_venda + r.frete_pago_pelo_cliente) AS faturamento,
+                   sum(r.custo_produto_vendido + r.custo_envio + r.tarifa_plataforma + r.despesas_operacionais) AS custo
+            FROM venda_resumo_diario r %3$s
+            WHERE r.user_id = :userId AND r.dia >= :inicio AND r.dia < :fim
+            GROUP BY 1, 2, 3
+            """;
+
+    private static final String SQL_VENDAS_TOTAIS = SQL_VENDAS.formatted("''", "''", "");
+    private static final String SQL_VENDAS_POR_PLATAFORMA = SQL_VENDAS.formatted("r.plataforma", "r.plataforma", "");
+    private static final String SQL_VENDAS_POR_PRODUTO = SQL_VENDAS.formatted("r.produto_id::text", "p.nome",
+            "JOIN produto p ON p.id = r.produto_id");
+
+    private static final String SQL_DESPESAS = """
+            SELECT date_trunc(:campo, d.data::timestamp)::date AS periodo, sum(d.valor) AS total
+            FROM despesa d
+            WHERE d.user_id = :userId AND d.data >= :inicio AND d.data < :fim
+            GROUP BY 1
+            """;
+
+    // 🆕 RANKING: métrica da API -> coluna gerada de venda (V4), cada uma com índice (user_id, coluna, id)
+    public static final Map<String, String> METRICAS_RANKING = Map.of(
+            "faturamento", "faturamento",
+            "custoEfetivoTotal", "custo_efetivo_total",
+            "lucroBruto", "lucro_bruto",
+            "lucroLiquido", "lucro_liquido",
+            "roi", "roi");
+    public static final int RANKING_PADRAO = 50;
+    public static final int MAXIMO_RANKING = 500;
+
+    // %1$s = coluna da métrica, %2$s = filtros opcionais, %3$s = sentido (ASC/DESC, o mesmo no id para usar o índice)
+    private static final String SQL_RANKING = """
+            SELECT v.id, v.data, v.id_pedido, v.plataforma, v.quantidade, p.id AS produto_id, p.nome, p.sku,
+                   v.preco_venda, v.frete_pago_pelo_cliente, v.custo_envio, v.tarifa_plataforma,
+                   v.custo_produto_vendido, v.despesas_operacionais
+            FROM venda v
+            LEFT JOIN produto p ON p.id = v.produto_id
+            WHERE v.user_id = :userId %2$s
+            ORDER BY v.%1$s %3$s, v.id %3$s
+            LIMIT :limite
+            """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // 📈 Séries do intervalo [inicio, fim); divisao = null (só totais), "plataforma" ou "produto".
+    // Na divisão por produto ficam os limiteSeries produtos de maior faturamento; o resto vira "Outros".
+    @Transactional(readOnly = true)
+    public SerieTemporal serieTemporal(User user, LocalDate inicio, LocalDate fim, Granularidade granularidade,
+                                       String divisao, Integer limiteSeries) {
+        if (inicio == null || fim == null || !inicio.isBefore(fim)) {
+            throw new RuntimeException("Intervalo inválido: inicio deve ser anterior a fim (fim não incluso)");
+        }
+        if (divisao != null && !DIVISOES.contains(divisao)) {
+            throw new RuntimeException("Divisão inválida: " + divisao + " (use " + DIVISOES + ")");
+        }
+
+        // 1️⃣ Todos os períodos do intervalo (é o que preenche os buracos)
+        List<LocalDate> periodos = new ArrayList<>();
+        Map<LocalDate, Integer> indices = new HashMap<>();
+        for (LocalDate periodo = granularidade.truncar(inicio); periodo.isBefore(fim); periodo = granularidade.proximo(periodo)) {
+            if (periodos.size() == MAXIMO_PERIODOS) {
+                throw new RuntimeException("Intervalo com mais de " + MAXIMO_PERIODOS + " períodos: "
+                        + "reduza o intervalo ou use uma granularidade maior");
+            }
+            indices.put(periodo, periodos.size());
+            periodos.add(periodo);
+        }
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("campo", granularidade.getCampoSql())
+                .addValue("userId", user.getId())
+                .addValue("inicio", inicio)
+                .addValue("fim", fim);
+
+        // 2️⃣ Vendas agrupadas por período (e chave), somadas nos totais e na série da chave
+        SerieValores totais = new SerieValores("total", "Total", periodos.size()).comDespesas();
+        Map<String, SerieValores> porChave = new LinkedHashMap<>();
+        String sql = divisao == null ? SQL_VENDAS_TOTAIS
+                : divisao.equals("plataforma") ? SQL_VENDAS_POR_PLATAFORMA : SQL_VENDAS_POR_PRODUTO;
+        namedParameterJdbcTemplate.query(sql, parametros, rs -> {
+            int periodo = indices.get(rs.getObject("periodo", LocalDate.class));
+            long vendas = rs.getLong("vendas");
+            long unidades = rs.getLong("unidades");
+            long faturamento = Dinheiro.deReais(rs.getBigDecimal("faturamento"));
+            long custo = Dinheiro.deReais(rs.getBigDecimal("custo"));
+            totais.acumular(periodo, vendas, unidades, faturamento, custo);
+            if (divisao != null) {
+                String chave = rs.getString("chave");
+                String rotulo = chave.isEmpty() ? "Sem plataforma" : rs.getString("rotulo");
+                porChave.computeIfAbsent(chave, k -> new SerieValores(k, rotulo, periodos.size()))
+                        .acumular(periodo, vendas, unidades, faturamento, custo);
+            }
+        });
+
+        // 3️⃣ Despesas (não têm plataforma/produto: só nos totais)
+        namedParameterJdbcTemplate.query(SQL_DESPESAS, parametros, rs -> {
+            totais.acumularDespesas(indices.get(rs.getObject("periodo", LocalDate.class)),
+                    Dinheiro.deReais(rs.getBigDecimal("total")));
+        });
+
+        return new SerieTemporal(inicio, fim, granularidade, divisao, periodos, totais,
+                divisao != null ? maioresSeries(porChave, limiteSeries, periodos.size()) : null);
+    }
+
+    // 🏆 RANKING DE VENDAS: as N vendas de maior (ou menor) métrica, opcionalmente de uma plataforma e de
+    // um intervalo [inicio, fim). Lê as colunas gravadas pelo banco (V4) na ordem do índice da métrica,
+    // parando na N-ésima linha (nunca carrega todas as vendas do usuário).
+    @Transactional(readOnly = true)
+    public List<VendaDTO> rankingVendas(User user, String metrica, boolean maiores, Integer limite,
+                                        String plataforma, LocalDate inicio, LocalDate fim) {
+        String coluna = METRICAS_RANKING.get(metrica);
+        if (coluna == null) {
+            throw new RuntimeException("Métrica inválida: " + metrica + " (use " + METRICAS_RANKING.keySet() + ")");
+        }
+        if (inicio != null && fim != null && !inicio.isBefore(fim)) {
+            throw new RuntimeException("Intervalo inválido: inicio deve ser anterior a fim (fim não incluso)");
+        }
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("userId", user.getId())
+                .addValue("limite", Math.min(Math.max(limite != null ? limite : RANKING_PADRAO, 1), MAXIMO_RANKING));
+        StringBuilder filtros = new StringBuilder();
+        if (plataforma != null && !plataforma.isBlank()) {
+            filtros.append("AND v.plataforma = :plataforma ");
+            parametros.addValue("plataforma", plataforma);
+        }
+        if (inicio != null) {
+            filtros.append("AND v.data >= :inicio ");
+            parametros.addValue("inicio", inicio.atStartOfDay());
+        }
+        if (fim != null) {
+            filtros.append("AND v.data < :fim ");
+            parametros.addValue("fim", fim.atStartOfDay());
+        }
+
+        String sql = SQL_RANKING.formatted(coluna, filtros, maiores ? "DESC" : "ASC");
+        return namedParameterJdbcTemplate.query(sql, parametros, (rs, i) -> new VendaDTO(
+                rs.getLong("id"), rs.getTimestamp("data").toLocalDateTime(), rs.getString("id_pedido"),
+                rs.getString("plataforma"), rs.getObject("quantidade", Integer.class), rs.getObject("produto_id", Long.class),
+                rs.getString("nome"), rs.getString("sku"),
+                Dinheiro.deReais(rs.getDouble("preco_venda")), Dinheiro.deReais(rs.getDouble("frete_pago_pelo_cliente")),
+                Dinheiro.deReais(rs.getDouble("custo_envio")), Dinheiro.deReais(rs.getDouble("tarifa_plataforma")),
+                Dinheiro.deReais(rs.getDouble("custo_produto_vendido")),
+                Dinheiro.deReais(rs.getDouble("despesas_operacionais"))));
+    }
+
+    // ✅ Séries por faturamento no intervalo, maiores primeiro; além do limite, somadas em "Outros"
+    private static List<SerieValores> maioresSeries(Map<String, SerieValores> porChave, Integer limiteSeries,
+                                                    int quantidadePeriodos) {
+        int limite = Math.min(Math.max(limiteSeries != null ? limiteSeries : SERIES_PADRAO, 1), MAXIMO_SERIES);
+        List<SerieValores> series = new ArrayList<>(porChave.values());
+        series.sort(Comparator.comparingLong(SerieValores::calcularFaturamentoTotalCentavos).reversed()
+                .thenComparing(SerieValores::getChave));
+        if (series.size() <= limite) {
+            return series;
+        }
+        SerieValores outros = new SerieValores("outros", "Outros", quantidadePeriodos);
+        for (SerieValores serie : series.subList(limite, series.size())) {
+            outros.acumular(serie);
+        }
+        List<SerieValores> resultado = new ArrayList<>(series.subList(0, limite));
+        resultado.add(outros);
+        return resultado;
+    }
+}
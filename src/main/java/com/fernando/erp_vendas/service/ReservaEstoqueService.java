@@ -0,0 +1,103 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.ResultadoAlocacaoPeps;
+import com.fernando.erp_vendas.model.Venda;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// 🆕 RESERVA DE ESTOQUE CONCORRENTE (vendas simultâneas do mesmo produto, ex.: webhooks em paralelo)
+// 1️⃣ Trava por produto em faixas (lock striping): vendas do mesmo SKU esperam aqui, na JVM,
+//    ANTES de abrir a transação, sem segurar conexão do pool; produtos de faixas diferentes não se bloqueiam.
+// 2️⃣ A baixa PEPS é otimista (versão do lote + saldo >= quantidade); o conflito que ainda pode ocorrer
+//    (outra instância da aplicação, edição/importação de lotes) desfaz a transação e é repetido
+//    com backoff exponencial e jitter, até app.estoque.reserva.tentativas.
+// Estoque insuficiente e demais erros não são repetidos.
+@Service
+public class ReservaEstoqueService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaEstoqueService.class);
+
+    private final EstoqueService estoqueService;
+    private final ReentrantLock[] travas;
+    private final long esperaTravaMs;
+    private final int tentativas;
+    private final long backoffInicialMs;
+    private final long backoffMaximoMs;
+
+    public ReservaEstoqueService(EstoqueService estoqueService,
+                                 @Value("${app.estoque.reserva.faixas-trava:64}") int faixasTrava,
+                                 @Value("${app.estoque.reserva.espera-trava-ms:5000}") long esperaTravaMs,
+                                 @Value("${app.estoque.reserva.tentativas:5}") int tentativas,
+                                 @Value("${app.estoque.reserva.backoff-inicial-ms:10}") long backoffInicialMs,
+                                 @Value("${app.estoque.reserva.backoff-maximo-ms:200}") long backoffMaximoMs) {
+        this.estoqueService = estoqueService;
+        this.travas = new ReentrantLock[Math.max(1, faixasTrava)];
+        for (int i = 0; i < travas.length; i++) {
+            travas[i] = new ReentrantLock();
+        }
+        this.esperaTravaMs = esperaTravaMs;
+        this.tentativas = Math.max(1, tentativas);
+        this.backoffInicialMs = backoffInicialMs;
+        this.backoffMaximoMs = backoffMaximoMs;
+    }
+
+    // ✅ Registra a venda com baixa PEPS (mesmo resultado de EstoqueService.registrarVendaPeps)
+    public ResultadoAlocacaoPeps registrarVenda(Venda venda) {
+        Long idOriginal = venda.getId();
+        return executarComTrava(venda.getProduto().getId(), () -> {
+            // A tentativa anterior foi desfeita: a venda volta a ser nova (sem o ID do INSERT revertido)
+            venda.setId(idOriginal);
+            return estoqueService.registrarVendaPeps(venda);
+        });
+    }
+
+    // ✅ Executa a operação (transacional) com a trava da faixa do produto, repetindo em conflito
+    public <T> T executarComTrava(Long produtoId, Supplier<T> operacao) {
+        ReentrantLock trava = travas[Math.floorMod(Long.hashCode(produtoId), travas.length)];
+        try {
+            if (!trava.tryLock(esperaTravaMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Produto com muitas vendas simultâneas, tente novamente");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reserva de estoque interrompida");
+        }
+
+        try {
+            for (int tentativa = 1; ; tentativa++) {
+                try {
+                    return operacao.get();
+                } catch (ConcurrencyFailureException e) {
+                    if (tentativa >= tentativas) {
+                        log.warn("Conflito de estoque persistente: produtoId={} tentativas={}", produtoId, tentativa);
+                        throw e;
+                    }
+                    log.debug("Conflito de estoque, repetindo: produtoId={} tentativa={} erro={}",
+                            produtoId, tentativa, e.getMessage());
+                    aguardarBackoff(tentativa);
+                }
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    // Full jitter: espera aleatória entre 0 e min(máximo, inicial × 2^(tentativa-1))
+    private void aguardarBackoff(int tentativa) {
+        long teto = Math.min(backoffMaximoMs, backoffInicialMs << Math.min(tentativa - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(teto + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reserva de estoque interrompida");
+        }
+    }
+}
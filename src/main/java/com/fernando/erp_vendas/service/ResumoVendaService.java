@@ -0,0 +1,200 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.TotaisVendas;
+import com.fernando.erp_vendas.model.Dinheiro;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.VendaRepository;
+import com.fernando.erp_vendas.repository.VendaResumoDiarioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 🆕 MANUTENÇÃO DO AGREGADO DE VENDAS (usuário × dia × plataforma × produto)
+// Cada criação/edição/exclusão de Venda aplica um delta com sinal via UPSERT na MESMA transação
+// da venda, então o agregado nunca diverge das vendas gravadas. Os dashboards leem só o agregado.
+@Service
+public class ResumoVendaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumoVendaService.class);
+
+    // ✅ UPSERT atômico: soma o delta na linha existente ou cria a linha
+    private static final String SQL_ACUMULAR =
+            "INSERT INTO venda_resumo_diario AS r (user_id, dia, plataforma, produto_id, quantidade_vendas, unidades, " +
+            "preco_venda, frete_pago_pelo_cliente, custo_produto_vendido, custo_envio, tarifa_plataforma, despesas_operacionais) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, dia, plataforma, produto_id) DO UPDATE SET " +
+            "quantidade_vendas = r.quantidade_vendas + EXCLUDED.quantidade_vendas, " +
+            "unidades = r.unidades + EXCLUDED.unidades, " +
+            "preco_venda = r.preco_venda + EXCLUDED.preco_venda, " +
+            "frete_pago_pelo_cliente = r.frete_pago_pelo_cliente + EXCLUDED.frete_pago_pelo_cliente, " +
+            "custo_produto_vendido = r.custo_produto_vendido + EXCLUDED.custo_produto_vendido, " +
+            "custo_envio = r.custo_envio + EXCLUDED.custo_envio, " +
+            "tarifa_plataforma = r.tarifa_plataforma + EXCLUDED.tarifa_plataforma, " +
+            "despesas_operacionais = r.despesas_operacionais + EXCLUDED.despesas_operacionais";
+
+    // Linha que ficou sem vendas é removida (não deixa grupos zerados nem prende o produto)
+    private static final String SQL_REMOVER_ZERADA =
+            "DELETE FROM venda_resumo_diario WHERE user_id = ? AND dia = ? AND plataforma = ? AND produto_id = ? " +
+            "AND quantidade_vendas <= 0";
+
+    // Reconstrução a partir das vendas (arredonda cada venda como o UPSERT faz)
+    private static final String SQL_RECONSTRUIR =
+            "INSERT INTO venda_resumo_diario (user_id, dia, plataforma, produto_id, quantidade_vendas, unidades, " +
+            "preco_venda, frete_pago_pelo_cliente, custo_produto_vendido, custo_envio, tarifa_plataforma, despesas_operacionais) " +
+            "SELECT v.user_id, CAST(v.data AS date), COALESCE(v.plataforma, ''), v.produto_id, COUNT(*), " +
+            "COALESCE(SUM(v.quantidade), 0), " +
+            "COALESCE(SUM(ROUND(CAST(v.preco_venda AS numeric), 2)), 0), " +
+            "COALESCE(SUM(ROUND(CAST(v.frete_pago_pelo_cliente AS numeric), 2)), 0), " +
+            "COALESCE(SUM(ROUND(CAST(v.custo_produto_vendido AS numeric), 2)), 0), " +
+            "COALESCE(SUM(ROUND(CAST(v.custo_envio AS numeric), 2)), 0), " +
+            "COALESCE(SUM(ROUND(CAST(v.tarifa_plataforma AS numeric), 2)), 0), " +
+            "COALESCE(SUM(ROUND(CAST(v.despesas_operacionais AS numeric), 2)), 0) " +
+            "FROM venda v WHERE v.user_id IS NOT NULL AND v.produto_id IS NOT NULL " +
+            "AND (CAST(? AS bigint) IS NULL OR v.user_id = ?) " +
+            "GROUP BY v.user_id, CAST(v.data AS date), COALESCE(v.plataforma, ''), v.produto_id";
+
+    @Autowired
+    private VendaResumoDiarioRepository vendaResumoDiarioRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ✅ Soma a venda ao agregado (criação, ou estado novo de uma edição)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(Venda venda) {
+        aplicar(venda, 1);
+    }
+
+    // ✅ Retira a venda do agregado (exclusão, ou estado antigo de uma edição)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void remover(Venda venda) {
+        aplicar(venda, -1);
+        jdbcTemplate.update(SQL_REMOVER_ZERADA, venda.getUser().getId(), dia(venda.getData()),
+                plataforma(venda.getPlataforma()), venda.getProduto().getId());
+    }
+
+    // 🆕 Parâmetros do UPSERT para gravação em lote (importação), valores em centavos
+    public static Object[] parametros(Long userId, LocalDateTime data, String plataforma, Long produtoId,
+                                      int quantidade, long precoVenda, long fretePagoPeloCliente,
+                                      long custoProdutoVendido, long custoEnvio, long tarifaPlataforma,
+                                      long despesasOperacionais) {
+        return new Object[]{userId, dia(data), plataforma(plataforma), produtoId, 1, quantidade,
+                new long[]{precoVenda, fretePagoPeloCliente, custoProdutoVendido, custoEnvio, tarifaPlataforma,
+                        despesasOperacionais}};
+    }
+
+    // 🆕 Soma várias vendas ao agregado com JDBC batching (deve rodar na transação que grava as vendas)
+    // Deltas da mesma chave (usuário, dia, plataforma, produto) são somados antes, em centavos: 1 UPSERT por grupo
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarEmLote(List<Object[]> parametros) {
+        Map<List<Object>, Object[]> grupos = new LinkedHashMap<>();
+        for (Object[] p : parametros) {
+            Object[] grupo = grupos.get(Arrays.asList(p[0], p[1], p[2], p[3]));
+            if (grupo == null) {
+                grupo = new Object[]{p[0], p[1], p[2], p[3], 0, 0, new long[6]};
+                grupos.put(Arrays.asList(p[0], p[1], p[2], p[3]), grupo);
+            }
+            grupo[4] = (Integer) grupo[4] + (Integer) p[4];
+            grupo[5] = (Integer) grupo[5] + (Integer) p[5];
+            long[] valores = (long[]) p[6];
+            long[] somas = (long[]) grupo[6];
+            for (int i = 0; i < valores.length; i++) {
+                somas[i] = Dinheiro.somar(somas[i], valores[i]);
+            }
+        }
+        List<Object[]> upserts = new ArrayList<>(grupos.size());
+        for (Object[] grupo : grupos.values()) {
+            long[] somas = (long[]) grupo[6];
+            upserts.add(new Object[]{grupo[0], grupo[1], grupo[2], grupo[3], grupo[4], grupo[5],
+                    Dinheiro.paraDecimal(somas[0]), Dinheiro.paraDecimal(somas[1]), Dinheiro.paraDecimal(somas[2]),
+                    Dinheiro.paraDecimal(somas[3]), Dinheiro.paraDecimal(somas[4]), Dinheiro.paraDecimal(somas[5])});
+        }
+        if (!upserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ACUMULAR, upserts);
+        }
+    }
+
+    private void aplicar(Venda venda, int sinal) {
+        if (venda.getUser() == null || venda.getProduto() == null) {
+            return;
+        }
+        int quantidade = venda.getQuantidade() != null ? venda.getQuantidade() : 0;
+        jdbcTemplate.update(SQL_ACUMULAR, venda.getUser().getId(), dia(venda.getData()),
+                plataforma(venda.getPlataforma()), venda.getProduto().getId(), sinal, sinal * quantidade,
+                Dinheiro.paraDecimal(sinal * venda.getPrecoVendaCentavos()),
+                Dinheiro.paraDecimal(sinal * venda.getFretePagoPeloClienteCentavos()),
+                Dinheiro.paraDecimal(sinal * venda.getCustoProdutoVendidoCentavos()),
+                Dinheiro.paraDecimal(sinal * venda.getCustoEnvioCentavos()),
+                Dinheiro.paraDecimal(sinal * venda.getTarifaPlataformaCentavos()),
+                Dinheiro.paraDecimal(sinal * venda.getDespesasOperacionaisCentavos()));
+    }
+
+    private static Date dia(LocalDateTime data) {
+        return Date.valueOf((data != null ? data : LocalDateTime.now()).toLocalDate());
+    }
+
+    private static String plataforma(String plataforma) {
+        return plataforma != null ? plataforma : "";
+    }
+
+    // 🆕 RECONSTRUÇÃO: refaz o agregado a partir das vendas (userId nulo = todos os usuários)
+    @Transactional
+    public int reconstruir(Long userId) {
+        if (userId != null) {
+            jdbcTemplate.update("DELETE FROM venda_resumo_diario WHERE user_id = ?", userId);
+        } else {
+            jdbcTemplate.update("DELETE FROM venda_resumo_diario");
+        }
+        int grupos = jdbcTemplate.update(SQL_RECONSTRUIR, userId, userId);
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(userId, DadosUsuarioAlteradosEvent.Origem.VENDA));
+        return grupos;
+    }
+
+    // ✅ Primeira subida com o agregado: popula a partir das vendas já existentes
+    @EventListener(ApplicationReadyEvent.class)
+    public void popularSeVazio() {
+        if (vendaResumoDiarioRepository.count() == 0 && vendaRepository.count() > 0) {
+            int grupos = reconstruir(null);
+            log.info("Agregado de vendas populado: grupos={}", grupos);
+        }
+    }
+
+    // 📊 LEITURA: totais do usuário a partir do agregado
+    @Transactional(readOnly = true)
+    public TotaisVendas totais(User user) {
+        Object[] linha = vendaResumoDiarioRepository.findTotais(user).get(0);
+        return new TotaisVendas(
+                ((Number) linha[0]).longValue(), ((Number) linha[1]).longValue(),
+                centavos(linha[2]), centavos(linha[3]), centavos(linha[4]),
+                centavos(linha[5]), centavos(linha[6]), centavos(linha[7]));
+    }
+
+    // Somas numeric(15,2) do agregado -> centavos
+    private static long centavos(Object valor) {
+        return valor instanceof BigDecimal decimal ? Dinheiro.deReais(decimal)
+                : Dinheiro.deReais(((Number) valor).doubleValue());
+    }
+}
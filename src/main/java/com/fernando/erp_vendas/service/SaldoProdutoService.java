@@ -0,0 +1,153 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.model.Dinheiro;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// 🆕 SALDO DESNORMALIZADO POR PRODUTO (quantidade em estoque e valor ao custo PEPS)
+// Toda alteração de saldo dos lotes (entrada, baixa PEPS, reversão de venda, edição/exclusão de lote)
+// aplica um delta com sinal em produto.estoque_atual / valor_estoque_atual na MESMA transação,
+// então a listagem de produtos e os alertas de estoque leem uma coluna em vez de somar lotes.
+// A reconciliação compara com a soma dos lotes e corrige divergências (ver ReconciliacaoEstoqueJob).
+// 🆕 Cada delta grava também um movimento no livro de estoque (movimento_estoque, V5), no MESMO comando:
+// a soma dos movimentos de um produto é sempre o seu saldo mantido (ver MovimentoEstoqueService).
+@Service
+public class SaldoProdutoService {
+
+    private static final Logger log = LoggerFactory.getLogger(SaldoProdutoService.class);
+
+    // UPDATE do saldo + INSERT do movimento (dono vem do próprio produto)
+    private static final String SQL_AJUSTAR =
+            "WITH ajuste AS (" +
+            "    UPDATE produto SET estoque_atual = estoque_atual + ?, valor_estoque_atual = valor_estoque_atual + ? " +
+            "    WHERE id = ? RETURNING id, user_id) " +
+            "INSERT INTO movimento_estoque (user_id, produto_id, lote_id, venda_id, tipo, quantidade, valor) " +
+            "SELECT user_id, id, CAST(? AS bigint), CAST(? AS bigint), ?, ?, ? FROM ajuste";
+
+    private static final String SQL_MOVIMENTO =
+            "INSERT INTO movimento_estoque (user_id, produto_id, tipo, quantidade, valor) VALUES (?, ?, ?, ?, ?)";
+
+    // Trava os produtos antes de somar os lotes: uma venda em andamento aplica o delta depois,
+    // sobre o valor já corrigido (sem isso o UPDATE poderia gravar uma soma anterior à venda)
+    private static final String SQL_TRAVAR_PRODUTOS =
+            "SELECT id, estoque_atual, valor_estoque_atual FROM produto " +
+            "WHERE (CAST(? AS bigint) IS NULL OR user_id = ?) ORDER BY id FOR UPDATE";
+
+    private static final String SQL_RECONCILIAR =
+            "UPDATE produto p SET estoque_atual = c.quantidade, valor_estoque_atual = c.valor " +
+            "FROM (SELECT p2.id, COALESCE(SUM(e.saldo), 0) AS quantidade, " +
+            "             COALESCE(SUM(e.saldo * e.custo_unitario), 0) AS valor " +
+            "      FROM produto p2 LEFT JOIN entrada_estoque e ON e.produto_id = p2.id AND e.saldo > 0 " +
+            "      WHERE (CAST(? AS bigint) IS NULL OR p2.user_id = ?) " +
+            "      GROUP BY p2.id) c " +
+            "WHERE p.id = c.id AND (p.estoque_atual <> c.quantidade OR p.valor_estoque_atual <> c.valor) " +
+            "RETURNING p.id, p.user_id, c.quantidade, c.valor";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // ✅ Soma (ou subtrai, com sinal negativo) unidades e valor ao saldo do produto
+    // 🆕 tipo, loteId e vendaId identificam o movimento gravado no livro (lote e venda podem ser nulos)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ajustar(Long produtoId, int quantidade, BigDecimal valor,
+                        MovimentoEstoqueService.Tipo tipo, Long loteId, Long vendaId) {
+        if (produtoId == null || (quantidade == 0 && valor.signum() == 0)) {
+            return;
+        }
+        jdbcTemplate.update(SQL_AJUSTAR, quantidade, valor, produtoId, loteId, vendaId, tipo.name(), quantidade, valor);
+    }
+
+    // ✅ Entrada de lote: soma saldo × custo unitário (centavos)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void somarLote(Long produtoId, Integer saldo, long custoUnitarioCentavos,
+                          MovimentoEstoqueService.Tipo tipo, Long loteId) {
+        ajustar(produtoId, valorOuZero(saldo), Dinheiro.paraDecimal(valorDoLote(saldo, custoUnitarioCentavos)),
+                tipo, loteId, null);
+    }
+
+    // ✅ Saída de lote (exclusão, ou estado antigo de uma edição)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subtrairLote(Long produtoId, Integer saldo, long custoUnitarioCentavos,
+                             MovimentoEstoqueService.Tipo tipo, Long loteId) {
+        ajustar(produtoId, -valorOuZero(saldo), Dinheiro.paraDecimal(-valorDoLote(saldo, custoUnitarioCentavos)),
+                tipo, loteId, null);
+    }
+
+    // 🆕 Vários deltas [produtoId, quantidade, valor em centavos] com JDBC batching (importação em massa)
+    // Deltas do mesmo produto são somados antes (em centavos), e os produtos são atualizados em ordem de ID
+    // (mesma ordem de trava da reconciliação, evitando deadlock). Um movimento do tipo por produto.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ajustarEmLote(List<Object[]> deltas, MovimentoEstoqueService.Tipo tipo) {
+        Map<Long, long[]> porProduto = new TreeMap<>();
+        for (Object[] delta : deltas) {
+            long[] acumulado = porProduto.computeIfAbsent((Long) delta[0], id -> new long[2]);
+            acumulado[0] += (Integer) delta[1];
+            acumulado[1] = Dinheiro.somar(acumulado[1], (Long) delta[2]);
+        }
+        List<Object[]> parametros = new ArrayList<>(porProduto.size());
+        for (Map.Entry<Long, long[]> produto : porProduto.entrySet()) {
+            int quantidade = (int) produto.getValue()[0];
+            BigDecimal valor = Dinheiro.paraDecimal(produto.getValue()[1]);
+            if (quantidade == 0 && valor.signum() == 0) continue;
+            parametros.add(new Object[]{quantidade, valor, produto.getKey(), null, null, tipo.name(), quantidade, valor});
+        }
+        if (!parametros.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_AJUSTAR, parametros);
+        }
+    }
+
+    // 🆕 RECONCILIAÇÃO: recalcula o saldo a partir dos lotes e corrige divergências (userId nulo = todos)
+    // Retorna a quantidade de produtos corrigidos
+    @Transactional
+    public int reconciliar(Long userId) {
+        Map<Long, Object[]> anteriores = new HashMap<>();
+        jdbcTemplate.query(SQL_TRAVAR_PRODUTOS, rs -> {
+            anteriores.put(rs.getLong(1), new Object[]{rs.getInt(2), rs.getBigDecimal(3)});
+        }, userId, userId);
+
+        List<Object[]> corrigidos = jdbcTemplate.query(SQL_RECONCILIAR, (rs, i) -> new Object[]{
+                rs.getLong(1), rs.getObject(2, Long.class), rs.getInt(3), rs.getBigDecimal(4)}, userId, userId);
+
+        List<Object[]> movimentos = new ArrayList<>(corrigidos.size());
+        for (Object[] corrigido : corrigidos) {
+            Object[] anterior = anteriores.get((Long) corrigido[0]);
+            // 🆕 A correção também entra no livro, para a soma dos movimentos continuar igual ao saldo
+            int quantidadeAnterior = anterior != null ? (Integer) anterior[0] : 0;
+            BigDecimal valorAnterior = anterior != null ? (BigDecimal) anterior[1] : BigDecimal.ZERO;
+            movimentos.add(new Object[]{corrigido[1], corrigido[0], MovimentoEstoqueService.Tipo.RECONCILIACAO.name(),
+                    (Integer) corrigido[2] - quantidadeAnterior, ((BigDecimal) corrigido[3]).subtract(valorAnterior)});
+            log.warn("Saldo de estoque divergente corrigido: produtoId={} userId={} quantidade={}->{} valor={}->{}",
+                    corrigido[0], corrigido[1], anterior != null ? anterior[0] : null, corrigido[2],
+                    anterior != null ? anterior[1] : null, corrigido[3]);
+        }
+        if (!corrigidos.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_MOVIMENTO, movimentos);
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(userId, DadosUsuarioAlteradosEvent.Origem.ENTRADA_ESTOQUE));
+        }
+        return corrigidos.size();
+    }
+
+    private static int valorOuZero(Integer saldo) {
+        return saldo != null ? saldo : 0;
+    }
+
+    private static long valorDoLote(Integer saldo, long custoUnitarioCentavos) {
+        return saldo != null ? Dinheiro.multiplicar(custoUnitarioCentavos, saldo) : Dinheiro.ZERO;
+    }
+}
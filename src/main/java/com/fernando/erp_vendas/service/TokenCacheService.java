@@ -0,0 +1,74 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+
+// 🆕 CACHE DE TOKENS JWT JÁ VERIFICADOS -> USUÁRIO AUTENTICADO
+// Em um acerto a requisição não faz parse do token nem consulta users.
+// No erro o token é verificado UMA vez (assinatura + expiração) e o usuário é buscado por email.
+// Entradas expiram pelo TTL ou na expiração do próprio token (o que vier primeiro) e são removidas
+// quando o usuário é alterado (desativação, troca de senha) - ver UsuarioAlteradoListener.
+@Service
+public class TokenCacheService {
+
+    private static class Principal {
+        final User user;
+        final long expiraEm;
+
+        Principal(User user, long expiraEm) {
+            this.user = user;
+            this.expiraEm = expiraEm;
+        }
+    }
+
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final CacheLimitado<String, Principal> tokens;
+
+    public TokenCacheService(JwtService jwtService, UserRepository userRepository,
+                             @Value("${app.cache.token.capacidade:10000}") int capacidade,
+                             @Value("${app.cache.token.ttl-segundos:300}") long ttlSegundos) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.tokens = new CacheLimitado<>("tokens", capacidade, Duration.ofSeconds(ttlSegundos));
+    }
+
+    // ✅ Retorna o usuário do token (null se o usuário não existir)
+    // Lança JwtException para token inválido ou expirado, como o parse direto fazia
+    public User autenticar(String token) {
+        Principal principal = tokens.obter(token, () -> carregar(token));
+        if (principal != null && principal.expiraEm <= System.currentTimeMillis()) {
+            tokens.invalidar(token);
+            principal = carregar(token);
+        }
+        return principal != null ? principal.user : null;
+    }
+
+    private Principal carregar(String token) {
+        Claims claims = jwtService.extractAllClaims(token);
+        if (claims.getSubject() == null) {
+            return null;
+        }
+        return userRepository.findByEmail(claims.getSubject())
+                .map(user -> new Principal(user, claims.getExpiration().getTime()))
+                .orElse(null);
+    }
+
+    // ✅ Usuário alterado: descarta todos os tokens dele após o commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUsuarioAlterado(UsuarioAlteradoEvent evento) {
+        tokens.invalidarSe(principal -> principal.user.getId().equals(evento.getUserId()));
+    }
+
+    // 📊 Acertos, falhas, despejos e invalidações
+    public Map<String, Object> estatisticas() {
+        return tokens.estatisticas();
+    }
+}
@@ -0,0 +1,13 @@
+package com.fernando.erp_vendas.service;
+
+// 🆕 EVENTO: registro do usuário alterado ou excluído (ativo, senha, email...)
+public class UsuarioAlteradoEvent {
+
+    private final Long userId;
+
+    public UsuarioAlteradoEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() { return userId; }
+}
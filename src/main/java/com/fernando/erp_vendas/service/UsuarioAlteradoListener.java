@@ -0,0 +1,23 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+// 🆕 LISTENER JPA DE User: qualquer UPDATE/DELETE do usuário publica UsuarioAlteradoEvent
+// (o cache de tokens descarta as credenciais antigas após o commit)
+@Component
+public class UsuarioAlteradoListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    public void usuarioAlterado(User user) {
+        eventPublisher.publishEvent(new UsuarioAlteradoEvent(user.getId()));
+    }
+}
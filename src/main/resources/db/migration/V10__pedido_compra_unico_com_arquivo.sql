@@ -0,0 +1,56 @@
+-- =============================================
+-- V10: PEDIDO DE COMPRA ÚNICO NAS DUAS TABELAS DE LOTES
+-- =============================================
+-- UNIQUE (id_pedido_compra, user_id) vale dentro de entrada_estoque e dentro de entrada_estoque_arquivo,
+-- mas não entre elas: um pedido de compra de um lote arquivado podia ser gravado de novo na tabela quente.
+-- Gravar ou trocar o pedido de compra em uma tabela exige que ele não exista na outra com outro id (o mesmo
+-- id é o próprio lote sendo arquivado ou restaurado).
+-- ✅ Concorrência: a trava consultiva por usuário + pedido (até o fim da transação) serializa as gravações do
+-- mesmo pedido nas duas tabelas; a verificação roda depois da trava e já enxerga o que a outra transação
+-- gravou. Sem ela, uma compra nova e o arquivamento do lote com o mesmo pedido podiam passar juntos.
+
+CREATE OR REPLACE FUNCTION erp_entrada_estoque_pedido_unico() RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF NEW.id_pedido_compra IS NULL THEN
+        RETURN NEW;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtextextended(NEW.user_id || '/' || NEW.id_pedido_compra, 0));
+
+    IF TG_TABLE_NAME = 'entrada_estoque' THEN
+        PERFORM 1 FROM entrada_estoque_arquivo a
+        WHERE a.id_pedido_compra = NEW.id_pedido_compra AND a.user_id = NEW.user_id AND a.id <> NEW.id;
+    ELSE
+        PERFORM 1 FROM entrada_estoque e
+        WHERE e.id_pedido_compra = NEW.id_pedido_compra AND e.user_id = NEW.user_id AND e.id <> NEW.id;
+    END IF;
+    IF FOUND THEN
+        RAISE EXCEPTION 'Pedido de compra % já registrado', NEW.id_pedido_compra
+            USING ERRCODE = 'unique_violation';
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+-- UPDATE só verifica quando o pedido ou o dono mudam: a baixa de saldo não paga a trava
+DROP TRIGGER IF EXISTS trg_entrada_estoque_pedido_unico_ins ON entrada_estoque;
+CREATE TRIGGER trg_entrada_estoque_pedido_unico_ins BEFORE INSERT ON entrada_estoque
+    FOR EACH ROW EXECUTE FUNCTION erp_entrada_estoque_pedido_unico();
+
+DROP TRIGGER IF EXISTS trg_entrada_estoque_pedido_unico_upd ON entrada_estoque;
+CREATE TRIGGER trg_entrada_estoque_pedido_unico_upd BEFORE UPDATE OF id_pedido_compra, user_id ON entrada_estoque
+    FOR EACH ROW
+    WHEN (NEW.id_pedido_compra IS DISTINCT FROM OLD.id_pedido_compra OR NEW.user_id IS DISTINCT FROM OLD.user_id)
+    EXECUTE FUNCTION erp_entrada_estoque_pedido_unico();
+
+DROP TRIGGER IF EXISTS trg_entrada_estoque_arquivo_pedido_unico_ins ON entrada_estoque_arquivo;
+CREATE TRIGGER trg_entrada_estoque_arquivo_pedido_unico_ins BEFORE INSERT ON entrada_estoque_arquivo
+    FOR EACH ROW EXECUTE FUNCTION erp_entrada_estoque_pedido_unico();
+
+DROP TRIGGER IF EXISTS trg_entrada_estoque_arquivo_pedido_unico_upd ON entrada_estoque_arquivo;
+CREATE TRIGGER trg_entrada_estoque_arquivo_pedido_unico_upd BEFORE UPDATE OF id_pedido_compra, user_id ON entrada_estoque_arquivo
+    FOR EACH ROW
+    WHEN (NEW.id_pedido_compra IS DISTINCT FROM OLD.id_pedido_compra OR NEW.user_id IS DISTINCT FROM OLD.user_id)
+    EXECUTE FUNCTION erp_entrada_estoque_pedido_unico();
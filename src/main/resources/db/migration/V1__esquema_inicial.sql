@@ -0,0 +1,129 @@
+-- =============================================
+-- V1: ESQUEMA INICIAL (o que o Hibernate gerava com ddl-auto=update)
+-- =============================================
+-- Idempotente: bancos já criados pelo Hibernate recebem baseline na versão 0 e rodam este script
+-- sem erro (IF NOT EXISTS); só o que faltar é criado. Bancos novos são criados do zero.
+
+CREATE TABLE IF NOT EXISTS users (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email         varchar(255) NOT NULL UNIQUE,
+    password      varchar(255) NOT NULL,
+    nome          varchar(255) NOT NULL,
+    ativo         boolean      NOT NULL,
+    data_criacao  timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS produto (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome                varchar(255) NOT NULL,
+    sku                 varchar(255) UNIQUE,
+    asin                varchar(255),
+    descricao           varchar(255),
+    estoque_minimo      integer,
+    data_criacao        timestamp(6),
+    user_id             bigint REFERENCES users (id),
+    estoque_atual       integer       NOT NULL DEFAULT 0,
+    valor_estoque_atual numeric(15,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS entrada_estoque (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    produto_id       bigint        NOT NULL REFERENCES produto (id),
+    quantidade       integer       NOT NULL,
+    saldo            integer       NOT NULL,
+    custo_total      numeric(10,2) NOT NULL,
+    custo_unitario   numeric(10,2) NOT NULL,
+    data_entrada     timestamp(6)  NOT NULL,
+    fornecedor       varchar(255),
+    id_pedido_compra varchar(255),
+    categoria        varchar(255),
+    observacoes      varchar(1000),
+    user_id          bigint        NOT NULL REFERENCES users (id),
+    versao           bigint        NOT NULL DEFAULT 0,
+    UNIQUE (id_pedido_compra, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS venda (
+    id                      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    data                    timestamp(6) NOT NULL,
+    id_pedido               varchar(255) UNIQUE,
+    plataforma              varchar(255),
+    quantidade              integer,
+    produto_id              bigint REFERENCES produto (id),
+    preco_venda             float(53),
+    frete_pago_pelo_cliente float(53),
+    custo_envio             float(53),
+    tarifa_plataforma       float(53),
+    custo_produto_vendido   float(53),
+    despesas_operacionais   float(53),
+    user_id                 bigint REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS item_venda (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    venda_id       bigint        NOT NULL REFERENCES venda (id),
+    lote_id        bigint        NOT NULL REFERENCES entrada_estoque (id),
+    quantidade     integer       NOT NULL,
+    custo_unitario numeric(10,2) NOT NULL,
+    user_id        bigint        NOT NULL REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS despesa (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    descricao   varchar(200)  NOT NULL,
+    valor       numeric(10,2) NOT NULL,
+    data        date          NOT NULL,
+    categoria   varchar(50)   NOT NULL,
+    observacoes varchar(500),
+    recorrente  boolean       NOT NULL,
+    user_id     bigint        NOT NULL REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS venda_resumo_diario (
+    id                      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                 bigint        NOT NULL REFERENCES users (id),
+    dia                     date          NOT NULL,
+    plataforma              varchar(255)  NOT NULL,
+    produto_id              bigint        NOT NULL REFERENCES produto (id),
+    quantidade_vendas       bigint        NOT NULL,
+    unidades                bigint        NOT NULL,
+    preco_venda             numeric(15,2) NOT NULL,
+    frete_pago_pelo_cliente numeric(15,2) NOT NULL,
+    custo_envio             numeric(15,2) NOT NULL,
+    tarifa_plataforma       numeric(15,2) NOT NULL,
+    custo_produto_vendido   numeric(15,2) NOT NULL,
+    despesas_operacionais   numeric(15,2) NOT NULL,
+    UNIQUE (user_id, dia, plataforma, produto_id)
+);
+
+-- Colunas acrescentadas por versões recentes (bancos criados antes delas)
+ALTER TABLE produto ADD COLUMN IF NOT EXISTS estoque_atual integer NOT NULL DEFAULT 0;
+ALTER TABLE produto ADD COLUMN IF NOT EXISTS valor_estoque_atual numeric(15,2) NOT NULL DEFAULT 0;
+ALTER TABLE entrada_estoque ADD COLUMN IF NOT EXISTS versao bigint NOT NULL DEFAULT 0;
+
+-- Listagens por cursor (WHERE user_id = ? ORDER BY data DESC, id DESC)
+CREATE INDEX IF NOT EXISTS idx_venda_user_data_id ON venda (user_id, data, id);
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_user_data_id ON entrada_estoque (user_id, data_entrada, id);
+CREATE INDEX IF NOT EXISTS idx_despesa_user_data_id ON despesa (user_id, data, id);
+-- Listagem e alertas de estoque do usuário (saldo mantido)
+CREATE INDEX IF NOT EXISTS idx_produto_user_estoque ON produto (user_id, estoque_atual);
+
+-- Busca textual: normalização sem acento/maiúsculas e índices de trigramas sobre o documento de cada tabela
+-- (expressões idênticas a BUSCA_DOCUMENTO dos repositórios)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() é STABLE (o dicionário pode mudar); fixando o dicionário a função pode ser IMMUTABLE e indexada
+CREATE OR REPLACE FUNCTION erp_normalizar(texto text) RETURNS text
+LANGUAGE sql IMMUTABLE STRICT PARALLEL SAFE
+AS $$ SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto)) $$;
+
+CREATE INDEX IF NOT EXISTS idx_produto_busca_trgm ON produto USING gin ((
+    erp_normalizar(coalesce(nome, '') || ' ' || coalesce(sku, '') || ' ' || coalesce(asin, '') || ' ' || coalesce(descricao, ''))
+) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_busca_trgm ON entrada_estoque USING gin ((
+    erp_normalizar(coalesce(fornecedor, '') || ' ' || coalesce(categoria, '') || ' ' || coalesce(observacoes, ''))
+) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_despesa_busca_trgm ON despesa USING gin ((
+    erp_normalizar(coalesce(descricao, '') || ' ' || coalesce(categoria, '') || ' ' || coalesce(observacoes, ''))
+) gin_trgm_ops);
@@ -0,0 +1,45 @@
+-- =============================================
+-- V2: ÍNDICES COMPOSTOS E PARCIAIS PARA AS CONSULTAS POR USUÁRIO
+-- =============================================
+-- Cada índice cita as consultas que atende. Toda consulta filtra por user_id; quando há uma chave mais
+-- seletiva (produto, venda, lote), ela vem primeiro e o user_id confirma o dono sem ir à tabela.
+-- Conferidos por PlanoConsultasTest (nenhuma consulta quente em varredura sequencial com 1 milhão de linhas).
+
+-- VENDA
+-- findByProdutoAndUser, vendas do produto na busca (ORDER BY data DESC) e exclusão de produto (FK)
+CREATE INDEX IF NOT EXISTS idx_venda_produto_user_data ON venda (produto_id, user_id, data);
+-- findByPlataformaAndUser
+CREATE INDEX IF NOT EXISTS idx_venda_user_plataforma ON venda (user_id, plataforma);
+
+-- ITEM_VENDA (sem nenhum índice além da PK até aqui)
+-- findByVendaAndUser, countByVendaAndUser, reverterItensVendaEmLote (DELETE ... WHERE venda_id = ? AND user_id = ?)
+CREATE INDEX IF NOT EXISTS idx_item_venda_venda_user ON item_venda (venda_id, user_id);
+-- findByLoteIdAndUser, existsByLoteIdAndUser e exclusão de lote (FK)
+CREATE INDEX IF NOT EXISTS idx_item_venda_lote_user ON item_venda (lote_id, user_id);
+-- findByUser, countByUser, findQuantidadeVendidaPorProduto
+CREATE INDEX IF NOT EXISTS idx_item_venda_user ON item_venda (user_id);
+
+-- ENTRADA_ESTOQUE
+-- PEPS (alocarPepsERegistrarItens, baixarPepsEmLote, findLotesComSaldoParaAlocacao,
+-- findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc): só lotes com saldo, já na ordem PEPS.
+-- Parcial: lotes esgotados (a maioria, com o tempo) não ocupam o índice. INCLUDE evita ir à tabela para a alocação.
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_peps ON entrada_estoque (produto_id, user_id, data_entrada, id)
+    INCLUDE (saldo, custo_unitario, versao) WHERE saldo > 0;
+-- findByProdutoAndUserOrderByDataEntradaAsc, findSaldoTotalByProdutoAndUser (todos os lotes) e exclusão de produto (FK)
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_produto_user_data ON entrada_estoque (produto_id, user_id, data_entrada);
+-- findByCategoriaAndUser
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_user_categoria ON entrada_estoque (user_id, categoria);
+-- findEntradasComSaldoBaixo (saldo entre 1 e 4)
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_user_saldo_baixo ON entrada_estoque (user_id, saldo)
+    WHERE saldo > 0 AND saldo < 5;
+
+-- DESPESA
+-- findByCategoriaAndUserOrderByDataDesc, calcularTotalDespesasPorCategoriaEPeriodo,
+-- findCategoriasDistintas, findTopCategoriasComMaiorGasto
+CREATE INDEX IF NOT EXISTS idx_despesa_user_categoria_data ON despesa (user_id, categoria, data);
+-- findByRecorrenteTrueAndUserOrderByDataDesc, findDespesasRecorrentesTotais
+CREATE INDEX IF NOT EXISTS idx_despesa_user_recorrente_data ON despesa (user_id, data) WHERE recorrente;
+
+-- PRODUTO
+-- findByAsinAndUser e resolução de SKU/ASIN na importação em massa
+CREATE INDEX IF NOT EXISTS idx_produto_user_asin ON produto (user_id, asin);
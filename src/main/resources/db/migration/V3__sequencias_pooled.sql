@@ -0,0 +1,31 @@
+-- =============================================
+-- V3: IDENTIFICADORES POR SEQUÊNCIA EM BLOCOS DE 50 (pooled) NO LUGAR DE IDENTITY
+-- =============================================
+-- Com IDENTITY o Hibernate precisa do id que o banco gera em cada INSERT, então grava uma linha por vez e não
+-- agrupa os comandos (JDBC batching). Com uma sequência INCREMENT BY 50 ele reserva 50 ids por nextval
+-- (otimizador pooled: nextval = N entrega os ids N-49..N) e manda os INSERTs em lote no flush.
+-- Cada tabela ganha a sequência <tabela>_seq (a mesma do @SequenceGenerator da entidade), começando acima do
+-- maior id existente. O DEFAULT da coluna passa a ser essa sequência: INSERTs sem id (SQL nativo) continuam
+-- funcionando, cada um consumindo um bloco inteiro, sem colidir com os blocos do Hibernate.
+-- Bancos antigos criados pelo ddl-auto (bigserial) também são convertidos: a sequência antiga é removida.
+
+DO $$
+DECLARE
+    tabela text;
+    antiga text;
+BEGIN
+    FOREACH tabela IN ARRAY ARRAY['users', 'produto', 'entrada_estoque', 'venda', 'item_venda', 'despesa',
+                                  'venda_resumo_diario'] LOOP
+        antiga := pg_get_serial_sequence(tabela, 'id');
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tabela);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP DEFAULT', tabela);
+        IF antiga IS NOT NULL THEN
+            EXECUTE format('DROP SEQUENCE IF EXISTS %s', antiga);
+        END IF;
+
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50 OWNED BY %I.id', tabela || '_seq', tabela);
+        -- Próximo nextval = maior id + 50: o primeiro bloco do Hibernate começa logo depois do maior id
+        EXECUTE format('SELECT setval(%L, (SELECT COALESCE(max(id), 0) FROM %I) + 50, false)', tabela || '_seq', tabela);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', tabela, tabela || '_seq');
+    END LOOP;
+END $$;
@@ -0,0 +1,47 @@
+-- =============================================
+-- V4: RENTABILIDADE GRAVADA EM CADA VENDA (faturamento, custo efetivo, lucros e ROI) + ÍNDICES DE RANKING
+-- =============================================
+-- As fórmulas de Venda.calcular*() (e de VendaDTO) viram colunas geradas (GENERATED ALWAYS ... STORED):
+-- o banco as recalcula em todo INSERT e UPDATE, inclusive nos caminhos que não passam pela entidade
+-- (importação em lote por JDBC) e quando o custo PEPS é gravado depois do INSERT. Nunca ficam desatualizadas.
+-- Valores em reais com 2 casas, como Dinheiro: cada parcela (double precision) é arredondada antes de somar.
+-- ROI = lucro líquido / custo efetivo × 100 (0 quando o custo efetivo não é positivo), como Dinheiro.percentual.
+-- Atenção: o ADD COLUMN ... STORED reescreve a tabela venda (uma vez, na migração).
+
+ALTER TABLE venda
+    ADD COLUMN IF NOT EXISTS faturamento numeric(15,2) GENERATED ALWAYS AS (
+        round(coalesce(preco_venda, 0)::numeric, 2) + round(coalesce(frete_pago_pelo_cliente, 0)::numeric, 2)
+    ) STORED,
+    ADD COLUMN IF NOT EXISTS custo_efetivo_total numeric(15,2) GENERATED ALWAYS AS (
+        round(coalesce(custo_produto_vendido, 0)::numeric, 2) + round(coalesce(custo_envio, 0)::numeric, 2)
+            + round(coalesce(tarifa_plataforma, 0)::numeric, 2)
+    ) STORED,
+    ADD COLUMN IF NOT EXISTS lucro_bruto numeric(15,2) GENERATED ALWAYS AS (
+        round(coalesce(preco_venda, 0)::numeric, 2) + round(coalesce(frete_pago_pelo_cliente, 0)::numeric, 2)
+            - round(coalesce(custo_produto_vendido, 0)::numeric, 2) - round(coalesce(custo_envio, 0)::numeric, 2)
+            - round(coalesce(tarifa_plataforma, 0)::numeric, 2)
+    ) STORED,
+    ADD COLUMN IF NOT EXISTS lucro_liquido numeric(15,2) GENERATED ALWAYS AS (
+        round(coalesce(preco_venda, 0)::numeric, 2) + round(coalesce(frete_pago_pelo_cliente, 0)::numeric, 2)
+            - round(coalesce(custo_produto_vendido, 0)::numeric, 2) - round(coalesce(custo_envio, 0)::numeric, 2)
+            - round(coalesce(tarifa_plataforma, 0)::numeric, 2) - round(coalesce(despesas_operacionais, 0)::numeric, 2)
+    ) STORED,
+    ADD COLUMN IF NOT EXISTS roi double precision GENERATED ALWAYS AS (
+        CASE WHEN round(coalesce(custo_produto_vendido, 0)::numeric, 2) + round(coalesce(custo_envio, 0)::numeric, 2)
+                      + round(coalesce(tarifa_plataforma, 0)::numeric, 2) > 0
+             THEN ((round(coalesce(preco_venda, 0)::numeric, 2) + round(coalesce(frete_pago_pelo_cliente, 0)::numeric, 2)
+                    - round(coalesce(custo_produto_vendido, 0)::numeric, 2) - round(coalesce(custo_envio, 0)::numeric, 2)
+                    - round(coalesce(tarifa_plataforma, 0)::numeric, 2) - round(coalesce(despesas_operacionais, 0)::numeric, 2))
+                   / (round(coalesce(custo_produto_vendido, 0)::numeric, 2) + round(coalesce(custo_envio, 0)::numeric, 2)
+                      + round(coalesce(tarifa_plataforma, 0)::numeric, 2)) * 100)::double precision
+             ELSE 0 END
+    ) STORED;
+
+-- RelatorioService.rankingVendas: maiores/menores N do usuário por métrica (ORDER BY métrica, id LIMIT N).
+-- O índice entrega as linhas já na ordem (em qualquer sentido): sem filtro, lê só as N primeiras.
+-- Com plataforma/período, as linhas fora do filtro são puladas no caminho do índice.
+CREATE INDEX IF NOT EXISTS idx_venda_user_faturamento ON venda (user_id, faturamento, id);
+CREATE INDEX IF NOT EXISTS idx_venda_user_custo_efetivo ON venda (user_id, custo_efetivo_total, id);
+CREATE INDEX IF NOT EXISTS idx_venda_user_lucro_bruto ON venda (user_id, lucro_bruto, id);
+CREATE INDEX IF NOT EXISTS idx_venda_user_lucro_liquido ON venda (user_id, lucro_liquido, id);
+CREATE INDEX IF NOT EXISTS idx_venda_user_roi ON venda (user_id, roi, id);
@@ -0,0 +1,47 @@
+-- =============================================
+-- V5: LIVRO DE MOVIMENTOS DE ESTOQUE (só INSERT) E FOTOGRAFIAS PERIÓDICAS POR PRODUTO
+-- =============================================
+-- entrada_estoque.saldo é sobrescrito pelas baixas PEPS e reversões; o histórico fica aqui.
+-- Cada alteração do saldo mantido do produto (SaldoProdutoService) grava, na MESMA transação, um
+-- movimento com o delta de quantidade e de valor ao custo PEPS: a soma dos movimentos de um produto é
+-- sempre produto.estoque_atual / valor_estoque_atual. Nunca há UPDATE nem DELETE de movimento.
+-- Sem FK para produto/lote/venda: o histórico sobrevive à exclusão deles.
+
+CREATE TABLE IF NOT EXISTS movimento_estoque (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         bigint,
+    produto_id      bigint        NOT NULL,
+    lote_id         bigint,
+    venda_id        bigint,
+    -- ABERTURA, COMPRA, CONSUMO_VENDA, REVERSAO_VENDA, AJUSTE, RECONCILIACAO
+    tipo            varchar(20)   NOT NULL,
+    quantidade      integer       NOT NULL,
+    valor           numeric(15,2) NOT NULL,
+    -- Momento do registro (início da transação): a consulta "em uma data" vê o que estava gravado
+    data_movimento  timestamp(6)  NOT NULL DEFAULT now()
+);
+
+-- Cauda da consulta em uma data: movimentos do produto entre a fotografia e a data (INCLUDE: sem ir à tabela)
+CREATE INDEX IF NOT EXISTS idx_movimento_estoque_produto_data ON movimento_estoque (produto_id, data_movimento)
+    INCLUDE (quantidade, valor);
+
+-- Geração das fotografias: produtos com movimento desde o último corte
+CREATE INDEX IF NOT EXISTS idx_movimento_estoque_data ON movimento_estoque (data_movimento);
+
+-- Fotografia: saldo acumulado do produto com todos os movimentos ANTES de "corte"
+-- Só produtos com movimento no período ganham fotografia nova (os outros continuam valendo pela anterior)
+CREATE TABLE IF NOT EXISTS estoque_fotografia (
+    produto_id  bigint        NOT NULL,
+    corte       timestamp(6)  NOT NULL,
+    user_id     bigint,
+    quantidade  integer       NOT NULL,
+    valor       numeric(15,2) NOT NULL,
+    PRIMARY KEY (produto_id, corte)
+);
+
+-- Abertura: saldo atual de cada produto vira o primeiro movimento (o histórico anterior não existe)
+INSERT INTO movimento_estoque (user_id, produto_id, tipo, quantidade, valor)
+SELECT p.user_id, p.id, 'ABERTURA', p.estoque_atual, p.valor_estoque_atual
+FROM produto p
+WHERE (p.estoque_atual <> 0 OR p.valor_estoque_atual <> 0)
+  AND NOT EXISTS (SELECT 1 FROM movimento_estoque m WHERE m.produto_id = p.id);
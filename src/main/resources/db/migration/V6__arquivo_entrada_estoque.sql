@@ -0,0 +1,84 @@
+-- =============================================
+-- V6: LOTES QUENTES (saldo > 0) E FRIOS (esgotados) + ARQUIVO DE LOTES ESGOTADOS ANTIGOS
+-- =============================================
+-- Com o tempo quase todos os lotes terminam com saldo = 0, mas continuam em entrada_estoque e nos índices
+-- completos. Agora:
+-- 1️⃣ PEPS e saldo (alocação, baixa, soma do saldo, reconciliação) leem só lotes com saldo, pelo índice
+--    parcial idx_entrada_estoque_peps (V2).
+-- 2️⃣ ArquivamentoLoteService move periodicamente os lotes esgotados mais antigos que o limite para
+--    entrada_estoque_arquivo, com o MESMO id: item_venda.lote_id continua apontando para o lote certo.
+-- 3️⃣ O histórico de compras (listagens, busca, exportação, unicidade do pedido de compra) lê a view
+--    entrada_estoque_historico, que junta as duas tabelas.
+-- 4️⃣ A reversão de uma venda devolve antes para entrada_estoque os lotes arquivados que ela consumiu.
+
+-- Candidatos ao arquivamento: lotes esgotados ainda na tabela quente, dos mais antigos para os mais novos
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_esgotados ON entrada_estoque (data_entrada, id) WHERE saldo = 0;
+
+CREATE TABLE IF NOT EXISTS entrada_estoque_arquivo (
+    id                bigint        PRIMARY KEY,
+    produto_id        bigint        NOT NULL REFERENCES produto (id),
+    quantidade        integer       NOT NULL,
+    saldo             integer       NOT NULL,
+    custo_total       numeric(10,2) NOT NULL,
+    custo_unitario    numeric(10,2) NOT NULL,
+    data_entrada      timestamp(6)  NOT NULL,
+    fornecedor        varchar(255),
+    id_pedido_compra  varchar(255),
+    categoria         varchar(255),
+    observacoes       varchar(1000),
+    user_id           bigint        NOT NULL REFERENCES users (id),
+    versao            bigint        NOT NULL DEFAULT 0,
+    data_arquivamento timestamp(6)  NOT NULL DEFAULT now(),
+    UNIQUE (id_pedido_compra, user_id)
+);
+
+-- Mesmos caminhos das consultas de histórico da tabela quente (listagem, por produto, categoria e busca)
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_arquivo_user_data_id ON entrada_estoque_arquivo (user_id, data_entrada, id);
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_arquivo_produto_user_data ON entrada_estoque_arquivo (produto_id, user_id, data_entrada);
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_arquivo_user_categoria ON entrada_estoque_arquivo (user_id, categoria);
+CREATE INDEX IF NOT EXISTS idx_entrada_estoque_arquivo_busca_trgm ON entrada_estoque_arquivo USING gin ((
+    erp_normalizar(coalesce(fornecedor, '') || ' ' || coalesce(categoria, '') || ' ' || coalesce(observacoes, ''))
+) gin_trgm_ops);
+
+-- O lote de um item de venda pode estar em qualquer uma das duas tabelas: a FK dá lugar a um gatilho que
+-- continua impedindo excluir de entrada_estoque um lote com itens de venda, exceto quando ele acabou de
+-- ser copiado para o arquivo (mesma transação do arquivamento)
+-- Bancos antigos criados pelo ddl-auto têm a FK com nome gerado pelo Hibernate: remove qualquer FK de item_venda
+-- para entrada_estoque
+DO $$
+DECLARE
+    restricao text;
+BEGIN
+    FOR restricao IN SELECT conname FROM pg_constraint
+                     WHERE contype = 'f' AND conrelid = 'item_venda'::regclass
+                       AND confrelid = 'entrada_estoque'::regclass LOOP
+        EXECUTE format('ALTER TABLE item_venda DROP CONSTRAINT %I', restricao);
+    END LOOP;
+END $$;
+
+CREATE OR REPLACE FUNCTION erp_entrada_estoque_proteger_itens() RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM item_venda iv WHERE iv.lote_id = OLD.id)
+       AND NOT EXISTS (SELECT 1 FROM entrada_estoque_arquivo a WHERE a.id = OLD.id) THEN
+        RAISE EXCEPTION 'Lote % possui itens de venda e não pode ser excluído', OLD.id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN OLD;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_entrada_estoque_proteger_itens ON entrada_estoque;
+CREATE TRIGGER trg_entrada_estoque_proteger_itens BEFORE DELETE ON entrada_estoque
+    FOR EACH ROW EXECUTE FUNCTION erp_entrada_estoque_proteger_itens();
+
+-- Histórico completo: filtros e ORDER BY ... LIMIT descem para as duas tabelas (Merge Append dos índices)
+CREATE OR REPLACE VIEW entrada_estoque_historico AS
+SELECT id, produto_id, quantidade, saldo, custo_total, custo_unitario, data_entrada, fornecedor,
+       id_pedido_compra, categoria, observacoes, user_id, false AS arquivado
+FROM entrada_estoque
+UNION ALL
+SELECT id, produto_id, quantidade, saldo, custo_total, custo_unitario, data_entrada, fornecedor,
+       id_pedido_compra, categoria, observacoes, user_id, true AS arquivado
+FROM entrada_estoque_arquivo;
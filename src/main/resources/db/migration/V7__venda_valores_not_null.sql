@@ -0,0 +1,31 @@
+-- =============================================
+-- V7: VALORES DA VENDA SEM NULL (centavos em long na entidade Venda)
+-- =============================================
+-- Os campos de valores de Venda são long em centavos (DinheiroReaisConverter): uma linha antiga com NULL
+-- nessas colunas quebrava ao ser carregada (null em campo primitivo). NULL vira 0, como a entidade já
+-- gravaria, e as colunas passam a NOT NULL DEFAULT 0 (INSERTs nativos sem o valor também gravam 0).
+-- As colunas geradas de V4 são recalculadas pelo UPDATE com os mesmos resultados (coalesce(..., 0)).
+
+UPDATE venda SET
+    preco_venda             = coalesce(preco_venda, 0),
+    frete_pago_pelo_cliente = coalesce(frete_pago_pelo_cliente, 0),
+    custo_envio             = coalesce(custo_envio, 0),
+    tarifa_plataforma       = coalesce(tarifa_plataforma, 0),
+    custo_produto_vendido   = coalesce(custo_produto_vendido, 0),
+    despesas_operacionais   = coalesce(despesas_operacionais, 0)
+WHERE preco_venda IS NULL OR frete_pago_pelo_cliente IS NULL OR custo_envio IS NULL
+   OR tarifa_plataforma IS NULL OR custo_produto_vendido IS NULL OR despesas_operacionais IS NULL;
+
+ALTER TABLE venda
+    ALTER COLUMN preco_venda SET DEFAULT 0,
+    ALTER COLUMN preco_venda SET NOT NULL,
+    ALTER COLUMN frete_pago_pelo_cliente SET DEFAULT 0,
+    ALTER COLUMN frete_pago_pelo_cliente SET NOT NULL,
+    ALTER COLUMN custo_envio SET DEFAULT 0,
+    ALTER COLUMN custo_envio SET NOT NULL,
+    ALTER COLUMN tarifa_plataforma SET DEFAULT 0,
+    ALTER COLUMN tarifa_plataforma SET NOT NULL,
+    ALTER COLUMN custo_produto_vendido SET DEFAULT 0,
+    ALTER COLUMN custo_produto_vendido SET NOT NULL,
+    ALTER COLUMN despesas_operacionais SET DEFAULT 0,
+    ALTER COLUMN despesas_operacionais SET NOT NULL;
@@ -0,0 +1,8 @@
+-- =============================================
+-- V8: PRODUTOS DO LIVRO DE ESTOQUE POR USUÁRIO
+-- =============================================
+-- O estoque em uma data (MovimentoEstoqueService.SQL_ESTOQUE_EM) parte dos produtos com movimento do
+-- usuário, e não da tabela produto: um produto excluído continua nas datas em que tinha estoque.
+-- A consulta salta de produto em produto por este índice (um acesso por produto, não por movimento).
+
+CREATE INDEX IF NOT EXISTS idx_movimento_estoque_user_produto ON movimento_estoque (user_id, produto_id);
@@ -0,0 +1,23 @@
+-- =============================================
+-- V9: LOTE DO ITEM DE VENDA SEMPRE EXISTENTE
+-- =============================================
+-- Desde a V6 o lote de item_venda pode estar em entrada_estoque ou em entrada_estoque_arquivo, e a FK deu
+-- lugar ao gatilho de exclusão. Este gatilho fecha o outro lado: gravar ou trocar item_venda.lote_id exige
+-- que o lote exista em uma das duas tabelas (uma busca pela chave primária de cada).
+
+CREATE OR REPLACE FUNCTION erp_item_venda_verificar_lote() RETURNS trigger
+LANGUAGE plpgsql
+AS $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM entrada_estoque e WHERE e.id = NEW.lote_id)
+       AND NOT EXISTS (SELECT 1 FROM entrada_estoque_arquivo a WHERE a.id = NEW.lote_id) THEN
+        RAISE EXCEPTION 'Lote % não existe', NEW.lote_id
+            USING ERRCODE = 'foreign_key_violation';
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_item_venda_verificar_lote ON item_venda;
+CREATE TRIGGER trg_item_venda_verificar_lote BEFORE INSERT OR UPDATE OF lote_id ON item_venda
+    FOR EACH ROW EXECUTE FUNCTION erp_item_venda_verificar_lote();
@@ -0,0 +1,97 @@
+package com.fernando.erp_vendas;
+
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 🆕 DADOS DE TESTE POR USUÁRIO: usuário e produto com e-mail/SKU únicos e limpeza de tudo o que é do usuário
+// A limpeza apaga por user_id, em SQL e numa transação de escrita (primário), cada tabela com dono, das que
+// referenciam para as referenciadas. Uma tabela com user_id fora de TABELAS_DO_USUARIO faz a limpeza falhar,
+// em vez de deixar linhas para trás (ou quebrar no DELETE do usuário).
+@Component
+public class DadosTeste {
+
+    static final List<String> TABELAS_DO_USUARIO = List.of(
+            "item_venda", "venda_resumo_diario", "venda", "despesa", "entrada_estoque_arquivo", "entrada_estoque",
+            "estoque_fotografia", "movimento_estoque", "produto");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile boolean tabelasVerificadas;
+
+    // ✅ Usuário com e-mail único: "<prefixo>-<nanoTime>@erp.local"
+    public User novoUsuario(String prefixo) {
+        return userRepository.save(new User(prefixo + "-" + System.nanoTime() + "@erp.local", "x", prefixo));
+    }
+
+    // ✅ Usuário novo já autenticado na thread do teste
+    public User novoUsuarioAutenticado(String prefixo) {
+        User user = novoUsuario(prefixo);
+        autenticar(user);
+        return user;
+    }
+
+    // ✅ Produto sem estoque com SKU único: "<prefixoSku>-<nanoTime>"
+    public Produto novoProduto(User user, String nome, String prefixoSku) {
+        return produtoRepository.save(new Produto(nome, prefixoSku + "-" + System.nanoTime(), null, null, 0, user));
+    }
+
+    public static void autenticar(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    // ✅ Apaga os dados e os próprios usuários (nulos são ignorados) e limpa o usuário autenticado
+    public void excluirUsuarios(User... users) {
+        SecurityContextHolder.clearContext();
+        verificarTabelas();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (User user : users) {
+                if (user == null || user.getId() == null) {
+                    continue;
+                }
+                for (String tabela : TABELAS_DO_USUARIO) {
+                    jdbcTemplate.update("DELETE FROM " + tabela + " WHERE user_id = ?", user.getId());
+                }
+                jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+            }
+        });
+    }
+
+    private void verificarTabelas() {
+        if (tabelasVerificadas) {
+            return;
+        }
+        List<String> faltando = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT c.table_name FROM information_schema.columns c JOIN information_schema.tables t " +
+                "ON t.table_schema = c.table_schema AND t.table_name = c.table_name " +
+                "WHERE c.table_schema = current_schema() AND c.column_name = 'user_id' AND t.table_type = 'BASE TABLE'",
+                String.class));
+        faltando.removeAll(TABELAS_DO_USUARIO);
+        if (!faltando.isEmpty()) {
+            throw new IllegalStateException("Tabelas com user_id fora de DadosTeste.TABELAS_DO_USUARIO: " + faltando);
+        }
+        tabelasVerificadas = true;
+    }
+}
@@ -0,0 +1,210 @@
+package com.fernando.erp_vendas.config;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.Despesa;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.DespesaRepository;
+import com.fernando.erp_vendas.service.DadosUsuarioAlteradosEvent;
+import com.fernando.erp_vendas.service.EstatisticasBancoService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 RÉPLICA DE LEITURA: readOnly na réplica, escritas no primário, leitura após escrita no primário
+// Por padrão a "réplica" é outro banco (erp_vendas_replica, criado e migrado aqui) no mesmo PostgreSQL: basta para
+// ver para onde cada conexão vai. Com duas instâncias de verdade (ex.: réplica em streaming na porta 5433):
+// mvn test -Dtest=RoteamentoDataSourceTest -Dreplica.url=jdbc:postgresql://localhost:5433/erp_vendas
+@SpringBootTest(properties = {"app.db.replica.janela-leitura-apos-escrita-ms=500",
+        "app.estoque.reconciliacao.atraso-inicial-ms=3600000"})
+class RoteamentoDataSourceTest {
+
+    private static final String BANCO_REPLICA = "erp_vendas_replica";
+    // Identifica o servidor e o banco da conexão
+    private static final String IDENTIFICAR = "SELECT current_database() || '@' || coalesce(inet_server_port(), 0)";
+
+    @DynamicPropertySource
+    static void replica(DynamicPropertyRegistry registry) {
+        registry.add("app.db.replica.url", RoteamentoDataSourceTest::prepararReplica);
+    }
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primarioDataSource")
+    private DataSource primario;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @Autowired
+    private RoteamentoDataSource roteamentoDataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DespesaRepository despesaRepository;
+
+    @Autowired
+    private EstatisticasBancoService estatisticasBancoService;
+
+    private User user;
+    private String servidorPrimario;
+    private String servidorReplica;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuario("replica");
+        servidorPrimario = new JdbcTemplate(primario).queryForObject(IDENTIFICAR, String.class);
+        servidorReplica = new JdbcTemplate(replica).queryForObject(IDENTIFICAR, String.class);
+    }
+
+    @AfterEach
+    void limparDados() {
+        // Transação de escrita: a limpeza também vai para o primário
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void leiturasNaReplicaEEscritasNoPrimario() {
+        assertInstanceOf(LazyConnectionDataSourceProxy.class, dataSource);
+        assertInstanceOf(LimitadorConexoesBanco.class, primario);
+        assertInstanceOf(LimitadorConexoesBanco.class, replica);
+        assertNotEquals(servidorPrimario, servidorReplica);
+
+        assertEquals(servidorReplica, somenteLeitura().execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class)));
+        assertEquals(servidorPrimario, new TransactionTemplate(transactionManager)
+                .execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class)));
+        // Fora de transação não se sabe se é só leitura: primário
+        assertEquals(servidorPrimario, jdbcTemplate.queryForObject(IDENTIFICAR, String.class));
+
+        // Métodos de consulta dos repositórios já são @Transactional(readOnly = true)
+        long replicaAntes = leituras("leiturasReplica");
+        despesaRepository.findByUserOrderByDataDesc(user);
+        assertTrue(leituras("leiturasReplica") > replicaAntes);
+    }
+
+    @Test
+    void usuarioLeDoPrimarioLogoAposGravar() throws InterruptedException {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        assertEquals(servidorReplica, somenteLeitura().execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class)));
+
+        // Mesma sequência do DespesaController: grava e publica o evento na transação
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            despesaRepository.save(new Despesa("Aluguel", new BigDecimal("100.00"), LocalDate.now(), "ALUGUEL",
+                    null, false, user));
+            eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.DESPESA));
+        });
+
+        long primarioAntes = leituras("leiturasPrimarioAposEscrita");
+        assertEquals(servidorPrimario, somenteLeitura().execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class)));
+        assertEquals(1, despesaRepository.findByUserOrderByDataDesc(user).size());
+        assertEquals(primarioAntes + 2, leituras("leiturasPrimarioAposEscrita"));
+
+        // Outro usuário (ou nenhum) continua na réplica
+        SecurityContextHolder.clearContext();
+        assertEquals(servidorReplica, somenteLeitura().execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class)));
+
+        // Passada a janela, o próprio usuário volta para a réplica
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        Thread.sleep(600);
+        assertEquals(servidorReplica, somenteLeitura().execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class)));
+    }
+
+    @Test
+    void estatisticasPorRota() {
+        somenteLeitura().execute(status -> jdbcTemplate.queryForObject(IDENTIFICAR, String.class));
+
+        Map<String, Object> estatisticas = estatisticasBancoService.estatisticas();
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> pools = (List<Map<String, Object>>) estatisticas.get("pools");
+        assertEquals(List.of(RoteamentoDataSource.PRIMARIO, RoteamentoDataSource.REPLICA),
+                pools.stream().map(pool -> pool.get("nome")).sorted().toList());
+        for (Map<String, Object> pool : pools) {
+            assertTrue(pool.containsKey("conexoes") && pool.containsKey("limitador"), pool.toString());
+        }
+        assertEquals(true, estatisticas.get("replicaConfigurada"));
+        assertTrue(leituras("leiturasReplica") > 0);
+    }
+
+    private TransactionTemplate somenteLeitura() {
+        TransactionTemplate somenteLeitura = new TransactionTemplate(transactionManager);
+        somenteLeitura.setReadOnly(true);
+        return somenteLeitura;
+    }
+
+    private long leituras(String rota) {
+        return (Long) roteamentoDataSource.estatisticas().get(rota);
+    }
+
+    // Réplica informada (-Dreplica.url) é usada como está; senão cria o banco erp_vendas_replica no mesmo servidor
+    private static String prepararReplica() {
+        String replicaUrl = System.getProperty("replica.url");
+        if (replicaUrl != null) {
+            return replicaUrl;
+        }
+        StandardEnvironment ambiente = new StandardEnvironment();
+        try {
+            ambiente.getPropertySources().addLast(new ResourcePropertySource(new ClassPathResource("application.properties")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String url = ambiente.getRequiredProperty("spring.datasource.url");
+        String username = ambiente.getProperty("spring.datasource.username");
+        String password = ambiente.getProperty("spring.datasource.password");
+
+        JdbcTemplate principal = new JdbcTemplate(new DriverManagerDataSource(url, username, password));
+        if (principal.queryForList("SELECT 1 FROM pg_database WHERE datname = ?", BANCO_REPLICA).isEmpty()) {
+            principal.execute("CREATE DATABASE " + BANCO_REPLICA);
+        }
+        int barra = url.lastIndexOf('/');
+        int parametros = url.indexOf('?', barra);
+        replicaUrl = url.substring(0, barra + 1) + BANCO_REPLICA + (parametros >= 0 ? url.substring(parametros) : "");
+        Flyway.configure().dataSource(new DriverManagerDataSource(replicaUrl, username, password))
+                .locations("classpath:db/migration").load().migrate();
+        return replicaUrl;
+    }
+}
@@ -0,0 +1,224 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.repository.UserRepository;
+import com.fernando.erp_vendas.service.DadosUsuarioAlteradosEvent;
+import com.fernando.erp_vendas.service.EstoqueService;
+import com.fernando.erp_vendas.service.EventosDashboardService;
+import com.fernando.erp_vendas.service.JwtService;
+import com.fernando.erp_vendas.service.MovimentoDashboardEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 DASHBOARD EM TEMPO REAL (SSE): deltas após o commit, heartbeat, retomada por Last-Event-ID e buffer limitado
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.estoque.reconciliacao.atraso-inicial-ms=3600000",
+        "app.sse.heartbeat-ms=200",
+        "app.sse.buffer=4",
+        "app.admin.emails=" + EventosDashboardTest.ADMIN
+})
+class EventosDashboardTest {
+
+    // Evento SSE lido do stream (id, nome, dados) ou comentário de heartbeat (nome nulo)
+    private record EventoLido(String id, String nome, String dados) {}
+
+    private static final EventoLido FIM = new EventoLido(null, "fim", null);
+
+    static final String ADMIN = "sse-admin@erp.local";
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EventosDashboardService eventosDashboardService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private final HttpClient cliente = HttpClient.newHttpClient();
+    private final List<InputStream> streams = new ArrayList<>();
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("sse");
+        token = jwtService.generateToken(user.getEmail());
+    }
+
+    @AfterEach
+    void limparDados() throws Exception {
+        for (InputStream stream : streams) {
+            stream.close();
+        }
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void deltaDoCommitChegaComTotaisEHeartbeat() throws Exception {
+        BlockingQueue<EventoLido> eventos = assinar(null);
+        assertEquals(null, proximo(eventos).nome(), "Heartbeat esperado enquanto ocioso");
+
+        Produto produto = produtoRepository.save(new Produto("Caneca", "SSE-" + System.nanoTime(), null, null, 0, user));
+        EntradaEstoque entrada = estoqueService.registrarEntrada(new EntradaEstoque(produto, 3, new BigDecimal("12.00"),
+                "Fornecedor", "SSE-C-" + System.nanoTime(), "Produto", null, user));
+
+        EventoLido compra = proximoEvento(eventos);
+        assertEquals(MovimentoDashboardEvent.COMPRA_REGISTRADA, compra.nome());
+        assertTrue(compra.dados().contains("\"id\":" + entrada.getId()), compra.dados());
+
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.VENDA));
+        EventoLido totais = proximoEvento(eventos);
+        assertEquals(EventosDashboardService.TOTAIS, totais.nome());
+        assertTrue(totais.dados().contains("\"quantidadeVendas\":0"), totais.dados());
+    }
+
+    @Test
+    void reconexaoRecebeSoOQuePerdeuEIdDesconhecidoRecebeReset() throws Exception {
+        BlockingQueue<EventoLido> eventos = assinar(null);
+        publicar(1);
+        EventoLido primeiro = proximoEvento(eventos);
+        streams.remove(streams.size() - 1).close();
+
+        publicar(2);
+        publicar(3);
+        BlockingQueue<EventoLido> retomado = assinar(primeiro.id());
+        assertTrue(proximoEvento(retomado).dados().contains("\"n\":2"));
+        assertTrue(proximoEvento(retomado).dados().contains("\"n\":3"));
+
+        BlockingQueue<EventoLido> desconhecido = assinar("1-999");
+        assertEquals(EventosDashboardService.RESET, proximoEvento(desconhecido).nome());
+    }
+
+    @Test
+    void clienteQueNaoAcompanhaEDesconectadoPeloBuffer() throws Exception {
+        long antes = (Long) eventosDashboardService.estatisticas().get("encerradasPorBuffer");
+        BlockingQueue<EventoLido> eventos = assinar(null);
+        proximo(eventos);
+
+        // Quem publica nunca espera: 5000 eventos numa fila de 4 estouram e a conexão é encerrada
+        for (int i = 0; i < 5000; i++) {
+            publicar(i);
+        }
+        EventoLido lido;
+        do {
+            lido = eventos.poll(10, TimeUnit.SECONDS);
+            assertNotNull(lido, "Stream deveria ter sido encerrado");
+        } while (lido != FIM);
+        assertTrue((Long) eventosDashboardService.estatisticas().get("encerradasPorBuffer") > antes);
+    }
+
+    @Test
+    void estatisticasSoParaAdministradores() throws Exception {
+        assertEquals(403, getEstatisticas(token));
+
+        User admin = userRepository.findByEmail(ADMIN).orElseGet(() -> userRepository.save(new User(ADMIN, "x", "Admin")));
+        try {
+            assertEquals(200, getEstatisticas(jwtService.generateToken(admin.getEmail())));
+        } finally {
+            dadosTeste.excluirUsuarios(admin);
+        }
+    }
+
+    private int getEstatisticas(String tokenUsuario) throws Exception {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/dashboard/eventos/estatisticas"))
+                .header("Authorization", "Bearer " + tokenUsuario).build();
+        return cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void publicar(int n) {
+        eventPublisher.publishEvent(MovimentoDashboardEvent.de(user.getId(), MovimentoDashboardEvent.DESPESA_ADICIONADA, "n", n));
+    }
+
+    // Abre o stream e lê os eventos numa thread virtual
+    private BlockingQueue<EventoLido> assinar(String ultimoEventoId) throws Exception {
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/dashboard/eventos"))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream");
+        if (ultimoEventoId != null) {
+            requisicao.header("Last-Event-ID", ultimoEventoId);
+        }
+        HttpResponse<InputStream> resposta = cliente.send(requisicao.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, resposta.statusCode());
+        streams.add(resposta.body());
+
+        BlockingQueue<EventoLido> eventos = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> {
+            try (BufferedReader leitor = new BufferedReader(new InputStreamReader(resposta.body(), StandardCharsets.UTF_8))) {
+                String id = null, nome = null, dados = null;
+                String linha;
+                while ((linha = leitor.readLine()) != null) {
+                    if (linha.startsWith("id:")) id = linha.substring(3);
+                    else if (linha.startsWith("event:")) nome = linha.substring(6);
+                    else if (linha.startsWith("data:")) dados = linha.substring(5);
+                    else if (linha.isEmpty()) {
+                        eventos.add(new EventoLido(id, nome, dados));
+                        id = nome = dados = null;
+                    }
+                }
+            } catch (Exception ignorado) {
+                // Stream fechado pelo teste
+            }
+            eventos.add(FIM);
+        });
+        return eventos;
+    }
+
+    private EventoLido proximo(BlockingQueue<EventoLido> eventos) throws InterruptedException {
+        EventoLido evento = eventos.poll(5, TimeUnit.SECONDS);
+        assertNotNull(evento, "Nenhum evento recebido");
+        return evento;
+    }
+
+    // Próximo evento com nome (pula heartbeats)
+    private EventoLido proximoEvento(BlockingQueue<EventoLido> eventos) throws InterruptedException {
+        EventoLido evento;
+        do {
+            evento = proximo(eventos);
+        } while (evento.nome() == null);
+        return evento;
+    }
+}
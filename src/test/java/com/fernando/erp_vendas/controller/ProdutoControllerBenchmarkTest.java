@@ -0,0 +1,112 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.service.EstoqueService;
+import com.fernando.erp_vendas.service.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 🆕 BENCHMARK: Vazão de GET /api/produtos (filtro JWT + controller + serialização JSON dos produtos)
+// com a configuração de logging da aplicação. Requer PostgreSQL (spring.datasource.url).
+// Execução: mvn test -Dbenchmarks=true -Dtest=ProdutoControllerBenchmarkTest
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ProdutoControllerBenchmarkTest {
+
+    private static final int PRODUTOS = 50;
+    private static final int LOTES_POR_PRODUTO = 3;
+    private static final int CLIENTES = 8;
+    private static final int AQUECIMENTO = 500;
+    private static final int REQUISICOES = 5000;
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    private User user;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuario("bench-produtos");
+        for (int p = 0; p < PRODUTOS; p++) {
+            Produto produto = produtoRepository.save(new Produto("Produto " + p, "BENCH-" + user.getId() + "-" + p,
+                    null, null, 0, user));
+            for (int l = 0; l < LOTES_POR_PRODUTO; l++) {
+                estoqueService.registrarEntrada(new EntradaEstoque(produto, 10, BigDecimal.valueOf(50),
+                        "Fornecedor", "BENCH-COMPRA-" + System.nanoTime(), "Produto", null, user));
+            }
+        }
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void vazaoListagemProdutos() throws Exception {
+        HttpClient cliente = HttpClient.newHttpClient();
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/produtos"))
+                .header("Authorization", "Bearer " + jwtService.generateToken(user.getEmail()))
+                .GET()
+                .build();
+
+        executar(cliente, requisicao, AQUECIMENTO);
+
+        long inicio = System.nanoTime();
+        executar(cliente, requisicao, REQUISICOES);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.printf("GET /api/produtos: %d requisições, %d clientes, %d produtos em %.2fs (%.0f req/s)%n",
+                REQUISICOES, CLIENTES, PRODUTOS, segundos, REQUISICOES / segundos);
+    }
+
+    private void executar(HttpClient cliente, HttpRequest requisicao, int total) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTES);
+        try {
+            List<Future<Integer>> respostas = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                respostas.add(executor.submit(() ->
+                        cliente.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode()));
+            }
+            for (Future<Integer> resposta : respostas) {
+                assertEquals(200, resposta.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
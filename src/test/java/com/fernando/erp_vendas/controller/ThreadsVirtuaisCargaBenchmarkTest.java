@@ -0,0 +1,196 @@
+package com.fernando.erp_vendas.controller;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.ErpVendasApplication;
+import com.fernando.erp_vendas.config.LimitadorConexoesBanco;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.service.EstoqueService;
+import com.fernando.erp_vendas.service.JwtService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 🆕 CARGA: threads de plataforma x threads virtuais no Tomcat, com o pool de conexões pequeno (hikari = 5)
+// e o limitador de conexões na frente. Para 50, 500 e 5000 clientes simultâneos (cada cliente em loop fechado,
+// alternando GET /api/vendas?limite=50 e GET /dashboard) mede vazão, latência p50/p99 e erros.
+// A aplicação sobe duas vezes, uma com spring.threads.virtual.enabled=false e outra com true.
+// Requer PostgreSQL (spring.datasource.url) e limite de arquivos abertos acima de 2 × 5000 (ulimit -n).
+// Execução: mvn test -Dbenchmarks=true -Dtest=ThreadsVirtuaisCargaBenchmarkTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ThreadsVirtuaisCargaBenchmarkTest {
+
+    private static final int[] CLIENTES = {50, 500, 5000};
+    private static final int VENDAS = 200;
+    private static final Duration AQUECIMENTO = Duration.ofSeconds(3);
+    private static final Duration MEDICAO = Duration.ofSeconds(10);
+    private static final Duration TIMEOUT_REQUISICAO = Duration.ofSeconds(30);
+
+    @Test
+    void threadsDePlataformaContraThreadsVirtuais() throws Exception {
+        List<String> resultados = new ArrayList<>();
+        for (boolean virtuais : new boolean[]{false, true}) {
+            resultados.addAll(executarModo(virtuais));
+        }
+
+        System.out.println("modo        clientes  requisicoes    req/s   p50(ms)   p99(ms)   erros");
+        resultados.forEach(System.out::println);
+    }
+
+    private List<String> executarModo(boolean virtuais) throws Exception {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(ErpVendasApplication.class)
+                // Argumentos de linha de comando: sobrepõem o application.properties (properties() não sobrepõe)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtuais,
+                        "--app.estoque.reconciliacao.atraso-inicial-ms=3600000");
+        User user = null;
+        try {
+            user = criarDados(contexto);
+            int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            String token = contexto.getBean(JwtService.class).generateToken(user.getEmail());
+            List<HttpRequest> requisicoes = List.of(
+                    requisicao(porta, "/api/vendas?limite=50", token),
+                    requisicao(porta, "/dashboard", token));
+
+            List<String> linhas = new ArrayList<>();
+            for (int clientes : CLIENTES) {
+                medir(requisicoes, clientes, AQUECIMENTO);
+                Medicao medicao = medir(requisicoes, clientes, MEDICAO);
+                linhas.add(String.format("%-10s %9d %12d %8.0f %9.1f %9.1f %7d",
+                        virtuais ? "virtual" : "plataforma", clientes, medicao.requisicoes(),
+                        medicao.requisicoes() / (MEDICAO.toMillis() / 1000.0),
+                        medicao.percentilMs(0.50), medicao.percentilMs(0.99), medicao.erros()));
+
+                if (contexto.getBean(DataSource.class) instanceof LimitadorConexoesBanco limitador) {
+                    System.out.println((virtuais ? "virtual" : "plataforma") + " " + clientes
+                            + " clientes, limitador (acumulado): " + limitador.estatisticas());
+                }
+            }
+            return linhas;
+        } finally {
+            if (user != null) {
+                limparDados(contexto, user);
+            }
+            contexto.close();
+        }
+    }
+
+    // Cada cliente (thread virtual) repete as requisições até o fim da janela
+    private Medicao medir(List<HttpRequest> requisicoes, int clientes, Duration duracao) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(TIMEOUT_REQUISICAO)
+                .build();
+        AtomicLong erros = new AtomicLong();
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<long[]>> tarefas = new ArrayList<>(clientes);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                int primeira = c;
+                tarefas.add(executor.submit(() -> {
+                    long[] latencias = new long[64];
+                    int total = 0;
+                    largada.await();
+                    long fim = System.nanoTime() + duracao.toNanos();
+                    for (int i = primeira; System.nanoTime() < fim; i++) {
+                        long inicio = System.nanoTime();
+                        try {
+                            int status = http.send(requisicoes.get(i % requisicoes.size()),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status != 200) {
+                                erros.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            erros.incrementAndGet();
+                            continue;
+                        }
+                        if (total == latencias.length) {
+                            latencias = Arrays.copyOf(latencias, total * 2);
+                        }
+                        latencias[total++] = System.nanoTime() - inicio;
+                    }
+                    return Arrays.copyOf(latencias, total);
+                }));
+            }
+            largada.countDown();
+
+            List<long[]> porCliente = new ArrayList<>(clientes);
+            for (Future<long[]> tarefa : tarefas) {
+                porCliente.add(tarefa.get(duracao.toSeconds() + TIMEOUT_REQUISICAO.toSeconds() * 2, TimeUnit.SECONDS));
+            }
+            long[] todas = porCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Medicao(todas, erros.get());
+        } finally {
+            http.close();
+        }
+    }
+
+    private record Medicao(long[] latenciasOrdenadas, long erros) {
+
+        long requisicoes() {
+            return latenciasOrdenadas.length;
+        }
+
+        double percentilMs(double percentil) {
+            if (latenciasOrdenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.min(latenciasOrdenadas.length - 1, Math.ceil(percentil * latenciasOrdenadas.length) - 1);
+            return latenciasOrdenadas[Math.max(0, indice)] / 1e6;
+        }
+    }
+
+    private static HttpRequest requisicao(int porta, String caminho, String token) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho))
+                .header("Authorization", "Bearer " + token)
+                .timeout(TIMEOUT_REQUISICAO)
+                .GET()
+                .build();
+    }
+
+    private static User criarDados(ConfigurableApplicationContext contexto) {
+        DadosTeste dadosTeste = contexto.getBean(DadosTeste.class);
+        User user = dadosTeste.novoUsuarioAutenticado("carga-threads");
+        try {
+            EstoqueService estoqueService = contexto.getBean(EstoqueService.class);
+            Produto produto = dadosTeste.novoProduto(user, "Produto carga", "CARGA");
+            estoqueService.registrarEntrada(new EntradaEstoque(produto, VENDAS, BigDecimal.valueOf(VENDAS * 20L),
+                    "Fornecedor", "CARGA-COMPRA-" + System.nanoTime(), "Produto", null, user));
+            for (int i = 0; i < VENDAS; i++) {
+                estoqueService.registrarVendaPeps(new Venda("CARGA-PEDIDO-" + user.getId() + "-" + i, "AMAZON", 1,
+                        produto, 100.0, 0.0, 0.0, 0.0, 0.0, 0.0, user));
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return user;
+    }
+
+    private static void limparDados(ConfigurableApplicationContext contexto, User user) {
+        contexto.getBean(DadosTeste.class).excluirUsuarios(user);
+    }
+}
@@ -0,0 +1,64 @@
+package com.fernando.erp_vendas.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 🆕 REGRAS DE ARREDONDAMENTO DOS CENTAVOS: devem coincidir com BigDecimal.valueOf(x).setScale(2, HALF_UP)
+class DinheiroTest {
+
+    @Test
+    void deReaisArredondaMeioCentavoParaCima() {
+        assertEquals(101, Dinheiro.deReais(1.005));
+        assertEquals(-101, Dinheiro.deReais(-1.005));
+        assertEquals(1, Dinheiro.deReais(0.005));
+        assertEquals(0, Dinheiro.deReais(0.0049));
+        assertEquals(1999, Dinheiro.deReais(19.99));
+        assertEquals(0, Dinheiro.deReais((Double) null));
+        assertEquals(0, Dinheiro.deReais((BigDecimal) null));
+    }
+
+    @Test
+    void deReaisCoincideComBigDecimal() {
+        SplittableRandom aleatorio = new SplittableRandom(42L);
+        for (int i = 0; i < 200_000; i++) {
+            double valor = (aleatorio.nextLong(-10_000_000, 10_000_000) + aleatorio.nextInt(0, 1000) / 1000.0) / 100.0;
+            long esperado = BigDecimal.valueOf(valor).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            assertEquals(esperado, Dinheiro.deReais(valor), "Valor " + valor);
+        }
+    }
+
+    @Test
+    void conversaoDeIdaEVoltaPreservaOValor() {
+        assertEquals(12345, Dinheiro.deReais(Dinheiro.paraReais(12345)));
+        assertEquals(new BigDecimal("123.45"), Dinheiro.paraDecimal(12345));
+        assertEquals(12345, Dinheiro.deReais(new BigDecimal("123.449")));
+    }
+
+    @Test
+    void dividirArredondaHalfUp() {
+        assertEquals(333, Dinheiro.dividir(1000, 3));
+        assertEquals(667, Dinheiro.dividir(2000, 3));
+        assertEquals(1, Dinheiro.dividir(1, 2));
+        assertEquals(-1, Dinheiro.dividir(-1, 2));
+        assertThrows(ArithmeticException.class, () -> Dinheiro.dividir(100, 0));
+    }
+
+    @Test
+    void operacoesQueEstourariamFalham() {
+        assertThrows(ArithmeticException.class, () -> Dinheiro.somar(Long.MAX_VALUE, 1));
+        assertThrows(ArithmeticException.class, () -> Dinheiro.multiplicar(Long.MAX_VALUE, 2));
+        assertThrows(RuntimeException.class, () -> Dinheiro.deReais(Double.NaN));
+    }
+
+    @Test
+    void percentualComBaseZeroResultaZero() {
+        assertEquals(50.0, Dinheiro.percentual(50, 100));
+        assertEquals(0.0, Dinheiro.percentual(50, 0));
+    }
+}
@@ -0,0 +1,121 @@
+package com.fernando.erp_vendas.repository;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.ItemVenda;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 BENCHMARK: comandos JDBC para gravar 1.000 vendas (cada uma com 1 item PEPS) via vendaRepository.saveAll e
+// itemVendaRepository.saveAll, com o batching desligado (1 comando por INSERT, como era com IDENTITY) e ligado
+// (ids das sequências em blocos de 50 + hibernate.jdbc.batch_size=50 + order_inserts).
+// Comandos = PreparedStatements preparados pelo Hibernate (um por INSERT sem lote, um por lote com batching,
+// mais um nextval por bloco de 50 ids).
+// Requer PostgreSQL (spring.datasource.url). Execução: mvn test -Dbenchmarks=true -Dtest=PersistenciaEmLoteBenchmarkTest
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class PersistenciaEmLoteBenchmarkTest {
+
+    private static final int VENDAS = 1000;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private EntradaEstoqueRepository entradaEstoqueRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private ItemVendaRepository itemVendaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private Produto produto;
+    private EntradaEstoque lote;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuario("bench-lote");
+        produto = dadosTeste.novoProduto(user, "Produto lote", "LOTE");
+        lote = entradaEstoqueRepository.save(new EntradaEstoque(produto, 2 * VENDAS, new BigDecimal("20000.00"),
+                "Fornecedor", "LOTE-" + System.nanoTime(), "Produto", null, user));
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void comandosPorMilVendasSemEComBatching() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        System.out.println("modo        | inserts | comandos | tempo (ms)");
+        long[] semLote = gravarVendas(estatisticas, 1);
+        System.out.printf("sem lote    | %7d | %8d | %10d%n", semLote[0], semLote[1], semLote[2]);
+        long[] emLote = gravarVendas(estatisticas, 50);
+        System.out.printf("em lote (50)| %7d | %8d | %10d%n", emLote[0], emLote[1], emLote[2]);
+
+        assertEquals(2 * VENDAS, semLote[0]);
+        assertEquals(2 * VENDAS, emLote[0]);
+        assertTrue(semLote[1] >= 2 * VENDAS, "Sem lote deveria ser um comando por INSERT, foram " + semLote[1]);
+        // 2.000 INSERTs em lotes de 50 (40) + 40 nextval (20 blocos de vendas e 20 de itens)
+        assertTrue(emLote[1] <= 100, "Com batching deveriam ser dezenas de comandos, foram " + emLote[1]);
+        assertEquals(2 * VENDAS, itemVendaRepository.countByUser(user));
+    }
+
+    // Devolve [entidades inseridas, comandos preparados, tempo em ms]
+    private long[] gravarVendas(Statistics estatisticas, int tamanhoLote) {
+        estatisticas.clear();
+        long inicio = System.nanoTime();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+            List<Venda> vendas = new ArrayList<>(VENDAS);
+            for (int i = 0; i < VENDAS; i++) {
+                vendas.add(new Venda("LOTE-" + tamanhoLote + "-" + i + "-" + System.nanoTime(), "AMAZON", 1, produto,
+                        50.0, 0.0, 5.0, 7.5, 10.0, 0.0, user));
+            }
+            List<ItemVenda> itensVenda = new ArrayList<>(VENDAS);
+            for (Venda venda : vendaRepository.saveAll(vendas)) {
+                itensVenda.add(new ItemVenda(venda, lote, 1, lote.getCustoUnitarioCentavos(), user));
+            }
+            itemVendaRepository.saveAll(itensVenda);
+        });
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        return new long[]{estatisticas.getEntityInsertCount(), estatisticas.getPrepareStatementCount(), ms};
+    }
+}
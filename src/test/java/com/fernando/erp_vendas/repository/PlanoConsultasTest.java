@@ -0,0 +1,272 @@
+package com.fernando.erp_vendas.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fernando.erp_vendas.service.MovimentoEstoqueService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 PLANOS DAS CONSULTAS QUENTES com 1 milhão de linhas por tabela
+// Cria (uma vez) o banco erp_vendas_plano_consultas no mesmo servidor, aplica as migrações e gera dados
+// sintéticos: 1.000 usuários, 20.000 produtos e 1.000.000 de vendas, lotes, itens de venda, despesas
+// e movimentos de estoque (com fotografias mensais por produto), além de 1.000.000 de lotes arquivados.
+// Cada consulta da lista passa por EXPLAIN; se alguma cair em varredura sequencial, o teste falha.
+// O banco fica no servidor para as próximas execuções (só as migrações novas são aplicadas; os dados
+// são regerados se a contagem não bater). Primeira execução: ~1-2 min. Requer PostgreSQL com CREATEDB.
+// Fora do mvn test padrão (carga pesada). Execução: mvn test -Dbenchmarks=true -Dtest=PlanoConsultasTest
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class PlanoConsultasTest {
+
+    private static final String BANCO = "erp_vendas_plano_consultas";
+    private static final int LINHAS = 1_000_000;
+    private static final int USUARIOS = 1_000;
+    private static final int PRODUTOS = 20_000;
+
+    // Usuário 42 é dono do produto 42 (e dos produtos 1042, 2042...), da venda 42, do lote 42 e do item 42
+    private static final Map<String, String> CONSULTAS = new LinkedHashMap<>();
+
+    static {
+        String vendaDTO = "SELECT v.id, v.data, v.id_pedido, v.plataforma, v.quantidade, p.id, p.nome, p.sku, "
+                + "v.preco_venda, v.custo_envio FROM venda v JOIN produto p ON p.id = v.produto_id ";
+        String entradaDTO = "SELECT e.id, p.id, p.nome, p.sku, e.quantidade, e.saldo, e.custo_total, e.data_entrada "
+                + "FROM entrada_estoque e JOIN produto p ON p.id = e.produto_id ";
+
+        // VendaRepository
+        CONSULTAS.put("venda: primeira página", vendaDTO
+                + "WHERE v.user_id = 42 ORDER BY v.data DESC, v.id DESC LIMIT 51");
+        CONSULTAS.put("venda: página seguinte", vendaDTO + "WHERE v.user_id = 42 AND v.data <= '2020-12-01' "
+                + "AND (v.data < '2020-12-01' OR v.id < 480000) ORDER BY v.data DESC, v.id DESC LIMIT 51");
+        CONSULTAS.put("venda: por produto", "SELECT * FROM venda WHERE produto_id = 42 AND user_id = 42");
+        CONSULTAS.put("venda: por período", "SELECT * FROM venda WHERE user_id = 42 "
+                + "AND data BETWEEN '2020-06-01' AND '2020-07-01'");
+        CONSULTAS.put("venda: por id do pedido", "SELECT * FROM venda WHERE id_pedido = 'PED-42' AND user_id = 42");
+        CONSULTAS.put("venda: pedidos existentes", "SELECT id_pedido FROM venda WHERE user_id = 42 "
+                + "AND id_pedido IN ('PED-42', 'PED-1042', 'PED-999999')");
+        CONSULTAS.put("venda: por plataforma", "SELECT * FROM venda WHERE plataforma = 'AMAZON' AND user_id = 42");
+        CONSULTAS.put("venda: contagem do usuário", "SELECT count(*) FROM venda WHERE user_id = 42");
+        CONSULTAS.put("venda: ranking por lucro líquido", "SELECT * FROM venda WHERE user_id = 42 "
+                + "ORDER BY lucro_liquido ASC, id ASC LIMIT 50");
+        CONSULTAS.put("venda: ranking por ROI na plataforma e período", "SELECT * FROM venda WHERE user_id = 42 "
+                + "AND plataforma = 'AMAZON' AND data >= '2020-06-01' AND data < '2020-07-01' "
+                + "ORDER BY roi DESC, id DESC LIMIT 50");
+
+        // EntradaEstoqueRepository
+        CONSULTAS.put("lote: alocação PEPS", "SELECT id, saldo, custo_unitario, data_entrada, versao "
+                + "FROM entrada_estoque WHERE produto_id = 42 AND user_id = 42 AND saldo > 0 ORDER BY data_entrada, id");
+        CONSULTAS.put("lote: PEPS de vários produtos", "SELECT id, produto_id, saldo, custo_unitario "
+                + "FROM entrada_estoque WHERE produto_id IN (42, 1042, 2042) AND user_id = 42 AND saldo > 0 "
+                + "ORDER BY produto_id, data_entrada, id FOR UPDATE");
+        CONSULTAS.put("lote: todos do produto", "SELECT * FROM entrada_estoque WHERE produto_id = 42 AND user_id = 42 "
+                + "ORDER BY data_entrada");
+        CONSULTAS.put("lote: saldo total do produto", "SELECT coalesce(sum(saldo), 0) FROM entrada_estoque "
+                + "WHERE produto_id = 42 AND user_id = 42");
+        CONSULTAS.put("lote: primeira página", entradaDTO
+                + "WHERE e.user_id = 42 ORDER BY e.data_entrada DESC, e.id DESC LIMIT 51");
+        CONSULTAS.put("lote: por categoria", "SELECT * FROM entrada_estoque WHERE categoria = 'Embalagem' AND user_id = 42");
+        CONSULTAS.put("lote: por pedido de compra", "SELECT * FROM entrada_estoque "
+                + "WHERE id_pedido_compra = 'PC-42' AND user_id = 42");
+        CONSULTAS.put("lote: saldo baixo", "SELECT * FROM entrada_estoque WHERE user_id = 42 AND saldo > 0 AND saldo < 5");
+        CONSULTAS.put("lote: candidatos ao arquivamento", "SELECT id FROM entrada_estoque WHERE saldo = 0 "
+                + "AND data_entrada < '2020-06-01' ORDER BY data_entrada, id LIMIT 1000 FOR UPDATE SKIP LOCKED");
+
+        // EntradaEstoqueHistoricoRepository (lotes ativos + arquivados)
+        String historicoDTO = "SELECT e.id, p.id, p.nome, p.sku, e.quantidade, e.saldo, e.custo_total, e.data_entrada, "
+                + "e.arquivado FROM entrada_estoque_historico e JOIN produto p ON p.id = e.produto_id ";
+        CONSULTAS.put("histórico: primeira página", historicoDTO
+                + "WHERE e.user_id = 42 ORDER BY e.data_entrada DESC, e.id DESC LIMIT 51");
+        CONSULTAS.put("histórico: página seguinte", historicoDTO + "WHERE e.user_id = 42 "
+                + "AND e.data_entrada <= '2019-06-01' AND (e.data_entrada < '2019-06-01' OR e.id < 1500000) "
+                + "ORDER BY e.data_entrada DESC, e.id DESC LIMIT 51");
+        CONSULTAS.put("histórico: do produto", historicoDTO + "WHERE e.produto_id = 42 AND e.user_id = 42 "
+                + "ORDER BY e.data_entrada, e.id");
+        CONSULTAS.put("histórico: por pedido de compra", "SELECT * FROM entrada_estoque_historico "
+                + "WHERE id_pedido_compra = 'PCA-42' AND user_id = 42");
+        CONSULTAS.put("histórico: por categoria", historicoDTO + "WHERE e.categoria = 'Embalagem' AND e.user_id = 42 "
+                + "AND p.user_id = 42");
+
+        // ItemVendaRepository
+        CONSULTAS.put("item: por venda", "SELECT * FROM item_venda WHERE venda_id = 42 AND user_id = 42");
+        CONSULTAS.put("item: por lote", "SELECT * FROM item_venda WHERE lote_id = 42 AND user_id = 42");
+        CONSULTAS.put("item: contagem do usuário", "SELECT count(*) FROM item_venda WHERE user_id = 42");
+
+        // DespesaRepository
+        CONSULTAS.put("despesa: primeira página", "SELECT * FROM despesa WHERE user_id = 42 "
+                + "ORDER BY data DESC, id DESC LIMIT 51");
+        CONSULTAS.put("despesa: total do período", "SELECT sum(valor) FROM despesa WHERE user_id = 42 "
+                + "AND data BETWEEN '2021-01-01' AND '2021-01-31'");
+        CONSULTAS.put("despesa: por categoria", "SELECT * FROM despesa WHERE categoria = 'ALUGUEL' AND user_id = 42 "
+                + "ORDER BY data DESC");
+        CONSULTAS.put("despesa: total da categoria no período", "SELECT sum(valor) FROM despesa WHERE user_id = 42 "
+                + "AND categoria = 'ALUGUEL' AND data BETWEEN '2021-01-01' AND '2021-12-31'");
+        CONSULTAS.put("despesa: recorrentes", "SELECT * FROM despesa WHERE recorrente AND user_id = 42 ORDER BY data DESC");
+
+        // MovimentoEstoqueService: valoração em uma data e geração das fotografias
+        CONSULTAS.put("movimento: valoração do usuário na data", MovimentoEstoqueService.SQL_ESTOQUE_EM
+                .replace(":userId", "42").replace(":ate", "timestamp '2021-06-01'"));
+        CONSULTAS.put("movimento: cauda do produto", "SELECT sum(quantidade), sum(valor) FROM movimento_estoque "
+                + "WHERE produto_id = 42 AND data_movimento >= '2021-05-31' AND data_movimento < '2021-06-01'");
+        CONSULTAS.put("movimento: produtos desde o último corte", "SELECT DISTINCT produto_id FROM movimento_estoque "
+                + "WHERE data_movimento >= '2021-05-31' AND data_movimento < '2021-06-01'");
+
+        // ProdutoRepository e busca
+        CONSULTAS.put("produto: por asin", "SELECT * FROM produto WHERE asin = 'ASIN42' AND user_id = 42");
+        CONSULTAS.put("produto: busca textual", "SELECT id FROM produto WHERE "
+                + ProdutoRepository.BUSCA_DOCUMENTO + " LIKE erp_normalizar('%produto 4242%')");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Test
+    void consultasQuentesNaoUsamVarreduraSequencial() throws Exception {
+        JdbcTemplate plano = prepararBanco();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> falhas = new ArrayList<>();
+        for (Map.Entry<String, String> consulta : CONSULTAS.entrySet()) {
+            String json = plano.queryForObject("EXPLAIN (FORMAT JSON) " + consulta.getValue(), String.class);
+            List<String> varreduras = new ArrayList<>();
+            varredurasSequenciais(objectMapper.readTree(json).get(0).get("Plan"), varreduras);
+            if (!varreduras.isEmpty()) {
+                falhas.add(consulta.getKey() + " -> Seq Scan em " + varreduras);
+            }
+        }
+
+        assertTrue(falhas.isEmpty(), "Consultas em varredura sequencial com " + LINHAS + " linhas:\n"
+                + String.join("\n", falhas));
+    }
+
+    private static void varredurasSequenciais(JsonNode no, List<String> varreduras) {
+        if ("Seq Scan".equals(no.path("Node Type").asText())) {
+            varreduras.add(no.path("Relation Name").asText());
+        }
+        for (JsonNode filho : no.path("Plans")) {
+            varredurasSequenciais(filho, varreduras);
+        }
+    }
+
+    // Banco separado (não mexe nos dados de desenvolvimento), migrado pelo Flyway como em produção
+    private JdbcTemplate prepararBanco() {
+        if (jdbcTemplate.queryForList("SELECT 1 FROM pg_database WHERE datname = ?", BANCO).isEmpty()) {
+            jdbcTemplate.execute("CREATE DATABASE " + BANCO);
+        }
+        int barra = url.lastIndexOf('/');
+        int parametros = url.indexOf('?', barra);
+        String urlPlano = url.substring(0, barra + 1) + BANCO + (parametros >= 0 ? url.substring(parametros) : "");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(urlPlano, username, password);
+
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+        JdbcTemplate plano = new JdbcTemplate(dataSource);
+        Long vendas = plano.queryForObject("SELECT count(*) FROM venda", Long.class);
+        if (vendas == null || vendas != LINHAS) {
+            popular(plano);
+        }
+        Long arquivados = plano.queryForObject("SELECT count(*) FROM entrada_estoque_arquivo", Long.class);
+        if (arquivados == null || arquivados != LINHAS) {
+            popularArquivo(plano);
+        }
+        Long movimentos = plano.queryForObject("SELECT count(*) FROM movimento_estoque", Long.class);
+        if (movimentos == null || movimentos != LINHAS) {
+            popularMovimentos(plano);
+        }
+        return plano;
+    }
+
+    private static void popular(JdbcTemplate plano) {
+        plano.execute("TRUNCATE item_venda, venda_resumo_diario, venda, entrada_estoque, entrada_estoque_arquivo, despesa, "
+                + "produto, users RESTART IDENTITY");
+        plano.execute("INSERT INTO users (id, email, password, nome, ativo, data_criacao) "
+                + "SELECT g, 'plano-' || g || '@erp.local', 'x', 'Plano ' || g, true, now() "
+                + "FROM generate_series(1, " + USUARIOS + ") g");
+        // Produto g pertence ao usuário ((g - 1) % USUARIOS) + 1
+        plano.execute("INSERT INTO produto (id, nome, sku, asin, descricao, estoque_minimo, data_criacao, user_id, "
+                + "estoque_atual, valor_estoque_atual) "
+                + "SELECT g, 'Produto ' || g, 'SKU-' || g, 'ASIN' || g, 'Descrição do produto ' || g, 5, now(), "
+                + "((g - 1) % " + USUARIOS + ") + 1, 0, 0 FROM generate_series(1, " + PRODUTOS + ") g");
+        // Linha g (lote, venda, item) é do produto ((g - 1) % PRODUTOS) + 1 e do dono desse produto;
+        // 90% dos lotes já esgotados, como numa operação com histórico
+        String produto = "(((g - 1) % " + PRODUTOS + ") + 1)";
+        String dono = "((((g - 1) % " + PRODUTOS + ") % " + USUARIOS + ") + 1)";
+        carregarSemGatilhos(plano, "INSERT INTO entrada_estoque (id, produto_id, quantidade, saldo, custo_total, custo_unitario, "
+                + "data_entrada, fornecedor, id_pedido_compra, categoria, observacoes, user_id, versao) "
+                + "SELECT g, " + produto + ", 50, CASE WHEN g % 10 = 0 THEN (g % 50) + 1 ELSE 0 END, "
+                + "500.00, 10.00, timestamp '2020-01-01' + g * interval '1 minute', 'Fornecedor ' || (g % 300), "
+                + "'PC-' || g, (ARRAY['Produto', 'Embalagem', 'Frete', 'Etiqueta', 'Outros'])[(g % 5) + 1], "
+                + "NULL, " + dono + ", 0 FROM generate_series(1, " + LINHAS + ") g");
+        plano.execute("INSERT INTO venda (id, data, id_pedido, plataforma, quantidade, produto_id, preco_venda, "
+                + "frete_pago_pelo_cliente, custo_envio, tarifa_plataforma, custo_produto_vendido, "
+                + "despesas_operacionais, user_id) "
+                + "SELECT g, timestamp '2020-01-01' + g * interval '1 minute', 'PED-' || g, "
+                + "(ARRAY['AMAZON', 'MERCADO_LIVRE', 'SHOPEE'])[(g % 3) + 1], 1, " + produto + ", "
+                + "100.0, 10.0, 15.0, 12.0, 10.0, 0.0, " + dono + " FROM generate_series(1, " + LINHAS + ") g");
+        carregarSemGatilhos(plano, "INSERT INTO item_venda (id, venda_id, lote_id, quantidade, custo_unitario, user_id) "
+                + "SELECT g, g, g, 1, 10.00, " + dono + " FROM generate_series(1, " + LINHAS + ") g");
+        plano.execute("INSERT INTO despesa (id, descricao, valor, data, categoria, observacoes, recorrente, user_id) "
+                + "SELECT g, 'Despesa ' || g, 99.90, date '2020-01-01' + (g % 2000), "
+                + "(ARRAY['ALUGUEL', 'ENERGIA', 'INTERNET', 'MARKETING', 'SALARIOS', 'IMPOSTOS', 'CONTABILIDADE', "
+                + "'FRETE', 'EMBALAGEM', 'OUTROS'])[(g % 10) + 1], NULL, g % 20 = 0, ((g - 1) % " + USUARIOS + ") + 1 "
+                + "FROM generate_series(1, " + LINHAS + ") g");
+        plano.execute("ANALYZE");
+    }
+
+    // Lotes esgotados já arquivados: ids depois dos lotes ativos, entradas anteriores a 2020
+    private static void popularArquivo(JdbcTemplate plano) {
+        plano.execute("TRUNCATE entrada_estoque_arquivo");
+        String produto = "(((g - 1) % " + PRODUTOS + ") + 1)";
+        String dono = "((((g - 1) % " + PRODUTOS + ") % " + USUARIOS + ") + 1)";
+        carregarSemGatilhos(plano, "INSERT INTO entrada_estoque_arquivo (id, produto_id, quantidade, saldo, custo_total, custo_unitario, "
+                + "data_entrada, fornecedor, id_pedido_compra, categoria, observacoes, user_id, versao) "
+                + "SELECT " + LINHAS + " + g, " + produto + ", 50, 0, 500.00, 10.00, "
+                + "timestamp '2018-01-01' + g * interval '1 minute', 'Fornecedor ' || (g % 300), 'PCA-' || g, "
+                + "(ARRAY['Produto', 'Embalagem', 'Frete', 'Etiqueta', 'Outros'])[(g % 5) + 1], NULL, " + dono + ", 1 "
+                + "FROM generate_series(1, " + LINHAS + ") g");
+        plano.execute("ANALYZE entrada_estoque_arquivo");
+    }
+
+    // Carga em massa sem os gatilhos de integridade dos lotes (V9, V10): os dados gerados já são consistentes e a
+    // trava consultiva por pedido de compra não cabe em uma transação de 1 milhão de linhas. A configuração vale
+    // só para a conexão do comando (DriverManagerDataSource abre uma por comando)
+    private static void carregarSemGatilhos(JdbcTemplate plano, String sql) {
+        plano.execute("SET session_replication_role = replica; " + sql);
+    }
+
+    // Um movimento por minuto (como os lotes) e uma fotografia por produto a cada 30 dias
+    private static void popularMovimentos(JdbcTemplate plano) {
+        plano.execute("TRUNCATE movimento_estoque, estoque_fotografia RESTART IDENTITY");
+        String produto = "(((g - 1) % " + PRODUTOS + ") + 1)";
+        String dono = "((((g - 1) % " + PRODUTOS + ") % " + USUARIOS + ") + 1)";
+        plano.execute("INSERT INTO movimento_estoque (produto_id, user_id, tipo, quantidade, valor, data_movimento) "
+                + "SELECT " + produto + ", " + dono + ", CASE WHEN g % 2 = 0 THEN 'COMPRA' ELSE 'CONSUMO_VENDA' END, "
+                + "CASE WHEN g % 2 = 0 THEN 2 ELSE -1 END, CASE WHEN g % 2 = 0 THEN 20.00 ELSE -10.00 END, "
+                + "timestamp '2020-01-01' + g * interval '1 minute' FROM generate_series(1, " + LINHAS + ") g");
+        plano.execute("INSERT INTO estoque_fotografia (produto_id, corte, user_id, quantidade, valor) "
+                + "SELECT p.id, c.corte, p.user_id, 10, 100.00 FROM produto p "
+                + "CROSS JOIN generate_series(timestamp '2020-01-31', timestamp '2021-12-31', interval '30 days') c(corte)");
+        plano.execute("ANALYZE movimento_estoque");
+        plano.execute("ANALYZE estoque_fotografia");
+    }
+}
@@ -0,0 +1,174 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.dto.EntradaEstoqueDTO;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.EntradaEstoqueHistoricoRepository;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import com.fernando.erp_vendas.repository.ItemVendaRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 ARQUIVO DE LOTES: só esgotados antigos saem da tabela quente, o histórico continua completo
+// e a reversão de uma venda restaura o lote arquivado que ela consumiu
+@SpringBootTest(properties = "app.estoque.reconciliacao.atraso-inicial-ms=3600000")
+class ArquivamentoLoteServiceTest {
+
+    // Entrada bem antiga e limite logo depois: o teste só arquiva os próprios lotes
+    private static final LocalDateTime ENTRADA_ANTIGA = LocalDateTime.of(2001, 1, 1, 10, 0);
+    private static final LocalDateTime LIMITE = LocalDateTime.of(2001, 1, 2, 0, 0);
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private ArquivamentoLoteService arquivamentoLoteService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntradaEstoqueRepository entradaEstoqueRepository;
+
+    @Autowired
+    private EntradaEstoqueHistoricoRepository entradaEstoqueHistoricoRepository;
+
+    @Autowired
+    private ItemVendaRepository itemVendaRepository;
+
+    private User user;
+    private Produto produto;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("arquivo");
+        produto = dadosTeste.novoProduto(user, "Caneca", "ARQ");
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void loteEsgotadoAntigoVaiParaOArquivoEVoltaNaReversao() {
+        EntradaEstoque antigo = registrarEntrada(2, "20.00", ENTRADA_ANTIGA);
+        EntradaEstoque recente = registrarEntrada(3, "45.00", LocalDateTime.now());
+        Venda venda = estoqueService.registrarVendaPeps(novaVenda(2)).getVenda();
+
+        assertEquals(1, arquivamentoLoteService.arquivar(LIMITE, 1000));
+        assertEquals(0, arquivamentoLoteService.arquivar(LIMITE, 1000));
+        assertTrue(entradaEstoqueRepository.findById(antigo.getId()).isEmpty());
+        assertTrue(entradaEstoqueRepository.findById(recente.getId()).isPresent());
+
+        // Histórico completo pelas leituras de compras; itens da venda continuam apontando para o lote
+        List<EntradaEstoqueDTO> historico = entradaEstoqueHistoricoRepository.findDTOByProdutoAndUser(produto, user);
+        assertEquals(List.of(antigo.getId(), recente.getId()), historico.stream().map(EntradaEstoqueDTO::getId).toList());
+        assertTrue(historico.get(0).isArquivado());
+        assertFalse(historico.get(1).isArquivado());
+        assertTrue(entradaEstoqueHistoricoRepository.findByIdPedidoCompraAndUser(antigo.getIdPedidoCompra(), user).isPresent());
+        assertEquals(antigo.getId(), itemVendaRepository.findByUser(user).get(0).getLote().getId());
+
+        // Saldo e PEPS não mudam
+        assertEquals(3, estoqueService.verificarSaldoTotal(produto));
+
+        // Reversão: o lote volta para a tabela quente com o saldo devolvido
+        estoqueService.excluirVenda(venda);
+        assertEquals(2, entradaEstoqueRepository.findById(antigo.getId()).orElseThrow().getSaldo());
+        assertFalse(entradaEstoqueHistoricoRepository.findById(antigo.getId()).orElseThrow().isArquivado());
+        assertEquals(5, estoqueService.verificarSaldoTotal(produto));
+        assertEquals(5, produtoRepository.findByIdAndUser(produto.getId(), user).orElseThrow().getQuantidadeEstoqueTotal());
+    }
+
+    @Test
+    void loteComItensDeVendaNaoPodeSerExcluidoSemArquivar() {
+        EntradaEstoque lote = registrarEntrada(1, "10.00", ENTRADA_ANTIGA);
+        estoqueService.registrarVendaPeps(novaVenda(1));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("DELETE FROM entrada_estoque WHERE id = ?", lote.getId()));
+    }
+
+    @Test
+    void itemDeVendaSoApontaParaLoteExistente() {
+        registrarEntrada(1, "10.00", ENTRADA_ANTIGA);
+        estoqueService.registrarVendaPeps(novaVenda(1));
+        assertEquals(1, arquivamentoLoteService.arquivar(LIMITE, 1000));
+        Long itemId = itemVendaRepository.findByUser(user).get(0).getId();
+
+        // Lote arquivado continua válido; lote inexistente é recusado na gravação e na troca
+        assertEquals(1, jdbcTemplate.update("UPDATE item_venda SET lote_id = lote_id WHERE id = ?", itemId));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE item_venda SET lote_id = -1 WHERE id = ?", itemId));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("""
+                        INSERT INTO item_venda (venda_id, lote_id, quantidade, custo_unitario, user_id)
+                        SELECT venda_id, -1, quantidade, custo_unitario, user_id FROM item_venda WHERE id = ?
+                        """, itemId));
+    }
+
+    @Test
+    void pedidoDeCompraArquivadoNaoPodeSerRegistradoDeNovo() {
+        EntradaEstoque arquivado = registrarEntrada(1, "10.00", ENTRADA_ANTIGA);
+        estoqueService.registrarVendaPeps(novaVenda(1));
+        assertEquals(1, arquivamentoLoteService.arquivar(LIMITE, 1000));
+        EntradaEstoque quente = registrarEntrada(1, "10.00", LocalDateTime.now());
+
+        assertThrows(DataIntegrityViolationException.class, () -> estoqueService.registrarEntrada(new EntradaEstoque(
+                produto, 1, new BigDecimal("10.00"), "Fornecedor", arquivado.getIdPedidoCompra(), "Produto", null, user)));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> jdbcTemplate.update("UPDATE entrada_estoque_arquivo SET id_pedido_compra = ? WHERE id = ?",
+                        quente.getIdPedidoCompra(), arquivado.getId()));
+        assertEquals(1, entradaEstoqueHistoricoRepository.findDTOByProdutoAndUser(produto, user).stream()
+                .filter(e -> e.getIdPedidoCompra().equals(arquivado.getIdPedidoCompra())).count());
+    }
+
+    @Test
+    void produtoComLoteArquivadoSemVendasPodeSerExcluido() {
+        EntradaEstoque lote = registrarEntrada(1, "10.00", ENTRADA_ANTIGA);
+        // Lote zerado sem venda (ajuste manual): esgotado, mas sem itens de venda
+        jdbcTemplate.update("UPDATE entrada_estoque SET saldo = 0 WHERE id = ?", lote.getId());
+        assertEquals(1, arquivamentoLoteService.arquivar(LIMITE, 1000));
+
+        estoqueService.excluirProduto(produto);
+
+        assertTrue(produtoRepository.findByIdAndUser(produto.getId(), user).isEmpty());
+        assertTrue(entradaEstoqueHistoricoRepository.findById(lote.getId()).isEmpty());
+    }
+
+    private EntradaEstoque registrarEntrada(int quantidade, String custoTotal, LocalDateTime dataEntrada) {
+        EntradaEstoque entrada = new EntradaEstoque(produto, quantidade, new BigDecimal(custoTotal),
+                "Fornecedor", "ARQ-C-" + System.nanoTime(), "Produto", null, user);
+        entrada.setDataEntrada(dataEntrada);
+        return estoqueService.registrarEntrada(entrada);
+    }
+
+    private Venda novaVenda(int quantidade) {
+        return new Venda("ARQ-PEDIDO-" + System.nanoTime(), "AMAZON", quantidade, produto,
+                100.0, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+    }
+}
@@ -0,0 +1,138 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.dto.PaginaBusca;
+import com.fernando.erp_vendas.dto.ResultadoBusca;
+import com.fernando.erp_vendas.dto.VendaDTO;
+import com.fernando.erp_vendas.model.Despesa;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.DespesaRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 BUSCA TEXTUAL: sem acento/maiúsculas, ranking, isolamento por usuário, vendas em uma consulta
+// e uso dos índices de trigramas. Requer PostgreSQL com pg_trgm e unaccent (spring.datasource.url).
+@SpringBootTest
+class BuscaServiceTest {
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private BuscaService buscaService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private DespesaRepository despesaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private User outroUser;
+    private Produto cafe;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("busca");
+        outroUser = dadosTeste.novoUsuario("busca-outro");
+
+        cafe = produtoRepository.save(new Produto("Café Torrado Açaí", "CAF-" + System.nanoTime(), null,
+                "Pacote 500g", 0, user));
+        produtoRepository.save(new Produto("Filtro de papel", "FIL-" + System.nanoTime(), null,
+                "Para cafeteira", 0, user));
+        produtoRepository.save(new Produto("Café do outro usuário", "OUT-" + System.nanoTime(), null, null, 0, outroUser));
+        despesaRepository.save(new Despesa("Energia elétrica", new BigDecimal("300.00"), LocalDate.now(),
+                "UTILIDADES", "Conta do café", false, user));
+
+        estoqueService.registrarEntrada(new EntradaEstoque(cafe, 10, new BigDecimal("100.00"),
+                "Torrefação São João", "BUSCA-COMPRA-" + System.nanoTime(), "Produto", null, user));
+        for (int i = 0; i < 3; i++) {
+            estoqueService.registrarVendaPeps(new Venda("BUSCA-PEDIDO-" + user.getId() + "-" + i, "AMAZON", 1,
+                    cafe, 30.0, 0.0, 0.0, 0.0, 0.0, 0.0, user));
+        }
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user, outroUser);
+    }
+
+    @Test
+    void buscaIgnoraAcentosEMaiusculasEOrdenaPorRelevancia() {
+        PaginaBusca<ResultadoBusca> pagina = buscaService.buscar(user, "CAFE", null, 0, 10);
+
+        List<ResultadoBusca> itens = pagina.getItens();
+        assertFalse(itens.isEmpty());
+        assertEquals("Café Torrado Açaí", itens.get(0).getTitulo());
+        assertTrue(itens.stream().noneMatch(item -> item.getTitulo().contains("outro")), "Resultado de outro usuário");
+        assertTrue(itens.stream().anyMatch(item -> item.getTipo().equals("DESPESA")), "Observação da despesa deve casar");
+
+        assertEquals(1, buscaService.buscar(user, "sao joao", List.of("compras"), 0, 10).getItens().size());
+        assertEquals(1, buscaService.buscar(user, "acai", List.of("produtos"), 0, 10).getItens().size());
+        // Erro de digitação: semelhança por palavra
+        assertEquals("Café Torrado Açaí", buscaService.buscar(user, "torado", List.of("produtos"), 0, 10)
+                .getItens().get(0).getTitulo());
+    }
+
+    @Test
+    void buscaPaginada() {
+        PaginaBusca<ResultadoBusca> primeira = buscaService.buscar(user, "cafe", null, 0, 1);
+        PaginaBusca<ResultadoBusca> segunda = buscaService.buscar(user, "cafe", null, 1, 1);
+
+        assertEquals(1, primeira.getItens().size());
+        assertTrue(primeira.isTemMais());
+        assertFalse(segunda.getItens().get(0).getId().equals(primeira.getItens().get(0).getId())
+                && segunda.getItens().get(0).getTipo().equals(primeira.getItens().get(0).getTipo()));
+    }
+
+    @Test
+    void vendasDoProdutoEmUmaConsulta() {
+        List<VendaDTO> vendas = buscaService.vendasPorNomeProduto(user, "cafe torrado");
+
+        assertEquals(3, vendas.size());
+        assertTrue(vendas.stream().allMatch(venda -> venda.getProdutoId().equals(cafe.getId())));
+        assertEquals(30.0, vendas.get(0).getPrecoVenda());
+        assertTrue(produtoRepository.buscarPorNome(user.getId(), BuscaService.padraoContem("100%")).isEmpty(),
+                "Curinga digitado deve valer como texto");
+    }
+
+    // A expressão da consulta precisa ser a mesma do índice: sem varredura sequencial nem índice comum
+    // disponíveis, o único plano possível é o índice de trigramas
+    @Test
+    void consultasUsamOIndiceDeTrigramas() {
+        String plano = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+            jdbcTemplate.execute("SET LOCAL enable_indexscan = off");
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN SELECT id FROM produto WHERE "
+                    + ProdutoRepository.BUSCA_DOCUMENTO + " LIKE erp_normalizar('%cafe%')", String.class));
+        });
+        assertTrue(plano.contains("idx_produto_busca_trgm"), plano);
+    }
+}
@@ -0,0 +1,45 @@
+package com.fernando.erp_vendas.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// 🆕 CACHE LIMITADO: invalidação durante o carregamento só descarta o valor da própria chave
+class CacheLimitadoTest {
+
+    private final CacheLimitado<Long, String> cache = new CacheLimitado<>("teste", 10, Duration.ofMinutes(5));
+
+    @Test
+    void invalidarOutraChaveDuranteOCarregamentoNaoImpedeAGravacao() {
+        cache.obter(1L, () -> {
+            cache.invalidar(2L);
+            return "usuario-1";
+        });
+        assertEquals("usuario-1", cache.buscar(1L));
+    }
+
+    @Test
+    void invalidarAMesmaChaveDuranteOCarregamentoDescartaOValor() {
+        assertEquals("antigo", cache.obter(1L, () -> {
+            cache.invalidar(1L);
+            return "antigo";
+        }));
+        assertNull(cache.buscar(1L));
+
+        // Próximo carregamento, sem invalidação no meio, volta a gravar
+        cache.obter(1L, () -> "novo");
+        assertEquals("novo", cache.buscar(1L));
+    }
+
+    @Test
+    void invalidarTudoDuranteOCarregamentoDescartaQualquerChave() {
+        cache.obter(1L, () -> {
+            cache.invalidarTudo();
+            return "usuario-1";
+        });
+        assertNull(cache.buscar(1L));
+    }
+}
@@ -0,0 +1,109 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.dto.ResultadoAlocacaoPeps;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 CATÁLOGO DE PRODUTOS: índices por id/SKU/ASIN, isolamento por usuário, invalidação e uso nas escritas
+@SpringBootTest
+class CatalogoProdutoServiceTest {
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private CatalogoProdutoService catalogoProdutoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private User user;
+    private User outro;
+    private Produto caneca;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("catalogo");
+        outro = dadosTeste.novoUsuario("catalogo-outro");
+        caneca = produtoRepository.save(new Produto("Caneca", "CAT-" + System.nanoTime(), "B0CAT" + System.nanoTime(),
+                null, 3, user));
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user, outro);
+    }
+
+    @Test
+    void buscaPorIdSkuEAsinSoNoCatalogoDoUsuario() {
+        assertEquals("Caneca", catalogoProdutoService.buscarPorId(caneca.getId(), user).orElseThrow().getNome());
+        assertEquals(caneca.getId(), catalogoProdutoService.buscarPorSku(caneca.getSku(), user).orElseThrow().getId());
+        assertEquals(caneca.getId(), catalogoProdutoService.buscarPorAsin(caneca.getAsin(), user).orElseThrow().getId());
+        assertEquals(3, catalogoProdutoService.buscarPorId(caneca.getId(), user).orElseThrow().getEstoqueMinimo());
+
+        // Produto de outro usuário não aparece
+        assertFalse(catalogoProdutoService.buscarReferencia(caneca.getId(), outro).isPresent());
+        assertFalse(catalogoProdutoService.buscarPorSku(caneca.getSku(), outro).isPresent());
+    }
+
+    @Test
+    void alteracaoDeProdutoInvalidaOCatalogoDoUsuario() {
+        assertTrue(catalogoProdutoService.buscarPorId(caneca.getId(), user).isPresent());
+
+        // Sem o evento o catálogo carregado não vê o novo produto
+        Produto prato = produtoRepository.save(new Produto("Prato", "CAT-P-" + System.nanoTime(), null, null, 0, user));
+        assertFalse(catalogoProdutoService.buscarPorId(prato.getId(), user).isPresent());
+
+        // Mesmo evento publicado pelo ProdutoController (fora de transação: invalidação imediata)
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.PRODUTO));
+        assertTrue(catalogoProdutoService.buscarPorId(prato.getId(), user).isPresent());
+
+        // Vendas e compras não mexem no catálogo
+        long invalidacoes = (Long) catalogoProdutoService.estatisticas().get("invalidacoes");
+        eventPublisher.publishEvent(new DadosUsuarioAlteradosEvent(user.getId(), DadosUsuarioAlteradosEvent.Origem.VENDA));
+        assertEquals(invalidacoes, catalogoProdutoService.estatisticas().get("invalidacoes"));
+    }
+
+    @Test
+    void compraEVendaComAReferenciaDoCatalogo() {
+        Produto antes = produtoRepository.findByIdAndUser(caneca.getId(), user).orElseThrow();
+        Produto referencia = catalogoProdutoService.buscarReferencia(caneca.getId(), user).orElseThrow();
+        estoqueService.registrarEntrada(new EntradaEstoque(referencia, 5, new BigDecimal("50.00"), "Fornecedor",
+                "CAT-C-" + System.nanoTime(), "Produto", null, user));
+
+        Venda venda = new Venda("CAT-V-" + System.nanoTime(), "AMAZON", 2, referencia, 30.0, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+        ResultadoAlocacaoPeps resultado = reservaEstoqueService.registrarVenda(venda);
+
+        assertEquals(new BigDecimal("20.00"), resultado.getCustoTotal());
+        assertEquals(3, produtoRepository.findEstoqueAtualByIdAndUser(caneca.getId(), user).orElseThrow());
+        // A referência não é gravada: o cadastro do produto continua como estava
+        Produto gravado = produtoRepository.findByIdAndUser(caneca.getId(), user).orElseThrow();
+        assertEquals("Caneca", gravado.getNome());
+        assertEquals(antes.getDataCriacao(), gravado.getDataCriacao());
+    }
+}
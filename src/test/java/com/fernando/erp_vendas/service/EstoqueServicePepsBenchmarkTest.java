@@ -0,0 +1,153 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.ItemVenda;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import com.fernando.erp_vendas.repository.ItemVendaRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.repository.VendaRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 BENCHMARK: Round-trips (comandos JDBC) por venda no fluxo PEPS, antes e depois do modo set-based.
+// Requer PostgreSQL (spring.datasource.url). Execução: mvn test -Dbenchmarks=true -Dtest=EstoqueServicePepsBenchmarkTest
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class EstoqueServicePepsBenchmarkTest {
+
+    private static final int[] LOTES_POR_VENDA = {1, 5, 20, 50};
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntradaEstoqueRepository entradaEstoqueRepository;
+
+    @Autowired
+    private ItemVendaRepository itemVendaRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+    private int sequencia;
+
+    @BeforeEach
+    void criarUsuario() {
+        user = dadosTeste.novoUsuarioAutenticado("bench-peps");
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void roundTripsPorVendaAntesEDepois() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        System.out.println("lotes/venda | round-trips legado | round-trips set-based");
+        for (int lotes : LOTES_POR_VENDA) {
+            Produto produtoLegado = criarProdutoComLotes(lotes);
+            estatisticas.clear();
+            fluxoLegado(novaVenda(produtoLegado, lotes));
+            long legado = estatisticas.getPrepareStatementCount();
+
+            Produto produtoSetBased = criarProdutoComLotes(lotes);
+            estatisticas.clear();
+            Venda venda = estoqueService.registrarVendaPeps(novaVenda(produtoSetBased, lotes)).getVenda();
+            long setBased = estatisticas.getPrepareStatementCount();
+
+            System.out.printf("%11d | %18d | %21d%n", lotes, legado, setBased);
+
+            assertEquals(lotes, itemVendaRepository.findByVendaAndUser(venda, user).size());
+            assertEquals(0, entradaEstoqueRepository.findSaldoTotalByProdutoAndUser(produtoSetBased, user));
+            assertEquals(0, produtoRepository.findEstoqueAtualByIdAndUser(produtoSetBased.getId(), user).orElseThrow());
+            // (o UPSERT do agregado diário e o ajuste do saldo do produto vão por JdbcTemplate
+            // e não entram nas estatísticas do Hibernate)
+            assertTrue(setBased <= 3, "Fluxo set-based deve usar no máximo 3 comandos por venda, usou " + setBased);
+        }
+    }
+
+    // Reprodução do fluxo anterior: save no controller, verificação de saldo, loop PEPS com save por lote,
+    // save da venda no service e save final no controller
+    private void fluxoLegado(Venda venda) {
+        estoqueService.verificarSaldoTotal(venda.getProduto());
+        Venda vendaSalva = vendaRepository.save(venda);
+
+        Venda vendaComCusto = new TransactionTemplate(transactionManager).execute(status -> {
+            Venda vendaService = vendaRepository.save(vendaSalva);
+            Integer quantidadeRestante = vendaService.getQuantidade();
+            BigDecimal custoTotal = BigDecimal.ZERO;
+            List<ItemVenda> itens = new ArrayList<>();
+
+            for (EntradaEstoque lote : entradaEstoqueRepository
+                    .findByProdutoAndUserAndSaldoGreaterThanOrderByDataEntradaAsc(vendaService.getProduto(), user, 0)) {
+                if (quantidadeRestante <= 0) break;
+                Integer quantidadeUsada = Math.min(quantidadeRestante, lote.getSaldo());
+                itens.add(new ItemVenda(vendaService, lote, quantidadeUsada, lote.getCustoUnitario(), user));
+                lote.setSaldo(lote.getSaldo() - quantidadeUsada);
+                entradaEstoqueRepository.save(lote);
+                custoTotal = custoTotal.add(lote.getCustoUnitario().multiply(BigDecimal.valueOf(quantidadeUsada)));
+                quantidadeRestante -= quantidadeUsada;
+            }
+
+            itemVendaRepository.saveAll(itens);
+            vendaService.setCustoProdutoVendido(custoTotal.doubleValue());
+            return vendaRepository.save(vendaService);
+        });
+
+        vendaRepository.save(vendaComCusto);
+    }
+
+    private Produto criarProdutoComLotes(int lotes) {
+        Produto produto = produtoRepository.save(
+                new Produto("Produto bench " + sequencia, "BENCH-" + System.nanoTime(), null, null, 0, user));
+        for (int i = 0; i < lotes; i++) {
+            estoqueService.registrarEntrada(new EntradaEstoque(produto, 1, BigDecimal.valueOf(10 + i),
+                    "Fornecedor", "BENCH-COMPRA-" + System.nanoTime(), "Produto", null, user));
+        }
+        return produto;
+    }
+
+    private Venda novaVenda(Produto produto, int quantidade) {
+        sequencia++;
+        return new Venda("BENCH-PEDIDO-" + System.nanoTime(), "AMAZON", quantidade, produto,
+                100.0, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+    }
+}
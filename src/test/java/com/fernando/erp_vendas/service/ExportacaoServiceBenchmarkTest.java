@@ -0,0 +1,144 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.model.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 BENCHMARK: exportação de 5 milhões de vendas (cada uma com seu lote PEPS) com heap constante.
+// Os dados ficam no banco erp_vendas_exportacao (criado e populado na primeira execução, ~3 min; reaproveitado
+// depois). Durante a exportação, a cada ~64 MB escritos roda um GC e mede o heap ocupado: o que sobrevive
+// ao GC é o que a exportação retém, e não pode crescer com o número de linhas.
+// Execução (heap pequeno e fixo): mvn test -Dbenchmarks=true -Dtest=ExportacaoServiceBenchmarkTest -DargLine="-Xmx256m"
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=WARN"})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ExportacaoServiceBenchmarkTest {
+
+    private static final String BANCO = "erp_vendas_exportacao";
+    private static final int LINHAS = 5_000_000;
+    private static final long AMOSTRA_BYTES = 64L * 1024 * 1024;
+    private static final long HEAP_RETIDO_MAXIMO = 32L * 1024 * 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Test
+    void exportaCincoMilhoesDeLinhasComHeapConstante() {
+        DriverManagerDataSource dataSource = prepararBanco();
+        // Mesmo código de exportação, apontado para o banco de benchmark
+        ExportacaoService exportacaoService = new ExportacaoService();
+        ReflectionTestUtils.setField(exportacaoService, "jdbcTemplate", new JdbcTemplate(dataSource));
+        TransactionTemplate somenteLeitura = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        somenteLeitura.setReadOnly(true);
+        User user = new User();
+        user.setId(1L);
+
+        for (ExportacaoService.Formato formato : ExportacaoService.Formato.values()) {
+            SaidaMedida saida = new SaidaMedida();
+            long inicio = System.nanoTime();
+            Long linhas = somenteLeitura.execute(status -> exportacaoService.exportar(user, ExportacaoService.Tipo.VENDAS,
+                    formato, LocalDate.of(2000, 1, 1), null, saida));
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+            System.out.printf("Exportação %s: %d linhas, %d MB em %d ms (%.0f linhas/s), heap retido máximo %d MB "
+                            + "(base %d MB, -Xmx %d MB)%n", formato, linhas, saida.bytes / (1024 * 1024), ms,
+                    linhas * 1000.0 / Math.max(ms, 1), (saida.heapMaximo - saida.heapBase) / (1024 * 1024),
+                    saida.heapBase / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+            assertEquals(LINHAS, linhas);
+            assertTrue(saida.heapMaximo - saida.heapBase < HEAP_RETIDO_MAXIMO,
+                    "Heap retido cresceu " + (saida.heapMaximo - saida.heapBase) / (1024 * 1024) + " MB");
+        }
+    }
+
+    // Descarta os bytes, medindo o heap que sobrevive a um GC a cada AMOSTRA_BYTES
+    private static class SaidaMedida extends OutputStream {
+        private final long heapBase = heapAposGc();
+        private long heapMaximo = heapBase;
+        private long bytes;
+        private long proximaAmostra = AMOSTRA_BYTES;
+
+        @Override
+        public void write(int b) {
+            contar(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            contar(len);
+        }
+
+        private void contar(int quantidade) {
+            bytes += quantidade;
+            if (bytes >= proximaAmostra) {
+                proximaAmostra += AMOSTRA_BYTES;
+                heapMaximo = Math.max(heapMaximo, heapAposGc());
+            }
+        }
+
+        private static long heapAposGc() {
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    // 1 usuário, 100 produtos, 50 mil lotes e 5 milhões de vendas com 1 item PEPS cada
+    private DriverManagerDataSource prepararBanco() {
+        if (jdbcTemplate.queryForList("SELECT 1 FROM pg_database WHERE datname = ?", BANCO).isEmpty()) {
+            jdbcTemplate.execute("CREATE DATABASE " + BANCO);
+        }
+        int barra = url.lastIndexOf('/');
+        int parametros = url.indexOf('?', barra);
+        String urlExportacao = url.substring(0, barra + 1) + BANCO + (parametros >= 0 ? url.substring(parametros) : "");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(urlExportacao, username, password);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+        JdbcTemplate exportacao = new JdbcTemplate(dataSource);
+        Long vendas = exportacao.queryForObject("SELECT count(*) FROM venda", Long.class);
+        if (vendas == null || vendas != LINHAS) {
+            exportacao.execute("TRUNCATE item_venda, venda_resumo_diario, venda, entrada_estoque, despesa, produto, users "
+                    + "RESTART IDENTITY");
+            exportacao.execute("INSERT INTO users (id, email, password, nome, ativo, data_criacao) "
+                    + "VALUES (1, 'exportacao@erp.local', 'x', 'Exportação', true, now())");
+            exportacao.execute("INSERT INTO produto (id, nome, sku, asin, estoque_minimo, data_criacao, user_id, "
+                    + "estoque_atual, valor_estoque_atual) SELECT g, 'Produto ' || g, 'SKU-' || g, NULL, 0, now(), 1, 0, 0 "
+                    + "FROM generate_series(1, 100) g");
+            exportacao.execute("INSERT INTO entrada_estoque (id, produto_id, quantidade, saldo, custo_total, "
+                    + "custo_unitario, data_entrada, fornecedor, id_pedido_compra, categoria, user_id, versao) "
+                    + "SELECT g, ((g - 1) % 100) + 1, 100, 0, 1000.00, 10.00, timestamp '2020-01-01' + g * interval '1 hour', "
+                    + "'Fornecedor', 'PC-' || g, 'Produto', 1, 0 FROM generate_series(1, 50000) g");
+            exportacao.execute("INSERT INTO venda (id, data, id_pedido, plataforma, quantidade, produto_id, preco_venda, "
+                    + "frete_pago_pelo_cliente, custo_envio, tarifa_plataforma, custo_produto_vendido, "
+                    + "despesas_operacionais, user_id) SELECT g, timestamp '2020-01-01' + g * interval '1 minute', "
+                    + "'PED-' || g, 'AMAZON', 1, ((g - 1) % 100) + 1, 49.90, 0, 8.5, 7.49, 10.00, 0, 1 "
+                    + "FROM generate_series(1, " + LINHAS + ") g");
+            exportacao.execute("INSERT INTO item_venda (id, venda_id, lote_id, quantidade, custo_unitario, user_id) "
+                    + "SELECT g, g, ((g - 1) % 50000) + 1, 1, 10.00, 1 FROM generate_series(1, " + LINHAS + ") g");
+            exportacao.execute("ANALYZE");
+        }
+        return dataSource;
+    }
+}
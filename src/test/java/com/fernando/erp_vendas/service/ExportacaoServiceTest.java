@@ -0,0 +1,172 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.Despesa;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.DespesaRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 EXPORTAÇÃO: linhas por lote PEPS, intervalo semiaberto, escape de CSV e XLSX bem formado
+@SpringBootTest
+class ExportacaoServiceTest {
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private DespesaRepository despesaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("exportacao");
+
+        Produto caneca = produtoRepository.save(new Produto("Caneca \"grande\", azul", "EXP-" + System.nanoTime(),
+                null, null, 0, user));
+        EntradaEstoque primeiro = new EntradaEstoque(caneca, 2, new BigDecimal("20.00"), "Fornecedor A",
+                "EXP-C1-" + System.nanoTime(), "Produto", null, user);
+        primeiro.setDataEntrada(LocalDateTime.of(2024, 1, 1, 8, 0));
+        estoqueService.registrarEntrada(primeiro);
+        EntradaEstoque segundo = new EntradaEstoque(caneca, 5, new BigDecimal("60.00"), "Fornecedor <B> & C",
+                "EXP-C2-" + System.nanoTime(), "Produto", null, user);
+        segundo.setDataEntrada(LocalDateTime.of(2024, 1, 2, 8, 0));
+        estoqueService.registrarEntrada(segundo);
+
+        // 3 unidades: 2 do primeiro lote (10,00) e 1 do segundo (12,00)
+        Venda venda = new Venda("EXP-" + user.getId() + "-1", "AMAZON", 3, caneca, 99.9, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+        venda.setData(LocalDateTime.of(2024, 2, 10, 14, 30));
+        estoqueService.registrarVendaPeps(venda);
+        Venda foraDoIntervalo = new Venda("EXP-" + user.getId() + "-2", "AMAZON", 1, caneca, 30.0,
+                0.0, 0.0, 0.0, 0.0, 0.0, user);
+        foraDoIntervalo.setData(LocalDateTime.of(2024, 3, 1, 0, 0));
+        estoqueService.registrarVendaPeps(foraDoIntervalo);
+
+        despesaRepository.save(new Despesa("Aluguel\nfevereiro", new BigDecimal("1500.00"), LocalDate.of(2024, 2, 5),
+                "ALUGUEL", null, true, user));
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void vendasEmCsvComUmaLinhaPorLoteConsumido() {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        long linhas = exportacaoService.exportar(user, ExportacaoService.Tipo.VENDAS, ExportacaoService.Formato.CSV,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1), saida);
+
+        String[] csv = saida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, linhas);
+        assertEquals(3, csv.length);
+        assertTrue(csv[0].startsWith("id,data,idPedido,plataforma,sku,produto,quantidade,precoVenda,"), csv[0]);
+        assertTrue(csv[1].contains(",2024-02-10T14:30,EXP-"), csv[1]);
+        assertTrue(csv[1].contains(",\"Caneca \"\"grande\"\", azul\",3,99.90,"), csv[1]);
+        assertTrue(csv[1].endsWith(",2024-01-01T08:00,2,10.00"), csv[1]);
+        assertTrue(csv[2].endsWith(",2024-01-02T08:00,1,12.00"), csv[2]);
+    }
+
+    @Test
+    void vendaSemProdutoTambemEExportada() {
+        jdbcTemplate.update("INSERT INTO venda (data, id_pedido, plataforma, quantidade, produto_id, preco_venda, user_id) "
+                + "VALUES (?, ?, 'MANUAL', 1, NULL, 15.00, ?)", LocalDateTime.of(2024, 2, 20, 9, 0), "EXP-" + user.getId() + "-3", user.getId());
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        assertEquals(3, exportacaoService.exportar(user, ExportacaoService.Tipo.VENDAS, ExportacaoService.Formato.CSV,
+                LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1), saida));
+        assertTrue(saida.toString(StandardCharsets.UTF_8).contains(",2024-02-20T09:00,EXP-" + user.getId() + "-3,MANUAL,,,1,15.00,"));
+    }
+
+    @Test
+    void comprasEDespesasEmXlsxBemFormado() throws Exception {
+        ByteArrayOutputStream compras = new ByteArrayOutputStream();
+        assertEquals(2, exportacaoService.exportar(user, ExportacaoService.Tipo.COMPRAS, ExportacaoService.Formato.XLSX,
+                null, null, compras));
+        Map<String, String> arquivo = lerZip(compras.toByteArray());
+        assertTrue(arquivo.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml")), arquivo.keySet().toString());
+        for (String xml : arquivo.values()) {
+            DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+        }
+        String planilha = arquivo.get("xl/worksheets/sheet1.xml");
+        assertTrue(planilha.contains("Fornecedor &lt;B&gt; &amp; C"), planilha);
+        // 01/01/2024 08:00 = dia 45292 do Excel + 1/3 do dia
+        assertTrue(planilha.contains("<c s=\"1\"><v>45292.333333333336</v></c>"), planilha);
+
+        ByteArrayOutputStream despesas = new ByteArrayOutputStream();
+        exportacaoService.exportar(user, ExportacaoService.Tipo.DESPESAS, ExportacaoService.Formato.CSV,
+                null, null, despesas);
+        assertTrue(despesas.toString(StandardCharsets.UTF_8).contains(",2024-02-05,\"Aluguel\nfevereiro\",ALUGUEL,1500.00,sim,"));
+
+        assertThrows(RuntimeException.class, () -> exportacaoService.exportar(user, ExportacaoService.Tipo.VENDAS,
+                ExportacaoService.Formato.CSV, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 1), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void xlsxContinuaEmOutraPlanilhaAoAtingirOLimiteDeLinhas() throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        EscritorXlsx escritor = new EscritorXlsx(saida, 3);
+        escritor.cabecalho(List.of("n"));
+        for (int i = 1; i <= 5; i++) {
+            escritor.linha(new Object[]{i});
+        }
+        escritor.finalizar();
+
+        Map<String, String> arquivo = lerZip(saida.toByteArray());
+        // Cabeçalho + 2 linhas, cabeçalho + 2 linhas, cabeçalho + 1 linha
+        assertTrue(arquivo.get("xl/worksheets/sheet3.xml").contains("<row><c><v>5</v></c></row>"));
+        assertTrue(arquivo.get("xl/workbook.xml").contains("<sheet name=\"Dados 3\" sheetId=\"3\" r:id=\"rId3\"/>"));
+        assertTrue(arquivo.get("xl/_rels/workbook.xml.rels").contains("Id=\"rId4\""));
+    }
+
+    private static Map<String, String> lerZip(byte[] conteudo) throws Exception {
+        Map<String, String> entradas = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(conteudo))) {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null) {
+                entradas.put(entrada.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entradas;
+    }
+}
@@ -0,0 +1,68 @@
+package com.fernando.erp_vendas.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 FILTRO DE BLOOM COM CONTADORES: sem falso negativo, taxa de falso positivo planejada e remoção
+class FiltroBloomContadorTest {
+
+    @Test
+    void semFalsoNegativoETaxaDeFalsoPositivoProximaDaPlanejada() {
+        FiltroBloomContador filtro = new FiltroBloomContador(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("PED-" + i);
+        }
+        filtro.marcarPronto();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.podeConter("PED-" + i));
+        }
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.podeConter("NOVO-" + i)) {
+                falsosPositivos++;
+            }
+        }
+        // Planejado 1% com o filtro cheio; folga para a variação dos hashes
+        assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos);
+        assertTrue(filtro.taxaFalsoPositivoEstimada() < 0.015);
+    }
+
+    @Test
+    void removidoDeixaDeAparecerSemAfetarOsOutros() {
+        FiltroBloomContador filtro = new FiltroBloomContador(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filtro.adicionar("PED-" + i);
+        }
+        filtro.marcarPronto();
+
+        for (int i = 0; i < 500; i++) {
+            filtro.remover("PED-" + i);
+        }
+        // Remover o que nunca foi adicionado (com certeza ausente) não mexe nos contadores
+        filtro.remover("NUNCA-ADICIONADO");
+
+        for (int i = 500; i < 1_000; i++) {
+            assertTrue(filtro.podeConter("PED-" + i));
+        }
+        int aindaPresentes = 0;
+        for (int i = 0; i < 500; i++) {
+            if (filtro.podeConter("PED-" + i)) {
+                aindaPresentes++;
+            }
+        }
+        assertTrue(aindaPresentes < 25, "Removidos ainda respondendo talvez: " + aindaPresentes);
+        assertEquals(500, filtro.getElementos());
+    }
+
+    @Test
+    void antesDeProntoRespondeTalvez() {
+        FiltroBloomContador filtro = new FiltroBloomContador(100, 0.01);
+        assertTrue(filtro.podeConter("qualquer"));
+        filtro.marcarPronto();
+        assertFalse(filtro.podeConter("qualquer"));
+    }
+}
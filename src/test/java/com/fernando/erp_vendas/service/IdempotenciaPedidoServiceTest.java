@@ -0,0 +1,124 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 IDEMPOTÊNCIA: pedido novo sem consulta, filtro atualizado após gravar e excluir, resposta original repetida
+@SpringBootTest(properties = "app.estoque.reconciliacao.atraso-inicial-ms=3600000")
+class IdempotenciaPedidoServiceTest {
+
+    private static final PedidosAlteradosEvent.Tipo COMPRA = PedidosAlteradosEvent.Tipo.COMPRA;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private IdempotenciaPedidoService idempotenciaPedidoService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private EntradaEstoqueRepository entradaEstoqueRepository;
+
+    private User user;
+    private Produto produto;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("idempotencia");
+        produto = dadosTeste.novoProduto(user, "Caneca", "IDEM");
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void pedidoNovoNaoConsultaEPedidoGravadoConsulta() {
+        AtomicInteger consultas = new AtomicInteger();
+        String idPedido = "IDEM-C-" + System.nanoTime();
+
+        assertTrue(existe(idPedido, consultas).isEmpty());
+        assertEquals(0, consultas.get());
+
+        EntradaEstoque entrada = estoqueService.registrarEntrada(new EntradaEstoque(produto, 2, new BigDecimal("10.00"),
+                "Fornecedor", idPedido, "Produto", null, user));
+        assertTrue(existe(idPedido, consultas).isPresent());
+        assertEquals(1, consultas.get());
+
+        // Exclusão confirmada: o pedido volta a ser "com certeza novo"
+        estoqueService.excluirEntrada(entrada);
+        assertTrue(existe(idPedido, consultas).isEmpty());
+        assertEquals(1, consultas.get());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> compras = ((List<Map<String, Object>>) idempotenciaPedidoService.estatisticas().get("filtros"))
+                .stream().filter(filtro -> "COMPRA".equals(filtro.get("tipo"))).findFirst().orElseThrow();
+        assertTrue((Long) compras.get("comCertezaNovos") >= 2);
+    }
+
+    @Test
+    void reenvioIdenticoRecebeARespostaOriginal() {
+        String idPedido = "IDEM-R-" + System.nanoTime();
+        Object original = new Object();
+        String impressaoDigital = IdempotenciaPedidoService.impressaoDigital(Map.of("idPedido", idPedido, "quantidade", 2));
+        idempotenciaPedidoService.gravarResposta(COMPRA, user.getId(), idPedido, idPedido, impressaoDigital, original);
+
+        assertSame(original, idempotenciaPedidoService.respostaGravada(COMPRA, user.getId(), idPedido, impressaoDigital));
+        // Mesma chave com outro corpo não é reenvio; outro usuário também não
+        assertNull(idempotenciaPedidoService.respostaGravada(COMPRA, user.getId(), idPedido,
+                IdempotenciaPedidoService.impressaoDigital(Map.of("idPedido", idPedido, "quantidade", 3))));
+        assertNull(idempotenciaPedidoService.respostaGravada(COMPRA, user.getId() + 1, idPedido, impressaoDigital));
+
+        // Pedido excluído: a resposta antiga deixa de ser repetida
+        idempotenciaPedidoService.onPedidosAlterados(PedidosAlteradosEvent.removido(user.getId(), COMPRA, idPedido));
+        assertNull(idempotenciaPedidoService.respostaGravada(COMPRA, user.getId(), idPedido, impressaoDigital));
+    }
+
+    @Test
+    void impressaoDigitalIgnoraOrdemDasChavesEGrafiaDosNumeros() {
+        Map<String, Object> corpo = new LinkedHashMap<>();
+        corpo.put("precoVenda", 10);
+        corpo.put("idPedido", "P-1");
+        corpo.put("itens", List.of(Map.of("custo", 2.50)));
+        Map<String, Object> reenvio = new LinkedHashMap<>();
+        reenvio.put("idPedido", "P-1");
+        reenvio.put("itens", List.of(Map.of("custo", new BigDecimal("2.5"))));
+        reenvio.put("precoVenda", 10.0);
+
+        assertEquals(IdempotenciaPedidoService.impressaoDigital(corpo), IdempotenciaPedidoService.impressaoDigital(reenvio));
+        assertEquals(64, IdempotenciaPedidoService.impressaoDigital(corpo).length());
+        reenvio.put("precoVenda", 10.01);
+        assertNotEquals(IdempotenciaPedidoService.impressaoDigital(corpo), IdempotenciaPedidoService.impressaoDigital(reenvio));
+    }
+
+    private Optional<EntradaEstoque> existe(String idPedido, AtomicInteger consultas) {
+        return idempotenciaPedidoService.buscarExistente(COMPRA, user.getId(), idPedido, () -> {
+            consultas.incrementAndGet();
+            return entradaEstoqueRepository.findByIdPedidoCompraAndUser(idPedido, user);
+        });
+    }
+}
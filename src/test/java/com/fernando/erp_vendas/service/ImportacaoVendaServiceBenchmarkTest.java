@@ -0,0 +1,122 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.dto.ResultadoImportacao;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.repository.VendaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// 🆕 BENCHMARK: Vazão da importação em massa contra o fluxo de uma venda por requisição.
+// Requer PostgreSQL (spring.datasource.url). Execução: mvn test -Dbenchmarks=true -Dtest=ImportacaoVendaServiceBenchmarkTest
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "logging.level.org.hibernate.SQL=WARN"})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ImportacaoVendaServiceBenchmarkTest {
+
+    private static final int PEDIDOS = 2000;
+    private static final int PRODUTOS = 20;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private ImportacaoVendaService importacaoVendaService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    private User user;
+
+    @BeforeEach
+    void criarUsuario() {
+        user = dadosTeste.novoUsuarioAutenticado("bench-import");
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void importacaoEmMassaContraVendaUnitaria() throws Exception {
+        Produto[] unitarios = criarProdutos("UNI");
+        long inicioUnitario = System.nanoTime();
+        for (int i = 0; i < PEDIDOS; i++) {
+            Produto produto = unitarios[i % PRODUTOS];
+            // Mesmas consultas que POST /api/vendas faz por chamada antes do PEPS
+            produtoRepository.findByIdAndUser(produto.getId(), user);
+            vendaRepository.findByIdPedidoAndUser("UNI-" + i, user);
+            estoqueService.registrarVendaPeps(new Venda("UNI-" + user.getId() + "-" + i, "AMAZON", 1, produto,
+                    50.0, 0.0, 0.0, 0.0, 0.0, 0.0, user));
+        }
+        double segundosUnitario = (System.nanoTime() - inicioUnitario) / 1e9;
+
+        Produto[] importados = criarProdutos("IMP");
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < PEDIDOS; i++) {
+            ndjson.append("{\"idPedido\":\"IMP-").append(user.getId()).append('-').append(i)
+                    .append("\",\"sku\":\"").append(importados[i % PRODUTOS].getSku())
+                    .append("\",\"plataforma\":\"AMAZON\",\"quantidade\":1,\"precoVenda\":50}\n");
+        }
+        long inicioImportacao = System.nanoTime();
+        ResultadoImportacao resultado = importacaoVendaService.importar(
+                new BufferedReader(new StringReader(ndjson.toString())), ImportacaoVendaService.Formato.NDJSON, user,
+                new ImportacaoVendaService.Ouvinte() {
+                    @Override
+                    public void progresso(int processadas, int importadas, int erros) {
+                    }
+
+                    @Override
+                    public void erro(int linha, String idPedido, String mensagem) {
+                        System.out.println("Linha " + linha + ": " + mensagem);
+                    }
+                });
+        double segundosImportacao = (System.nanoTime() - inicioImportacao) / 1e9;
+
+        System.out.printf("Venda unitária: %d pedidos em %.2fs (%.0f pedidos/s)%n",
+                PEDIDOS, segundosUnitario, PEDIDOS / segundosUnitario);
+        System.out.printf("Importação em massa: %d pedidos em %.2fs (%.0f pedidos/s) - %.1fx%n",
+                PEDIDOS, segundosImportacao, PEDIDOS / segundosImportacao, segundosUnitario / segundosImportacao);
+
+        assertEquals(PEDIDOS, resultado.getImportadas());
+        assertEquals(0, resultado.getErros());
+        // Todo o estoque dos produtos importados foi consumido: o saldo mantido acompanha os lotes
+        for (Produto produto : importados) {
+            assertEquals(0, produtoRepository.findEstoqueAtualByIdAndUser(produto.getId(), user).orElseThrow());
+        }
+    }
+
+    private Produto[] criarProdutos(String prefixo) {
+        Produto[] produtos = new Produto[PRODUTOS];
+        for (int p = 0; p < PRODUTOS; p++) {
+            produtos[p] = produtoRepository.save(new Produto("Produto " + prefixo + p,
+                    prefixo + "-" + user.getId() + "-" + p, null, null, 0, user));
+            // Vários lotes pequenos por produto para exercitar a alocação PEPS
+            for (int l = 0; l < PEDIDOS / PRODUTOS / 5; l++) {
+                estoqueService.registrarEntrada(new EntradaEstoque(produtos[p], 5, BigDecimal.valueOf(25),
+                        "Fornecedor", prefixo + "-COMPRA-" + System.nanoTime(), "Produto", null, user));
+            }
+        }
+        return produtos;
+    }
+}
@@ -0,0 +1,109 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.dto.MetadadosMontagem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 MONTAGEM CONCORRENTE: fragmentos em paralelo, prazo, resposta parcial e contexto nas threads
+class MontagemConcorrenteTest {
+
+    @AfterEach
+    void limparContexto() {
+        SecurityContextHolder.clearContext();
+        MDC.clear();
+    }
+
+    @Test
+    void fragmentosRodamEmParaleloComOContextoDaRequisicao() {
+        Authentication usuario = new UsernamePasswordAuthenticationToken("usuario", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(usuario);
+        MDC.put("requestId", "req-1");
+
+        long inicio = System.nanoTime();
+        try (MontagemConcorrente montagem = new MontagemConcorrente(Duration.ofSeconds(5))) {
+            MontagemConcorrente.Fragmento<Authentication> autenticacao = montagem.iniciar("autenticacao", () -> {
+                dormir(300);
+                return SecurityContextHolder.getContext().getAuthentication();
+            });
+            MontagemConcorrente.Fragmento<String> requestId = montagem.iniciar("requestId", () -> {
+                dormir(300);
+                return MDC.get("requestId");
+            });
+            MontagemConcorrente.Fragmento<Boolean> virtual = montagem.iniciar("virtual", () -> {
+                dormir(300);
+                return Thread.currentThread().isVirtual();
+            });
+
+            assertSame(usuario, autenticacao.obter());
+            assertEquals("req-1", requestId.obter());
+            assertTrue(virtual.obter());
+            MetadadosMontagem metadados = montagem.metadados();
+            assertFalse(metadados.isParcial());
+            assertEquals(List.of("autenticacao", "requestId", "virtual"),
+                    metadados.getFragmentos().stream().map(MetadadosMontagem.Fragmento::getNome).toList());
+            assertTrue(metadados.getFragmentos().stream().allMatch(f -> f.getDuracaoMs() >= 300));
+        }
+        // Três fragmentos de 300ms: o total é o do mais lento, não a soma
+        assertTrue((System.nanoTime() - inicio) / 1_000_000 < 800);
+    }
+
+    @Test
+    void fragmentoLentoOuComErroDeixaARespostaParcial() throws InterruptedException {
+        CountDownLatch interrompido = new CountDownLatch(1);
+        AtomicBoolean terminou = new AtomicBoolean();
+        MetadadosMontagem metadados;
+        try (MontagemConcorrente montagem = new MontagemConcorrente(Duration.ofMillis(200))) {
+            MontagemConcorrente.Fragmento<Integer> rapido = montagem.iniciar("rapido", () -> 1);
+            MontagemConcorrente.Fragmento<Integer> lento = montagem.iniciar("lento", () -> {
+                try {
+                    Thread.sleep(10_000);
+                    terminou.set(true);
+                } catch (InterruptedException e) {
+                    interrompido.countDown();
+                }
+                return 2;
+            });
+            MontagemConcorrente.Fragmento<Integer> falha = montagem.iniciar("falha", () -> {
+                throw new RuntimeException("banco fora do ar");
+            });
+
+            assertEquals(1, rapido.obter());
+            assertNull(lento.obter());
+            assertFalse(lento.respondeu());
+            assertNull(falha.obter());
+            assertFalse(montagem.nenhumRespondeu());
+            metadados = montagem.metadados();
+        }
+
+        assertTrue(metadados.isParcial());
+        assertEquals(List.of(MetadadosMontagem.OK, MetadadosMontagem.TEMPO_ESGOTADO, MetadadosMontagem.ERRO),
+                metadados.getFragmentos().stream().map(MetadadosMontagem.Fragmento::getStatus).toList());
+        // O fragmento atrasado é interrompido, não continua rodando depois da montagem
+        assertTrue(interrompido.await(1, TimeUnit.SECONDS));
+        assertFalse(terminou.get());
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
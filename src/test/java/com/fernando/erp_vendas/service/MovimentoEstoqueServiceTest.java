@@ -0,0 +1,153 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.dto.ValoracaoEstoque;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 LIVRO DE MOVIMENTOS: soma dos movimentos = saldo do produto, valoração em uma data e cauda limitada pela fotografia
+@SpringBootTest(properties = "app.estoque.reconciliacao.atraso-inicial-ms=3600000")
+class MovimentoEstoqueServiceTest {
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private MovimentoEstoqueService movimentoEstoqueService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private User user;
+    private Produto produto;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("movimento");
+        produto = dadosTeste.novoProduto(user, "Caneca", "MOV");
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void movimentosAcompanhamOSaldoEValoracaoRespeitaAData() {
+        estoqueService.registrarEntrada(new EntradaEstoque(produto, 10, new BigDecimal("100.00"),
+                "Fornecedor", "MOV-C-" + System.nanoTime(), "Produto", null, user));
+        Venda venda = estoqueService.registrarVendaPeps(novaVenda(3)).getVenda();
+
+        assertLivroIgualAoSaldo(7, "70.00");
+
+        ValoracaoEstoque hoje = movimentoEstoqueService.valoracao(user, LocalDate.now());
+        assertEquals(1, hoje.getItens().size());
+        assertEquals(7, hoje.getItens().get(0).getQuantidade());
+        assertEquals(70.00, hoje.getValorTotal());
+        assertEquals(10.00, hoje.getItens().get(0).getCustoMedio());
+        assertEquals(2, hoje.getMovimentosLidos());
+
+        // Tudo foi registrado hoje: no fim de ontem o produto não tinha estoque
+        assertTrue(movimentoEstoqueService.valoracao(user, LocalDate.now().minusDays(1)).getItens().isEmpty());
+
+        // Exclusão da venda devolve as unidades com um movimento de reversão (nada é apagado)
+        estoqueService.excluirVenda(venda);
+        assertLivroIgualAoSaldo(10, "100.00");
+        assertEquals(3, contarMovimentos());
+    }
+
+    @Test
+    void fotografiaLimitaOsMovimentosLidos() {
+        estoqueService.registrarEntrada(new EntradaEstoque(produto, 4, new BigDecimal("20.00"),
+                "Fornecedor", "MOV-F1-" + System.nanoTime(), "Produto", null, user));
+        estoqueService.registrarVendaPeps(novaVenda(1));
+
+        assertTrue(movimentoEstoqueService.gerarFotografias(LocalDateTime.now()) >= 1);
+        // Repetir o mesmo corte não duplica
+        assertEquals(0, movimentoEstoqueService.gerarFotografias(
+                jdbcTemplate.queryForObject("SELECT MAX(corte) FROM estoque_fotografia WHERE produto_id = ?",
+                        LocalDateTime.class, produto.getId())));
+
+        estoqueService.registrarEntrada(new EntradaEstoque(produto, 2, new BigDecimal("12.00"),
+                "Fornecedor", "MOV-F2-" + System.nanoTime(), "Produto", null, user));
+
+        // Fotografia (3 un, 15,00) + um movimento depois dela
+        ValoracaoEstoque hoje = movimentoEstoqueService.valoracao(user, LocalDate.now());
+        assertEquals(5, hoje.getQuantidadeTotal());
+        assertEquals(27.00, hoje.getValorTotal());
+        assertEquals(1, hoje.getMovimentosLidos());
+        assertLivroIgualAoSaldo(5, "27.00");
+    }
+
+    @Test
+    void produtoExcluidoFechaOEstoqueEContinuaNasDatasAnteriores() {
+        EntradaEstoque lote = estoqueService.registrarEntrada(new EntradaEstoque(produto, 4, new BigDecimal("20.00"),
+                "Fornecedor", "MOV-E-" + System.nanoTime(), "Produto", null, user));
+        // A compra passa a ter sido registrada ontem
+        jdbcTemplate.update("UPDATE movimento_estoque SET data_movimento = data_movimento - interval '1 day' WHERE produto_id = ?",
+                produto.getId());
+
+        estoqueService.excluirProduto(produto);
+
+        // Movimento de fechamento (AJUSTE) com o saldo restante do lote: o livro fecha em zero
+        Map<String, Object> fechamento = jdbcTemplate.queryForMap(
+                "SELECT tipo, lote_id, quantidade, valor FROM movimento_estoque WHERE produto_id = ? ORDER BY id DESC LIMIT 1",
+                produto.getId());
+        assertEquals("AJUSTE", fechamento.get("tipo"));
+        assertEquals(lote.getId(), ((Number) fechamento.get("lote_id")).longValue());
+        assertEquals(-4, ((Number) fechamento.get("quantidade")).intValue());
+        assertEquals(0, new BigDecimal("-20.00").compareTo((BigDecimal) fechamento.get("valor")));
+        assertTrue(movimentoEstoqueService.valoracao(user, LocalDate.now()).getItens().isEmpty());
+
+        // No fim de ontem o produto excluído ainda tinha o lote inteiro
+        ValoracaoEstoque ontem = movimentoEstoqueService.valoracao(user, LocalDate.now().minusDays(1));
+        assertEquals(1, ontem.getItens().size());
+        assertEquals(produto.getId(), ontem.getItens().get(0).getProdutoId());
+        assertEquals(4, ontem.getItens().get(0).getQuantidade());
+        assertEquals(20.00, ontem.getValorTotal());
+    }
+
+    private void assertLivroIgualAoSaldo(int quantidadeEsperada, String valorEsperado) {
+        Map<String, Object> livro = jdbcTemplate.queryForMap(
+                "SELECT COALESCE(SUM(quantidade), 0) AS quantidade, COALESCE(SUM(valor), 0) AS valor FROM movimento_estoque WHERE produto_id = ?",
+                produto.getId());
+        Produto atualizado = produtoRepository.findByIdAndUser(produto.getId(), user).orElseThrow();
+        assertEquals(quantidadeEsperada, ((Number) livro.get("quantidade")).intValue());
+        assertEquals(0, new BigDecimal(valorEsperado).compareTo((BigDecimal) livro.get("valor")));
+        assertEquals(quantidadeEsperada, atualizado.getQuantidadeEstoqueTotal(), "Livro diverge do saldo mantido");
+        assertEquals(0, new BigDecimal(valorEsperado).compareTo(atualizado.getValorEstoqueTotal()), "Livro diverge do valor mantido");
+    }
+
+    private int contarMovimentos() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimento_estoque WHERE produto_id = ?",
+                Integer.class, produto.getId());
+    }
+
+    private Venda novaVenda(int quantidade) {
+        return new Venda("MOV-PEDIDO-" + System.nanoTime(), "AMAZON", quantidade, produto,
+                100.0, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+    }
+}
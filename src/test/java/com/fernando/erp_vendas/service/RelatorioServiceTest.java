@@ -0,0 +1,173 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.dto.Granularidade;
+import com.fernando.erp_vendas.dto.SerieTemporal;
+import com.fernando.erp_vendas.dto.SerieValores;
+import com.fernando.erp_vendas.dto.VendaDTO;
+import com.fernando.erp_vendas.model.Despesa;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.DespesaRepository;
+import com.fernando.erp_vendas.repository.VendaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 🆕 SÉRIES TEMPORAIS: períodos sem buracos, intervalo semiaberto, divisão por plataforma/produto e despesas
+// 🆕 RANKING DE VENDAS pelas colunas de rentabilidade gravadas (V4)
+@SpringBootTest
+class RelatorioServiceTest {
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private DespesaRepository despesaRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    private User user;
+    private Produto caneca;
+    private Produto camiseta;
+
+    @BeforeEach
+    void criarDados() {
+        user = dadosTeste.novoUsuarioAutenticado("relatorio");
+        caneca = dadosTeste.novoProduto(user, "Caneca", "CAN");
+        camiseta = dadosTeste.novoProduto(user, "Camiseta", "CAM");
+        estoqueService.registrarEntrada(new EntradaEstoque(caneca, 10, new BigDecimal("100.00"), "Fornecedor",
+                "REL-CAN-" + System.nanoTime(), "Produto", null, user));
+        estoqueService.registrarEntrada(new EntradaEstoque(camiseta, 10, new BigDecimal("200.00"), "Fornecedor",
+                "REL-CAM-" + System.nanoTime(), "Produto", null, user));
+
+        // Janeiro e março com vendas, fevereiro vazio; 1º de abril fica fora do intervalo [jan, abr)
+        vender("1", caneca, "AMAZON", LocalDateTime.of(2024, 1, 10, 9, 0), 50.0);
+        vender("2", camiseta, "SHOPEE", LocalDateTime.of(2024, 1, 31, 23, 59), 80.0);
+        vender("3", caneca, "AMAZON", LocalDateTime.of(2024, 3, 5, 12, 0), 50.0);
+        vender("4", caneca, "AMAZON", LocalDateTime.of(2024, 4, 1, 0, 0), 50.0);
+
+        despesaRepository.save(new Despesa("Aluguel", new BigDecimal("30.00"), LocalDate.of(2024, 2, 1),
+                "ALUGUEL", null, true, user));
+        despesaRepository.save(new Despesa("Fora", new BigDecimal("999.00"), LocalDate.of(2024, 4, 1),
+                "ALUGUEL", null, false, user));
+    }
+
+    private void vender(String sufixo, Produto produto, String plataforma, LocalDateTime data, double preco) {
+        Venda venda = new Venda("REL-" + user.getId() + "-" + sufixo, plataforma, 1, produto, preco,
+                0.0, 0.0, 0.0, 0.0, 0.0, user);
+        venda.setData(data);
+        estoqueService.registrarVendaPeps(venda);
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    @Test
+    void serieMensalPreencheMesesSemMovimentoERespeitaFimNaoIncluso() {
+        SerieTemporal serie = relatorioService.serieTemporal(user, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 4, 1),
+                Granularidade.MES, null, null);
+
+        assertEquals(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1)),
+                serie.getPeriodos());
+        SerieValores totais = serie.getTotais();
+        assertArrayEquals(new long[]{2, 0, 1}, totais.getVendas());
+        assertArrayEquals(new double[]{130.0, 0.0, 50.0}, totais.getFaturamento());
+        // Custo PEPS: caneca 10,00 e camiseta 20,00 por unidade
+        assertArrayEquals(new double[]{30.0, 0.0, 10.0}, totais.getCusto());
+        assertArrayEquals(new double[]{100.0, 0.0, 40.0}, totais.getLucro());
+        assertArrayEquals(new double[]{0.0, 30.0, 0.0}, totais.getDespesas());
+        assertArrayEquals(new double[]{100.0, -30.0, 40.0}, totais.getResultado());
+        assertNull(serie.getSeries());
+    }
+
+    @Test
+    void divisaoPorPlataformaEPorProduto() {
+        SerieTemporal porPlataforma = relatorioService.serieTemporal(user, LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 4, 1), Granularidade.TRIMESTRE, "plataforma", null);
+        assertEquals(List.of(LocalDate.of(2024, 1, 1)), porPlataforma.getPeriodos());
+        assertEquals(2, porPlataforma.getSeries().size());
+        assertEquals("AMAZON", porPlataforma.getSeries().get(0).getChave());
+        assertArrayEquals(new double[]{100.0}, porPlataforma.getSeries().get(0).getFaturamento());
+        assertArrayEquals(new double[]{80.0}, porPlataforma.getSeries().get(1).getFaturamento());
+        assertNull(porPlataforma.getSeries().get(0).getDespesas());
+
+        // Limite 1: a caneca (maior faturamento) fica, a camiseta vai para "Outros"
+        SerieTemporal porProduto = relatorioService.serieTemporal(user, LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 4, 1), Granularidade.MES, "produto", 1);
+        assertEquals(2, porProduto.getSeries().size());
+        assertEquals("Caneca", porProduto.getSeries().get(0).getRotulo());
+        assertArrayEquals(new long[]{1, 0, 1}, porProduto.getSeries().get(0).getUnidades());
+        assertEquals("outros", porProduto.getSeries().get(1).getChave());
+        assertArrayEquals(new double[]{80.0, 0.0, 0.0}, porProduto.getSeries().get(1).getFaturamento());
+    }
+
+    @Test
+    void semanaComecaNaSegundaEIntervaloInvalidoFalha() {
+        // 31/01/2024 é quarta-feira: a semana começa em 29/01
+        SerieTemporal serie = relatorioService.serieTemporal(user, LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 6),
+                Granularidade.SEMANA, null, null);
+        assertEquals(List.of(LocalDate.of(2024, 1, 29), LocalDate.of(2024, 2, 5)), serie.getPeriodos());
+        assertArrayEquals(new long[]{1, 0}, serie.getTotais().getVendas());
+
+        assertThrows(RuntimeException.class, () -> relatorioService.serieTemporal(user, LocalDate.of(2024, 2, 1),
+                LocalDate.of(2024, 2, 1), Granularidade.DIA, null, null));
+        assertThrows(RuntimeException.class, () -> relatorioService.serieTemporal(user, LocalDate.of(2000, 1, 1),
+                LocalDate.of(2024, 1, 1), Granularidade.DIA, null, null));
+        assertThrows(RuntimeException.class, () -> relatorioService.serieTemporal(user, LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 2, 1), Granularidade.DIA, "categoria", null));
+    }
+
+    @Test
+    void rankingPorMetricaGravadaAcompanhaEdicaoEFiltros() {
+        // Lucro líquido: camiseta 80 - 20 = 60; canecas 50 - 10 = 40 (empate desfeito pelo id)
+        List<VendaDTO> maiores = relatorioService.rankingVendas(user, "lucroLiquido", true, 2, null, null, null);
+        assertEquals(List.of("REL-" + user.getId() + "-2", "REL-" + user.getId() + "-4"),
+                maiores.stream().map(VendaDTO::getIdPedido).toList());
+        assertEquals(60.0, maiores.get(0).getLucroLiquido());
+
+        // ROI: camiseta 300%, canecas 400%
+        assertEquals("REL-" + user.getId() + "-2",
+                relatorioService.rankingVendas(user, "roi", false, 1, null, null, null).get(0).getIdPedido());
+
+        // Plataforma e período [jan, abr): só as canecas de janeiro e março
+        assertEquals(List.of("REL-" + user.getId() + "-1", "REL-" + user.getId() + "-3"),
+                relatorioService.rankingVendas(user, "faturamento", false, 10, "AMAZON",
+                        LocalDate.of(2024, 1, 1), LocalDate.of(2024, 4, 1)).stream().map(VendaDTO::getIdPedido).toList());
+
+        // Edição do preço: o banco recalcula as colunas e a venda passa a ser a de menor lucro
+        Venda existente = vendaRepository.findByIdPedidoAndUser("REL-" + user.getId() + "-1", user).orElseThrow();
+        Venda atualizada = new Venda(existente.getIdPedido(), "AMAZON", 1, caneca, 5.0, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+        atualizada.setData(existente.getData());
+        estoqueService.atualizarVenda(existente, atualizada);
+
+        VendaDTO menor = relatorioService.rankingVendas(user, "lucroLiquido", false, 1, null, null, null).get(0);
+        assertEquals("REL-" + user.getId() + "-1", menor.getIdPedido());
+        assertEquals(-5.0, menor.getLucroLiquido());
+
+        assertThrows(RuntimeException.class, () -> relatorioService.rankingVendas(user, "margem", true, 10, null, null, null));
+    }
+}
@@ -0,0 +1,182 @@
+package com.fernando.erp_vendas.service;
+
+import com.fernando.erp_vendas.DadosTeste;
+import com.fernando.erp_vendas.model.EntradaEstoque;
+import com.fernando.erp_vendas.model.ItemVenda;
+import com.fernando.erp_vendas.model.Produto;
+import com.fernando.erp_vendas.model.User;
+import com.fernando.erp_vendas.model.Venda;
+import com.fernando.erp_vendas.repository.EntradaEstoqueRepository;
+import com.fernando.erp_vendas.repository.ItemVendaRepository;
+import com.fernando.erp_vendas.repository.ProdutoRepository;
+import com.fernando.erp_vendas.repository.VendaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 🆕 STRESS: vendas simultâneas do mesmo produto nunca vendem mais do que o estoque dos lotes.
+// Demanda maior que o estoque, várias threads disparando ao mesmo tempo; ao final o que foi vendido
+// (itens PEPS) + o saldo dos lotes = estoque inicial, nenhum lote negativo e o saldo mantido do produto confere.
+// Requer PostgreSQL (spring.datasource.url).
+@SpringBootTest
+class ReservaEstoqueServiceStressTest {
+
+    private static final int THREADS = 16;
+    private static final int VENDAS = 80;
+    private static final int LOTES = 3;
+    private static final int UNIDADES_POR_LOTE = 10;
+
+    @Autowired
+    private DadosTeste dadosTeste;
+
+    @Autowired
+    private ReservaEstoqueService reservaEstoqueService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    @Autowired
+    private EntradaEstoqueRepository entradaEstoqueRepository;
+
+    @Autowired
+    private ItemVendaRepository itemVendaRepository;
+
+    @Autowired
+    private VendaRepository vendaRepository;
+
+    private User user;
+    private Produto produto;
+
+    @BeforeEach
+    void criarProdutoComLotes() {
+        user = dadosTeste.novoUsuarioAutenticado("stress-reserva");
+        produto = dadosTeste.novoProduto(user, "Produto disputado", "STRESS");
+        for (int i = 0; i < LOTES; i++) {
+            estoqueService.registrarEntrada(new EntradaEstoque(produto, UNIDADES_POR_LOTE,
+                    BigDecimal.valueOf(UNIDADES_POR_LOTE * (10 + i)), "Fornecedor", "STRESS-COMPRA-" + System.nanoTime(),
+                    "Produto", null, user));
+        }
+    }
+
+    @AfterEach
+    void limparDados() {
+        dadosTeste.excluirUsuarios(user);
+    }
+
+    // Uma instância da aplicação: a trava por produto serializa as vendas
+    @Test
+    void vendasConcorrentesComTravaNaoVendemAlemDoEstoque() throws Exception {
+        int vendidas = disparar(i -> reservaEstoqueService.registrarVenda(novaVenda(i)).getVenda().getQuantidade());
+
+        assertEquals(LOTES * UNIDADES_POR_LOTE, vendidas, "Toda unidade em estoque deve ser vendida uma única vez");
+        verificarConsistencia(vendidas);
+    }
+
+    // Duas instâncias da aplicação (travas independentes): o conflito entre elas é resolvido pela
+    // baixa condicional + repetição
+    @Test
+    void vendasConcorrentesEmDuasInstanciasNaoVendemAlemDoEstoque() throws Exception {
+        ReservaEstoqueService instanciaA = new ReservaEstoqueService(estoqueService, 64, 5000, 10, 5, 50);
+        ReservaEstoqueService instanciaB = new ReservaEstoqueService(estoqueService, 64, 5000, 10, 5, 50);
+
+        int vendidas = disparar(i -> (i % 2 == 0 ? instanciaA : instanciaB)
+                .registrarVenda(novaVenda(i)).getVenda().getQuantidade());
+
+        assertTrue(vendidas <= LOTES * UNIDADES_POR_LOTE, "Vendeu " + vendidas + " unidades além do estoque");
+        verificarConsistencia(vendidas);
+    }
+
+    // Sem trava nem repetição: a baixa condicional sozinha impede a venda em duplicidade
+    @Test
+    void baixaCondicionalSemTravaNaoVendeAlemDoEstoque() throws Exception {
+        int vendidas = disparar(i -> estoqueService.registrarVendaPeps(novaVenda(i)).getVenda().getQuantidade());
+
+        assertTrue(vendidas <= LOTES * UNIDADES_POR_LOTE, "Vendeu " + vendidas + " unidades além do estoque");
+        verificarConsistencia(vendidas);
+    }
+
+    // Dispara VENDAS vendas de 1 unidade em THREADS threads, todas liberadas ao mesmo tempo.
+    // Retorna as unidades vendidas; só estoque insuficiente e conflito de concorrência são falhas esperadas.
+    private int disparar(IntFunction<Integer> venda) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger vendidas = new AtomicInteger();
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int i = 0; i < VENDAS; i++) {
+            int indice = i;
+            tarefas.add(executor.submit(() -> {
+                DadosTeste.autenticar(user);
+                try {
+                    largada.await();
+                    vendidas.addAndGet(venda.apply(indice));
+                } catch (ConcurrencyFailureException e) {
+                    // conflito não resolvido: nada foi gravado
+                } catch (RuntimeException e) {
+                    assertTrue(e.getMessage().startsWith("Estoque insuficiente"), "Falha inesperada: " + e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return vendidas.get();
+    }
+
+    private void verificarConsistencia(int vendidas) {
+        int estoqueInicial = LOTES * UNIDADES_POR_LOTE;
+
+        List<EntradaEstoque> lotes = entradaEstoqueRepository.findByProdutoAndUserOrderByDataEntradaAsc(produto, user);
+        int saldoLotes = 0;
+        BigDecimal valorLotes = BigDecimal.ZERO;
+        for (EntradaEstoque lote : lotes) {
+            assertTrue(lote.getSaldo() >= 0, "Lote " + lote.getId() + " com saldo negativo: " + lote.getSaldo());
+            saldoLotes += lote.getSaldo();
+            valorLotes = valorLotes.add(lote.getCustoUnitario().multiply(BigDecimal.valueOf(lote.getSaldo())));
+        }
+
+        int unidadesItens = itemVendaRepository.findByUser(user).stream().mapToInt(ItemVenda::getQuantidade).sum();
+        List<Venda> vendas = vendaRepository.findByUser(user);
+        int unidadesVendas = vendas.stream().mapToInt(Venda::getQuantidade).sum();
+
+        assertEquals(vendidas, unidadesVendas, "Vendas gravadas divergem das confirmadas");
+        assertEquals(vendidas, unidadesItens, "Itens PEPS divergem das vendas");
+        assertEquals(estoqueInicial, saldoLotes + unidadesItens, "Saldo dos lotes + vendido deve ser o estoque inicial");
+
+        Produto atualizado = produtoRepository.findByIdAndUser(produto.getId(), user).orElseThrow();
+        assertEquals(saldoLotes, atualizado.getQuantidadeEstoqueTotal(), "Saldo mantido do produto diverge dos lotes");
+        assertEquals(0, valorLotes.compareTo(atualizado.getValorEstoqueTotal()), "Valor mantido do produto diverge dos lotes");
+    }
+
+    private Venda novaVenda(int indice) {
+        return new Venda("STRESS-PEDIDO-" + user.getId() + "-" + indice, "AMAZON", 1, produto,
+                100.0, 0.0, 0.0, 0.0, 0.0, 0.0, user);
+    }
+}